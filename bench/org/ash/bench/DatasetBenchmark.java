@@ -0,0 +1,142 @@
+/*
+ *-------------------
+ * The DatasetBenchmark.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.ash.util.RingTableXYDataset;
+import org.jfree.data.xy.CategoryTableXYDataset;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The Class DatasetBenchmark.
+ *
+ * Update of dataset of live chart on each 15 sec: values of 13 wait
+ * classes are added for new time and the oldest time is removed, as
+ * ASHDatabase updateDataset and deleteValuesFromDataset: jfree
+ * CategoryTableXYDataset (before) and RingTableXYDataset, listeners
+ * of it are notified once per update.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DatasetBenchmark {
+
+	/** The series (wait classes and CPU). */
+	private static final String[] SERIES = {"CPU used", "Scheduler",
+		"User I/O", "System I/O", "Concurrency", "Application", "Commit",
+		"Configuration", "Administrative", "Network", "Queueing", "Cluster",
+		"Other"};
+
+	/** The count of 15 sec points in window (260 - 65 min). */
+	@Param({"260", "2000"})
+	private int points;
+
+	/** The dataset. */
+	private CategoryTableXYDataset dataset;
+
+	/** The ring dataset. */
+	private RingTableXYDataset ring;
+
+	/** The random. */
+	private Random random = new Random(42);
+
+	/** The time of next point. */
+	private double time;
+
+	/** The time of next point (ring dataset). */
+	private double timeRing;
+
+	/**
+	 * Fill window.
+	 */
+	@Setup
+	public void setup() {
+		dataset = new CategoryTableXYDataset();
+		ring = new RingTableXYDataset(points * 2);
+		time = 0;
+		timeRing = 0;
+		for (int i = 0; i < points; i++) {
+			addPoint();
+			addPointRing();
+		}
+	}
+
+	/**
+	 * Add new point, remove the oldest.
+	 *
+	 * @return the count of points
+	 */
+	@Benchmark
+	public int update() {
+		addPoint();
+		dataset.removeRow(dataset.getX(0, 0));
+		return dataset.getItemCount();
+	}
+
+	/**
+	 * Add new point, remove the oldest (ring dataset).
+	 *
+	 * @return the count of points
+	 */
+	@Benchmark
+	public int updateRing() {
+		addPointRing();
+		ring.expire(ring.getXValue(0, 0));
+		ring.fireDatasetChange();
+		return ring.getItemCount();
+	}
+
+	/**
+	 * Add values of all series for next time.
+	 */
+	private void addPoint() {
+		for (int i = 0; i < SERIES.length; i++) {
+			dataset.add(time, random.nextInt(10), SERIES[i]);
+		}
+		time += 15000;
+	}
+
+	/**
+	 * Add values of all series for next time (ring dataset).
+	 */
+	private void addPointRing() {
+		for (int i = 0; i < SERIES.length; i++) {
+			ring.add(timeRing, random.nextInt(10), SERIES[i]);
+		}
+		timeRing += 15000;
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ *-------------------
+ * The HistoryPreviewBenchmark.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.ash.database.DatabaseSynthetic;
+import org.ash.history.ASHDatabaseH;
+import org.jfree.data.xy.CategoryTableXYDataset;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sleepycat.je.DatabaseException;
+
+/**
+ * The Class HistoryPreviewBenchmark.
+ *
+ * Preview chart of history (whole local BDB): synthetic ASH with
+ * 15 sec sums is saved by collector, then opened as history.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class HistoryPreviewBenchmark {
+
+	/** The count of hours of history. */
+	@Param({"1", "12"})
+	private int hours;
+
+	/** The directory of BDB. */
+	private File dir;
+
+	/** The history database. */
+	private ASHDatabaseH databaseH;
+
+	/**
+	 * Save history and open it.
+	 *
+	 * @throws DatabaseException the database exception
+	 * @throws SQLException the SQL exception
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	@Setup
+	public void setup() throws DatabaseException, SQLException, IOException {
+		dir = SyntheticAsh.newTempDir("ash-history");
+
+		double startTime = Math.floor(System.currentTimeMillis() / 15000) * 15000;
+		SyntheticAsh ash = new SyntheticAsh(20, 1000, 0.3,
+				SyntheticAsh.getMix("oltp"), startTime, 42);
+		DatabaseSynthetic database = ash.newDatabase(dir);
+		ash.load(database, hours * 3600, true);
+		database.getDao().loadAshCalcSumByEventById15SecOnRun(startTime,
+				ash.getSampleTime(), database);
+		database.close();
+
+		databaseH = new ASHDatabaseH();
+		databaseH.initialize(dir.getPath());
+	}
+
+	/**
+	 * Close and delete BDB.
+	 */
+	@TearDown
+	public void tearDown() {
+		databaseH.close();
+		SyntheticAsh.delete(dir);
+	}
+
+	/**
+	 * Load preview chart.
+	 *
+	 * @return the dataset
+	 */
+	@Benchmark
+	public CategoryTableXYDataset preview() {
+		CategoryTableXYDataset dataset = new CategoryTableXYDataset();
+		databaseH.loadDataToChartPanelDataSetPreview(dataset);
+		return dataset;
+	}
+}
@@ -0,0 +1,110 @@
+/*
+ *-------------------
+ * The IngestBenchmark.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.bench;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.ash.database.DatabaseSynthetic;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The Class IngestBenchmark.
+ *
+ * Load of one latency (15 samples) of synthetic ASH to local BDB by the
+ * collector of 11g (DatabaseSynthetic), rows as entities or rows of
+ * sample as one block. Each iteration starts with empty BDB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IngestBenchmark {
+
+	/** The count of samples of one load. */
+	private static final int SAMPLES = 15;
+
+	/** The count of sessions. */
+	@Param({"50", "500"})
+	private int sessions;
+
+	/** The wait class mix (oltp, io, cpu). */
+	@Param({"oltp"})
+	private String mix;
+
+	/** The format of rows (row, block). */
+	@Param({"row", "block"})
+	private String format;
+
+	/** The directory of BDB. */
+	private File dir;
+
+	/** The database (Oracle is not used). */
+	private DatabaseSynthetic database;
+
+	/** The generator. */
+	private SyntheticAsh ash;
+
+	/**
+	 * Open empty BDB.
+	 */
+	@Setup(Level.Iteration)
+	public void setup() {
+		dir = SyntheticAsh.newTempDir("ash-ingest");
+		ash = new SyntheticAsh(sessions, 1000, 0.3,
+				SyntheticAsh.getMix(mix), System.currentTimeMillis(), 42);
+		database = ash.newDatabase(dir);
+	}
+
+	/**
+	 * Close and delete BDB.
+	 */
+	@TearDown(Level.Iteration)
+	public void tearDown() {
+		database.close();
+		SyntheticAsh.delete(dir);
+	}
+
+	/**
+	 * Load samples of one latency.
+	 *
+	 * @return the count of rows
+	 */
+	@Benchmark
+	public int ingest() {
+		return ash.load(database, SAMPLES, format.equals("block"));
+	}
+}
@@ -0,0 +1,216 @@
+/*
+ *-------------------
+ * The RollupBenchmark.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.bench;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.ash.database.AshDataAccessor;
+import org.ash.database.AshRollup;
+import org.ash.database.DatabaseSynthetic;
+import org.ash.datamodel.ActiveSessionHistory;
+import org.ash.datamodel.AshIdTime;
+import org.ash.util.Utils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.sleepycat.je.DatabaseException;
+import com.sleepycat.persist.EntityCursor;
+
+/**
+ * The Class RollupBenchmark.
+ *
+ * 15 sec sums by wait class for 5 min of live chart: scan of rows in
+ * local BDB (as loadAshCalcSumByEventById15Sec without rollup) vs sums
+ * of AshRollup, and the cost to add rows of 5 min to AshRollup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RollupBenchmark {
+
+	/** The 15 sec. */
+	private static final double BUCKET = 15000;
+
+	/** The count of samples (5 min). */
+	private static final int SAMPLES = 300;
+
+	/** The count of sessions. */
+	@Param({"50", "500"})
+	private int sessions;
+
+	/** The wait class mix (oltp, io, cpu). */
+	@Param({"oltp", "io"})
+	private String mix;
+
+	/** The directory of BDB. */
+	private File dir;
+
+	/** The database (Oracle is not used). */
+	private DatabaseSynthetic database;
+
+	/** The dao. */
+	private AshDataAccessor dao;
+
+	/** The rows by sample. */
+	private List<List<ActiveSessionHistory>> samples =
+		new ArrayList<List<ActiveSessionHistory>>();
+
+	/** The sample times. */
+	private double[] sampleTimes = new double[SAMPLES];
+
+	/** The rollup with rows of all samples. */
+	private AshRollup rollup;
+
+	/** The begin time. */
+	private double beginTime;
+
+	/**
+	 * Load 5 min of synthetic ASH to BDB and rollup.
+	 *
+	 * @throws DatabaseException the database exception
+	 */
+	@Setup
+	public void setup() throws DatabaseException {
+		dir = SyntheticAsh.newTempDir("ash-rollup");
+		beginTime = Math.floor(System.currentTimeMillis() / BUCKET) * BUCKET;
+		SyntheticAsh ash = new SyntheticAsh(sessions, 1000, 0.3,
+				SyntheticAsh.getMix(mix), beginTime, 42);
+		for (int i = 0; i < SAMPLES; i++) {
+			sampleTimes[i] = ash.getSampleTime();
+			samples.add(ash.nextSample());
+		}
+
+		SyntheticAsh bdb = new SyntheticAsh(sessions, 1000, 0.3,
+				SyntheticAsh.getMix(mix), beginTime, 42);
+		database = bdb.newDatabase(dir);
+		dao = database.getDao();
+		bdb.load(database, SAMPLES, false);
+		dao.sync();
+
+		rollup = addAll(new AshRollup());
+	}
+
+	/**
+	 * Close and delete BDB.
+	 */
+	@TearDown
+	public void tearDown() {
+		database.close();
+		SyntheticAsh.delete(dir);
+	}
+
+	/**
+	 * Sums of 15 sec buckets from rows of local BDB.
+	 *
+	 * @param bh the blackhole
+	 * @throws DatabaseException the database exception
+	 */
+	@Benchmark
+	public void scanRows(Blackhole bh) throws DatabaseException {
+		for (int b = 0; b < SAMPLES / 15; b++) {
+			double from = beginTime + b * BUCKET;
+			double[] sum = new double[AshRollup.SIZE];
+
+			EntityCursor<AshIdTime> cursor = dao.doRangeQuery(
+					dao.getAshBySampleTime(), from, true, from + BUCKET, false);
+			Iterator<AshIdTime> iter = cursor.iterator();
+			while (iter.hasNext()) {
+				Iterator<ActiveSessionHistory> rows = dao
+						.getActiveSessionHistoryBySampleId(iter.next().getsampleId())
+						.iterator();
+				while (rows.hasNext()) {
+					ActiveSessionHistory row = rows.next();
+					if (row.getWaitTime() != 0) {
+						sum[AshRollup.CPU]++;
+						sum[AshRollup.COUNT_AAS]++;
+					}
+					int index = Utils.getWaitClassIndex(row.getWaitClassId());
+					if (index != -1) {
+						sum[index]++;
+						sum[AshRollup.COUNT_AAS]++;
+					}
+				}
+			}
+			cursor.close();
+			bh.consume(sum);
+		}
+	}
+
+	/**
+	 * Sums of 15 sec buckets from rollup.
+	 *
+	 * @param bh the blackhole
+	 */
+	@Benchmark
+	public void rollupSum(Blackhole bh) {
+		for (int b = 0; b < SAMPLES / 15; b++) {
+			double from = beginTime + b * BUCKET;
+			bh.consume(rollup.getSum(from, from + BUCKET));
+		}
+	}
+
+	/**
+	 * Add rows of 5 min to rollup (cost on load).
+	 *
+	 * @return the rollup
+	 */
+	@Benchmark
+	public AshRollup rollupAdd() {
+		return addAll(new AshRollup());
+	}
+
+	/**
+	 * Add rows of all samples to rollup.
+	 *
+	 * @param out the rollup
+	 * @return the rollup
+	 */
+	private AshRollup addAll(AshRollup out) {
+		for (int i = 0; i < SAMPLES; i++) {
+			List<ActiveSessionHistory> rows = samples.get(i);
+			for (int j = 0; j < rows.size(); j++) {
+				ActiveSessionHistory row = rows.get(j);
+				out.add(sampleTimes[i], row.getWaitTime(), row.getWaitClassId(),
+						row.getEvent());
+			}
+		}
+		return out;
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ *-------------------
+ * The SqlsSessionsBenchmark.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.bench;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.ash.database.DatabaseSynthetic;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sleepycat.je.DatabaseException;
+
+/**
+ * The Class SqlsSessionsBenchmark.
+ *
+ * Top SQL and Top sessions of 5 min window of auto selection, window is
+ * moved by 15 sec on each call (as each run of collector): full
+ * calculateSqlsSessionsData vs sliding window. One iteration is
+ * BATCH moves from the same begin.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, batchSize = SqlsSessionsBenchmark.BATCH)
+@Measurement(iterations = 10, batchSize = SqlsSessionsBenchmark.BATCH)
+@Fork(1)
+public class SqlsSessionsBenchmark {
+
+	/** The count of moves of window in one iteration. */
+	static final int BATCH = 20;
+
+	/** The move of window. */
+	private static final double STEP = 15000;
+
+	/** The window of auto selection (5 min). */
+	private static final double WINDOW = 300000;
+
+	/** The count of samples (1 hour). */
+	private static final int SAMPLES = 3600;
+
+	/** The count of sessions. */
+	@Param({"50", "500"})
+	private int sessions;
+
+	/** The count of sql ids. */
+	@Param({"100", "10000"})
+	private int sqls;
+
+	/** The directory of BDB. */
+	private File dir;
+
+	/** The database (Oracle is not used). */
+	private DatabaseSynthetic database;
+
+	/** The time of first sample. */
+	private double startTime;
+
+	/** The begin of window. */
+	private double beginTime;
+
+	/**
+	 * Load 1 hour of synthetic ASH to local BDB.
+	 *
+	 * @throws DatabaseException the database exception
+	 */
+	@Setup
+	public void setup() throws DatabaseException {
+		dir = SyntheticAsh.newTempDir("ash-sqls");
+		startTime = System.currentTimeMillis();
+		SyntheticAsh ash = new SyntheticAsh(sessions, sqls, 0.3,
+				SyntheticAsh.getMix("oltp"), startTime, 42);
+		database = ash.newDatabase(dir);
+		ash.load(database, SAMPLES, false);
+		database.getDao().sync();
+	}
+
+	/**
+	 * Move window to begin.
+	 */
+	@Setup(Level.Iteration)
+	public void setupIteration() {
+		beginTime = startTime + WINDOW;
+	}
+
+	/**
+	 * Close and delete BDB.
+	 */
+	@TearDown
+	public void tearDown() {
+		database.close();
+		SyntheticAsh.delete(dir);
+	}
+
+	/**
+	 * Calculate whole window.
+	 *
+	 * @return the count of sql ids
+	 */
+	@Benchmark
+	public int full() {
+		database.getSqlsTemp().clear();
+		database.getSessionsTemp().clear();
+		database.calculateSqlsSessionsData(beginTime, beginTime + WINDOW, "All");
+		beginTime += STEP;
+		return database.getSqlsTemp().getSizeMainSqls();
+	}
+
+	/**
+	 * Calculate new slice of window only.
+	 *
+	 * @return the count of sql ids
+	 */
+	@Benchmark
+	public int window() {
+		database.calculateSqlsSessionsDataWindow(beginTime, beginTime + WINDOW);
+		beginTime += STEP;
+		return database.getSqlsTemp().getSizeMainSqls();
+	}
+}
@@ -0,0 +1,166 @@
+/*
+ *-------------------
+ * The SyntheticAsh.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.bench;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.ash.database.AshSample;
+import org.ash.database.DatabaseSynthetic;
+import org.ash.database.SyntheticSampleSource;
+import org.ash.datamodel.ActiveSessionHistory;
+import org.ash.util.Options;
+
+/**
+ * The Class SyntheticAsh.
+ *
+ * Samples of SyntheticSampleSource (one sample per second, the same seed
+ * gives the same rows) and helpers to load them to local BDB.
+ */
+public class SyntheticAsh {
+
+	/** The index of CPU in mix. */
+	public static final int CPU = SyntheticSampleSource.CPU;
+
+	/** The source of samples. */
+	private SyntheticSampleSource source;
+
+	/**
+	 * Instantiates a new synthetic ash.
+	 *
+	 * @param sessions the count of sessions
+	 * @param sqls the count of sql ids
+	 * @param activeRatio the part of active sessions in sample
+	 * @param mix the weights of wait classes 0..12 and CPU (13)
+	 * @param startTime the time of first sample
+	 * @param seed the seed
+	 */
+	public SyntheticAsh(int sessions, int sqls, double activeRatio,
+			double[] mix, double startTime, long seed) {
+		this.source = new SyntheticSampleSource(sessions, sqls, activeRatio,
+				mix, startTime, seed);
+	}
+
+	/**
+	 * Gets the weights of wait classes and CPU by name.
+	 *
+	 * @param name oltp, io or cpu
+	 * @return the weights of wait classes 0..12 and CPU (13)
+	 */
+	public static double[] getMix(String name) {
+		return SyntheticSampleSource.getMix(name);
+	}
+
+	/**
+	 * Gets the sample id of next sample.
+	 *
+	 * @return the sample id
+	 */
+	public long getSampleId() {
+		return source.getSampleId();
+	}
+
+	/**
+	 * Gets the sample time of next sample.
+	 *
+	 * @return the sample time
+	 */
+	public double getSampleTime() {
+		return source.getSampleTime();
+	}
+
+	/**
+	 * Rows of next sample.
+	 *
+	 * @return the rows
+	 */
+	public List<ActiveSessionHistory> nextSample() {
+		return source.nextSample().getRows();
+	}
+
+	/**
+	 * New database in directory, samples are loaded to its local BDB by
+	 * the collector of 11g (see load).
+	 *
+	 * @param dir the directory of BDB
+	 * @return the database
+	 */
+	public DatabaseSynthetic newDatabase(File dir) {
+		return new DatabaseSynthetic(source, dir.getPath());
+	}
+
+	/**
+	 * Load samples to local BDB by the loader of rows of
+	 * v$active_session_history (Database11g1.loadAshRows).
+	 *
+	 * @param database the database
+	 * @param samples the count of samples
+	 * @param isBlock save rows of sample as one block (compact storage)
+	 * @return the count of rows
+	 */
+	public int load(DatabaseSynthetic database, int samples, boolean isBlock) {
+		List<AshSample> list = new ArrayList<AshSample>(samples);
+		for (int i = 0; i < samples; i++) {
+			list.add(source.nextSample());
+		}
+		boolean isCompactStorage = Options.getInstance().isCompactStorage();
+		Options.getInstance().setCompactStorage(isBlock);
+		try {
+			return database.loadSamples(list);
+		} finally {
+			Options.getInstance().setCompactStorage(isCompactStorage);
+		}
+	}
+
+	/**
+	 * New temporary directory for BDB.
+	 *
+	 * @param prefix the prefix
+	 * @return the directory
+	 */
+	public static File newTempDir(String prefix) {
+		File dir = new File(System.getProperty("java.io.tmpdir"),
+				prefix + System.nanoTime());
+		dir.mkdirs();
+		return dir;
+	}
+
+	/**
+	 * Delete directory with files.
+	 *
+	 * @param dir the directory
+	 */
+	public static void delete(File dir) {
+		File[] files = dir.listFiles();
+		if (files != null) {
+			for (int i = 0; i < files.length; i++) {
+				if (files[i].isDirectory()) {
+					delete(files[i]);
+				} else {
+					files[i].delete();
+				}
+			}
+		}
+		dir.delete();
+	}
+}
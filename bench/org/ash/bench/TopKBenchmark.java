@@ -0,0 +1,176 @@
+/*
+ *-------------------
+ * The TopKBenchmark.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.bench;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.ash.datatemp.SqlsTemp;
+import org.ash.util.TopK;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The Class TopKBenchmark.
+ *
+ * Top 100 sqls of Top SQL panel: old sort of map (values and keys are
+ * sorted separately and matched by toString) vs top k of map vs top k
+ * of primitive counters of SqlsTemp.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TopKBenchmark {
+
+	/** The COUNT. */
+	private static final String COUNT = "COUNT";
+
+	/** The count of sql ids. */
+	@Param({"1000", "20000"})
+	private int sqls;
+
+	/** The count of rows in Top SQL panel. */
+	@Param({"100"})
+	private int k;
+
+	/** The sqls temp. */
+	private SqlsTemp sqlsTemp;
+
+	/** The map of sqls (as getMainSqls). */
+	private HashMap<String, HashMap<String, Object>> mainSqls;
+
+	/**
+	 * Load sqls temp with skewed counts (many equal values).
+	 */
+	@Setup
+	public void setup() {
+		Random random = new Random(42);
+		sqlsTemp = new SqlsTemp();
+		for (int i = 0; i < sqls; i++) {
+			String sqlId = "sql" + i;
+			int rows = 1 + (int) (Math.abs(random.nextGaussian()) * 10);
+			sqlsTemp.setSqlId(sqlId);
+			for (int j = 0; j < rows; j++) {
+				sqlsTemp.setTimeOfGroupEvent(sqlId, 0, 1, 0, 1);
+				sqlsTemp.setTimeOfEventName(sqlId, 0, 1, 0, "event" + (j % 5), 1);
+			}
+		}
+		mainSqls = sqlsTemp.getMainSqls();
+	}
+
+	/**
+	 * Old sort, passed map is changed so a copy is sorted.
+	 */
+	@Benchmark
+	public LinkedHashMap<String, HashMap<String, Object>> sortHashMapByValues() {
+		return sortHashMapByValuesOld(
+				new HashMap<String, HashMap<String, Object>>(mainSqls), COUNT);
+	}
+
+	/**
+	 * Copy of map, to subtract from sortHashMapByValues.
+	 */
+	@Benchmark
+	public HashMap<String, HashMap<String, Object>> copyMap() {
+		return new HashMap<String, HashMap<String, Object>>(mainSqls);
+	}
+
+	/**
+	 * Top k of map.
+	 */
+	@Benchmark
+	public LinkedHashMap<String, HashMap<String, Object>> topOfMap() {
+		return TopK.top(mainSqls, COUNT, k);
+	}
+
+	/**
+	 * Top k of primitive counters, maps are built for top k only.
+	 */
+	@Benchmark
+	public LinkedHashMap<String, HashMap<String, Object>> topOfCounters() {
+		return sqlsTemp.getTopSqls(k);
+	}
+
+	/**
+	 * Utils.sortHashMapByValues before TopK.
+	 *
+	 * @param passedMap the passed map
+	 * @param key0 COUNT or SUM
+	 * @return LinkedHashMap
+	 */
+	private static LinkedHashMap<String, HashMap<String, Object>> sortHashMapByValuesOld(
+			HashMap<String, HashMap<String, Object>> passedMap, String key0) {
+
+		List mapKeys = new ArrayList();
+		List mapValues = new ArrayList();
+
+		for (Entry<String, HashMap<String, Object>> me : passedMap.entrySet()) {
+			mapKeys.add(me.getKey());
+			mapValues.add(me.getValue().get(key0));
+		}
+
+		Collections.sort(mapValues);
+		Collections.sort(mapKeys);
+		Collections.reverse(mapValues);
+
+		LinkedHashMap<String, HashMap<String, Object>> sortedMap = new LinkedHashMap<String, HashMap<String, Object>>();
+
+		Iterator valueIt = mapValues.iterator();
+		while (valueIt.hasNext()) {
+			Object val = valueIt.next();
+			Iterator keyIt = mapKeys.iterator();
+
+			while (keyIt.hasNext()) {
+				Object key = keyIt.next();
+				String comp1 = passedMap.get(key).get(key0).toString();
+				String comp2 = val.toString();
+
+				if (comp1.equals(comp2)) {
+					sortedMap.put((String) key, passedMap.get(key));
+					passedMap.remove(key);
+					mapKeys.remove(key);
+					break;
+				}
+			}
+		}
+		return sortedMap;
+	}
+}
@@ -0,0 +1,386 @@
+/*
+ *-------------------
+ * The MainDaemon.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash;
+
+import java.io.File;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+import org.ash.conn.model.Model;
+import org.ash.conn.settings.ConnectionProfile;
+import org.ash.conn.settings.DbConnection;
+import org.ash.database.ASHDatabase;
+import org.ash.database.AshSampleSource;
+import org.ash.database.Database10g11gSE;
+import org.ash.database.Database10g1;
+import org.ash.database.Database10g2;
+import org.ash.database.Database11g1;
+import org.ash.database.Database8i;
+import org.ash.database.Database9i;
+import org.ash.database.DatabaseSynthetic;
+import org.ash.database.ReplaySampleSource;
+import org.ash.database.SyntheticSampleSource;
+import org.ash.invoker.CollectorDaemon;
+import org.ash.util.Options;
+
+/**
+ * The Class MainDaemon.
+ *
+ * Headless collector, no windows are created. ASH data of each profile is
+ * stored to profile directory (profile name/ddMMyyyyHHmms, for RAC
+ * profile name/ddMMyyyyHHmms_instN) and can be opened on History tab
+ * of ASH Viewer. All profiles are collected by one pool of threads
+ * with one BDB cache.
+ *
+ * Usage: MainDaemon profile_name[,profile_name...] [latency_sec] [bdb_cache_percent] [threads] [retention_days] [compact_storage] [dimension_index]
+ *
+ * Compact storage of ASH rows and index of dimensions are on by default
+ * (true|false).
+ *
+ * Load and soak tests without Oracle, profile name is one of
+ * synthetic[:sessions[:active_percent[:sqls[:interval_ms[:oltp|io|cpu]]]]]
+ * replay:file[:speed] (CSV of v$active_session_history with header)
+ * Dataset of chart is updated after each load of these targets.
+ */
+public class MainDaemon {
+
+	/** The FILESEPARATOR. */
+	private static final String FILESEPARATOR = System.getProperty("file.separator");
+
+	/** The profile name of synthetic ASH. */
+	private static final String SYNTHETIC = "synthetic";
+
+	/** The profile name of replay of recorded ASH. */
+	private static final String REPLAY = "replay";
+
+	/** The latency is 15 sec.*/
+	private int latency = 15000;
+
+	/** The BDB cache size (shared by all targets), percent of heap. */
+	private int cachePercent = 5;
+
+	/** The count of threads for all targets. */
+	private int threads = 4;
+
+	/** The days to keep ASH data, 0 - keep all. */
+	private int retentionDays = 0;
+
+	/** The compact storage of ASH rows (columnar blocks). */
+	private boolean compactStorage = true;
+
+	/** The index of samples by dimensions of ASH rows. */
+	private boolean dimensionIndex = true;
+
+	/** The models (connection pools) of targets. */
+	private List<Model> models = new ArrayList<Model>();
+
+	/** The collector. */
+	private CollectorDaemon collector;
+
+	/**
+	 * Instantiates a new main daemon.
+	 *
+	 * @param args the arguments
+	 */
+	public MainDaemon(String[] args) {
+
+		String[] profiles = args[0].split(",");
+		if (args.length > 1) {
+			latency = Integer.parseInt(args[1]) * 1000;
+		}
+		if (args.length > 2) {
+			cachePercent = Integer.parseInt(args[2]);
+		}
+		if (args.length > 3) {
+			threads = Integer.parseInt(args[3]);
+		}
+		if (args.length > 4) {
+			retentionDays = Integer.parseInt(args[4]);
+		}
+		if (args.length > 5) {
+			compactStorage = Boolean.valueOf(args[5]).booleanValue();
+		}
+		if (args.length > 6) {
+			dimensionIndex = Boolean.valueOf(args[6]).booleanValue();
+		}
+
+		Options.getInstance().setDateFormat("dd.MM.yyyy hh:mm:ss");
+		Options.getInstance().setLanguage(Locale.getDefault().getLanguage());
+		Options.getInstance().setCachePercent(cachePercent);
+		Options.getInstance().setSharedCache(true);
+		Options.getInstance().setRetentionDays(retentionDays);
+		Options.getInstance().setCompactStorage(compactStorage);
+		Options.getInstance().setDimensionIndex(dimensionIndex);
+
+		DateFormat dateFormatDB = new SimpleDateFormat("ddMMyyyyHHmms");
+		String storageDirName = dateFormatDB.format(new Long(new Date().getTime()));
+
+		this.collector = new CollectorDaemon(threads);
+
+		for (int i = 0; i < profiles.length; i++) {
+			String profileName = profiles[i].trim();
+			if (profileName.startsWith(SYNTHETIC) || profileName.startsWith(REPLAY + ":")) {
+				addSyntheticProfile(profileName, storageDirName);
+			} else {
+				addProfile(profileName.replace(' ', '_'), storageDirName);
+			}
+		}
+
+		if (this.collector.getDatabases().isEmpty()) {
+			System.out.println("No profiles to collect");
+			System.exit(1);
+		}
+
+		/** Stop collector and close local databases on exit */
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+			public void run() {
+				shutdown();
+			}
+		});
+
+		/** Start collector */
+		this.collector.start();
+	}
+
+	/**
+	 * Add profile to collector, one target for each instance of RAC.
+	 *
+	 * @param profileName the profile name
+	 * @param storageDirName the name of storage directory
+	 */
+	private void addProfile(String profileName, String storageDirName) {
+
+		/** Load connection profile */
+		DbConnection c = null;
+		try {
+			c = new ConnectionProfile().readProfile(
+					new File("profile" + FILESEPARATOR + profileName + ".ini"));
+		} catch (Exception e) {
+			System.out.println("Error on loading connection profile "
+					+ profileName + ": " + e.getMessage());
+			return;
+		}
+
+		/** Initialize connection pool to Oracle database */
+		Model model = new Model();
+		model.connectionPoolInit("oracle.jdbc.pool.OracleDataSource",
+				c.getUrlDescription(), c.getUsername(), c.getPassword());
+
+		if (model.getErrorMessage() != null) {
+			System.out.println("Sql error (" + profileName + "): "
+					+ model.getErrorMessage());
+			return;
+		}
+		this.models.add(model);
+
+		String versionOracleDB = model.getVersionDB();
+		String envDir = profileName + FILESEPARATOR + storageDirName;
+
+		/** ASH is emulated by sampling of active sessions */
+		if (versionOracleDB.equalsIgnoreCase("9i")) {
+			addTarget(c.getName(), new Database9i(model, createStorageDir(envDir)), true);
+			return;
+		}
+		if (versionOracleDB.equalsIgnoreCase("8i")) {
+			addTarget(c.getName(), new Database8i(model, createStorageDir(envDir)), true);
+			return;
+		}
+		if (!c.getEdition().equalsIgnoreCase("EE")) {
+			addTarget(c.getName(), new Database10g11gSE(model, createStorageDir(envDir)), true);
+			return;
+		}
+
+		/** GV$ACTIVE_SESSION_HISTORY, one target for each instance of RAC */
+		List<Integer> instIds = model.getInstanceIds();
+		if (instIds.size() <= 1) {
+			addTarget(c.getName(),
+				createDatabase(model, versionOracleDB, createStorageDir(envDir), 0), false);
+		} else {
+			Iterator<Integer> iter = instIds.iterator();
+			while (iter.hasNext()) {
+				int instId = iter.next();
+				addTarget(c.getName() + " inst " + instId,
+					createDatabase(model, versionOracleDB,
+						createStorageDir(envDir + "_inst" + instId), instId), false);
+			}
+		}
+	}
+
+	/**
+	 * Add target without Oracle (synthetic sessions or replay of recorded ASH).
+	 *
+	 * @param profileName the profile name
+	 * @param storageDirName the name of storage directory
+	 */
+	private void addSyntheticProfile(String profileName, String storageDirName) {
+
+		String[] params = profileName.split(":");
+		AshSampleSource source = null;
+		String dirName = null;
+		double startTime = new Date().getTime();
+
+		try {
+			if (params[0].equalsIgnoreCase(REPLAY)) {
+				String fileName = profileName.substring(REPLAY.length() + 1);
+				double speed = 1;
+				int colon = fileName.lastIndexOf(':');
+				if (colon > 0) {
+					try {
+						speed = Double.parseDouble(fileName.substring(colon + 1));
+						fileName = fileName.substring(0, colon);
+					} catch (NumberFormatException e) {
+						// Colon is part of file name
+					}
+				}
+				File file = new File(fileName);
+				source = new ReplaySampleSource(file, startTime, speed, 0);
+				dirName = REPLAY + "_" + file.getName();
+			} else {
+				int sessions = params.length > 1 ? Integer.parseInt(params[1]) : 2000;
+				double activeRatio = params.length > 2 ? Integer.parseInt(params[2]) / 100.0 : 0.1;
+				int sqls = params.length > 3 ? Integer.parseInt(params[3]) : 500;
+				double interval = params.length > 4 ? Integer.parseInt(params[4]) : 1000;
+				String mix = params.length > 5 ? params[5] : "oltp";
+				source = new SyntheticSampleSource(sessions, sqls, activeRatio,
+						SyntheticSampleSource.getMix(mix), startTime, interval,
+						System.currentTimeMillis());
+				dirName = profileName.replace(':', '_');
+			}
+		} catch (Exception e) {
+			System.out.println("Error on loading profile "
+					+ profileName + ": " + e.getMessage());
+			return;
+		}
+
+		String envDir = dirName + FILESEPARATOR + storageDirName;
+		addTarget(profileName, new DatabaseSynthetic(source,
+				createStorageDir(envDir)), false, true);
+	}
+
+	/**
+	 * Add target to collector.
+	 *
+	 * @param name the name of target
+	 * @param database the database
+	 * @param isSampled true, if ASH is emulated by sampling of active sessions
+	 */
+	private void addTarget(String name, ASHDatabase database, boolean isSampled) {
+		addTarget(name, database, isSampled, false);
+	}
+
+	/**
+	 * Add target to collector.
+	 *
+	 * @param name the name of target
+	 * @param database the database
+	 * @param isSampled true, if ASH is emulated by sampling of active sessions
+	 * @param isChart true, if dataset of chart is updated after each load
+	 */
+	private void addTarget(String name, ASHDatabase database, boolean isSampled,
+			boolean isChart) {
+		this.collector.addTarget(name, database, this.latency, isSampled, isChart);
+
+		System.out.println(new Date() + " ASH collector target added: "
+				+ name + ", " + Options.getInstance().getEnvDir());
+	}
+
+	/**
+	 * Create database for 10g/11g EE.
+	 *
+	 * @param model the model
+	 * @param versionOracleDB the version of Oracle DB
+	 * @param envDir the directory of BDB
+	 * @param instId the instance number, 0 for V$ACTIVE_SESSION_HISTORY
+	 * @return the database
+	 */
+	private ASHDatabase createDatabase(Model model, String versionOracleDB,
+			String envDir, int instId) {
+		if (versionOracleDB.equalsIgnoreCase("10g1")) {
+			return new Database10g1(model, envDir, instId);
+		} else if (versionOracleDB.equalsIgnoreCase("10g2")) {
+			return new Database10g2(model, envDir, instId);
+		} else {
+			return new Database11g1(model, envDir, instId);
+		}
+	}
+
+	/**
+	 * Create storage directory.
+	 *
+	 * @param envDir the directory of BDB
+	 * @return the directory of BDB
+	 */
+	private String createStorageDir(String envDir) {
+		File dirRootDatabase = new File(envDir);
+		dirRootDatabase.mkdirs();
+		Options.getInstance().setEnvDir(dirRootDatabase.toString());
+		return dirRootDatabase.toString();
+	}
+
+	/**
+	 * Stop collector, close local databases and connections.
+	 */
+	private synchronized void shutdown() {
+		if (this.collector != null) {
+			this.collector.stop();
+			Iterator<ASHDatabase> iter = this.collector.getDatabases().iterator();
+			while (iter.hasNext()) {
+				iter.next().close();
+			}
+			this.collector = null;
+		}
+		Iterator<Model> iterModel = this.models.iterator();
+		while (iterModel.hasNext()) {
+			Model model = iterModel.next();
+			model.closeConnections();
+			model.closeConnectionPool();
+		}
+		this.models.clear();
+		System.out.println(new Date() + " ASH collector stopped");
+	}
+
+	/**
+	 * The main method.
+	 *
+	 * @param args the arguments
+	 */
+	public static void main(String[] args) {
+		System.setProperty("java.awt.headless", "true");
+
+		if (args.length < 1) {
+			System.out.println("Usage: MainDaemon profile_name[,profile_name...]"
+					+ " [latency_sec] [bdb_cache_percent] [threads] [retention_days]"
+					+ " [compact_storage] [dimension_index]");
+			System.out.println("compact_storage, dimension_index: true|false"
+					+ " (default true)");
+			System.out.println("Without Oracle: synthetic[:sessions[:active_percent"
+					+ "[:sqls[:interval_ms[:oltp|io|cpu]]]]] or replay:file[:speed]");
+			System.exit(1);
+		}
+		new MainDaemon(args);
+	}
+}
@@ -2,12 +2,12 @@
  *-------------------
  * The ConnectionPool.java is part of ASH Viewer
  *-------------------
- * 
+ *
  * ASH Viewer is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
  * the Free Software Foundation, either version 3 of the License, or
  * (at your option) any later version.
- * 
+ *
  * ASH Viewer is distributed in the hope that it will be useful,
  * but WITHOUT ANY WARRANTY; without even the implied warranty of
  * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
@@ -15,38 +15,125 @@
  *
  * You should have received a copy of the GNU General Public License
  * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
- * 
+ *
  * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
  *
  */
 package org.ash.conn.model;
 
-import java.sql.*;
-import java.util.*;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import oracle.jdbc.OracleConnection;
+
+import org.ash.util.Utils;
 
 /**
  * The Class ConnectionPool.
+ *
+ * Borrow and return do not lock: idle connections are in a lock-free
+ * queue, the count of borrowed connections is limited by a semaphore
+ * (wait for free connection is bounded by BORROW_TIMEOUT). Connections
+ * idle for VALIDATE_IDLE are checked by query before borrow, idle
+ * connections are checked and evicted by a background thread. Oracle
+ * implicit statement cache is enabled for each connection, so statements
+ * prepared again by the same text are reused.
  */
-public class ConnectionPool implements Runnable{
-	
+public class ConnectionPool {
+
+	/** The time to wait for free connection (millisec). */
+	private static final long BORROW_TIMEOUT = 30000;
+
+	/** The idle time after which connection is checked before borrow (millisec). */
+	private static final long VALIDATE_IDLE = 30000;
+
+	/** The idle time after which connection over initial connections is closed (millisec). */
+	private static final long IDLE_TIMEOUT = 300000;
+
+	/** The period of background check of idle connections (millisec). */
+	private static final long MAINTENANCE_PERIOD = 60000;
+
+	/** The timeout of check query (sec). */
+	private static final int VALIDATION_TIMEOUT = 5;
+
+	/** The check query. */
+	private static final String VALIDATION_QUERY = "SELECT 1 FROM dual";
+
+	/** The count of statements in cache of connection. */
+	private static final int STATEMENT_CACHE_SIZE = 30;
+
 	/** The password. */
 	private String driver, url, username, password;
 
+	/** The initial connections (are not evicted). */
+	private int initialConnections;
+
 	/** The max connections. */
 	private int maxConnections;
 
 	/** The wait if busy. */
 	private boolean waitIfBusy;
 
+	/** The permits to borrow, one for each of max connections. */
+	private Semaphore permits;
+
+	/** The idle connections. */
+	private ConcurrentLinkedQueue<PooledConnection> idleConnections =
+		new ConcurrentLinkedQueue<PooledConnection>();
+
 	/** The busy connections. */
-	private Vector availableConnections, busyConnections;
+	private ConcurrentHashMap<Connection, PooledConnection> busyConnections =
+		new ConcurrentHashMap<Connection, PooledConnection>();
+
+	/** The count of open connections. */
+	private AtomicInteger openConnections = new AtomicInteger();
+
+	/** The thread of background checks. */
+	private ScheduledExecutorService maintenance;
+
+	/** Is pool closed. */
+	private volatile boolean closed = false;
 
-	/** The connection pending. */
-	private boolean connectionPending = false;
+	/** The count of borrows. */
+	private AtomicLong borrows = new AtomicLong();
+
+	/** The count of borrows waited for free connection (waitIfBusy only). */
+	private AtomicLong waits = new AtomicLong();
+
+	/** The count of borrows failed by timeout. */
+	private AtomicLong timeouts = new AtomicLong();
+
+	/** The total time of borrows (nanosec). */
+	private AtomicLong borrowNanos = new AtomicLong();
+
+	/** The max time of borrow (nanosec). */
+	private AtomicLong maxBorrowNanos = new AtomicLong();
+
+	/** The count of new connections. */
+	private AtomicLong created = new AtomicLong();
+
+	/** The count of connections closed by failed check. */
+	private AtomicLong invalid = new AtomicLong();
+
+	/** The count of connections closed by idle timeout. */
+	private AtomicLong evicted = new AtomicLong();
 
 	/**
 	 * Instantiates a new connection pool.
-	 * 
+	 *
 	 * @param driver the driver
 	 * @param url the url
 	 * @param username the username
@@ -54,7 +141,7 @@ public class ConnectionPool implements Runnable{
 	 * @param initialConnections the initial connections
 	 * @param maxConnections the max connections
 	 * @param waitIfBusy the wait if busy
-	 * 
+	 *
 	 * @throws SQLException the SQL exception
 	 */
 	public ConnectionPool(String driver, String url, String username,
@@ -69,112 +156,92 @@ public class ConnectionPool implements Runnable{
 		if (initialConnections > maxConnections) {
 			initialConnections = maxConnections;
 		}
-		availableConnections = new Vector(initialConnections);
-		busyConnections = new Vector();
+		this.initialConnections = initialConnections;
+		this.permits = new Semaphore(maxConnections);
+
 		for (int i = 0; i < initialConnections; i++) {
-			availableConnections.addElement(makeNewConnection());
+			idleConnections.offer(new PooledConnection(makeNewConnection()));
 		}
+
+		maintenance = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "ConnectionPool");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		maintenance.scheduleWithFixedDelay(new Runnable() {
+			public void run() {
+				checkIdleConnections();
+			}
+		}, MAINTENANCE_PERIOD, MAINTENANCE_PERIOD, TimeUnit.MILLISECONDS);
 	}
 
 	/**
 	 * Gets the connection.
-	 * 
+	 *
 	 * @return the connection
-	 * 
+	 *
 	 * @throws SQLException the SQL exception
 	 */
-	public synchronized Connection getConnection() throws SQLException {
-		if (!availableConnections.isEmpty()) {
-
-			Connection existingConnection = (Connection) availableConnections
-					.lastElement();
-			int lastIndex = availableConnections.size() - 1;
-			availableConnections.removeElementAt(lastIndex);
-			// If connection on available list is closed (e.g.,
-			// it timed out), then remove it from available list
-			// and repeat the process of obtaining a connection.
-			// Also wake up threads that were waiting for a
-			// connection because maxConnection limit was reached.
-			if (existingConnection.isClosed()) {
-				notifyAll(); // Freed up a spot for anybody waiting
-				return (getConnection());
-			} else {
-				busyConnections.addElement(existingConnection);
-				return (existingConnection);
-			}
-		} else {
-			// Three possible cases:
-			// 1) You havent reached maxConnections limit. So
-			// establish one in the background if there isnt
-			// already one pending, then wait for
-			// the next available connection (whether or not
-			// it was the newly established one).
-			// 2) You reached maxConnections limit and waitIfBusy
-			// flag is false. Throw SQLException in such a case.
-			// 3) You reached maxConnections limit and waitIfBusy
-			// flag is true. Then do the same thing as in second
-			// part of step 1: wait for next available connection.
-			if ((totalConnections() < maxConnections) && !connectionPending) {
-				makeBackgroundConnection();
-			} else if (!waitIfBusy) {
+	public Connection getConnection() throws SQLException {
+		long start = System.nanoTime();
+
+		if (closed) {
+			throw new SQLException("Connection pool is closed");
+		}
+
+		if (!permits.tryAcquire()) {
+			if (!waitIfBusy) {
 				throw new SQLException("Connection limit reached");
 			}
-			// Wait for either a new connection to be established
-			// (if you called makeBackgroundConnection) or for
-			// an existing connection to be freed up.
+			waits.incrementAndGet();
+			boolean isAcquired = false;
 			try {
-				wait();
-			} catch (InterruptedException ie) {
+				isAcquired = permits.tryAcquire(BORROW_TIMEOUT, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			if (!isAcquired) {
+				timeouts.incrementAndGet();
+				throw new SQLException("Timeout of waiting for connection, " + this);
 			}
-			// Someone freed up a connection, so try again.
-			return (getConnection());
-		}
-	}
-
-	// You cant just make a new connection in the foreground
-	// when none are available, since this can take several
-	// seconds with a slow network connection. Instead,
-	// start a thread that establishes a new connection,
-	// then wait. You get woken up either when the new connection
-	// is established or if someone finishes with an existing
-	// connection.
-	/**
-	 * Make background connection.
-	 */
-	private void makeBackgroundConnection() {
-		connectionPending = true;
-		try {
-			Thread connectThread = new Thread(this);
-			connectThread.start();
-		} catch (OutOfMemoryError oome) {
-			// Give up on new connection
 		}
-	}
 
-	/* (non-Javadoc)
-	 * @see org.oonline.conn.model.AbstractConnectionPool#run()
-	 */
-	public void run() {
+		PooledConnection pooled = null;
 		try {
-			Connection connection = makeNewConnection();
-			synchronized (this) {
-				availableConnections.addElement(connection);
-				connectionPending = false;
-				notifyAll();
+			// Connection on idle list may be closed (e.g. it timed out)
+			long now = System.currentTimeMillis();
+			while ((pooled = idleConnections.poll()) != null) {
+				if (isAlive(pooled, now)) {
+					break;
+				}
+				invalid.incrementAndGet();
+				closeConnection(pooled);
+			}
+			if (pooled == null) {
+				pooled = new PooledConnection(makeNewConnection());
 			}
-		} catch (Exception e) { // SQLException or OutOfMemory
-			// Give up on new connection and wait for existing one
-			// to free up.
+		} catch (SQLException e) {
+			permits.release();
+			throw e;
+		} catch (RuntimeException e) {
+			permits.release();
+			throw e;
 		}
+
+		busyConnections.put(pooled.connection, pooled);
+		addBorrow(System.nanoTime() - start);
+
+		return pooled.connection;
 	}
 
 	/**
-	 * This explicitly makes a new connection. Called in
-	 * the foreground when initializing the ConnectionPool,
-	 * and called in the background when running.
-	 * 
+	 * This explicitly makes a new connection. Called when
+	 * initializing the ConnectionPool and when no connection is idle.
+	 *
 	 * @return the connection
-	 * 
+	 *
 	 * @throws SQLException the SQL exception
 	 */
 	private Connection makeNewConnection() throws SQLException {
@@ -186,19 +253,24 @@ public class ConnectionPool implements Runnable{
 					password);
 			// set module and action name for session
 			setModuleActionName(connection);
-						
+			// reuse statements prepared by the same text
+			setStatementCache(connection);
+
+			openConnections.incrementAndGet();
+			created.incrementAndGet();
+
 			return (connection);
-			
+
 		} catch (ClassNotFoundException cnfe) {
 			// Simplify try/catch blocks of people using this by
 			// throwing only one exception type.
-			throw new SQLException("Cant find class for driver: " + driver);
+			throw new SQLException("Can't find class for driver: " + driver);
 		}
 	}
 
 	/**
 	 * Sets the module action name DBMS_APPLICATION_INFO.SET_MODULE
-	 * 
+	 *
 	 * @param conn the new module action name
 	 */
 	private void setModuleActionName(Connection conn) {
@@ -219,65 +291,313 @@ public class ConnectionPool implements Runnable{
 			}
 		}
 	}
-	
-	
+
+	/**
+	 * Enable Oracle implicit statement cache, closed statements are kept
+	 * in cache of connection.
+	 *
+	 * @param conn the connection
+	 */
+	private void setStatementCache(Connection conn) {
+		if (conn instanceof OracleConnection) {
+			try {
+				((OracleConnection) conn).setImplicitCachingEnabled(true);
+				((OracleConnection) conn).setStatementCacheSize(STATEMENT_CACHE_SIZE);
+			} catch (SQLException ex) {
+			}
+		}
+	}
+
 	/**
 	 * Free the connection
-	 * 
+	 *
 	 * @param connection the connection
 	 */
-	public synchronized void free(Connection connection) {
-		busyConnections.removeElement(connection);
-		availableConnections.addElement(connection);
-		// Wake up threads that are waiting for a connection
-		notifyAll();
+	public void free(Connection connection) {
+		if (connection == null) {
+			return;
+		}
+		// Not borrowed from this pool or already freed
+		PooledConnection pooled = busyConnections.remove(connection);
+		if (pooled == null) {
+			return;
+		}
+
+		pooled.lastUsed = System.currentTimeMillis();
+		if (closed || isClosed(pooled)) {
+			closeConnection(pooled);
+		} else {
+			idleConnections.offer(pooled);
+			if (closed) {
+				closeIdleConnections();
+			}
+		}
+		permits.release();
 	}
 
 	/**
 	 * Get number of total connections.
-	 * 
+	 *
 	 * @return the int
 	 */
-	public synchronized int totalConnections() {
-		return (availableConnections.size() + busyConnections.size());
+	public int totalConnections() {
+		return openConnections.get();
+	}
+
+	/**
+	 * Get number of borrowed connections.
+	 *
+	 * @return the int
+	 */
+	public int busyConnections() {
+		return busyConnections.size();
+	}
+
+	/**
+	 * Get number of idle connections.
+	 *
+	 * @return the int
+	 */
+	public int idleConnections() {
+		return idleConnections.size();
+	}
+
+	/**
+	 * @return the count of borrows
+	 */
+	public long getBorrows() {
+		return borrows.get();
+	}
+
+	/**
+	 * @return the count of borrows waited for free connection
+	 */
+	public long getWaits() {
+		return waits.get();
+	}
+
+	/**
+	 * @return the count of borrows failed by timeout
+	 */
+	public long getTimeouts() {
+		return timeouts.get();
+	}
+
+	/**
+	 * @return the average time of borrow (millisec)
+	 */
+	public double getAvgBorrowMillis() {
+		long count = borrows.get();
+		return count == 0 ? 0.0 : borrowNanos.get() / 1000000.0 / count;
+	}
+
+	/**
+	 * @return the max time of borrow (millisec)
+	 */
+	public double getMaxBorrowMillis() {
+		return maxBorrowNanos.get() / 1000000.0;
+	}
+
+	/**
+	 * Close all connections, the pool can be used after that.
+	 */
+	public void closeAllConnections() {
+		closeIdleConnections();
+		Iterator<PooledConnection> iter = busyConnections.values().iterator();
+		while (iter.hasNext()) {
+			PooledConnection pooled = iter.next();
+			iter.remove();
+			closeConnection(pooled);
+			permits.release();
+		}
+	}
+
+	/**
+	 * Close pool: stop background checks, close idle connections.
+	 * Busy connections are closed when freed.
+	 */
+	public void close() {
+		closed = true;
+		maintenance.shutdown();
+		closeIdleConnections();
+	}
+
+	/**
+	 * Close idle connections.
+	 */
+	private void closeIdleConnections() {
+		PooledConnection pooled;
+		while ((pooled = idleConnections.poll()) != null) {
+			closeConnection(pooled);
+		}
 	}
 
 	/**
-	 * Close all connections.
+	 * Check idle connections by query, close connections idle over
+	 * IDLE_TIMEOUT (initial connections are kept). A connection under
+	 * check holds a permit, so borrows do not open connections over
+	 * max connections meanwhile; the check stops when all are borrowed.
 	 */
-	public synchronized void closeAllConnections() {
-		closeConnections(availableConnections);
-		availableConnections = new Vector();
-		closeConnections(busyConnections);
-		busyConnections = new Vector();
+	private void checkIdleConnections() {
+		int count = idleConnections.size();
+		for (int i = 0; i < count && !closed; i++) {
+			if (!permits.tryAcquire()) {
+				break;
+			}
+			try {
+				PooledConnection pooled = idleConnections.poll();
+				if (pooled == null) {
+					break;
+				}
+				long now = System.currentTimeMillis();
+				if (now - pooled.lastUsed > IDLE_TIMEOUT
+						&& openConnections.get() > initialConnections) {
+					evicted.incrementAndGet();
+					closeConnection(pooled);
+				} else if (!validate(pooled, now)) {
+					invalid.incrementAndGet();
+					closeConnection(pooled);
+				} else {
+					idleConnections.offer(pooled);
+				}
+			} finally {
+				permits.release();
+			}
+		}
+		if (closed) {
+			closeIdleConnections();
+		}
 	}
 
 	/**
-	 * Close connections.
-	 * 
-	 * @param connections the connections
+	 * Checks if idle connection can be borrowed, connection idle over
+	 * VALIDATE_IDLE is checked by query.
+	 *
+	 * @param pooled the connection
+	 * @param now the current time
+	 * @return true, if is alive
 	 */
-	private void closeConnections(Vector connections) {
+	private boolean isAlive(PooledConnection pooled, long now) {
+		if (isClosed(pooled)) {
+			return false;
+		}
+		if (now - Math.max(pooled.lastUsed, pooled.lastValidated) > VALIDATE_IDLE) {
+			return validate(pooled, now);
+		}
+		return true;
+	}
+
+	/**
+	 * Check connection by query.
+	 *
+	 * @param pooled the connection
+	 * @param now the current time
+	 * @return true, if is valid
+	 */
+	private boolean validate(PooledConnection pooled, long now) {
+		Statement stmt = null;
 		try {
-			for (int i = 0; i < connections.size(); i++) {
-				Connection connection = (Connection) connections.elementAt(i);
-				if (!connection.isClosed()) {
-					connection.close();
+			stmt = pooled.connection.createStatement();
+			stmt.setQueryTimeout(VALIDATION_TIMEOUT);
+			stmt.executeQuery(VALIDATION_QUERY).close();
+			pooled.lastValidated = now;
+			return true;
+		} catch (SQLException ex) {
+			return false;
+		} finally {
+			try {
+				if (stmt != null) {
+					stmt.close();
 				}
+			} catch (SQLException ex) {
+			}
+		}
+	}
+
+	/**
+	 * Checks if connection is closed.
+	 *
+	 * @param pooled the connection
+	 * @return true, if is closed
+	 */
+	private boolean isClosed(PooledConnection pooled) {
+		try {
+			return pooled.connection.isClosed();
+		} catch (SQLException ex) {
+			return true;
+		}
+	}
+
+	/**
+	 * Close connection.
+	 *
+	 * @param pooled the connection
+	 */
+	private void closeConnection(PooledConnection pooled) {
+		openConnections.decrementAndGet();
+		try {
+			if (!pooled.connection.isClosed()) {
+				pooled.connection.close();
 			}
 		} catch (SQLException sqle) {
 			// Ignore errors; garbage collect anyhow
 		}
 	}
 
+	/**
+	 * Add time of borrow to metrics.
+	 *
+	 * @param nanos the time of borrow
+	 */
+	private void addBorrow(long nanos) {
+		borrows.incrementAndGet();
+		borrowNanos.addAndGet(nanos);
+		long max = maxBorrowNanos.get();
+		while (nanos > max && !maxBorrowNanos.compareAndSet(max, nanos)) {
+			max = maxBorrowNanos.get();
+		}
+	}
+
 	/* (non-Javadoc)
-	 * @see org.oonline.conn.model.AbstractConnectionPool#toString()
+	 * @see java.lang.Object#toString()
 	 */
 	@Override
-	public synchronized String toString() {
+	public String toString() {
 		String info = "ConnectionPool(" + url + "," + username + ")"
-				+ ", available=" + availableConnections.size() + ", busy="
-				+ busyConnections.size() + ", max=" + maxConnections;
+				+ ", available=" + idleConnections.size() + ", busy="
+				+ busyConnections.size() + ", max=" + maxConnections
+				+ ", borrows=" + borrows.get() + ", waits=" + waits.get()
+				+ ", timeouts=" + timeouts.get()
+				+ ", avg borrow " + Utils.round(getAvgBorrowMillis(), 1) + " ms"
+				+ ", max borrow " + Utils.round(getMaxBorrowMillis(), 1) + " ms"
+				+ ", created=" + created.get() + ", invalid=" + invalid.get()
+				+ ", evicted=" + evicted.get();
 		return (info);
 	}
+
+	/**
+	 * The Class PooledConnection (connection and time of last use).
+	 */
+	private static class PooledConnection {
+
+		/** The connection. */
+		final Connection connection;
+
+		/** The time of last free. */
+		volatile long lastUsed;
+
+		/** The time of last check by query. */
+		volatile long lastValidated;
+
+		/**
+		 * Instantiates a new pooled connection.
+		 *
+		 * @param connection the connection
+		 */
+		PooledConnection(Connection connection) {
+			this.connection = connection;
+			this.lastUsed = System.currentTimeMillis();
+			this.lastValidated = this.lastUsed;
+		}
+	}
 }
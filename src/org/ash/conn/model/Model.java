@@ -292,6 +292,41 @@ public class Model {
 		}
 	}
 	
+	/**
+	 * Gets the instance numbers of database (SELECT inst_id FROM gv$instance).
+	 * @return the instance numbers, empty list on error
+	 */
+	public List<Integer> getInstanceIds() {
+		List<Integer> instIds = new ArrayList<Integer>();
+		try {
+	
+			Connection conn = connectionPool.getConnection();
+			
+			ResultSet retval = null;
+			PreparedStatement stmt = 
+				conn.prepareStatement("SELECT inst_id FROM " +
+						"gv$instance ORDER BY inst_id");
+			
+			retval = stmt.executeQuery();
+			
+			while (retval.next()) {
+				instIds.add(retval.getInt("INST_ID"));
+			}
+			
+			stmt.close();
+			
+			if (conn != null) {
+				connectionPool.free(conn);
+			} else {
+				connectionPool.closeAllConnections();
+			}
+			
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		return instIds;
+	}
+	
 	/**
 	 * Get DBID and instance number for ASH Report
 	 * @param param 0 - get dbid, 1 - get instance number
@@ -437,6 +472,9 @@ public class Model {
 	 * Close connection pool.
 	 */
 	public synchronized void closeConnectionPool() {
+		if (connectionPool != null) {
+			connectionPool.close();
+		}
 		connectionPool = null;
 	}
 
@@ -70,9 +70,32 @@ public class ConnectionProfile {
    */
   private void loadProfileV(JFrame parent,File file,ArrayList conns,Vector connNames) {
     try {
+      DbConnection c = readProfile(file);
+      conns.add(c);
+      connNames.add(c.getName());
+
+    } catch (Exception ex) {
+      ex.printStackTrace();
+      JOptionPane.showMessageDialog(
+          parent,
+          Options.getInstance().getResource("error on loading connections profile files.")+":\n"+ex.getMessage(),
+          Options.getInstance().getResource("error"),
+          JOptionPane.ERROR_MESSAGE
+      );
+    }
+  }
+
+  /**
+   * Read profile (.ini and .pwd files), no dialogs are shown.
+   * 
+   * @param file the .ini file
+   * 
+   * @return the db connection
+   * 
+   * @throws Exception the exception
+   */
+  public DbConnection readProfile(File file) throws Exception {
       // load .ini file...
-      String line = null;
-      int dbType;
       String name = null;
       String driver = null;
       String url = null;
@@ -98,18 +121,7 @@ public class ConnectionProfile {
       String password = Options.getInstance().decodeFromBytes(bb);
       in.close();
 
-      conns.add(new DbConnection(name,driver,url,username,password,edition));
-      connNames.add(name);
-
-    } catch (Exception ex) {
-      ex.printStackTrace();
-      JOptionPane.showMessageDialog(
-          parent,
-          Options.getInstance().getResource("error on loading connections profile files.")+":\n"+ex.getMessage(),
-          Options.getInstance().getResource("error"),
-          JOptionPane.ERROR_MESSAGE
-      );
-    }
+      return new DbConnection(name,driver,url,username,password,edition);
   }
 
 
@@ -93,6 +93,19 @@ public class DbConnection {
      return "jdbc:oracle:thin:@"+host+":"+port+":"+sid;
   }
 
+  /**
+   * Gets the url of dedicated connection to service (description format).
+   * 
+   * @return the url
+   */
+  public String getUrlDescription() {
+     return "jdbc:oracle:thin:"
+         + "@(description=(address=(host=" + getHost()
+         + ")(protocol=tcp)(port=" + getPort()
+         + "))(connect_data=(service_name=" + getSID()
+         + ")(server=DEDICATED)))";
+  }
+
   /**
    * Gets the host.
    * 
@@ -25,28 +25,34 @@ import com.sleepycat.je.CheckpointConfig;
 import com.sleepycat.je.DatabaseException;
 import com.sleepycat.je.Environment;
 import com.sleepycat.je.EnvironmentConfig;
+import com.sleepycat.je.Sequence;
 import com.sleepycat.persist.EntityCursor;
 import com.sleepycat.persist.EntityStore;
 import com.sleepycat.persist.StoreConfig;
+import org.ash.conn.model.ConnectionPool;
 import org.ash.conn.model.Model;
 import org.ash.datamodel.*;
 import org.ash.datatemp.SessionsTemp;
 import org.ash.datatemp.SqlsTemp;
 import org.ash.detail.StackedChartDetail;
+import org.ash.invoker.ChartRepaintScheduler;
+import org.ash.util.LruCache;
 import org.ash.util.Options;
+import org.ash.util.RingTableXYDataset;
+import org.ash.util.ThroughputCounter;
 import org.jdesktop.swingx.treetable.TreeTableModel;
-import org.jfree.data.xy.CategoryTableXYDataset;
 
-import javax.swing.table.DefaultTableModel;
 import java.io.File;
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The Class DatabaseMain.
@@ -98,11 +104,17 @@ public class ASHDatabase {
 	/** The sessions temp (detail). */
 	private SessionsTemp sessionsTempDetail;
 	
+	/** The sqls, sessions of sliding window (auto selection). */
+	private TopActivityWindow topActivityWindow;
+	
 	/** The current window. */
 	private Double currentWindow = 3900000.0;
 
 	/** The dataset. */
-	private CategoryTableXYDataset dataset = null;
+	private RingTableXYDataset dataset = null;
+	
+	/** The scheduler of repaint of charts (main and detail). */
+	private ChartRepaintScheduler chartRepaintScheduler = new ChartRepaintScheduler();
 	
 	/** The half range for one 15 sec storage (details)*/
 	private int rangeHalf = 7500;
@@ -115,6 +127,55 @@ public class ASHDatabase {
 	
 	/** The store of event Class and corresponding StackedXYAreaChartDetail object*/
 	private	HashMap<String, Boolean> storeEventAndIsAddPointsToLeftSideFlag;
+	
+	/** The rows per second of load ASH data to local BDB */
+	private ThroughputCounter ingestThroughput = new ThroughputCounter("ASH load");
+	
+	/** The count of ids reserved in sequence activeSessionHistoryId at once. */
+	private static final int ASH_ID_RANGE = 1000;
+	
+	/** The sequence activeSessionHistoryId. */
+	private Sequence ashIdSequence;
+	
+	/** The next reserved id of active session history. */
+	private long nextAshId = 0;
+	
+	/** The end of reserved ids of active session history. */
+	private long lastAshId = 0;
+	
+	/** The instance number for GV$ACTIVE_SESSION_HISTORY (RAC), 0 - V$ACTIVE_SESSION_HISTORY */
+	private int instId = 0;
+	
+	/** The parameter of local BDB: ASH data is aggregated on server, rows are not saved */
+	public static final String PARAM_AGGREGATE_ON_SERVER = "ASH.aggregateOnServer";
+	
+	/** The period of check of retention, 1 hour */
+	private static final long RETENTION_PERIOD = 3600000;
+	
+	/** The time of last check of retention */
+	private long lastRetention = 0;
+	
+	/** The executor of retention deletes, off the thread of collector */
+	private ExecutorService retentionExecutor;
+	
+	/** The lock of chart state: datasets, firstKeyForUpdate, detail maps */
+	private final Object chartLock = new Object();
+	
+	/** The loader of sql text from v$sql, null if sql text is not loaded */
+	private SqlTextResolver sqlTextResolver;
+	
+	/** The loader of sql plans from v$sql_plan, null if sql plans are not loaded */
+	private SqlPlanCapture sqlPlanCapture;
+	
+	/** The keys (planHashValue:sqlId) of plans in local BDB */
+	private Set<String> sqlPlanCaptured = new HashSet<String>();
+	
+	/** The count of sql plans in cache */
+	private static final int SQL_PLAN_CACHE_SIZE = 50;
+	
+	/** The cache of lines of sql plans by planHashValue:sqlId */
+	private Map<String, List<AshSqlPlanDetail>> sqlPlanLines =
+		new LruCache<String, List<AshSqlPlanDetail>>(SQL_PLAN_CACHE_SIZE);
 		
 	/**
 	 * Instantiates a new main database object.
@@ -122,11 +183,24 @@ public class ASHDatabase {
 	 * @param model0 the model0
 	 */
 	public ASHDatabase(Model model0) {
+		this(model0, Options.getInstance().getEnvDir(), 0);
+	}
+	
+	/**
+	 * Instantiates a new main database object (one of many targets
+	 * or instances of RAC in one process).
+	 * 
+	 * @param model0 the model0
+	 * @param envDir the directory of BDB
+	 * @param instId the instance number, 0 for V$ACTIVE_SESSION_HISTORY
+	 */
+	public ASHDatabase(Model model0, String envDir, int instId) {
 		
 		this.model = model0;
+		this.instId = instId;
 		
 		try {
-			this.initialize();
+			this.initialize(envDir);
 		} catch (DatabaseException e) {
 			e.printStackTrace();
 			System.exit(-1);
@@ -142,9 +216,18 @@ public class ASHDatabase {
 		this.sessionsTemp = new SessionsTemp(this.store, this.dao);
 		this.sqlsTempDetail = new SqlsTemp();
 		this.sessionsTempDetail = new SessionsTemp(this.store, this.dao);
+		this.topActivityWindow = new TopActivityWindow(this, this.store, this.dao);
 		
 		this.storeStackedXYAreaChartDetail = new HashMap<String, StackedChartDetail>();
 		this.storeEventAndIsAddPointsToLeftSideFlag = new HashMap<String, Boolean>();
+		
+		this.retentionExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "Retention");
+				t.setDaemon(true);
+				return t;
+			}
+		});
 	}
 	
 	/**
@@ -156,14 +239,29 @@ public class ASHDatabase {
 	 */
 	public void initialize() throws DatabaseException, SQLException,
 			IOException {
+		initialize(Options.getInstance().getEnvDir());
+	}
+	
+	/**
+	 * Initialize.
+	 * 
+	 * @param envDir the directory of BDB
+	 * 
+	 * @throws DatabaseException the database exception
+	 * @throws SQLException the SQL exception
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public void initialize(String envDir) throws DatabaseException, SQLException,
+			IOException {
 
 		/* Open a transactional Berkeley DB engine environment. */
 		envConfig = new EnvironmentConfig();
 		envConfig.setAllowCreate(true);
 		envConfig.setTransactional(false);
-		envConfig.setCachePercent(20); // Set BDB cache size = 20%
+		envConfig.setCachePercent(Options.getInstance().getCachePercent()); // Set BDB cache size, 20% default
+		envConfig.setSharedCache(Options.getInstance().isSharedCache()); // One cache for all targets
 		
-		env = new Environment(new File(Options.getInstance().getEnvDir()), envConfig);
+		env = new Environment(new File(envDir), envConfig);
 		
 		/* Open a transactional entity store. */
 		storeConfig = new StoreConfig();
@@ -182,6 +280,33 @@ public class ASHDatabase {
 	public void loadToLocalBDB() {		
 	}
 
+	/**
+	 * Get query of ASH data, V$ACTIVE_SESSION_HISTORY or
+	 * GV$ACTIVE_SESSION_HISTORY for one instance of RAC.
+	 * 
+	 * @param select the select list (SELECT ...)
+	 * @param isIncremental add condition SAMPLE_ID > ?
+	 * @return the query
+	 */
+	protected String getQueryAsh(String select, boolean isIncremental) {
+		if (instId == 0) {
+			return select + " FROM V$ACTIVE_SESSION_HISTORY"
+				+ (isIncremental ? " WHERE SAMPLE_ID > ?" : "");
+		} else {
+			return select + " FROM GV$ACTIVE_SESSION_HISTORY WHERE INST_ID = " + instId
+				+ (isIncremental ? " AND SAMPLE_ID > ?" : "");
+		}
+	}
+	
+	/**
+	 * Gets the instance number (RAC).
+	 * 
+	 * @return the instance number, 0 for V$ACTIVE_SESSION_HISTORY
+	 */
+	public int getInstId() {
+		return instId;
+	}
+
 	/**
 	 * Load to local bdb collector.
 	 */
@@ -189,9 +314,158 @@ public class ASHDatabase {
 	}
 	
 	/**
-	 * Load command type, sql_text from v$sql
+	 * Initialize loader of sql text from v$sql.
+	 * 
+	 * @param sqlIdColumn the column of id in v$sql (sql_id or hash_value)
+	 * @param isNumericId true, if id is a number
+	 */
+	protected void initSqlTextResolver(String sqlIdColumn, boolean isNumericId) {
+		this.sqlTextResolver = new SqlTextResolver(model, dao, sqlIdColumn, isNumericId);
+	}
+	
+	/**
+	 * Load command type, sql_text from v$sql (not loaded sql ids only)
 	 */
 	public void loadSqlTextCommandTypeFromDB(List<String>  arraySqlId){
+		if (sqlTextResolver != null) {
+			sqlTextResolver.resolve(arraySqlId);
+		}
+	}
+	
+	/**
+	 * Load command type, sql_text from v$sql in background.
+	 * 
+	 * @param arraySqlId the sql ids
+	 * @param onLoad called on the thread of loader when sql text is loaded
+	 */
+	public void loadSqlTextCommandTypeFromDBAsync(List<String> arraySqlId, Runnable onLoad){
+		if (sqlTextResolver != null) {
+			sqlTextResolver.resolveAsync(arraySqlId, onLoad);
+		} else {
+			onLoad.run();
+		}
+	}
+	
+	/**
+	 * Is sql text being loaded from v$sql.
+	 * 
+	 * @param sqlId the sql id
+	 * @return true, if is pending
+	 */
+	public boolean isSqlTextPending(String sqlId){
+		return sqlTextResolver != null && sqlTextResolver.isPending(sqlId);
+	}
+	
+	/**
+	 * Initialize loader of sql plans from v$sql_plan.
+	 */
+	protected void initSqlPlanCapture() {
+		this.sqlPlanCapture = new SqlPlanCapture(model, dao);
+	}
+	
+	/**
+	 * Load sql plans not in local storage from v$sql_plan by one query for
+	 * each SqlPlanCapture.BATCH_SIZE plans.
+	 * 
+	 * @param arraySqlId the sql ids
+	 * @param arrayPlanHashValue the plan hash values (same size as sql ids),
+	 *        null to read plan hash values of sql ids from v$sql (SE)
+	 */
+	protected void loadSqlPlanToLocalBDB(List<String> arraySqlId, List<Double> arrayPlanHashValue) {
+		if (sqlPlanCapture == null) {
+			return;
+		}
+		
+		if (arrayPlanHashValue == null) {
+			List<String> sqlIdsByPlan = new ArrayList<String>();
+			arrayPlanHashValue = new ArrayList<Double>();
+			sqlPlanCapture.loadPlanHashValues(arraySqlId, sqlIdsByPlan,
+					arrayPlanHashValue);
+			arraySqlId = sqlIdsByPlan;
+		}
+		
+		List<String> sqlIds = new ArrayList<String>();
+		List<Double> planHashValues = new ArrayList<Double>();
+		for (int i = 0; i < arraySqlId.size(); i++) {
+			String sqlId = arraySqlId.get(i);
+			if (!isSqlPlanCaptured(arrayPlanHashValue.get(i), sqlId)) {
+				sqlIds.add(sqlId);
+				planHashValues.add(arrayPlanHashValue.get(i));
+			}
+		}
+		if (sqlIds.isEmpty()) {
+			return;
+		}
+		
+		Set<String> loaded = sqlPlanCapture.load(sqlIds, planHashValues);
+		
+		synchronized (sqlPlanCaptured) {
+			sqlPlanCaptured.addAll(loaded);
+		}
+		synchronized (sqlPlanLines) {
+			sqlPlanLines.keySet().removeAll(loaded);
+		}
+	}
+	
+	/**
+	 * Is sql plan loaded to local storage, checked in local BDB once.
+	 * 
+	 * @param sqlPlanHashValue the plan hash value
+	 * @param sqlId the sql id
+	 * @return true, if plan is in local storage
+	 */
+	public boolean isSqlPlanCaptured(Double sqlPlanHashValue, String sqlId) {
+		String key = SqlPlanCapture.getKey(sqlPlanHashValue, sqlId);
+		synchronized (sqlPlanCaptured) {
+			if (sqlPlanCaptured.contains(key)) {
+				return true;
+			}
+		}
+		if (isSqlPlanHashValueExist(sqlPlanHashValue, sqlId)) {
+			synchronized (sqlPlanCaptured) {
+				sqlPlanCaptured.add(key);
+			}
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Return ExplainPlanModel for sql plan, a new model for each view
+	 * (lines of plan are cached by getSqlPlanLines).
+	 * 
+	 * @param sqlPlanHashValue the plan hash value
+	 * @param sqlId the sql id
+	 * @return the model
+	 */
+	public TreeTableModel getSqlPlanModel(Double sqlPlanHashValue, String sqlId) {
+		return getSqlPlanModelByPlanHashValue(sqlPlanHashValue, sqlId);
+	}
+	
+	/**
+	 * Get lines of sql plan from cache, lines are read from local BDB
+	 * once while the plan is in cache.
+	 * 
+	 * @param sqlPlanHashValue the plan hash value
+	 * @param sqlId the sql id
+	 * @return the lines (by id)
+	 */
+	protected List<AshSqlPlanDetail> getSqlPlanLines(Double sqlPlanHashValue, String sqlId) {
+		String key = SqlPlanCapture.getKey(sqlPlanHashValue, sqlId);
+		List<AshSqlPlanDetail> lines;
+		synchronized (sqlPlanLines) {
+			lines = sqlPlanLines.get(key);
+		}
+		if (lines == null) {
+			lines = Collections.unmodifiableList(
+					SqlPlanTreeBuilder.loadLines(dao, sqlPlanHashValue, sqlId));
+			if (!lines.isEmpty()) {
+				synchronized (sqlPlanLines) {
+					sqlPlanLines.put(key, lines);
+				}
+			}
+		}
+		return lines;
 	}
 	
 	/**
@@ -238,25 +512,15 @@ public class ASHDatabase {
 	   return null;
     }
 	
-	/**
-	 * Return ExplainPlanModel for bad depth in sql plan.
-	 * @param idLevel
-	 * @param sqlPlanHashValue
-	 * @param sqlId
-	 * @return
-	 */
-    public TreeTableModel getSqlPlanModelByPlanHashValueP(HashMap<Long, Long> idLevel,
-   		 									Double sqlPlanHashValue, String sqlId){
-    	return null;
-    }
-    
     /**
 	 * Load sql_text, sql_id from database.
 	 * 
 	 * @param array10
 	 */
 	public void loadSqlTextSqlIdFromDB(List<String> array10) {
-		
+		if (sqlTextResolver != null) {
+			sqlTextResolver.reload(array10);
+		}
 	}
     
     /**
@@ -317,6 +581,7 @@ public class ASHDatabase {
 		
 		if (sampleId == -1) { // first run
 			try {
+				dao.sync();
 				store.sync();
 				dao.loadAshCalcSumByEventById15SecOnRun
 					(lastKey - currentWindow, lastKey, this);
@@ -327,6 +592,7 @@ public class ASHDatabase {
 			}
 		} else { // subsequent runs
 			try {
+				dao.sync();
 				store.sync();
 				Double firstKey = dao.ashBySampleTime.sortedMap().lastKey();
 				
@@ -348,6 +614,63 @@ public class ASHDatabase {
 				e.printStackTrace();
 			}
 		}
+		
+		applyRetention();
+	}
+	
+	/**
+	 * Save rows of ASH, which are not saved yet (rows are saved by 
+	 * AshDataAccessor.putActiveSessionHistory in batches of whole samples).
+	 */
+	protected void flushAshRows() {
+		try {
+			dao.flushActiveSessionHistory();
+		} catch (DatabaseException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Gets next id of active session history for loader of ASH rows, ids
+	 * are reserved in sequence activeSessionHistoryId by range of
+	 * ASH_ID_RANGE (one seq.get for 1000 rows).
+	 * 
+	 * @return the id
+	 * @throws DatabaseException the database exception
+	 */
+	protected long nextActiveSessionHistoryId() throws DatabaseException {
+		if (ashIdSequence == null) {
+			ashIdSequence = store.getSequence("activeSessionHistoryId");
+		}
+		if (nextAshId == lastAshId) {
+			nextAshId = ashIdSequence.get(null, ASH_ID_RANGE);
+			lastAshId = nextAshId + ASH_ID_RANGE;
+		}
+		return nextAshId++;
+	}
+	
+	/**
+	 * Drop days of ASH data older than retention (once an hour).
+	 * Delete runs on retention thread, collector is not waiting for it.
+	 */
+	protected void applyRetention() {
+		int retentionDays = Options.getInstance().getRetentionDays();
+		if (retentionDays <= 0 
+				|| System.currentTimeMillis() - lastRetention < RETENTION_PERIOD) {
+			return;
+		}
+		lastRetention = System.currentTimeMillis();
+		
+		final double keepFrom = getSysdate() - retentionDays * 86400000.0;
+		retentionExecutor.execute(new Runnable() {
+			public void run() {
+				double maxSampleTime = 
+					dao.getPartitions().getMaxSampleTimeBefore(keepFrom);
+				if (maxSampleTime > 0) {
+					deleteData(0, (long) maxSampleTime);
+				}
+			}
+		});
 	}
 
 	/**
@@ -486,8 +809,9 @@ public class ASHDatabase {
 	 * 
 	 * @param _dataset the _dataset
 	 */
-	public void loadDataToChartPanelDataSet(CategoryTableXYDataset _dataset){
+	public void loadDataToChartPanelDataSet(RingTableXYDataset _dataset){
 		
+		synchronized (chartLock) {
 		try {
 		int i = 0;
 		this.dataset = _dataset;
@@ -512,10 +836,14 @@ public class ASHDatabase {
 		}
 		items.close();
 		
+		// Show in chart once
+		this.chartRepaintScheduler.publish();
+		
 		} catch (DatabaseException e) {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
 		}
+		}
 	}
 	
 	/**
@@ -526,8 +854,10 @@ public class ASHDatabase {
 	 */
 	public void saveStackedXYAreaChartDetail(StackedChartDetail detailValue,
 											 String waitClasskey){
-		this.storeStackedXYAreaChartDetail.put(waitClasskey, detailValue);
-		this.storeEventAndIsAddPointsToLeftSideFlag.put(waitClasskey, false);
+		synchronized (chartLock) {
+			this.storeStackedXYAreaChartDetail.put(waitClasskey, detailValue);
+			this.storeEventAndIsAddPointsToLeftSideFlag.put(waitClasskey, false);
+		}
 	}
 	
 	/**
@@ -535,7 +865,10 @@ public class ASHDatabase {
 	 * 
 	 */
 	public void initialLoadingDataToChartPanelDataSetDetail(){
-		this.loadDataToChartPanelDataSetDetail();
+		synchronized (chartLock) {
+			this.loadDataToChartPanelDataSetDetail();
+			this.chartRepaintScheduler.publish();
+		}
 	}
 		
 	/**
@@ -544,6 +877,11 @@ public class ASHDatabase {
 	 */
 	private void loadDataToChartPanelDataSetDetail(){
 		
+		// Detail charts are not created (collector without windows)
+		if (this.storeStackedXYAreaChartDetail.isEmpty()) {
+			return;
+		}
+		
 		try {
 		
 		String cpuUsed = Options.getInstance().getResource("cpuLabel.text");
@@ -572,10 +910,8 @@ public class ASHDatabase {
             	AshIdTime ashIdTimeMain = ashIdTimeIter.next();   
 
             	/* Do a filter on ActiveSessionHistory by SampleID (detail). */
-                EntityCursor<ActiveSessionHistory> ActiveSessionHistoryCursor = 
-                		dao.getActiveSessionHistoryByAshId().subIndex(ashIdTimeMain.getsampleId()).entities();
-                Iterator<ActiveSessionHistory> ActiveSessionHistoryIter = 
-                		ActiveSessionHistoryCursor.iterator();
+                Iterator<ActiveSessionHistory> ActiveSessionHistoryIter =
+                		dao.getActiveSessionHistoryBySampleId(ashIdTimeMain.getsampleId()).iterator();
                                                 
             	// Iterate over ActiveSessionHistory (detail)
             	while (ActiveSessionHistoryIter.hasNext()) {  
@@ -625,7 +961,6 @@ public class ASHDatabase {
 								}
             				}
             			}
-            		ActiveSessionHistoryCursor.close();
                 }
             	ashIdTimeCursor.close();                
             	
@@ -659,6 +994,7 @@ public class ASHDatabase {
 	 * 
 	 */
 	public void updateDataToChartPanelDataSet(){		
+		synchronized (chartLock) {
 		try {
 			
 		int iCountValues = 0;
@@ -691,169 +1027,28 @@ public class ASHDatabase {
 		this.loadDataToChartPanelDataSetDetail();
 		this.deleteValuesFromDatasetDetail();
 		
+		// Show in charts once
+		this.chartRepaintScheduler.publish();
+		
 		} catch (DatabaseException e) {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
 		}
+		}
 	
    }
 
-
-	public DefaultTableModel getASHRawData(double begin, double end, String detail) throws DatabaseException {
-
-		DefaultTableModel model = new DefaultTableModel(new String[] {
-				"SampleID",
-				"SampleTime",
-				"SessionID",
-				"SessionSerial",
-				"Username",
-				"Program",
-				"Module",
-				"ClientID",
-				"Action",
-				"Sql type",
-				"SQL ID",
-				"Plan hash value",
-				"Event",
-				"P1",
-				"P1Text",
-				"P2",
-				"P2Text",
-				"P3",
-				"P3Text",
-				"Wait Class",
-				"Wait Class id",
-				"Wait time",
-				"Session state",
-				"Time waited",
-				"Blocking session (BS)",
-				"BS status",
-				"BS serial#",
-				"Current obj#",
-				"Current file",
-				"Current block",
-				"Current row",
-				"Consumer group id",
-				"Xid",
-				"Remote instance",
-				"In connection mgmt",
-				"In parse",
-				"In hard parse",
-				"In sql execution",
-				"In pl/sql execution",
-				"In pl/sql rpc",
-				"In pl/sql compilation",
-				"In java execution",
-				"In bind",
-				"In cursor close",
-				"Service hash",
-				"Client id",
-				"UserID"
-		}, 0);
-
-		try {
-
-			/* Do a filter on AshIdTime by SampleTime. (detail) */
-			EntityCursor<AshIdTime> ashIdTimeCursor =
-					dao.doRangeQuery(dao.getAshBySampleTime(),
-							begin, true, end, false);
-
-			Iterator<AshIdTime> ashIdTimeIter = ashIdTimeCursor.iterator();
-
-			// Iterate over AshIdTime (detail)
-			while (ashIdTimeIter.hasNext()) {
-				AshIdTime ashIdTimeMain = ashIdTimeIter.next();
-
-				Long sampleTimeLong = (long) ashIdTimeMain.getsampleTime();
-				Date td = new Date(sampleTimeLong.longValue());
-				DateFormat df = new SimpleDateFormat("dd.MM.yyyy HH.mm.ss");
-				String reportDateStr = df.format(td);
-
-            	/* Do a filter on ActiveSessionHistory by SampleID (detail). */
-				EntityCursor<ActiveSessionHistory> ActiveSessionHistoryCursor =
-						dao.getActiveSessionHistoryByAshId().subIndex(ashIdTimeMain.getsampleId()).entities();
-				Iterator<ActiveSessionHistory> ActiveSessionHistoryIter =
-						ActiveSessionHistoryCursor.iterator();
-
-				// Iterate over ActiveSessionHistory (detail)
-				while (ActiveSessionHistoryIter.hasNext()) {
-					ActiveSessionHistory ASH = ActiveSessionHistoryIter.next();
-
-					if (detail.length()!=0){
-						if (detail.contains(Options.getInstance().getResource("cpuLabel.text"))){
-							if (ASH.getWaitClassId()!=0D){
-								continue;
-							}
-						} else {
-							if (ASH.getWaitClassId()==0D || !detail.contains(ASH.getWaitClass())){
-								continue;
-							}
-						}
-					}
-
-                    /* Get username */
-					String username = this.getUsername(ASH.getUserId());
-
-					model.addRow(new Object[] {
-							ASH.getSampleId(),
-							reportDateStr,
-							ASH.getSessionId(),
-							(long)ASH.getSessionSerial(),
-							username,
-							ASH.getProgram(),
-							ASH.getModule(),
-							ASH.getClientId(),
-							ASH.getAction(),
-							Options.getInstance().getResource(String.valueOf((int) ASH.getSqlOPCode())),
-							ASH.getSqlId(),
-							(long)ASH.getSqlPlanHashValue(),
-							ASH.getEvent(),
-							(long)ASH.getP1(),
-							ASH.getP1Text(),
-							(long)ASH.getP2(),
-							ASH.getP2Text(),
-							(long)ASH.getP3(),
-							ASH.getP3Text(),
-							ASH.getWaitClass(),
-							(long)ASH.getWaitClassId(),
-							(long)ASH.getWaitTime(),
-							ASH.getSessionState(),
-							(long)ASH.getTimeWaited(),
-							(long)ASH.getBlockingSession(),
-							ASH.getBlockingSessionStatus(),
-							(long)ASH.getBlockingSessionSerialHash(),
-							(long)ASH.getCurrentObjHash(),
-							(long)ASH.getCurrentFileHash(),
-							(long)ASH.getCurrentBlockHash(),
-							(long)ASH.getCurrentRowHash(),
-							(long)ASH.getConsumerGroupId(),
-							ASH.getXid(),
-							(long)ASH.getRemoteInstance(),
-							ASH.getInConnectionMgmt(),
-							ASH.getInParse(),
-							ASH.getInHardParse(),
-							ASH.getInSqlExecution(),
-							ASH.getInPlSqlExecution(),
-							ASH.getInPlSqlRpc(),
-							ASH.getInPlSqlCompilation(),
-							ASH.getInJavaExecution(),
-							ASH.getInBind(),
-							ASH.getInCursorClose(),
-							(long)ASH.getServiceHash(),
-							ASH.getClientId(),
-							ASH.getUserId()
-
-					});
-				}
-				ActiveSessionHistoryCursor.close();
-			}
-			ashIdTimeCursor.close();
-
-		} catch (Exception e){
-			e.printStackTrace();
-		}
-
-		return  model;
+	/**
+	 * Gets the raw ASH rows of range as lazy table model.
+	 *
+	 * @param begin the begin (inclusive)
+	 * @param end the end (exclusive)
+	 * @param detail the wait class filter, empty for all rows
+	 * @return the model
+	 * @throws DatabaseException the database exception
+	 */
+	public AshRawDataTableModel getASHRawData(double begin, double end, String detail) throws DatabaseException {
+		return new AshRawDataTableModel(dao, begin, end, detail);
 	}
 
 	public String getUsername(Long userId){
@@ -928,28 +1123,40 @@ public class ASHDatabase {
 		sampleId = sampleId0;
 	}
 	
+	/**
+	 * Gets the rows per second of load ASH data to local BDB.
+	 * 
+	 * @return the ingest throughput
+	 */
+	public ThroughputCounter getIngestThroughput() {
+		return ingestThroughput;
+	}
+	
+	/**
+	 * Gets the scheduler of repaint of charts.
+	 * 
+	 * @return the chart repaint scheduler
+	 */
+	public ChartRepaintScheduler getChartRepaintScheduler() {
+		return chartRepaintScheduler;
+	}
+	
+	/**
+	 * Gets the connection pool to Oracle database (null if closed).
+	 * 
+	 * @return the connection pool
+	 */
+	public ConnectionPool getConnectionPool() {
+		return model.getConnectionPool();
+	}
+	
 	/**
 	 * Delete values from dataset.
 	 * 
 	 */
 	private void deleteValuesFromDataset(){
-		
-			for (int i=0;i<50;i++) {
-				
-				Double xValue = (Double)dataset.getX(0, i);
-				
-				if(xValue>getSysdate()-currentWindow){
-					break;
-				}
-				
-				try {
-					dataset.removeRow(xValue);
-				} catch (Exception e){
-					e.printStackTrace();
-				}
-			  }
-		}
-	
+		dataset.expire(getSysdate()-currentWindow);
+	}
 	
 	/**
 	 * Delete values from dataset (detail)
@@ -1125,6 +1332,23 @@ public class ASHDatabase {
 	 */
 	public void close() {
 
+		if (retentionExecutor != null) {
+			retentionExecutor.shutdown();
+			try {
+				retentionExecutor.awaitTermination(30, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+		}
+
+		if (sqlTextResolver != null) {
+			sqlTextResolver.close();
+		}
+
+		if (dao != null) {
+			dao.close();
+		}
+
 		if (store != null) {
 			try {
 				store.close();
@@ -1155,6 +1379,63 @@ public class ASHDatabase {
 											String eventFlag){
 	}
 	
+	/**
+	 * Calculate sqls, sessions data of time range to temps.
+	 * 
+	 * @param tmpSqlsTemp the sqls temp
+	 * @param tmpSessionsTemp the sessions temp
+	 * @param fromTime the begin time
+	 * @param fromInclusive is begin time inclusive
+	 * @param toTime the end time
+	 * @param toInclusive is end time inclusive
+	 * @param eventFlag All for main top activity, event class - for detail
+	 */
+	protected void calculateSqlsSessionsData(SqlsTemp tmpSqlsTemp,
+			SessionsTemp tmpSessionsTemp, double fromTime,
+			boolean fromInclusive, double toTime, boolean toInclusive,
+			String eventFlag){
+	}
+	
+	/**
+	 * Calculate sqls, sessions data of sliding window (auto selection) to
+	 * sqls temp and sessions temp, only rows of new time are read from local BDB.
+	 * 
+	 * @param beginTime the begin time
+	 * @param endTime the end time
+	 */
+	public void calculateSqlsSessionsDataWindow(double beginTime, double endTime){
+		topActivityWindow.calculate(beginTime - rangeHalf, endTime + rangeHalf,
+				getSqlsTemp(), getSessionsTemp());
+	}
+	
+	/**
+	 * Gets the time of last sample in local BDB.
+	 * 
+	 * @return the time of last sample, 0 if no samples
+	 */
+	protected double getMaxSampleTime(){
+		EntityCursor<Double> cursor = null;
+		double out = 0;
+		try {
+			cursor = dao.ashBySampleTime.keys();
+			Double last = cursor.last();
+			if (last != null){
+				out = last;
+			}
+		} catch (DatabaseException e) {
+			e.printStackTrace();
+		} finally {
+			if (cursor != null){
+				try {
+					cursor.close();
+				} catch (DatabaseException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+		return out;
+	}
+	
 	/**
 	 * Gets the sqls temp.
 	 * 
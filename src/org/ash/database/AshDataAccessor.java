@@ -21,11 +21,19 @@
  */
 package org.ash.database;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.ash.datamodel.ActiveSessionHistory;
 import org.ash.datamodel.ActiveSessionHistory15;
+import org.ash.datamodel.ActiveSessionHistoryBlock;
+import org.ash.datamodel.AshBlockCodec;
 import org.ash.datamodel.AshIdTime;
 import org.ash.datamodel.AshParamValue;
 import org.ash.datamodel.AshSqlIdTypeText;
@@ -33,6 +41,7 @@ import org.ash.datamodel.AshSqlPlanDetail;
 import org.ash.datamodel.AshSqlPlanParent;
 import org.ash.datamodel.AshUserIdUsername;
 import org.ash.datamodel.AshWaitClass10g1;
+import org.ash.util.Options;
 
 import com.sleepycat.je.DatabaseException;
 import com.sleepycat.persist.EntityCursor;
@@ -53,6 +62,9 @@ public class AshDataAccessor {
     /** The active session history by ash id. */
     SecondaryIndex<Long, Long, ActiveSessionHistory> activeSessionHistoryByAshId;
 
+    /** The active session history by sample id (columnar block). */
+    PrimaryIndex<Long, ActiveSessionHistoryBlock> activeSessionHistoryBlockById;
+
     /** The ash by id. */
     PrimaryIndex<Long, AshIdTime> ashById;
     
@@ -96,7 +108,41 @@ public class AshDataAccessor {
 	private double beginTimeOnRun = 0.0;
 	
 	/** The store last pare eventClassId(key) and eventName(value) fot details*/
-	private	HashMap<String, String> eventClassName;
+	private	ConcurrentHashMap<String, String> eventClassName;
+	
+	/** The incremental counters by sample time, updated on load */
+	private AshRollup ashRollup;
+	
+	/** Is 15 sec storage calculated from ashRollup */
+	private boolean isRollupEnabled = true;
+	
+	/** Is any ActiveSessionHistoryBlock in store */
+	private boolean isBlockExist = false;
+	
+	/** The dictionary of repeated strings */
+	private AshStringDictionary stringDictionary;
+	
+	/** The rows of ActiveSessionHistory by day (store per day) */
+	private AshPartitions partitions;
+	
+	/** Is any row of ActiveSessionHistory in main store (before partitions) */
+	private boolean isLegacyRowExist = false;
+	
+	/** The sums of 15 sec storage by 1 min, 5 min, 1 hour, 1 day */
+	private AshPyramid ashPyramid;
+	
+	/** The count of rows, which are saved at once (rows of whole samples) */
+	private static final int ASH_BATCH_SIZE = 1000;
+	
+	/** The rows by sample id, which are not saved yet (see flushActiveSessionHistory) */
+	private LinkedHashMap<Long, List<ActiveSessionHistory>> pendingRows = 
+		new LinkedHashMap<Long, List<ActiveSessionHistory>>();
+	
+	/** The sample time by sample id of pendingRows */
+	private HashMap<Long, Double> pendingSampleTimes = new HashMap<Long, Double>();
+	
+	/** The count of rows in pendingRows */
+	private int pendingRowCount = 0;
     
     /**
      * Instantiates a new ash data accessor.
@@ -108,7 +154,8 @@ public class AshDataAccessor {
     public AshDataAccessor(EntityStore store)
             throws DatabaseException {
 
-    	eventClassName = new HashMap<String, String>();
+    	eventClassName = new ConcurrentHashMap<String, String>();
+    	ashRollup = new AshRollup();
     	
         /* Primary key for ActiveSessionHistory classes. */
     	activeSessionHistoryById =
@@ -119,6 +166,18 @@ public class AshDataAccessor {
                                                          Long.class,
                                                          "sampleId");
     	
+        /* Primary key for ActiveSessionHistoryBlock classes. */
+    	activeSessionHistoryBlockById =
+                store.getPrimaryIndex(Long.class, ActiveSessionHistoryBlock.class);
+    	isBlockExist = isBlockExistInStore();
+    	
+    	/* Dictionary of strings for ActiveSessionHistoryBlock. */
+    	stringDictionary = new AshStringDictionary(store, AshStringDictionary.CACHE_SIZE);
+    	
+    	/* Rows of ActiveSessionHistory by day. */
+    	partitions = new AshPartitions(store, stringDictionary);
+    	isLegacyRowExist = isBlockExist || isRowExistInStore();
+    	
         /* Primary key for Ash classes. */
     	ashById = store.getPrimaryIndex(Long.class, AshIdTime.class);
     	
@@ -138,6 +197,9 @@ public class AshDataAccessor {
     	userIdUsernameById =
     			store.getPrimaryIndex(Long.class, AshUserIdUsername.class);
     	
+    	/* Sums of ActiveSessionHistory15 by levels. */
+    	ashPyramid = new AshPyramid(store);
+    	
     	/* Primary key for AshParamValue class. */
     	ashParamValue =
     		store.getPrimaryIndex(String.class, AshParamValue.class);   	
@@ -271,12 +333,18 @@ public class AshDataAccessor {
     		beginTimeOnRun = startSampleTime;
     	}
     	
-    	if (database instanceof Database9i || database instanceof Database8i) {
+    	double beginTimeUpdate = beginTimeOnRun;
+    	
+    	if (isRollupEnabled) {
+    		loadAshCalcSumByEventById15SecRollup(startSampleTime,endSampleTime);
+    	} else if (database instanceof Database9i || database instanceof Database8i) {
     		loadAshCalcSumByEventById15Sec9i(startSampleTime,endSampleTime);
     	} else {
     		loadAshCalcSumByEventById15Sec(startSampleTime,endSampleTime);
     	}
     	
+    	// Update sums of 1 min, 5 min, 1 hour, 1 day for new 15 sec buckets
+    	ashPyramid.update(beginTimeUpdate, endSampleTime);
     }    
     
     /**
@@ -333,10 +401,8 @@ public class AshDataAccessor {
             	AshIdTime ashIdTimeMain = ashIdTimeIter.next();   
             	
             	/* Do a filter on ActiveSessionHistory by SampleID. */
-                EntityCursor<ActiveSessionHistory> ActiveSessionHistoryCursor = 
-                		this.activeSessionHistoryByAshId.subIndex(ashIdTimeMain.getsampleId()).entities();
                 Iterator<ActiveSessionHistory> ActiveSessionHistoryIter = 
-                		ActiveSessionHistoryCursor.iterator();
+                		getActiveSessionHistoryBySampleId(ashIdTimeMain.getsampleId()).iterator();
                 
                 // Iterate over ActiveSessionHistory
                 while (ActiveSessionHistoryIter.hasNext()) {  
@@ -405,7 +471,6 @@ public class AshDataAccessor {
                 		countAAS++;
                 	}
                  }
-                ActiveSessionHistoryCursor.close();            	
             }
             ashIdTimeCursor.close();
             
@@ -464,6 +529,55 @@ public class AshDataAccessor {
     	}
     }
     
+    /**
+     * Load ash sum by event by id 15 sec from counters of rollup,
+     * without re-reading ActiveSessionHistory.
+     * 
+     * @param startSampleTime the start sample time
+     * @param endSampleTime the end sample time
+     * 
+     * @throws DatabaseException the database exception
+     */
+    private void loadAshCalcSumByEventById15SecRollup(double startSampleTime,
+    											double endSampleTime) throws DatabaseException{
+    	
+    	int rangeHalfSec = (rangeHalf*2)/1000;
+    	
+    	for (double i=beginTimeOnRun;i<endSampleTime;i+=rangeHalf*2){
+    		
+    		double[] sum = ashRollup.getSum(i, i+rangeHalf*2);
+    		
+        	try {        	
+             	// Save System Event and CPU statistics
+             	this.ashCalcSumByEventById115Sec
+             		.put(new ActiveSessionHistory15
+             				(i+rangeHalf, 
+             				 sum[AshRollup.COUNT_AAS],
+             				 sum[0]/rangeHalfSec, // Other
+             				 sum[1]/rangeHalfSec, // Application
+             				 sum[2]/rangeHalfSec, // Configuration
+             				 sum[3]/rangeHalfSec, // Administrative
+             				 sum[4]/rangeHalfSec, // Concurrency
+             				 sum[5]/rangeHalfSec, // Commit
+             		          0, //idle zero
+             		         sum[7]/rangeHalfSec, // Network
+             		         sum[8]/rangeHalfSec, // User IO
+             		         sum[9]/rangeHalfSec, // System IO
+             		         sum[10]/rangeHalfSec, // Scheduler
+             		         sum[11]/rangeHalfSec, // Cluster
+             		         sum[12]/rangeHalfSec, // Queueing
+             		         sum[AshRollup.CPU]/rangeHalfSec));
+             	
+             	} catch (Exception e){
+             		e.printStackTrace();
+             	}
+            
+            beginTimeOnRun = i;      
+    	}
+    	
+    	ashRollup.purgeBefore(beginTimeOnRun);
+    }
+    
     /**
      * Load ash sum by event by id 10 sec.
      * 
@@ -507,10 +621,8 @@ public class AshDataAccessor {
             	AshIdTime ashIdTimeMain = ashIdTimeIter.next();   
             	
             	/* Do a filter on ActiveSessionHistory by SampleID. */
-                EntityCursor<ActiveSessionHistory> ActiveSessionHistoryCursor = 
-                		this.activeSessionHistoryByAshId.subIndex(ashIdTimeMain.getsampleId()).entities();
                 Iterator<ActiveSessionHistory> ActiveSessionHistoryIter = 
-                		ActiveSessionHistoryCursor.iterator();
+                		getActiveSessionHistoryBySampleId(ashIdTimeMain.getsampleId()).iterator();
                 
                 // Iterate over ActiveSessionHistory
                 while (ActiveSessionHistoryIter.hasNext()) {  
@@ -579,7 +691,6 @@ public class AshDataAccessor {
                 	}
                 	
                  }
-                ActiveSessionHistoryCursor.close();            	
             }
             ashIdTimeCursor.close();
             
@@ -649,42 +760,67 @@ public class AshDataAccessor {
     	double startKey = start;
     	double endKey = end;
     	
-    	// Delete ActiveSessionHistory15 entity
+    	ashRollup.remove(startKey, endKey);
+    	
+    	// Drop partitions of period, rest of period is deleted by sample
+    	boolean isPartial = true;
     	try {
+    		isPartial = partitions.dropRange(startKey, endKey);
+    	} catch (Exception e){
+    		e.printStackTrace();
+    	}
+    	
+    	// Delete ActiveSessionHistory entity
+    	if (isPartial || isLegacyRowExist) {
+	    	try {
     		
-   		 EntityCursor<AshIdTime> ashIdTimeCursor =
-                doRangeQuery(this.ashBySampleTime, 
-               		 startKey, true, endKey, true);
-   		 Iterator<AshIdTime> ashIdTimeIterator = 
-   			 	ashIdTimeCursor.iterator();
+	   		 EntityCursor<AshIdTime> ashIdTimeCursor =
+	                doRangeQuery(this.ashBySampleTime, 
+	               		 startKey, true, endKey, true);
+	   		 Iterator<AshIdTime> ashIdTimeIterator = 
+	   			 	ashIdTimeCursor.iterator();
     		
-    	  try {
-    		 // Iterate over AshIdTime
-             while (ashIdTimeIterator.hasNext()) {
-            	 AshIdTime ashIdTimeMain = ashIdTimeIterator.next();   
+	    	  try {
+	    		 // Iterate over AshIdTime
+	             while (ashIdTimeIterator.hasNext()) {
+	            	 AshIdTime ashIdTimeMain = ashIdTimeIterator.next();   
             	 
-            	 /* Do a filter on ActiveSessionHistory by SampleID. */
-                 EntityCursor<ActiveSessionHistory> ActiveSessionHistoryCursor = 
-                 		this.activeSessionHistoryByAshId.subIndex(ashIdTimeMain.getsampleId()).entities();
+	            	 /* Delete rows of partition by SampleID. */
+	            	 if (isPartial && partitions.deleteSample(ashIdTimeMain.getsampleId())){
+	            		 continue;
+	            	 }
+	            	 if (!isLegacyRowExist){
+	            		 continue;
+	            	 }
+            	 
+	            	 /* Delete ActiveSessionHistoryBlock by SampleID. */
+	            	 if (isBlockExist){
+	            		 activeSessionHistoryBlockById.delete(ashIdTimeMain.getsampleId());
+	            	 }
+            	 
+	            	 /* Do a filter on ActiveSessionHistory by SampleID. */
+	                 EntityCursor<ActiveSessionHistory> ActiveSessionHistoryCursor = 
+	                 		this.activeSessionHistoryByAshId.subIndex(ashIdTimeMain.getsampleId()).entities();
                  
-                 try {
-                     for (ActiveSessionHistory entity = ActiveSessionHistoryCursor.first();
-                                   entity != null;
-                                   entity = ActiveSessionHistoryCursor.next()) {
-                    	 /* Delete data from ActiveSessionHistory15 entry*/
-                         ActiveSessionHistoryCursor.delete();
-                     }
-                 } finally {
-                	 ActiveSessionHistoryCursor.close();
-                 }
-             }
-    	  } finally {
-         		ashIdTimeCursor.close();
-          }
+	                 try {
+	                     for (ActiveSessionHistory entity = ActiveSessionHistoryCursor.first();
+	                                   entity != null;
+	                                   entity = ActiveSessionHistoryCursor.next()) {
+	                    	 /* Delete data from ActiveSessionHistory15 entry*/
+	                         ActiveSessionHistoryCursor.delete();
+	                     }
+	                 } finally {
+	                	 ActiveSessionHistoryCursor.close();
+	                 }
+	             }
+	    	  } finally {
+	         		ashIdTimeCursor.close();
+	          }
              
-    	} catch (Exception e){
-    		e.printStackTrace();
-    	} 
+	    	} catch (Exception e){
+	    		e.printStackTrace();
+	    	} 
+    	}
         
     	// Delete ActiveSessionHistory15 entity
     	try {
@@ -705,6 +841,13 @@ public class AshDataAccessor {
     		e.printStackTrace();
     	}
     	
+    	// Delete sums of 15 sec storage
+    	try {
+    		ashPyramid.remove(startKey, endKey);
+    	} catch (Exception e){
+    		e.printStackTrace();
+    	}
+    	
     	// Delete AshIdTime entity
     	try {
     		 EntityCursor<AshIdTime> ashIdTimeCursor =
@@ -726,12 +869,388 @@ public class AshDataAccessor {
     	}
     }
     
+	/**
+	 * Gets rows of ActiveSessionHistory for sample id (from block or entities).
+	 * 
+	 * @param sampleId the sample id
+	 * @return the rows
+	 * @throws DatabaseException the database exception
+	 */
+	public List<ActiveSessionHistory> getActiveSessionHistoryBySampleId(long sampleId)
+			throws DatabaseException {
+		
+		List<ActiveSessionHistory> partitionRows = partitions.getRows(sampleId);
+		if (partitionRows != null){
+			return partitionRows;
+		}
+		
+		if (isBlockExist){
+			ActiveSessionHistoryBlock block = activeSessionHistoryBlockById.get(sampleId);
+			if (block != null){
+				try {
+					return AshBlockCodec.decode(block.getData(), stringDictionary);
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+		
+		List<ActiveSessionHistory> rows = new ArrayList<ActiveSessionHistory>();
+		EntityCursor<ActiveSessionHistory> ActiveSessionHistoryCursor =
+			activeSessionHistoryByAshId.subIndex(sampleId).entities();
+		try {
+			Iterator<ActiveSessionHistory> ActiveSessionHistoryIter =
+				ActiveSessionHistoryCursor.iterator();
+			while (ActiveSessionHistoryIter.hasNext()) {
+				rows.add(ActiveSessionHistoryIter.next());
+			}
+		} finally {
+			ActiveSessionHistoryCursor.close();
+		}
+		return rows;
+	}
+	
+	/**
+	 * Count rows of sample without decode of rows: from header of block
+	 * or by keys of rows stored as entities.
+	 * 
+	 * @param sampleId the sample id
+	 * @return the count of rows
+	 * @throws DatabaseException the database exception
+	 */
+	public int countActiveSessionHistoryBySampleId(long sampleId)
+			throws DatabaseException {
+		
+		int partitionCount = partitions.countRows(sampleId);
+		if (partitionCount >= 0){
+			return partitionCount;
+		}
+		
+		if (isBlockExist){
+			ActiveSessionHistoryBlock block = activeSessionHistoryBlockById.get(sampleId);
+			if (block != null){
+				try {
+					return AshBlockCodec.rowCount(block.getData());
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+		
+		return countKeys(activeSessionHistoryByAshId.subIndex(sampleId));
+	}
+	
+	/**
+	 * Count keys of index (entities are not read).
+	 * 
+	 * @param index the index
+	 * @return the count
+	 * @throws DatabaseException the database exception
+	 */
+	static int countKeys(EntityIndex<Long, ActiveSessionHistory> index)
+			throws DatabaseException {
+		int count = 0;
+		EntityCursor<Long> cursor = index.keys();
+		try {
+			while (cursor.next() != null) {
+				count++;
+			}
+		} finally {
+			cursor.close();
+		}
+		return count;
+	}
+	
+	/**
+	 * Gets samples of range, which can have rows of value of dimension.
+	 * Samples of partitions with index of dimensions are read from index
+	 * (only samples with rows of value), samples of other partitions
+	 * and of main store are read by sample time (all samples).
+	 * Rows of samples are filtered by AshDimensionIndex.isMatch.
+	 * 
+	 * @param dimension the dimension (see AshDimensionIndex)
+	 * @param value the value
+	 * @param begin the begin (inclusive)
+	 * @param end the end (exclusive)
+	 * @return the samples in order of time
+	 * @throws DatabaseException the database exception
+	 */
+	public List<AshIdTime> getSamplesByDimension(String dimension, String value,
+			double begin, double end) throws DatabaseException {
+		
+		List<AshIdTime> samples = new ArrayList<AshIdTime>();
+		String key = AshDimensionIndex.getKey(dimension, value);
+		
+		// Empty values and other dimensions are not indexed
+		List<double[]> ranges = value.length() == 0 || !AshDimensionIndex.isIndexed(dimension)
+			? new ArrayList<double[]>() : partitions.getDimIndexedRanges();
+		
+		double from = begin;
+		boolean isFromInclusive = true;
+		for (int i = 0; i < ranges.size() && from < end; i++) {
+			double[] range = ranges.get(i);
+			if (range[1] < from || range[0] >= end) {
+				continue;
+			}
+			if (range[0] > from) {
+				addSamples(samples, from, isFromInclusive, range[0], false);
+			}
+			partitions.addSamplesByDim(key, Math.max(from, range[0]),
+					Math.min(end, range[1]), range[1] < end, samples);
+			from = range[1];
+			isFromInclusive = false;
+		}
+		if (from < end) {
+			addSamples(samples, from, isFromInclusive, end, false);
+		}
+		return samples;
+	}
+	
+	/**
+	 * Add all samples of range by sample time.
+	 * 
+	 * @param samples the samples
+	 * @param from the from
+	 * @param isFromInclusive the from inclusive
+	 * @param to the to
+	 * @param isToInclusive the to inclusive
+	 * @throws DatabaseException the database exception
+	 */
+	private void addSamples(List<AshIdTime> samples, double from,
+			boolean isFromInclusive, double to, boolean isToInclusive)
+			throws DatabaseException {
+		EntityCursor<AshIdTime> cursor = doRangeQuery(ashBySampleTime,
+				from, isFromInclusive, to, isToInclusive);
+		try {
+			Iterator<AshIdTime> iter = cursor.iterator();
+			while (iter.hasNext()) {
+				samples.add(iter.next());
+			}
+		} finally {
+			cursor.close();
+		}
+	}
+	
+	/**
+	 * Save row of ActiveSessionHistory to partition of sample time,
+	 * row is added to rollup. Repeated strings of row are replaced by shared
+	 * values of dictionary. Rows are saved by whole samples, when count of
+	 * rows is ASH_BATCH_SIZE, on flushActiveSessionHistory or on sync.
+	 * 
+	 * @param sampleTime the sample time
+	 * @param ash the row
+	 * @throws DatabaseException the database exception
+	 */
+	public void putActiveSessionHistory(double sampleTime, ActiveSessionHistory ash)
+			throws DatabaseException {
+		putActiveSessionHistory(sampleTime, ash, true);
+	}
+	
+	/**
+	 * Save row of ActiveSessionHistory to partition of sample time.
+	 * 
+	 * @param sampleTime the sample time
+	 * @param ash the row
+	 * @param isRollup false, if row is already counted in rollup
+	 * @throws DatabaseException the database exception
+	 */
+	public void putActiveSessionHistory(double sampleTime, ActiveSessionHistory ash,
+			boolean isRollup) throws DatabaseException {
+		if (isRollup) {
+			addToRollup(sampleTime, ash);
+		}
+		AshBlockCodec.intern(ash, stringDictionary);
+		synchronized (pendingRows) {
+			List<ActiveSessionHistory> rows = pendingRows.get(ash.getSampleId());
+			if (rows == null) {
+				if (pendingRowCount >= ASH_BATCH_SIZE) {
+					flushActiveSessionHistory();
+				}
+				rows = new ArrayList<ActiveSessionHistory>();
+				pendingRows.put(ash.getSampleId(), rows);
+				pendingSampleTimes.put(ash.getSampleId(), sampleTime);
+			}
+			rows.add(ash);
+			pendingRowCount++;
+		}
+	}
+	
+	/**
+	 * Save rows, which are not saved yet. Sample id and time is saved once
+	 * for sample, rows of sample are saved to partition at once (as one
+	 * block with compact storage).
+	 * 
+	 * @throws DatabaseException the database exception
+	 */
+	public void flushActiveSessionHistory() throws DatabaseException {
+		synchronized (pendingRows) {
+			if (pendingRows.isEmpty()) {
+				return;
+			}
+			boolean isCompactStorage = Options.getInstance().isCompactStorage();
+			boolean isDimIndex = Options.getInstance().isDimensionIndex();
+			try {
+				Iterator<Entry<Long, List<ActiveSessionHistory>>> iter = 
+					pendingRows.entrySet().iterator();
+				while (iter.hasNext()) {
+					Entry<Long, List<ActiveSessionHistory>> sample = iter.next();
+					long sampleId = sample.getKey();
+					double sampleTime = pendingSampleTimes.get(sampleId);
+					
+					ashById.putNoOverwrite(new AshIdTime(sampleId, sampleTime));
+					if (isCompactStorage) {
+						partitions.putBlock(sampleTime, sampleId, sample.getValue(), isDimIndex);
+					} else {
+						partitions.putAll(sampleTime, sampleId, sample.getValue(), isDimIndex);
+					}
+				}
+			} finally {
+				pendingRows.clear();
+				pendingSampleTimes.clear();
+				pendingRowCount = 0;
+			}
+		}
+	}
+	
+	/**
+	 * Gets the sums of 15 sec storage by 1 min, 5 min, 1 hour, 1 day.
+	 * 
+	 * @return the ashPyramid
+	 */
+	public AshPyramid getAshPyramid() {
+		return ashPyramid;
+	}
+	
+	/**
+	 * Gets the partitions of ActiveSessionHistory.
+	 * 
+	 * @return the partitions
+	 */
+	public AshPartitions getPartitions() {
+		return partitions;
+	}
+	
+	/**
+	 * Sync partitions (deferred write), rows of last sample are saved before.
+	 */
+	public void sync() {
+		try {
+			flushActiveSessionHistory();
+		} catch (DatabaseException e) {
+			e.printStackTrace();
+		}
+		partitions.sync();
+	}
+	
+	/**
+	 * Close partitions, main store is closed by owner.
+	 */
+	public void close() {
+		try {
+			flushActiveSessionHistory();
+		} catch (DatabaseException e) {
+			e.printStackTrace();
+		}
+		partitions.close();
+	}
+	
+	/**
+	 * Gets the dictionary of repeated strings.
+	 * 
+	 * @return the stringDictionary
+	 */
+	public AshStringDictionary getStringDictionary() {
+		return stringDictionary;
+	}
+	
+	/**
+	 * Check ActiveSessionHistoryBlock in store.
+	 * 
+	 * @return true, if any block exist
+	 * @throws DatabaseException the database exception
+	 */
+	private boolean isBlockExistInStore() throws DatabaseException {
+		EntityCursor<Long> keys = activeSessionHistoryBlockById.keys();
+		try {
+			return keys.first() != null;
+		} finally {
+			keys.close();
+		}
+	}
+	
+	/**
+	 * Check ActiveSessionHistory in main store.
+	 * 
+	 * @return true, if any row exist
+	 * @throws DatabaseException the database exception
+	 */
+	private boolean isRowExistInStore() throws DatabaseException {
+		EntityCursor<Long> keys = activeSessionHistoryById.keys();
+		try {
+			return keys.first() != null;
+		} finally {
+			keys.close();
+		}
+	}
+	
+	/**
+	 * Add loaded row to the rollup (15 sec storage is calculated from it).
+	 * 
+	 * @param sampleTime the sample time
+	 * @param ash the active session history row
+	 */
+	public void addToRollup(double sampleTime, ActiveSessionHistory ash) {
+		ashRollup.add(sampleTime, ash.getWaitTime(), ash.getWaitClassId(), ash.getEvent());
+		setEventClassName(ash.getWaitClass(), ash.getEvent());
+	}
+	
+	/**
+	 * Add count of rows aggregated on server to the rollup.
+	 * 
+	 * @param sampleTime the sample time
+	 * @param isOnCpu true, if session state is ON CPU
+	 * @param waitClassId the wait class id
+	 * @param waitClass the wait class
+	 * @param eventName the event name
+	 * @param count the count of rows
+	 */
+	public void addToRollup(double sampleTime, boolean isOnCpu, double waitClassId,
+			String waitClass, String eventName, int count) {
+		ashRollup.add(sampleTime, isOnCpu ? 1 : 0, waitClassId, eventName, count);
+		setEventClassName(waitClass, eventName);
+	}
+	
+	/**
+	 * @return the ashRollup
+	 */
+	public AshRollup getAshRollup() {
+		return ashRollup;
+	}
+	
+	/**
+	 * @return true, if 15 sec storage is calculated from rollup
+	 */
+	public boolean isRollupEnabled() {
+		return isRollupEnabled;
+	}
+	
+	/**
+	 * Enable calculation of 15 sec storage from rollup (on by default).
+	 * Rows saved by putActiveSessionHistory are added to rollup, rows 
+	 * saved other way must be added by addToRollup.
+	 * 
+	 * @param isRollupEnabled the isRollupEnabled to set
+	 */
+	public void setRollupEnabled(boolean isRollupEnabled) {
+		this.isRollupEnabled = isRollupEnabled;
+	}
+	
 	/**
 	 * Return Event Name for last Event class
 	 * @return the eventClassName
 	 */
 	public String getEventClassName(String key) {
-		return eventClassName.get(key);
+		return key == null ? null : eventClassName.get(key);
 	}
 
 	/**
@@ -740,8 +1259,8 @@ public class AshDataAccessor {
 	 * @param eventName the eventNAme to set
 	 */
 	public void setEventClassName(String eventClass, String eventName ) {
-		if (this.eventClassName.get(eventClass)==null){
-			this.eventClassName.put(eventClass, eventName);
+		if (eventClass != null && eventName != null){
+			this.eventClassName.putIfAbsent(eventClass, eventName);
 		}
 	}
 
@@ -772,6 +1291,14 @@ public class AshDataAccessor {
 	}
 
 
+	/**
+	 * @return the activeSessionHistoryBlockById
+	 */
+	public PrimaryIndex<Long, ActiveSessionHistoryBlock> getActiveSessionHistoryBlockById() {
+		return activeSessionHistoryBlockById;
+	}
+
+
 	/**
 	 * @return the ashById
 	 */
@@ -0,0 +1,204 @@
+/*
+ *-------------------
+ * The AshDimensionIndex.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.database;
+
+import java.util.List;
+import java.util.Set;
+
+import org.ash.datamodel.ActiveSessionHistory;
+
+/**
+ * The Class AshDimensionIndex.
+ *
+ * Dimensions of ActiveSessionHistory, which are indexed in partitions
+ * (ActiveSessionHistoryDim): one entry for each sample with rows of value,
+ * ordered by value and sample time. Drilldown reads only samples of value
+ * and takes its rows by isMatch. Empty values are not indexed.
+ * Other dimensions are not indexed, they are used for grouping (AshGroupBy)
+ * and filter by scan.
+ */
+public class AshDimensionIndex {
+
+	/** The sql id (hash value for 9i/8i). */
+	public static final String SQL_ID = "SQL_ID";
+
+	/** The session (session id and serial#, see getSessionValue). */
+	public static final String SESSION = "SESSION";
+
+	/** The event. */
+	public static final String EVENT = "EVENT";
+
+	/** The wait class. */
+	public static final String WAIT_CLASS = "WAIT_CLASS";
+
+	/** The module. */
+	public static final String MODULE = "MODULE";
+
+	/** The program. */
+	public static final String PROGRAM = "PROGRAM";
+
+	/** The action. */
+	public static final String ACTION = "ACTION";
+
+	/** The client id. */
+	public static final String CLIENT_ID = "CLIENT_ID";
+
+	/** The plsql entry object id. */
+	public static final String PLSQL_ENTRY_OBJECT_ID = "PLSQL_ENTRY_OBJECT_ID";
+
+	/** The current obj#. */
+	public static final String CURRENT_OBJ = "CURRENT_OBJ#";
+
+	/** The sql plan line id. */
+	public static final String SQL_PLAN_LINE_ID = "SQL_PLAN_LINE_ID";
+
+	/** The sql plan hash value. */
+	public static final String SQL_PLAN_HASH_VALUE = "SQL_PLAN_HASH_VALUE";
+
+	/** The user id. */
+	public static final String USER_ID = "USER_ID";
+
+	/** The indexed dimensions. */
+	public static final String[] DIMENSIONS = new String[] {
+		SQL_ID, SESSION, EVENT, WAIT_CLASS, MODULE, PROGRAM };
+
+	/** All dimensions (indexed and not). */
+	public static final String[] ALL_DIMENSIONS = new String[] {
+		MODULE, ACTION, CLIENT_ID, PLSQL_ENTRY_OBJECT_ID, CURRENT_OBJ,
+		SQL_PLAN_LINE_ID, SQL_ID, SQL_PLAN_HASH_VALUE, SESSION, USER_ID,
+		PROGRAM, EVENT, WAIT_CLASS };
+
+	/**
+	 * Gets the key of index.
+	 *
+	 * @param dimension the dimension
+	 * @param value the value
+	 * @return the key
+	 */
+	public static String getKey(String dimension, String value) {
+		return dimension + ":" + value;
+	}
+
+	/**
+	 * Gets the value of session dimension.
+	 *
+	 * @param sessionId the session id
+	 * @param sessionSerial the session serial#
+	 * @return the value
+	 */
+	public static String getSessionValue(long sessionId, double sessionSerial) {
+		return sessionId + "," + (long) sessionSerial;
+	}
+
+	/**
+	 * Gets the value of dimension of row.
+	 *
+	 * @param dimension the dimension
+	 * @param ASH the row
+	 * @return the value, null if dimension is unknown
+	 */
+	public static String getValue(String dimension, ActiveSessionHistory ASH) {
+		if (dimension.equals(SQL_ID)) {
+			return ASH.getSqlId();
+		} else if (dimension.equals(SESSION)) {
+			return getSessionValue(ASH.getSessionId(), ASH.getSessionSerial());
+		} else if (dimension.equals(EVENT)) {
+			return ASH.getEvent();
+		} else if (dimension.equals(WAIT_CLASS)) {
+			return ASH.getWaitClass();
+		} else if (dimension.equals(MODULE)) {
+			return ASH.getModule();
+		} else if (dimension.equals(PROGRAM)) {
+			return ASH.getProgram();
+		} else if (dimension.equals(ACTION)) {
+			return ASH.getAction();
+		} else if (dimension.equals(CLIENT_ID)) {
+			return ASH.getClientId();
+		} else if (dimension.equals(PLSQL_ENTRY_OBJECT_ID)) {
+			return String.valueOf((long) ASH.getPlsqlEntryObjectId());
+		} else if (dimension.equals(CURRENT_OBJ)) {
+			return String.valueOf((long) ASH.getCurrentObjHash());
+		} else if (dimension.equals(SQL_PLAN_LINE_ID)) {
+			return String.valueOf((long) ASH.getSqlPlanLineId());
+		} else if (dimension.equals(SQL_PLAN_HASH_VALUE)) {
+			return String.valueOf((long) ASH.getSqlPlanHashValue());
+		} else if (dimension.equals(USER_ID)) {
+			return String.valueOf(ASH.getUserId());
+		}
+		return null;
+	}
+
+	/**
+	 * Checks if dimension is indexed.
+	 *
+	 * @param dimension the dimension
+	 * @return true, if indexed
+	 */
+	public static boolean isIndexed(String dimension) {
+		for (int i = 0; i < DIMENSIONS.length; i++) {
+			if (DIMENSIONS[i].equals(dimension)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks if value of dimension of row is equal to value.
+	 *
+	 * @param dimension the dimension
+	 * @param value the value
+	 * @param ASH the row
+	 * @return true, if row matches
+	 */
+	public static boolean isMatch(String dimension, String value,
+			ActiveSessionHistory ASH) {
+		return value.equals(getValue(dimension, ASH));
+	}
+
+	/**
+	 * Add keys of all dimensions of rows (not empty values).
+	 *
+	 * @param rows the rows
+	 * @param keys the keys
+	 */
+	public static void addKeys(List<ActiveSessionHistory> rows, Set<String> keys) {
+		for (int i = 0; i < rows.size(); i++) {
+			addKeys(rows.get(i), keys);
+		}
+	}
+
+	/**
+	 * Add keys of all dimensions of row (not empty values).
+	 *
+	 * @param ASH the row
+	 * @param keys the keys
+	 */
+	public static void addKeys(ActiveSessionHistory ASH, Set<String> keys) {
+		for (int i = 0; i < DIMENSIONS.length; i++) {
+			String value = getValue(DIMENSIONS[i], ASH);
+			if (value != null && value.length() != 0) {
+				keys.add(getKey(DIMENSIONS[i], value));
+			}
+		}
+	}
+}
@@ -0,0 +1,291 @@
+/*
+ *-------------------
+ * The AshGroupBy.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.database;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.ash.datamodel.ActiveSessionHistory;
+import org.ash.datamodel.AshIdTime;
+import org.ash.datatemp.GroupCounters;
+
+import com.sleepycat.je.DatabaseException;
+import com.sleepycat.persist.EntityCursor;
+
+/**
+ * The Class AshGroupBy.
+ *
+ * Group ASH rows of local BDB by 1-3 dimensions (module, action, client
+ * id, current obj# etc., see AshDimensionIndex) with optional filter by
+ * value of one dimension. Rows are counted by wait class and CPU in
+ * GroupCounters (primitive counters) in one pass over samples. The range
+ * is split to slices of time, slices are counted by one shared pool of
+ * daemon threads and counters of slices are added in order of time. Reads
+ * of local BDB are serialized on the lock of AshPartitions, decode of
+ * blocks and counting of rows run in parallel. Filter by indexed dimension
+ * reads only samples of value from index of dimensions.
+ */
+public class AshGroupBy {
+
+	/** The max count of dimensions. */
+	public static final int MAX_DIMENSIONS = 3;
+
+	/** The separator of values of dimensions in key. */
+	public static final char SEPARATOR = '\u0001';
+
+	/** The min length of slice (millisec). */
+	private static final double MIN_SLICE_TIME = 60000;
+
+	/** The count of slices for one thread. */
+	private static final int SLICES_PER_THREAD = 4;
+
+	/** The size of pool of threads. */
+	private static final int MAX_THREADS = Runtime.getRuntime().availableProcessors();
+
+	/** The pool of threads shared by all calculations. */
+	private static final ExecutorService executor =
+		Executors.newFixedThreadPool(MAX_THREADS, new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "Group by");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+
+	/** The dao. */
+	private AshDataAccessor dao;
+
+	/** The dimensions. */
+	private String[] dimensions;
+
+	/** The dimension of filter, null for all rows. */
+	private String filterDimension;
+
+	/** The value of filter. */
+	private String filterValue;
+
+	/** The count of threads. */
+	private int threads = MAX_THREADS;
+
+	/**
+	 * Instantiates a new ash group by.
+	 *
+	 * @param dao the dao
+	 * @param dimensions the dimensions (1 - MAX_DIMENSIONS)
+	 */
+	public AshGroupBy(AshDataAccessor dao, String[] dimensions) {
+		if (dimensions.length == 0 || dimensions.length > MAX_DIMENSIONS) {
+			throw new IllegalArgumentException("Count of dimensions must be 1-"
+					+ MAX_DIMENSIONS + ": " + dimensions.length);
+		}
+		this.dao = dao;
+		this.dimensions = dimensions;
+	}
+
+	/**
+	 * Sets the filter by value of dimension.
+	 *
+	 * @param dimension the dimension, null for all rows
+	 * @param value the value
+	 */
+	public void setFilter(String dimension, String value) {
+		this.filterDimension = dimension;
+		this.filterValue = value;
+	}
+
+	/**
+	 * Sets the count of threads (limits count of slices, at most
+	 * MAX_THREADS run at once).
+	 *
+	 * @param threads the count of threads
+	 */
+	public void setThreads(int threads) {
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Gets the dimensions.
+	 *
+	 * @return the dimensions
+	 */
+	public String[] getDimensions() {
+		return dimensions;
+	}
+
+	/**
+	 * Count rows of range by values of dimensions. Values of dimensions of
+	 * key are attributes of key (name of dimension - value), use
+	 * getTop(GroupCounters.COUNT, k) for top-K.
+	 *
+	 * @param begin the begin (inclusive)
+	 * @param end the end (exclusive)
+	 * @return the counters
+	 * @throws DatabaseException the database exception
+	 */
+	public GroupCounters calculate(double begin, double end)
+			throws DatabaseException {
+		int slices = (int) Math.max(1, Math.min(threads * SLICES_PER_THREAD,
+				Math.ceil((end - begin) / MIN_SLICE_TIME)));
+		if (slices == 1 || threads == 1) {
+			return calculateSlice(begin, end);
+		}
+
+		List<Future<GroupCounters>> futures = new ArrayList<Future<GroupCounters>>();
+		try {
+			double length = (end - begin) / slices;
+			for (int i = 0; i < slices; i++) {
+				final double from = begin + i * length;
+				final double to = (i == slices - 1) ? end : begin + (i + 1) * length;
+				futures.add(executor.submit(new Callable<GroupCounters>() {
+					public GroupCounters call() throws Exception {
+						return calculateSlice(from, to);
+					}
+				}));
+			}
+
+			GroupCounters out = new GroupCounters();
+			Iterator<Future<GroupCounters>> iter = futures.iterator();
+			while (iter.hasNext()) {
+				out.addAll(iter.next().get(), 1);
+			}
+			return out;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			cancel(futures);
+			throw new DatabaseException(e);
+		} catch (ExecutionException e) {
+			cancel(futures);
+			if (e.getCause() instanceof DatabaseException) {
+				throw (DatabaseException) e.getCause();
+			}
+			throw new DatabaseException(e.getCause());
+		}
+	}
+
+	/**
+	 * Cancel slices not started yet.
+	 *
+	 * @param futures the futures of slices
+	 */
+	private static void cancel(List<Future<GroupCounters>> futures) {
+		Iterator<Future<GroupCounters>> iter = futures.iterator();
+		while (iter.hasNext()) {
+			iter.next().cancel(false);
+		}
+	}
+
+	/**
+	 * Count rows of slice of range.
+	 *
+	 * @param from the from (inclusive)
+	 * @param to the to (exclusive)
+	 * @return the counters
+	 * @throws DatabaseException the database exception
+	 */
+	private GroupCounters calculateSlice(double from, double to)
+			throws DatabaseException {
+		GroupCounters counters = new GroupCounters();
+
+		if (filterDimension != null) {
+			List<AshIdTime> samples =
+				dao.getSamplesByDimension(filterDimension, filterValue, from, to);
+			for (int i = 0; i < samples.size(); i++) {
+				addRows(counters, dao.getActiveSessionHistoryBySampleId(
+						samples.get(i).getsampleId()));
+			}
+			return counters;
+		}
+
+		EntityCursor<AshIdTime> cursor =
+			dao.doRangeQuery(dao.getAshBySampleTime(), from, true, to, false);
+		try {
+			Iterator<AshIdTime> iter = cursor.iterator();
+			while (iter.hasNext()) {
+				addRows(counters, dao.getActiveSessionHistoryBySampleId(
+						iter.next().getsampleId()));
+			}
+		} finally {
+			cursor.close();
+		}
+		return counters;
+	}
+
+	/**
+	 * Add rows of sample to counters.
+	 *
+	 * @param counters the counters
+	 * @param rows the rows
+	 */
+	private void addRows(GroupCounters counters, List<ActiveSessionHistory> rows) {
+		StringBuilder key = new StringBuilder();
+		for (int i = 0; i < rows.size(); i++) {
+			ActiveSessionHistory ASH = rows.get(i);
+			if (filterDimension != null
+					&& !AshDimensionIndex.isMatch(filterDimension, filterValue, ASH)) {
+				continue;
+			}
+
+			String keyValue;
+			if (dimensions.length == 1) {
+				keyValue = getValue(dimensions[0], ASH);
+			} else {
+				key.setLength(0);
+				for (int j = 0; j < dimensions.length; j++) {
+					if (j > 0) {
+						key.append(SEPARATOR);
+					}
+					key.append(getValue(dimensions[j], ASH));
+				}
+				keyValue = key.toString();
+			}
+
+			int index = counters.getKey(keyValue);
+			if (index == -1) {
+				index = counters.addKey(keyValue);
+				for (int j = 0; j < dimensions.length; j++) {
+					counters.setAttribute(index, dimensions[j],
+							getValue(dimensions[j], ASH));
+				}
+			}
+			counters.add(index, ASH.getWaitTime(), ASH.getWaitClassId(), 1);
+		}
+	}
+
+	/**
+	 * Gets the value of dimension of row, empty for null.
+	 *
+	 * @param dimension the dimension
+	 * @param ASH the row
+	 * @return the value
+	 */
+	private static String getValue(String dimension, ActiveSessionHistory ASH) {
+		String value = AshDimensionIndex.getValue(dimension, ASH);
+		return value == null ? "" : value;
+	}
+}
@@ -0,0 +1,737 @@
+/*
+ *-------------------
+ * The AshPartitions.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.database;
+
+import java.io.IOException;
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.ash.datamodel.ActiveSessionHistory;
+import org.ash.datamodel.ActiveSessionHistoryBlock;
+import org.ash.datamodel.ActiveSessionHistoryDim;
+import org.ash.datamodel.AshBlockCodec;
+import org.ash.datamodel.AshDimKey;
+import org.ash.datamodel.AshIdTime;
+import org.ash.datamodel.AshParamValue;
+import org.ash.datamodel.AshPartition;
+
+import com.sleepycat.je.DatabaseException;
+import com.sleepycat.je.Environment;
+import com.sleepycat.persist.EntityCursor;
+import com.sleepycat.persist.EntityStore;
+import com.sleepycat.persist.PrimaryIndex;
+import com.sleepycat.persist.SecondaryIndex;
+
+/**
+ * The Class AshPartitions.
+ *
+ * Rows of ActiveSessionHistory are stored by day, each day in separate
+ * entity store of environment (ash_yyyyMMdd). Delete of day is drop of
+ * databases of store, without delete of each row.
+ * Samples of values of dimensions (sql id, session, event etc.) are
+ * indexed in partition, if index is on when partition is created and it is
+ * not off while partition is written (see AshDimensionIndex).
+ */
+public class AshPartitions {
+
+	/** The prefix of store name. */
+	private static final String STORE_PREFIX = "ash_";
+
+	/** The prefix of database names of entity store. */
+	private static final String DB_PREFIX = "persist#";
+
+	/** The prefix of parameter, 1 if dimensions of partition are indexed. */
+	private static final String PARAM_DIM_INDEX = "ASH.dimindex.";
+
+	/** The main store. */
+	private EntityStore store;
+
+	/** The dictionary of repeated strings (for blocks). */
+	private AshStringDictionary stringDictionary;
+
+	/** The partition by name. */
+	private PrimaryIndex<String, AshPartition> partitionByName;
+
+	/** The parameters of main store. */
+	private PrimaryIndex<String, AshParamValue> ashParamValue;
+
+	/** The keys of dimensions of row for write. */
+	private Set<String> dimKeys = new HashSet<String>();
+
+	/** The partitions by name. */
+	private HashMap<String, Partition> partitions;
+
+	/** The partitions by min sample id. */
+	private TreeMap<Long, Partition> partitionsBySampleId;
+
+	/** The last partition for write. */
+	private Partition lastPartition;
+
+	/** The format of partition name. */
+	private DateFormat dateFormat = new SimpleDateFormat("yyyyMMdd");
+
+	/**
+	 * Instantiates a new ash partitions.
+	 *
+	 * @param store the main store
+	 * @param stringDictionary the dictionary of repeated strings
+	 * @throws DatabaseException the database exception
+	 */
+	public AshPartitions(EntityStore store, AshStringDictionary stringDictionary)
+			throws DatabaseException {
+		this.store = store;
+		this.stringDictionary = stringDictionary;
+		this.partitions = new HashMap<String, Partition>();
+		this.partitionsBySampleId = new TreeMap<Long, Partition>();
+
+		partitionByName = store.getPrimaryIndex(String.class, AshPartition.class);
+		ashParamValue = store.getPrimaryIndex(String.class, AshParamValue.class);
+
+		EntityCursor<AshPartition> cursor = partitionByName.entities();
+		try {
+			Iterator<AshPartition> iter = cursor.iterator();
+			while (iter.hasNext()) {
+				Partition partition = new Partition(iter.next());
+				partitions.put(partition.meta.getName(), partition);
+				partitionsBySampleId.put(partition.meta.getMinSampleId(), partition);
+			}
+		} finally {
+			cursor.close();
+		}
+	}
+
+	/**
+	 * Save rows of one sample to partition of sample time, partition is
+	 * found and keys of dimensions are saved once for all rows.
+	 *
+	 * @param sampleTime the sample time
+	 * @param sampleId the sample id
+	 * @param rows the rows
+	 * @param isDimIndex true, if dimensions of rows are indexed
+	 * @throws DatabaseException the database exception
+	 */
+	public synchronized void putAll(double sampleTime, long sampleId,
+			List<ActiveSessionHistory> rows, boolean isDimIndex)
+			throws DatabaseException {
+		Partition partition = getForWrite(sampleTime, sampleId, isDimIndex);
+
+		for (int i = 0; i < rows.size(); i++) {
+			partition.activeSessionHistoryById.putNoReturn(rows.get(i));
+		}
+
+		if (partition.isDimIndexed()) {
+			dimKeys.clear();
+			AshDimensionIndex.addKeys(rows, dimKeys);
+			putDimKeys(partition, sampleTime, sampleId);
+		}
+	}
+
+	/**
+	 * Save rows of one sample as columnar block to partition of sample time.
+	 * Rows are added to existing block of sample id.
+	 *
+	 * @param sampleTime the sample time
+	 * @param sampleId the sample id
+	 * @param rows the rows
+	 * @param isDimIndex true, if dimensions of rows are indexed
+	 * @throws DatabaseException the database exception
+	 */
+	public synchronized void putBlock(double sampleTime, long sampleId,
+			List<ActiveSessionHistory> rows, boolean isDimIndex)
+			throws DatabaseException {
+		Partition partition = getForWrite(sampleTime, sampleId, isDimIndex);
+
+		if (partition.isDimIndexed()) {
+			dimKeys.clear();
+			AshDimensionIndex.addKeys(rows, dimKeys);
+			putDimKeys(partition, sampleTime, sampleId);
+		}
+
+		List<ActiveSessionHistory> blockRows = rows;
+		try {
+			ActiveSessionHistoryBlock block = partition.activeSessionHistoryBlockById.get(sampleId);
+			if (block != null){
+				blockRows = AshBlockCodec.decode(block.getData(), stringDictionary);
+				blockRows.addAll(rows);
+			}
+			partition.activeSessionHistoryBlockById.putNoReturn(
+					new ActiveSessionHistoryBlock(sampleId, blockRows.size(),
+							AshBlockCodec.encode(blockRows, stringDictionary)));
+			partition.isBlockExist = true;
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Gets rows of active session history for sample id. Block is decoded
+	 * out of lock, samples are read by many threads (see AshGroupBy).
+	 *
+	 * @param sampleId the sample id
+	 * @return the rows, null if sample id is out of partitions
+	 * @throws DatabaseException the database exception
+	 */
+	public List<ActiveSessionHistory> getRows(long sampleId)
+			throws DatabaseException {
+		ActiveSessionHistoryBlock block = null;
+		synchronized (this) {
+			Partition partition = getForRead(sampleId);
+			if (partition == null){
+				return null;
+			}
+			partition.open();
+
+			if (partition.isBlockExist){
+				block = partition.activeSessionHistoryBlockById.get(sampleId);
+			}
+			if (block == null){
+				return getEntityRows(partition, sampleId);
+			}
+		}
+
+		try {
+			return AshBlockCodec.decode(block.getData(), stringDictionary);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		synchronized (this) {
+			Partition partition = getForRead(sampleId);
+			if (partition == null){
+				return null;
+			}
+			partition.open();
+			return getEntityRows(partition, sampleId);
+		}
+	}
+
+	/**
+	 * Count rows of sample without reading of rows: from header of block
+	 * or by keys of rows stored as entities.
+	 *
+	 * @param sampleId the sample id
+	 * @return the count of rows, -1 if sample is not in partitions
+	 * @throws DatabaseException the database exception
+	 */
+	public synchronized int countRows(long sampleId) throws DatabaseException {
+		Partition partition = getForRead(sampleId);
+		if (partition == null){
+			return -1;
+		}
+		partition.open();
+
+		if (partition.isBlockExist){
+			ActiveSessionHistoryBlock block =
+				partition.activeSessionHistoryBlockById.get(sampleId);
+			if (block != null){
+				try {
+					return AshBlockCodec.rowCount(block.getData());
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+		return AshDataAccessor.countKeys(
+				partition.activeSessionHistoryByAshId.subIndex(sampleId));
+	}
+
+	/**
+	 * Gets rows of sample stored as entities.
+	 *
+	 * @param partition the partition
+	 * @param sampleId the sample id
+	 * @return the rows
+	 * @throws DatabaseException the database exception
+	 */
+	private List<ActiveSessionHistory> getEntityRows(Partition partition,
+			long sampleId) throws DatabaseException {
+		List<ActiveSessionHistory> rows = new ArrayList<ActiveSessionHistory>();
+		EntityCursor<ActiveSessionHistory> cursor =
+			partition.activeSessionHistoryByAshId.subIndex(sampleId).entities();
+		try {
+			Iterator<ActiveSessionHistory> iter = cursor.iterator();
+			while (iter.hasNext()) {
+				rows.add(iter.next());
+			}
+		} finally {
+			cursor.close();
+		}
+		return rows;
+	}
+
+	/**
+	 * Delete rows of one sample.
+	 *
+	 * @param sampleId the sample id
+	 * @return true, if sample id is in partition
+	 * @throws DatabaseException the database exception
+	 */
+	public synchronized boolean deleteSample(long sampleId) throws DatabaseException {
+		Partition partition = getForRead(sampleId);
+		if (partition == null){
+			return false;
+		}
+		partition.open();
+
+		if (partition.isBlockExist){
+			partition.activeSessionHistoryBlockById.delete(sampleId);
+		}
+		partition.activeSessionHistoryByAshId.delete(sampleId);
+		partition.dimBySampleId.delete(sampleId);
+		partition.ashById.delete(sampleId);
+		return true;
+	}
+
+	/**
+	 * Drop partitions, all samples of which are in range [start, end].
+	 *
+	 * @param start the start sample time
+	 * @param end the end sample time
+	 * @return true, if rest of range is in other partitions (delete by sample is needed)
+	 * @throws DatabaseException the database exception
+	 */
+	public synchronized boolean dropRange(double start, double end)
+			throws DatabaseException {
+		boolean isPartial = false;
+
+		List<Partition> list = new ArrayList<Partition>(partitions.values());
+		Iterator<Partition> iter = list.iterator();
+		while (iter.hasNext()) {
+			Partition partition = iter.next();
+			double min = partition.meta.getMinSampleTime();
+			double max = partition.meta.getMaxSampleTime();
+
+			if (min >= start && max <= end) {
+				drop(partition);
+			} else if (min <= end && max >= start) {
+				isPartial = true;
+			}
+		}
+		return isPartial;
+	}
+
+	/**
+	 * Gets the max sample time of partitions, which are older than time.
+	 *
+	 * @param time the time
+	 * @return the max sample time, 0 if there is no such partitions
+	 */
+	public synchronized double getMaxSampleTimeBefore(double time) {
+		double out = 0.0;
+		Iterator<Partition> iter = partitions.values().iterator();
+		while (iter.hasNext()) {
+			double max = iter.next().meta.getMaxSampleTime();
+			if (max < time && max > out) {
+				out = max;
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * Gets the partitions.
+	 *
+	 * @return the partitions
+	 */
+	public synchronized List<AshPartition> getPartitions() {
+		List<AshPartition> out = new ArrayList<AshPartition>();
+		Iterator<Partition> iter = partitionsBySampleId.values().iterator();
+		while (iter.hasNext()) {
+			out.add(iter.next().meta);
+		}
+		return out;
+	}
+
+	/**
+	 * Gets the ranges of sample time of partitions with index of dimensions.
+	 *
+	 * @return the ranges {min, max} in order of time
+	 */
+	public synchronized List<double[]> getDimIndexedRanges() {
+		List<double[]> out = new ArrayList<double[]>();
+		Iterator<Partition> iter = partitionsBySampleId.values().iterator();
+		while (iter.hasNext()) {
+			Partition partition = iter.next();
+			if (partition.isDimIndexed()) {
+				out.add(new double[] {partition.meta.getMinSampleTime(),
+						partition.meta.getMaxSampleTime()});
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * Add samples with rows of value of dimension from index of partitions.
+	 *
+	 * @param key the dimension and value (see AshDimensionIndex)
+	 * @param start the start sample time (inclusive)
+	 * @param end the end sample time
+	 * @param isEndInclusive the end inclusive
+	 * @param samples the samples, in order of time
+	 * @throws DatabaseException the database exception
+	 */
+	public synchronized void addSamplesByDim(String key, double start,
+			double end, boolean isEndInclusive, List<AshIdTime> samples)
+			throws DatabaseException {
+		Iterator<Partition> iter = partitionsBySampleId.values().iterator();
+		while (iter.hasNext()) {
+			Partition partition = iter.next();
+			if (partition.meta.getMaxSampleTime() < start
+					|| partition.meta.getMinSampleTime() > end
+					|| !partition.isDimIndexed()) {
+				continue;
+			}
+			partition.open();
+
+			EntityCursor<ActiveSessionHistoryDim> cursor =
+				partition.dimByKey.entities(
+						new AshDimKey(key, start, Long.MIN_VALUE), true,
+						new AshDimKey(key, end, isEndInclusive ? Long.MAX_VALUE : Long.MIN_VALUE),
+						isEndInclusive);
+			try {
+				Iterator<ActiveSessionHistoryDim> dimIter = cursor.iterator();
+				while (dimIter.hasNext()) {
+					AshDimKey dimKey = dimIter.next().getKey();
+					samples.add(new AshIdTime(dimKey.getSampleId(),
+							dimKey.getSampleTime()));
+				}
+			} finally {
+				cursor.close();
+			}
+		}
+	}
+
+	/**
+	 * Sync opened partitions (deferred write).
+	 */
+	public synchronized void sync() {
+		Iterator<Partition> iter = partitions.values().iterator();
+		while (iter.hasNext()) {
+			Partition partition = iter.next();
+			if (partition.store != null) {
+				try {
+					partition.store.sync();
+				} catch (DatabaseException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Close opened partitions.
+	 */
+	public synchronized void close() {
+		Iterator<Partition> iter = partitions.values().iterator();
+		while (iter.hasNext()) {
+			iter.next().close();
+		}
+		lastPartition = null;
+	}
+
+	/**
+	 * Gets the partition for write, new partition is created for new day.
+	 *
+	 * @param sampleTime the sample time
+	 * @param sampleId the sample id
+	 * @param isDimIndex true, if dimensions of rows are indexed
+	 * @return the partition
+	 * @throws DatabaseException the database exception
+	 */
+	private Partition getForWrite(double sampleTime, long sampleId,
+			boolean isDimIndex) throws DatabaseException {
+		Partition partition = lastPartition;
+
+		if (partition == null || sampleTime < partition.dayBegin
+				|| sampleTime >= partition.dayEnd) {
+			String name = dateFormat.format(new Date((long) sampleTime));
+			partition = partitions.get(name);
+			if (partition == null) {
+				partition = new Partition(new AshPartition(name, sampleId, sampleTime));
+				partitions.put(name, partition);
+				partitionsBySampleId.put(sampleId, partition);
+				partitionByName.putNoReturn(partition.meta);
+				partition.setDimIndexed(isDimIndex);
+			}
+			// Sync previous day on change of day
+			if (lastPartition != null && lastPartition.store != null) {
+				lastPartition.store.sync();
+			}
+			lastPartition = partition;
+		}
+
+		long minSampleId = partition.meta.getMinSampleId();
+		if (partition.meta.addSample(sampleId, sampleTime)) {
+			if (minSampleId != partition.meta.getMinSampleId()) {
+				partitionsBySampleId.remove(minSampleId);
+				partitionsBySampleId.put(partition.meta.getMinSampleId(), partition);
+			}
+			partitionByName.putNoReturn(partition.meta);
+		}
+
+		// Index is not full after rows without it
+		if (!isDimIndex && partition.isDimIndexed()) {
+			partition.setDimIndexed(false);
+		}
+
+		partition.open();
+		
+		// Sample id of partition rows (foreign key of ActiveSessionHistory)
+		if (sampleId != partition.lastSampleId) {
+			partition.ashById.putNoOverwrite(new AshIdTime(sampleId, sampleTime));
+			partition.lastSampleId = sampleId;
+		}
+		return partition;
+	}
+
+	/**
+	 * Save keys of dimensions (dimKeys) of sample, which are not saved yet.
+	 *
+	 * @param partition the partition
+	 * @param sampleTime the sample time
+	 * @param sampleId the sample id
+	 * @throws DatabaseException the database exception
+	 */
+	private void putDimKeys(Partition partition, double sampleTime, long sampleId)
+			throws DatabaseException {
+		if (sampleId != partition.dimSampleId) {
+			partition.dimSampleKeys.clear();
+			partition.dimSampleId = sampleId;
+		}
+		Iterator<String> iter = dimKeys.iterator();
+		while (iter.hasNext()) {
+			String key = iter.next();
+			if (partition.dimSampleKeys.add(key)) {
+				partition.dimByKey.putNoReturn(
+						new ActiveSessionHistoryDim(key, sampleTime, sampleId));
+			}
+		}
+	}
+
+	/**
+	 * Gets the partition of sample id.
+	 *
+	 * @param sampleId the sample id
+	 * @return the partition, null if sample id is out of partitions
+	 */
+	private Partition getForRead(long sampleId) {
+		SortedMap<Long, Partition> head = partitionsBySampleId.headMap(sampleId + 1);
+		if (head.isEmpty()) {
+			return null;
+		}
+		Partition partition = head.get(head.lastKey());
+		if (sampleId > partition.meta.getMaxSampleId()) {
+			return null;
+		}
+		return partition;
+	}
+
+	/**
+	 * Drop partition: close and remove databases of store.
+	 *
+	 * @param partition the partition
+	 * @throws DatabaseException the database exception
+	 */
+	private void drop(Partition partition) throws DatabaseException {
+		partition.close();
+		if (lastPartition == partition) {
+			lastPartition = null;
+		}
+
+		Environment env = store.getEnvironment();
+		String prefix = DB_PREFIX + partition.getStoreName() + "#";
+		Iterator<String> iter = env.getDatabaseNames().iterator();
+		while (iter.hasNext()) {
+			String dbName = iter.next();
+			if (dbName.startsWith(prefix)) {
+				env.removeDatabase(null, dbName);
+			}
+		}
+
+		partitions.remove(partition.meta.getName());
+		partitionsBySampleId.remove(partition.meta.getMinSampleId());
+		partitionByName.delete(partition.meta.getName());
+		ashParamValue.delete(PARAM_DIM_INDEX + partition.meta.getName());
+	}
+
+	/**
+	 * The Class Partition (entity store of one day).
+	 */
+	private class Partition {
+
+		/** The range of partition. */
+		private AshPartition meta;
+
+		/** The begin of day. */
+		private double dayBegin;
+
+		/** The end of day (next day begin). */
+		private double dayEnd;
+
+		/** The store, opened on first use. */
+		private EntityStore store;
+
+		/** The sample time by sample id. */
+		private PrimaryIndex<Long, AshIdTime> ashById;
+
+		/** The last sample id of write. */
+		private long lastSampleId = -1;
+
+		/** The active session history by id. */
+		private PrimaryIndex<Long, ActiveSessionHistory> activeSessionHistoryById;
+
+		/** The active session history by sample id. */
+		private SecondaryIndex<Long, Long, ActiveSessionHistory> activeSessionHistoryByAshId;
+
+		/** The active session history by sample id (columnar block). */
+		private PrimaryIndex<Long, ActiveSessionHistoryBlock> activeSessionHistoryBlockById;
+
+		/** Is any ActiveSessionHistoryBlock in partition */
+		private boolean isBlockExist = false;
+
+		/** The samples of values of dimensions. */
+		private PrimaryIndex<AshDimKey, ActiveSessionHistoryDim> dimByKey;
+
+		/** The samples of values of dimensions by sample id. */
+		private SecondaryIndex<Long, AshDimKey, ActiveSessionHistoryDim> dimBySampleId;
+
+		/** Are dimensions of all rows indexed, null if not read. */
+		private Boolean isDimIndexed;
+
+		/** The sample id of last write to index of dimensions. */
+		private long dimSampleId = -1;
+
+		/** The keys of dimensions of last sample, which are saved. */
+		private Set<String> dimSampleKeys = new HashSet<String>();
+
+		/**
+		 * Instantiates a new partition.
+		 *
+		 * @param meta the range of partition
+		 */
+		Partition(AshPartition meta) {
+			this.meta = meta;
+
+			Calendar cal = Calendar.getInstance();
+			try {
+				cal.setTime(dateFormat.parse(meta.getName()));
+			} catch (ParseException e) {
+				cal.setTimeInMillis((long) meta.getMinSampleTime());
+			}
+			this.dayBegin = cal.getTimeInMillis();
+			cal.add(Calendar.DAY_OF_MONTH, 1);
+			this.dayEnd = cal.getTimeInMillis();
+		}
+
+		/**
+		 * Gets the store name.
+		 *
+		 * @return the store name
+		 */
+		String getStoreName() {
+			return STORE_PREFIX + meta.getName();
+		}
+
+		/**
+		 * Checks if dimensions of all rows of partition are indexed.
+		 *
+		 * @return true, if indexed
+		 */
+		boolean isDimIndexed() {
+			if (isDimIndexed == null) {
+				isDimIndexed = Boolean.FALSE;
+				try {
+					AshParamValue param = ashParamValue.get(PARAM_DIM_INDEX + meta.getName());
+					isDimIndexed = param != null && "1".equals(param.getValue());
+				} catch (DatabaseException e) {
+					e.printStackTrace();
+				}
+			}
+			return isDimIndexed.booleanValue();
+		}
+
+		/**
+		 * Sets if dimensions of all rows of partition are indexed.
+		 *
+		 * @param isDimIndexed true, if indexed
+		 * @throws DatabaseException the database exception
+		 */
+		void setDimIndexed(boolean isDimIndexed) throws DatabaseException {
+			this.isDimIndexed = Boolean.valueOf(isDimIndexed);
+			ashParamValue.putNoReturn(new AshParamValue(
+					PARAM_DIM_INDEX + meta.getName(), isDimIndexed ? "1" : "0"));
+		}
+
+		/**
+		 * Open store of partition.
+		 *
+		 * @throws DatabaseException the database exception
+		 */
+		void open() throws DatabaseException {
+			if (store != null) {
+				return;
+			}
+			store = new EntityStore(AshPartitions.this.store.getEnvironment(),
+					getStoreName(), AshPartitions.this.store.getConfig());
+			ashById = store.getPrimaryIndex(Long.class, AshIdTime.class);
+			activeSessionHistoryById =
+				store.getPrimaryIndex(Long.class, ActiveSessionHistory.class);
+			activeSessionHistoryByAshId =
+				store.getSecondaryIndex(activeSessionHistoryById, Long.class, "sampleId");
+			activeSessionHistoryBlockById =
+				store.getPrimaryIndex(Long.class, ActiveSessionHistoryBlock.class);
+			dimByKey = store.getPrimaryIndex(AshDimKey.class, ActiveSessionHistoryDim.class);
+			dimBySampleId = store.getSecondaryIndex(dimByKey, Long.class, "sampleId");
+
+			EntityCursor<Long> keys = activeSessionHistoryBlockById.keys();
+			try {
+				isBlockExist = keys.first() != null;
+			} finally {
+				keys.close();
+			}
+		}
+
+		/**
+		 * Close store of partition.
+		 */
+		void close() {
+			if (store != null) {
+				try {
+					store.close();
+				} catch (DatabaseException e) {
+					e.printStackTrace();
+				}
+				store = null;
+			}
+		}
+	}
+}
@@ -0,0 +1,249 @@
+/*
+ *-------------------
+ * The AshPyramid.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.database;
+
+import java.util.Iterator;
+
+import org.ash.datamodel.ActiveSessionHistory15;
+import org.ash.datamodel.ActiveSessionHistorySum;
+import org.ash.datamodel.AshParamValue;
+import org.ash.datamodel.AshSumKey;
+
+import com.sleepycat.je.DatabaseException;
+import com.sleepycat.persist.EntityCursor;
+import com.sleepycat.persist.EntityStore;
+import com.sleepycat.persist.PrimaryIndex;
+
+/**
+ * The Class AshPyramid.
+ *
+ * Series of 15 sec buckets (ActiveSessionHistory15) summed by 1 min, 5 min,
+ * 1 hour and 1 day. Buckets are updated on load of 15 sec storage and on
+ * delete, charts of long periods are loaded from the coarsest level
+ * which is enough for step of chart.
+ */
+public class AshPyramid {
+
+	/** The length of bucket by level, level 0 is 15 sec storage. */
+	public static final double[] LEVELS = {15000, 60000, 300000, 3600000, 86400000};
+
+	/** The index of count of 15 sec buckets in sum. */
+	public static final int COUNT = AshRollup.SIZE;
+
+	/** The parameter, is set when pyramid is built for all 15 sec storage. */
+	private static final String PARAM_BUILT = "ASH.pyramid";
+
+	/** The 15 sec storage. */
+	private PrimaryIndex<Double, ActiveSessionHistory15> ash15;
+
+	/** The buckets by level and begin time. */
+	private PrimaryIndex<AshSumKey, ActiveSessionHistorySum> ashSum;
+
+	/** The parameters of store. */
+	private PrimaryIndex<String, AshParamValue> ashParamValue;
+
+	/** The pyramid is built for all 15 sec storage. */
+	private volatile boolean built;
+
+	/**
+	 * Instantiates a new ash pyramid.
+	 *
+	 * @param store the store
+	 * @throws DatabaseException the database exception
+	 */
+	public AshPyramid(EntityStore store) throws DatabaseException {
+		ash15 = store.getPrimaryIndex(Double.class, ActiveSessionHistory15.class);
+		ashSum = store.getPrimaryIndex(AshSumKey.class, ActiveSessionHistorySum.class);
+		ashParamValue = store.getPrimaryIndex(String.class, AshParamValue.class);
+
+		built = ashParamValue.get(PARAM_BUILT) != null;
+		if (!built && ash15.sortedMap().isEmpty()) {
+			// New store, buckets are updated on load from the beginning
+			ashParamValue.putNoReturn(new AshParamValue(PARAM_BUILT, "1"));
+			built = true;
+		}
+	}
+
+	/**
+	 * Gets the coarsest level with bucket not longer than step.
+	 *
+	 * @param step the step of chart
+	 * @return the level
+	 */
+	public static int getLevel(double step) {
+		int level = 0;
+		for (int i = 1; i < LEVELS.length; i++) {
+			if (LEVELS[i] <= step) {
+				level = i;
+			}
+		}
+		return level;
+	}
+
+	/**
+	 * Recalculate buckets of all levels for period [start, end],
+	 * buckets without 15 sec data are deleted.
+	 *
+	 * @param start the start
+	 * @param end the end
+	 * @throws DatabaseException the database exception
+	 */
+	public synchronized void update(double start, double end)
+			throws DatabaseException {
+		for (int level = 1; level < LEVELS.length; level++) {
+			double length = LEVELS[level];
+			for (double b = Math.floor(start / length) * length; b <= end; b += length) {
+				double[] sum = getSum(level - 1, b, b + length);
+				int count = (int) sum[COUNT];
+				if (count == 0) {
+					ashSum.delete(new AshSumKey(level, b));
+				} else {
+					double[] values = new double[AshRollup.SIZE];
+					System.arraycopy(sum, 0, values, 0, AshRollup.SIZE);
+					ashSum.putNoReturn(new ActiveSessionHistorySum(level, b, count, values));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Delete buckets of period [start, end], buckets on bounds of period
+	 * are recalculated.
+	 *
+	 * @param start the start
+	 * @param end the end
+	 * @throws DatabaseException the database exception
+	 */
+	public synchronized void remove(double start, double end)
+			throws DatabaseException {
+		for (int level = 1; level < LEVELS.length; level++) {
+			double length = LEVELS[level];
+			EntityCursor<ActiveSessionHistorySum> items =
+				ashSum.entities(new AshSumKey(level, Math.floor(start / length) * length), true,
+						new AshSumKey(level, end), true);
+			try {
+				for (ActiveSessionHistorySum entity = items.first();
+						entity != null;
+						entity = items.next()) {
+					items.delete();
+				}
+			} finally {
+				items.close();
+			}
+		}
+		update(start, start);
+		update(end, end);
+	}
+
+	/**
+	 * Build buckets for all 15 sec storage, once for store
+	 * (stores created before pyramid), is called by readers of buckets.
+	 *
+	 * @throws DatabaseException the database exception
+	 */
+	public void buildIfNeeded() throws DatabaseException {
+		if (built) {
+			return;
+		}
+		synchronized (this) {
+			if (!built) {
+				build();
+			}
+		}
+	}
+
+	/**
+	 * Build buckets for all 15 sec storage.
+	 *
+	 * @throws DatabaseException the database exception
+	 */
+	private void build() throws DatabaseException {
+		Double firstKey = ash15.sortedMap().isEmpty() ? null : ash15.sortedMap().firstKey();
+		if (firstKey != null) {
+			update(firstKey, ash15.sortedMap().lastKey());
+		}
+		ashParamValue.putNoReturn(new AshParamValue(PARAM_BUILT, "1"));
+		built = true;
+	}
+
+	/**
+	 * Sum of buckets of level for period [from, to).
+	 *
+	 * @param level the level
+	 * @param from the from
+	 * @param to the to
+	 * @return the sums by wait class index, CPU, COUNT_AAS and COUNT
+	 * @throws DatabaseException the database exception
+	 */
+	public double[] getSum(int level, double from, double to)
+			throws DatabaseException {
+		double[] sum = new double[AshRollup.SIZE + 1];
+
+		if (level == 0) {
+			EntityCursor<ActiveSessionHistory15> items =
+				ash15.entities(from, true, to, false);
+			try {
+				Iterator<ActiveSessionHistory15> iter = items.iterator();
+				while (iter.hasNext()) {
+					ActiveSessionHistory15 ash = iter.next();
+					sum[0] += ash.getOther0();
+					sum[1] += ash.getApplication1();
+					sum[2] += ash.getConfiguration2();
+					sum[3] += ash.getAdministrative3();
+					sum[4] += ash.getConcurrency4();
+					sum[5] += ash.getCommit5();
+					sum[6] += ash.getIdle6();
+					sum[7] += ash.getNetwork7();
+					sum[8] += ash.getUserIO8();
+					sum[9] += ash.getSystemIO9();
+					sum[10] += ash.getScheduler10();
+					sum[11] += ash.getCluster11();
+					sum[12] += ash.getQueueing12();
+					sum[AshRollup.CPU] += ash.getCpu();
+					sum[AshRollup.COUNT_AAS] += ash.getcountActiveSessions();
+					sum[COUNT]++;
+				}
+			} finally {
+				items.close();
+			}
+			return sum;
+		}
+
+		EntityCursor<ActiveSessionHistorySum> items =
+			ashSum.entities(new AshSumKey(level, from), true,
+					new AshSumKey(level, to), false);
+		try {
+			Iterator<ActiveSessionHistorySum> iter = items.iterator();
+			while (iter.hasNext()) {
+				ActiveSessionHistorySum ash = iter.next();
+				double[] values = ash.getSum();
+				for (int i = 0; i < AshRollup.SIZE; i++) {
+					sum[i] += values[i];
+				}
+				sum[COUNT] += ash.getCount();
+			}
+		} finally {
+			items.close();
+		}
+		return sum;
+	}
+}
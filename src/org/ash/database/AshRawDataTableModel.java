@@ -0,0 +1,564 @@
+/*
+ *-------------------
+ * The AshRawDataTableModel.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.database;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.table.AbstractTableModel;
+
+import org.ash.datamodel.ActiveSessionHistory;
+import org.ash.datamodel.AshIdTime;
+import org.ash.datamodel.AshUserIdUsername;
+import org.ash.util.LruCache;
+import org.ash.util.Options;
+
+import com.sleepycat.je.DatabaseException;
+import com.sleepycat.persist.EntityCursor;
+
+/**
+ * The Class AshRawDataTableModel.
+ *
+ * Raw ASH rows of time range as lazy table model. Only the index of range
+ * is kept: sample ids, sample times and the number of the first row of each
+ * sample. Without filter rows are counted from headers of blocks or keys
+ * of rows, rows are read only for filter by wait class or dimension; the
+ * index is built by the loading thread of raw data panel. Rows are read by
+ * pages of PAGE_SIZE on demand, last CACHE_PAGES pages are kept in LRU
+ * cache, pages next to the shown page are read in background. Rows are
+ * filtered by wait class (detail) and ordered by sample time in BDB, as
+ * the index of sample time allows, sorting of other columns is not
+ * supported (see RawDataTable). Rows of one value of dimension (sql id,
+ * session etc.) are read from samples of index of dimensions only.
+ */
+public class AshRawDataTableModel extends AbstractTableModel {
+
+	private static final long serialVersionUID = 1L;
+
+	/** The count of rows in page. */
+	public static final int PAGE_SIZE = 256;
+
+	/** The count of pages in cache. */
+	private static final int CACHE_PAGES = 16;
+
+	/** The column names. */
+	private static final String[] COLUMNS = new String[] {
+			"SampleID",
+			"SampleTime",
+			"SessionID",
+			"SessionSerial",
+			"Username",
+			"Program",
+			"Module",
+			"ClientID",
+			"Action",
+			"Sql type",
+			"SQL ID",
+			"Plan hash value",
+			"Event",
+			"P1",
+			"P1Text",
+			"P2",
+			"P2Text",
+			"P3",
+			"P3Text",
+			"Wait Class",
+			"Wait Class id",
+			"Wait time",
+			"Session state",
+			"Time waited",
+			"Blocking session (BS)",
+			"BS status",
+			"BS serial#",
+			"Current obj#",
+			"Current file",
+			"Current block",
+			"Current row",
+			"Consumer group id",
+			"Xid",
+			"Remote instance",
+			"In connection mgmt",
+			"In parse",
+			"In hard parse",
+			"In sql execution",
+			"In pl/sql execution",
+			"In pl/sql rpc",
+			"In pl/sql compilation",
+			"In java execution",
+			"In bind",
+			"In cursor close",
+			"Service hash",
+			"Client id",
+			"UserID"
+	};
+
+	/** The index of SampleID column. */
+	public static final int SAMPLE_ID_COLUMN = 0;
+
+	/** The index of SampleTime column. */
+	public static final int SAMPLE_TIME_COLUMN = 1;
+
+	/** The thread of background reads of pages (ends when idle). */
+	private static final ThreadPoolExecutor prefetchExecutor =
+		new ThreadPoolExecutor(0, 1, 30, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+					public Thread newThread(Runnable r) {
+						Thread t = new Thread(r, "ASH raw data prefetch");
+						t.setDaemon(true);
+						return t;
+					}
+				});
+
+	/** The dao. */
+	private AshDataAccessor dao;
+
+	/** The filter by wait class, empty for all rows. */
+	private String detail;
+
+	/** Is detail CPU. */
+	private boolean isCpu;
+
+	/** The filter by dimension (see AshDimensionIndex), null for all rows. */
+	private String dimension;
+
+	/** The value of dimension. */
+	private String dimensionValue;
+
+	/** The count of samples. */
+	private int sampleCount = 0;
+
+	/** The sample ids. */
+	private long[] sampleIds = new long[64];
+
+	/** The sample times. */
+	private double[] sampleTimes = new double[64];
+
+	/** The number of first row of samples, rowStart[sampleCount] is the count of rows. */
+	private int[] rowStart = new int[65];
+
+	/** Are rows ordered by sample time descending. */
+	private volatile boolean isDescending = false;
+
+	/** The pages by number (in ascending order). */
+	private LruCache<Integer, ActiveSessionHistory[]> pages =
+		new LruCache<Integer, ActiveSessionHistory[]>(CACHE_PAGES);
+
+	/** The pages read in background now. */
+	private Set<Integer> pagesPrefetched = new HashSet<Integer>();
+
+	/** The usernames by user id. */
+	private Map<Long, String> usernames = new HashMap<Long, String>();
+
+	/** The date format of sample time. */
+	private DateFormat dateFormat = new SimpleDateFormat("dd.MM.yyyy HH.mm.ss");
+
+	/**
+	 * Instantiates a new ash raw data table model, index of range is read.
+	 *
+	 * @param dao the dao
+	 * @param begin the begin (inclusive)
+	 * @param end the end (exclusive)
+	 * @param detail the wait class filter, empty for all rows
+	 * @throws DatabaseException the database exception
+	 */
+	public AshRawDataTableModel(AshDataAccessor dao, double begin, double end,
+			String detail) throws DatabaseException {
+		this(dao, begin, end, detail, null, null);
+	}
+
+	/**
+	 * Instantiates a new ash raw data table model of rows with value of
+	 * dimension, index of range is read.
+	 *
+	 * @param dao the dao
+	 * @param begin the begin (inclusive)
+	 * @param end the end (exclusive)
+	 * @param detail the wait class filter, empty for all rows
+	 * @param dimension the dimension (see AshDimensionIndex), null for all rows
+	 * @param dimensionValue the value of dimension
+	 * @throws DatabaseException the database exception
+	 */
+	public AshRawDataTableModel(AshDataAccessor dao, double begin, double end,
+			String detail, String dimension, String dimensionValue)
+			throws DatabaseException {
+		this.dao = dao;
+		this.detail = detail;
+		this.isCpu = detail.length() != 0
+			&& detail.contains(Options.getInstance().getResource("cpuLabel.text"));
+		this.dimension = dimension;
+		this.dimensionValue = dimensionValue;
+
+		if (dimension != null) {
+			List<AshIdTime> samples =
+				dao.getSamplesByDimension(dimension, dimensionValue, begin, end);
+			for (int i = 0; i < samples.size(); i++) {
+				AshIdTime ashIdTime = samples.get(i);
+				int count = countRows(ashIdTime.getsampleId());
+				if (count > 0) {
+					addSample(ashIdTime.getsampleId(), ashIdTime.getsampleTime(), count);
+				}
+			}
+			return;
+		}
+
+		EntityCursor<AshIdTime> ashIdTimeCursor =
+			dao.doRangeQuery(dao.getAshBySampleTime(), begin, true, end, false);
+		try {
+			Iterator<AshIdTime> ashIdTimeIter = ashIdTimeCursor.iterator();
+			while (ashIdTimeIter.hasNext()) {
+				AshIdTime ashIdTime = ashIdTimeIter.next();
+				int count = countRows(ashIdTime.getsampleId());
+				if (count > 0) {
+					addSample(ashIdTime.getsampleId(), ashIdTime.getsampleTime(), count);
+				}
+			}
+		} finally {
+			ashIdTimeCursor.close();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see javax.swing.table.TableModel#getColumnCount()
+	 */
+	public int getColumnCount() {
+		return COLUMNS.length;
+	}
+
+	/* (non-Javadoc)
+	 * @see javax.swing.table.AbstractTableModel#getColumnName(int)
+	 */
+	public String getColumnName(int column) {
+		return COLUMNS[column];
+	}
+
+	/* (non-Javadoc)
+	 * @see javax.swing.table.TableModel#getRowCount()
+	 */
+	public int getRowCount() {
+		return rowStart[sampleCount];
+	}
+
+	/* (non-Javadoc)
+	 * @see javax.swing.table.TableModel#getValueAt(int, int)
+	 */
+	public Object getValueAt(int rowIndex, int columnIndex) {
+		int row = isDescending ? getRowCount() - 1 - rowIndex : rowIndex;
+		ActiveSessionHistory ASH = getRow(row);
+		if (ASH == null) {
+			// Sample is deleted after the index is read
+			return null;
+		}
+
+		switch (columnIndex) {
+		case 0: return ASH.getSampleId();
+		case 1: return dateFormat.format(new Date((long) sampleTimes[findSample(row)]));
+		case 2: return ASH.getSessionId();
+		case 3: return (long)ASH.getSessionSerial();
+		case 4: return getUsername(ASH.getUserId());
+		case 5: return ASH.getProgram();
+		case 6: return ASH.getModule();
+		case 7: return ASH.getClientId();
+		case 8: return ASH.getAction();
+		case 9: return Options.getInstance().getResource(String.valueOf((int) ASH.getSqlOPCode()));
+		case 10: return ASH.getSqlId();
+		case 11: return (long)ASH.getSqlPlanHashValue();
+		case 12: return ASH.getEvent();
+		case 13: return (long)ASH.getP1();
+		case 14: return ASH.getP1Text();
+		case 15: return (long)ASH.getP2();
+		case 16: return ASH.getP2Text();
+		case 17: return (long)ASH.getP3();
+		case 18: return ASH.getP3Text();
+		case 19: return ASH.getWaitClass();
+		case 20: return (long)ASH.getWaitClassId();
+		case 21: return (long)ASH.getWaitTime();
+		case 22: return ASH.getSessionState();
+		case 23: return (long)ASH.getTimeWaited();
+		case 24: return (long)ASH.getBlockingSession();
+		case 25: return ASH.getBlockingSessionStatus();
+		case 26: return (long)ASH.getBlockingSessionSerialHash();
+		case 27: return (long)ASH.getCurrentObjHash();
+		case 28: return (long)ASH.getCurrentFileHash();
+		case 29: return (long)ASH.getCurrentBlockHash();
+		case 30: return (long)ASH.getCurrentRowHash();
+		case 31: return (long)ASH.getConsumerGroupId();
+		case 32: return ASH.getXid();
+		case 33: return (long)ASH.getRemoteInstance();
+		case 34: return ASH.getInConnectionMgmt();
+		case 35: return ASH.getInParse();
+		case 36: return ASH.getInHardParse();
+		case 37: return ASH.getInSqlExecution();
+		case 38: return ASH.getInPlSqlExecution();
+		case 39: return ASH.getInPlSqlRpc();
+		case 40: return ASH.getInPlSqlCompilation();
+		case 41: return ASH.getInJavaExecution();
+		case 42: return ASH.getInBind();
+		case 43: return ASH.getInCursorClose();
+		case 44: return (long)ASH.getServiceHash();
+		case 45: return ASH.getClientId();
+		case 46: return ASH.getUserId();
+		default: return null;
+		}
+	}
+
+	/**
+	 * Checks if rows are ordered by sample time descending.
+	 *
+	 * @return true, if descending
+	 */
+	public boolean isDescending() {
+		return isDescending;
+	}
+
+	/**
+	 * Order rows by sample time, cached pages are kept.
+	 *
+	 * @param isDescending true for descending order
+	 */
+	public void setDescending(boolean isDescending) {
+		if (this.isDescending != isDescending) {
+			this.isDescending = isDescending;
+			fireTableDataChanged();
+		}
+	}
+
+	/**
+	 * Gets the count of samples of range.
+	 *
+	 * @return the count of samples
+	 */
+	public int getSampleCount() {
+		return sampleCount;
+	}
+
+	/**
+	 * Gets row in ascending order, page of row is read if not cached and
+	 * the next pages are read in background.
+	 *
+	 * @param row the row in ascending order
+	 * @return the row, null if not found or page is not read
+	 */
+	private ActiveSessionHistory getRow(int row) {
+		int pageNumber = row / PAGE_SIZE;
+		ActiveSessionHistory[] page;
+		synchronized (pages) {
+			page = pages.get(pageNumber);
+		}
+		if (page == null) {
+			page = readPage(pageNumber);
+			if (page == null) {
+				// Not cached, the page is read again on next get
+				return null;
+			}
+			synchronized (pages) {
+				pages.put(pageNumber, page);
+			}
+		}
+		prefetch(pageNumber + 1);
+		prefetch(pageNumber - 1);
+		return page[row % PAGE_SIZE];
+	}
+
+	/**
+	 * Read page in background, if it is not cached or read now.
+	 *
+	 * @param pageNumber the page number
+	 */
+	private void prefetch(final int pageNumber) {
+		if (pageNumber < 0 || pageNumber * PAGE_SIZE >= getRowCount()) {
+			return;
+		}
+		synchronized (pages) {
+			if (pages.containsKey(pageNumber)
+					|| !pagesPrefetched.add(pageNumber)) {
+				return;
+			}
+		}
+		prefetchExecutor.execute(new Runnable() {
+			public void run() {
+				ActiveSessionHistory[] page = readPage(pageNumber);
+				synchronized (pages) {
+					if (page != null) {
+						pages.put(pageNumber, page);
+					}
+					pagesPrefetched.remove(pageNumber);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Read page of rows from local BDB.
+	 *
+	 * @param pageNumber the page number
+	 * @return the rows of page (PAGE_SIZE, missing rows are null),
+	 *         null if rows are not read
+	 */
+	private ActiveSessionHistory[] readPage(int pageNumber) {
+		ActiveSessionHistory[] page = new ActiveSessionHistory[PAGE_SIZE];
+		int first = pageNumber * PAGE_SIZE;
+		int last = Math.min(first + PAGE_SIZE, getRowCount());
+
+		try {
+			for (int i = findSample(first); i < sampleCount && rowStart[i] < last; i++) {
+				List<ActiveSessionHistory> rows =
+					dao.getActiveSessionHistoryBySampleId(sampleIds[i]);
+				int row = rowStart[i];
+				for (int j = 0; j < rows.size() && row < rowStart[i + 1]; j++) {
+					ActiveSessionHistory ASH = rows.get(j);
+					if (!isMatch(ASH)) {
+						continue;
+					}
+					if (row >= first && row < last) {
+						page[row - first] = ASH;
+					}
+					row++;
+				}
+			}
+		} catch (DatabaseException e) {
+			e.printStackTrace();
+			return null;
+		}
+		return page;
+	}
+
+	/**
+	 * Find sample of row (binary search).
+	 *
+	 * @param row the row in ascending order
+	 * @return the index of sample
+	 */
+	private int findSample(int row) {
+		int low = 0;
+		int high = sampleCount - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (rowStart[mid] <= row) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Add sample to index.
+	 *
+	 * @param sampleId the sample id
+	 * @param sampleTime the sample time
+	 * @param count the count of rows
+	 */
+	private void addSample(long sampleId, double sampleTime, int count) {
+		if (sampleCount == sampleIds.length) {
+			long[] ids = new long[sampleCount * 2];
+			double[] times = new double[sampleCount * 2];
+			int[] starts = new int[sampleCount * 2 + 1];
+			System.arraycopy(sampleIds, 0, ids, 0, sampleCount);
+			System.arraycopy(sampleTimes, 0, times, 0, sampleCount);
+			System.arraycopy(rowStart, 0, starts, 0, sampleCount + 1);
+			sampleIds = ids;
+			sampleTimes = times;
+			rowStart = starts;
+		}
+		sampleIds[sampleCount] = sampleId;
+		sampleTimes[sampleCount] = sampleTime;
+		rowStart[sampleCount + 1] = rowStart[sampleCount] + count;
+		sampleCount++;
+	}
+
+	/**
+	 * Count rows of sample by filter, rows are read for filter only.
+	 *
+	 * @param sampleId the sample id
+	 * @return the count
+	 * @throws DatabaseException the database exception
+	 */
+	private int countRows(long sampleId) throws DatabaseException {
+		if (detail.length() == 0 && dimension == null) {
+			return dao.countActiveSessionHistoryBySampleId(sampleId);
+		}
+		List<ActiveSessionHistory> rows = dao.getActiveSessionHistoryBySampleId(sampleId);
+		int count = 0;
+		for (int i = 0; i < rows.size(); i++) {
+			if (isMatch(rows.get(i))) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Checks if row matches filter by dimension and wait class.
+	 *
+	 * @param ASH the row
+	 * @return true, if row is shown
+	 */
+	private boolean isMatch(ActiveSessionHistory ASH) {
+		if (dimension != null
+				&& !AshDimensionIndex.isMatch(dimension, dimensionValue, ASH)) {
+			return false;
+		}
+		if (detail.length() == 0) {
+			return true;
+		}
+		if (isCpu) {
+			return ASH.getWaitClassId() == 0D;
+		}
+		return ASH.getWaitClassId() != 0D && detail.contains(ASH.getWaitClass());
+	}
+
+	/**
+	 * Gets the username (cached).
+	 *
+	 * @param userId the user id
+	 * @return the username
+	 */
+	private String getUsername(Long userId) {
+		String userName = usernames.get(userId);
+		if (userName == null) {
+			userName = "";
+			try {
+				AshUserIdUsername userIdU = dao.getUserIdUsernameById().get(userId);
+				if (userIdU != null) {
+					userName = userIdU.getUsername();
+				}
+			} catch (DatabaseException e) {
+				e.printStackTrace();
+			}
+			usernames.put(userId, userName);
+		}
+		return userName;
+	}
+}
@@ -0,0 +1,203 @@
+/*
+ *-------------------
+ * The AshRollup.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.database;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.Map.Entry;
+
+import org.ash.util.Utils;
+
+/**
+ * The Class AshRollup.
+ *
+ * Incremental counters of active sessions by wait class and event,
+ * updated on load of ASH rows. The 15 sec buckets (ActiveSessionHistory15)
+ * are calculated from these counters without re-reading ActiveSessionHistory.
+ */
+public class AshRollup {
+
+	/** The index of CPU counter. */
+	public static final int CPU = 13;
+
+	/** The index of active sessions counter. */
+	public static final int COUNT_AAS = 14;
+
+	/** The size of counters array. */
+	public static final int SIZE = 15;
+
+	/** The counters by sample time. */
+	private TreeMap<Double, Sample> samples;
+
+	/**
+	 * Instantiates a new ash rollup.
+	 */
+	public AshRollup() {
+		this.samples = new TreeMap<Double, Sample>();
+	}
+
+	/**
+	 * Add one row of ASH to counters.
+	 *
+	 * @param sampleTime the sample time
+	 * @param waitTime the wait time
+	 * @param waitClassId the wait class id
+	 * @param eventName the event name
+	 */
+	public void add(double sampleTime, double waitTime,
+			double waitClassId, String eventName) {
+		add(sampleTime, waitTime, waitClassId, eventName, 1);
+	}
+
+	/**
+	 * Add count of ASH rows with the same wait class and event to counters
+	 * (rows aggregated on server).
+	 *
+	 * @param sampleTime the sample time
+	 * @param waitTime the wait time (not 0 for ON CPU)
+	 * @param waitClassId the wait class id
+	 * @param eventName the event name
+	 * @param count the count of rows
+	 */
+	public synchronized void add(double sampleTime, double waitTime,
+			double waitClassId, String eventName, int count) {
+
+		Sample sample = samples.get(sampleTime);
+		if (sample == null){
+			sample = new Sample();
+			samples.put(sampleTime, sample);
+		}
+
+		if (waitTime != 0) { //Session State = ON_CPU
+			sample.counters[CPU] += count;
+			sample.counters[COUNT_AAS] += count;
+		}
+
+		//Session State = WAITING
+		int index = Utils.getWaitClassIndex(waitClassId);
+		if (index != -1){
+			sample.counters[index] += count;
+			sample.counters[COUNT_AAS] += count;
+
+			if (eventName != null){
+				int[] countEvent = sample.events.get(eventName);
+				if (countEvent == null){
+					sample.events.put(eventName, new int[]{count});
+				} else {
+					countEvent[0] += count;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Sum of counters for range [from, to).
+	 *
+	 * @param from the begin sample time
+	 * @param to the end sample time
+	 * @return counters by wait class index, CPU and COUNT_AAS
+	 */
+	public synchronized double[] getSum(double from, double to) {
+		double[] sum = new double[SIZE];
+
+		Iterator<Sample> iter = samples.subMap(from, to).values().iterator();
+		while (iter.hasNext()) {
+			int[] counters = iter.next().counters;
+			for (int i = 0; i < SIZE; i++){
+				sum[i] += counters[i];
+			}
+		}
+		return sum;
+	}
+
+	/**
+	 * Count of waits by event name for range [from, to).
+	 *
+	 * @param from the begin sample time
+	 * @param to the end sample time
+	 * @return event name and count
+	 */
+	public synchronized HashMap<String, Integer> getEventCount(double from, double to) {
+		HashMap<String, Integer> out = new HashMap<String, Integer>();
+
+		Iterator<Sample> iter = samples.subMap(from, to).values().iterator();
+		while (iter.hasNext()) {
+			Iterator<Entry<String, int[]>> iterEvent =
+				iter.next().events.entrySet().iterator();
+			while (iterEvent.hasNext()) {
+				Entry<String, int[]> entry = iterEvent.next();
+				Integer count = out.get(entry.getKey());
+				if (count == null){
+					out.put(entry.getKey(), entry.getValue()[0]);
+				} else {
+					out.put(entry.getKey(), count + entry.getValue()[0]);
+				}
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * Remove counters older than sample time (already saved to ActiveSessionHistory15).
+	 *
+	 * @param sampleTime the sample time
+	 */
+	public synchronized void purgeBefore(double sampleTime) {
+		samples.headMap(sampleTime).clear();
+	}
+
+	/**
+	 * Remove counters for range [from, to].
+	 *
+	 * @param from the begin sample time
+	 * @param to the end sample time
+	 */
+	public synchronized void remove(double from, double to) {
+		SortedMap<Double, Sample> range = samples.subMap(from, to);
+		range.clear();
+		samples.remove(to);
+	}
+
+	/**
+	 * Get count of sample times in rollup.
+	 *
+	 * @return the count
+	 */
+	public synchronized int size() {
+		return samples.size();
+	}
+
+	/**
+	 * The counters for one sample time.
+	 */
+	private static class Sample {
+
+		/** The counters by wait class index, CPU and COUNT_AAS. */
+		private int[] counters = new int[SIZE];
+
+		/** The count of waits by event name. */
+		private Map<String, int[]> events = new HashMap<String, int[]>();
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ *-------------------
+ * The AshSample.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.database;
+
+import java.util.List;
+
+import org.ash.datamodel.ActiveSessionHistory;
+
+/**
+ * The Class AshSample (rows of one sample of ASH).
+ */
+public class AshSample {
+
+	/** The sample id. */
+	private long sampleId;
+
+	/** The sample time. */
+	private double sampleTime;
+
+	/** The rows of active sessions. */
+	private List<ActiveSessionHistory> rows;
+
+	/**
+	 * Instantiates a new ash sample.
+	 *
+	 * @param sampleId the sample id
+	 * @param sampleTime the sample time
+	 * @param rows the rows
+	 */
+	public AshSample(long sampleId, double sampleTime,
+			List<ActiveSessionHistory> rows) {
+		this.sampleId = sampleId;
+		this.sampleTime = sampleTime;
+		this.rows = rows;
+	}
+
+	/**
+	 * Gets the sample id.
+	 *
+	 * @return the sample id
+	 */
+	public long getSampleId() {
+		return sampleId;
+	}
+
+	/**
+	 * Gets the sample time.
+	 *
+	 * @return the sample time
+	 */
+	public double getSampleTime() {
+		return sampleTime;
+	}
+
+	/**
+	 * Gets the rows.
+	 *
+	 * @return the rows
+	 */
+	public List<ActiveSessionHistory> getRows() {
+		return rows;
+	}
+}
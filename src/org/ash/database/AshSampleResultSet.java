@@ -0,0 +1,293 @@
+/*
+ *-------------------
+ * The AshSampleResultSet.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import oracle.jdbc.OracleResultSet;
+
+import org.ash.datamodel.ActiveSessionHistory;
+
+/**
+ * The Class AshSampleResultSet.
+ * 
+ * Rows of samples of AshSampleSource as result set of
+ * v$active_session_history (columns by name or by position of
+ * Database11g1.QUERY_ASH, forward only), so the samples are loaded by
+ * the same code as rows of Oracle (see Database11g1.loadAshRows).
+ */
+public class AshSampleResultSet implements InvocationHandler {
+
+	/** The columns of v$active_session_history, in order of Database11g1.QUERY_ASH. */
+	private static final String[] COLUMNS = { "SAMPLE_ID", "SAMPLE_TIME",
+			"SQL_EXEC_START", "SESSION_ID", "SESSION_SERIAL#", "SESSION_TYPE",
+			"FLAGS", "USER_ID", "SQL_ID", "SQL_CHILD_NUMBER", "SQL_OPCODE",
+			"FORCE_MATCHING_SIGNATURE", "TOP_LEVEL_SQL_ID",
+			"TOP_LEVEL_SQL_OPCODE", "SQL_PLAN_HASH_VALUE", "SQL_PLAN_LINE_ID",
+			"SQL_PLAN_OPERATION", "SQL_PLAN_OPTIONS", "SQL_EXEC_ID",
+			"PLSQL_ENTRY_OBJECT_ID", "PLSQL_ENTRY_SUBPROGRAM_ID", "PLSQL_OBJECT_ID",
+			"PLSQL_SUBPROGRAM_ID", "QC_INSTANCE_ID", "QC_SESSION_ID",
+			"QC_SESSION_SERIAL#", "EVENT", "EVENT_ID", "EVENT#", "SEQ#",
+			"P1TEXT", "P1", "P2TEXT", "P2", "P3TEXT", "P3", "WAIT_CLASS",
+			"WAIT_CLASS_ID", "WAIT_TIME", "SESSION_STATE", "TIME_WAITED",
+			"BLOCKING_SESSION_STATUS", "BLOCKING_SESSION",
+			"BLOCKING_SESSION_SERIAL#", "CURRENT_OBJ#", "CURRENT_FILE#",
+			"CURRENT_BLOCK#", "CURRENT_ROW#", "CONSUMER_GROUP_ID", "XID",
+			"REMOTE_INSTANCE#", "IN_CONNECTION_MGMT", "IN_PARSE",
+			"IN_HARD_PARSE", "IN_SQL_EXECUTION", "IN_PLSQL_EXECUTION",
+			"IN_PLSQL_RPC", "IN_PLSQL_COMPILATION", "IN_JAVA_EXECUTION",
+			"IN_BIND", "IN_CURSOR_CLOSE", "SERVICE_HASH", "PROGRAM", "MODULE",
+			"ACTION", "CLIENT_ID" };
+
+	/** The indexes of columns by name. */
+	private static final Map<String, Integer> COLUMN_INDEX = new HashMap<String, Integer>();
+
+	static {
+		for (int i = 0; i < COLUMNS.length; i++) {
+			COLUMN_INDEX.put(COLUMNS[i], i);
+		}
+	}
+
+	/** The samples. */
+	private List<AshSample> samples;
+
+	/** The index of current sample. */
+	private int sampleIndex = 0;
+
+	/** The index of current row of sample, -1 before first row. */
+	private int rowIndex = -1;
+
+	/** The last value read was null. */
+	private boolean wasNull = false;
+
+	/** The result set is closed. */
+	private boolean isClosed = false;
+
+	/**
+	 * Instantiates a new ash sample result set.
+	 *
+	 * @param samples the samples
+	 */
+	private AshSampleResultSet(List<AshSample> samples) {
+		this.samples = samples;
+	}
+
+	/**
+	 * Creates the result set of rows of samples.
+	 *
+	 * @param samples the samples
+	 * @return the result set
+	 */
+	public static ResultSet create(List<AshSample> samples) {
+		return (ResultSet) Proxy.newProxyInstance(
+				AshSampleResultSet.class.getClassLoader(),
+				new Class[] { OracleResultSet.class },
+				new AshSampleResultSet(samples));
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.reflect.InvocationHandler#invoke(java.lang.Object, java.lang.reflect.Method, java.lang.Object[])
+	 */
+	public Object invoke(Object proxy, Method method, Object[] args)
+			throws Throwable {
+		String name = method.getName();
+
+		if (name.equals("next")) {
+			return next();
+		} else if (name.equals("close")) {
+			isClosed = true;
+			return null;
+		} else if (name.equals("isClosed")) {
+			return isClosed;
+		} else if (name.equals("wasNull")) {
+			return wasNull;
+		} else if (name.equals("getFetchSize")) {
+			return 0;
+		} else if (name.equals("setFetchSize")) {
+			return null;
+		} else if (name.equals("hashCode")) {
+			return System.identityHashCode(proxy);
+		} else if (name.equals("equals")) {
+			return proxy == args[0];
+		} else if (name.equals("toString")) {
+			return "AshSampleResultSet";
+		}
+
+		if (args == null || args.length != 1) {
+			throw new SQLException("Unsupported operation: " + name);
+		}
+		Object value;
+		if (args[0] instanceof Integer) {
+			value = getValue(((Integer) args[0]).intValue() - 1);
+		} else if (args[0] instanceof String) {
+			value = getValue((String) args[0]);
+		} else {
+			throw new SQLException("Unsupported operation: " + name);
+		}
+		wasNull = value == null;
+
+		if (name.equals("getString")) {
+			return value == null ? null : value.toString();
+		} else if (name.equals("getLong")) {
+			return value == null ? 0L : ((Number) value).longValue();
+		} else if (name.equals("getInt")) {
+			return value == null ? 0 : ((Number) value).intValue();
+		} else if (name.equals("getDouble")) {
+			return value == null ? 0.0 : ((Number) value).doubleValue();
+		} else if (name.equals("getTimestamp")) {
+			return value == null ? null : new Timestamp(((Number) value).longValue());
+		} else if (name.equals("getDATE")) {
+			return value == null ? null : new oracle.sql.DATE(
+					new Timestamp(((Number) value).longValue()));
+		} else if (name.equals("getObject")) {
+			return value;
+		}
+		throw new SQLException("Unsupported operation: " + name);
+	}
+
+	/**
+	 * Move to next row.
+	 *
+	 * @return true, if row exists
+	 */
+	private boolean next() {
+		while (sampleIndex < samples.size()) {
+			if (rowIndex + 1 < samples.get(sampleIndex).getRows().size()) {
+				rowIndex++;
+				return true;
+			}
+			sampleIndex++;
+			rowIndex = -1;
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the value of column of current row.
+	 *
+	 * @param column the name of column
+	 * @return the value (String or Number), null for null value
+	 * @throws SQLException the SQL exception
+	 */
+	private Object getValue(String column) throws SQLException {
+		Integer index = COLUMN_INDEX.get(column.toUpperCase());
+		if (index == null) {
+			throw new SQLException("Invalid column name: " + column);
+		}
+		return getValue(index.intValue());
+	}
+
+	/**
+	 * Gets the value of column of current row.
+	 *
+	 * @param index the index of column (from 0)
+	 * @return the value (String or Number), null for null value
+	 * @throws SQLException the SQL exception
+	 */
+	private Object getValue(int index) throws SQLException {
+		if (index < 0 || index >= COLUMNS.length) {
+			throw new SQLException("Invalid column index: " + (index + 1));
+		}
+		if (sampleIndex >= samples.size() || rowIndex < 0) {
+			throw new SQLException("No current row");
+		}
+		AshSample sample = samples.get(sampleIndex);
+		ActiveSessionHistory ash = sample.getRows().get(rowIndex);
+
+		switch (index) {
+		case 0: return sample.getSampleId();
+		case 1: return sample.getSampleTime();
+		case 2: return ash.getSqlExecStart() == 0 ? null : ash.getSqlExecStart();
+		case 3: return ash.getSessionId();
+		case 4: return ash.getSessionSerial();
+		case 5: return ash.getSessionType();
+		case 6: return ash.getFlags();
+		case 7: return ash.getUserId();
+		case 8: return ash.getSqlId();
+		case 9: return ash.getSqlChildNumber();
+		case 10: return ash.getSqlOPCode();
+		case 11: return ash.getForceMutchingSignature();
+		case 12: return ash.getTopLevelSqlId();
+		case 13: return ash.getTopLevelSqlOpCode();
+		case 14: return ash.getSqlPlanHashValue();
+		case 15: return ash.getSqlPlanLineId();
+		case 16: return ash.getSqlPlanOperation();
+		case 17: return ash.getSqlPlanOptions();
+		case 18: return ash.getSqlExecId();
+		case 19: return ash.getPlsqlEntryObjectId();
+		case 20: return ash.getPlsqlEntrySubprogramId();
+		case 21: return ash.getPlsqlObjectId();
+		case 22: return ash.getPlsqlSubprogramId();
+		case 23: return ash.getQcInstanceId();
+		case 24: return ash.getQcSessionId();
+		case 25: return ash.getQcSessionSerial();
+		case 26: return ash.getEvent();
+		case 27: return ash.getEventId();
+		case 28: return ash.getEventHash();
+		case 29: return ash.getSEQHash();
+		case 30: return ash.getP1Text();
+		case 31: return ash.getP1();
+		case 32: return ash.getP2Text();
+		case 33: return ash.getP2();
+		case 34: return ash.getP3Text();
+		case 35: return ash.getP3();
+		case 36: return ash.getWaitClass();
+		case 37: return ash.getWaitClassId();
+		case 38: return ash.getWaitTime();
+		case 39: return ash.getSessionState();
+		case 40: return ash.getTimeWaited();
+		case 41: return ash.getBlockingSessionStatus();
+		case 42: return ash.getBlockingSession();
+		case 43: return ash.getBlockingSessionSerialHash();
+		case 44: return ash.getCurrentObjHash();
+		case 45: return ash.getCurrentFileHash();
+		case 46: return ash.getCurrentBlockHash();
+		case 47: return ash.getCurrentRowHash();
+		case 48: return ash.getConsumerGroupId();
+		case 49: return ash.getXid();
+		case 50: return ash.getRemoteInstance();
+		case 51: return ash.getInConnectionMgmt();
+		case 52: return ash.getInParse();
+		case 53: return ash.getInHardParse();
+		case 54: return ash.getInSqlExecution();
+		case 55: return ash.getInPlSqlExecution();
+		case 56: return ash.getInPlSqlRpc();
+		case 57: return ash.getInPlSqlCompilation();
+		case 58: return ash.getInJavaExecution();
+		case 59: return ash.getInBind();
+		case 60: return ash.getInCursorClose();
+		case 61: return ash.getServiceHash();
+		case 62: return ash.getProgram();
+		case 63: return ash.getModule();
+		case 64: return ash.getAction();
+		default: return ash.getClientId();
+		}
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ *-------------------
+ * The AshSampleSource.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.database;
+
+import java.util.Map;
+
+/**
+ * The Interface AshSampleSource.
+ *
+ * Source of ASH samples instead of v$active_session_history (synthetic
+ * sessions or replay of recorded ASH), see DatabaseSynthetic.
+ */
+public interface AshSampleSource {
+
+	/**
+	 * Gets the next sample with sample time not after time.
+	 *
+	 * @param time the current time
+	 * @return the sample, null if next sample is not due yet
+	 */
+	AshSample nextSample(double time);
+
+	/**
+	 * Gets the usernames by user id.
+	 *
+	 * @return the usernames
+	 */
+	Map<Long, String> getUsernames();
+
+	/**
+	 * Gets the count of CPU.
+	 *
+	 * @return the cpu count
+	 */
+	int getCpuCount();
+
+	/**
+	 * Close source.
+	 */
+	void close();
+}
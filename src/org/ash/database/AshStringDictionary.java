@@ -0,0 +1,146 @@
+/*
+ *-------------------
+ * The AshStringDictionary.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.database;
+
+import org.ash.datamodel.AshDictionary;
+import org.ash.datamodel.AshStringId;
+import org.ash.util.LruCache;
+
+import com.sleepycat.je.DatabaseException;
+import com.sleepycat.je.Sequence;
+import com.sleepycat.persist.EntityStore;
+import com.sleepycat.persist.PrimaryIndex;
+import com.sleepycat.persist.SecondaryIndex;
+
+/**
+ * The Class AshStringDictionary.
+ *
+ * Persistent dictionary id <-> string for repeated text columns of ASH
+ * (event, wait class, program, module...). Last used values are kept in
+ * bounded cache, so the same String object is returned for the same value.
+ */
+public class AshStringDictionary implements AshDictionary {
+
+	/** The default size of cache. */
+	public static final int CACHE_SIZE = 10000;
+
+	/** The string by id. */
+	private PrimaryIndex<Long, AshStringId> stringById;
+
+	/** The id by string. */
+	private SecondaryIndex<String, Long, AshStringId> stringByValue;
+
+	/** The sequence of id. */
+	private Sequence seq;
+
+	/** The cache of id by string. */
+	private LruCache<String, Long> idCache;
+
+	/** The cache of string by id. */
+	private LruCache<Long, String> stringCache;
+
+	/**
+	 * Instantiates a new ash string dictionary.
+	 *
+	 * @param store the store
+	 * @param cacheSize the max count of values in cache
+	 * @throws DatabaseException the database exception
+	 */
+	public AshStringDictionary(EntityStore store, int cacheSize)
+			throws DatabaseException {
+		stringById = store.getPrimaryIndex(Long.class, AshStringId.class);
+		stringByValue = store.getSecondaryIndex(stringById, String.class, "value");
+		seq = store.getSequence("AshStringId");
+		idCache = new LruCache<String, Long>(cacheSize);
+		stringCache = new LruCache<Long, String>(cacheSize);
+	}
+
+	/**
+	 * Gets the id of value, new id is saved to store.
+	 *
+	 * @param value the value
+	 * @return the id (0 for null)
+	 * @throws DatabaseException the database exception
+	 */
+	public synchronized long getId(String value) throws DatabaseException {
+		if (value == null){
+			return 0;
+		}
+
+		Long id = idCache.get(value);
+		if (id == null){
+			AshStringId stringId = stringByValue.get(value);
+			if (stringId == null){
+				stringId = new AshStringId(seq.get(null, 1), value);
+				stringById.putNoReturn(stringId);
+			}
+			id = stringId.getId();
+			value = stringId.getValue();
+			idCache.put(value, id);
+			stringCache.put(id, value);
+		}
+		return id;
+	}
+
+	/**
+	 * Gets the value by id.
+	 *
+	 * @param id the id
+	 * @return the value (null for 0)
+	 * @throws DatabaseException the database exception
+	 */
+	public synchronized String getString(long id) throws DatabaseException {
+		if (id == 0){
+			return null;
+		}
+
+		String value = stringCache.get(id);
+		if (value == null){
+			AshStringId stringId = stringById.get(id);
+			if (stringId == null){
+				return null;
+			}
+			value = stringId.getValue();
+			stringCache.put(id, value);
+			idCache.put(value, id);
+		}
+		return value;
+	}
+
+	/**
+	 * Gets the shared String object for value (value is added to dictionary).
+	 *
+	 * @param value the value
+	 * @return the shared value
+	 */
+	public String intern(String value) {
+		if (value == null){
+			return null;
+		}
+		try {
+			return getString(getId(value));
+		} catch (DatabaseException e) {
+			e.printStackTrace();
+			return value;
+		}
+	}
+}
@@ -30,19 +30,16 @@ import org.ash.conn.model.Model;
 import org.ash.datamodel.*;
 import org.ash.datatemp.SessionsTemp;
 import org.ash.datatemp.SqlsTemp;
-import org.ash.explainplanmodel.ExplainPlanModel10g2;
-import org.ash.util.BinaryDisplayConverter;
 import org.ash.util.Options;
+import org.ash.util.RingTableXYDataset;
 import org.ash.util.Utils;
 import org.jdesktop.swingx.treetable.TreeTableModel;
-import org.jfree.data.xy.CategoryTableXYDataset;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 
@@ -66,10 +63,6 @@ public class Database10g11gSE extends ASHDatabase {
 	/** The range for sqls and sessions temp (gantt)*/
 	private int rangeHalf = 7500;
 
-	/** The query sql. */
-	private String querySQL = "SELECT sql_id, command_type, sql_text FROM v$sql "
-			+ "WHERE sql_id = ?";
-
 	/** The query ash. */
 	private String queryASH = "SELECT "
 			+ "sysdate SAMPLE_TIME, "
@@ -104,15 +97,6 @@ public class Database10g11gSE extends ASHDatabase {
 			+ "vs.sid != ( select distinct sid from v$mystat  where rownum < 2 ) and "
 			+ "vs.sid = vss.sid and " + "vss.statistic# = 12 ";
 	
-	/** The query sql plan data. */
-	private String querySQLPLAN = "SELECT address, hash_value, sql_id, plan_hash_value, child_number," +
-		" operation, options, object_node, object#, object_owner, object_name, object_alias," +
-		" object_type, optimizer, id, parent_id, depth, position, search_columns, cost," +
-		" cardinality, bytes, other_tag, partition_start, partition_stop, partition_id," +
-		" other, distribution, cpu_cost, io_cost, temp_space, access_predicates, filter_predicates," +
-		" projection, time, qblock_name, remarks" +
-		" FROM v$sql_plan " +
-		" WHERE sql_id = ?";
 
 	/** The k for sample_id after reconnect*/
 	private long kReconnect = 0;
@@ -132,6 +116,23 @@ public class Database10g11gSE extends ASHDatabase {
 		this.model = model0;
 		this.store = super.getStore();
 		this.dao = super.getDao();
+		super.initSqlTextResolver("sql_id", false);
+		super.initSqlPlanCapture();
+	}
+
+	/**
+	 * Instantiates a new database 10g11gSE (one of many targets in one process).
+	 * 
+	 * @param model0 the model0
+	 * @param envDir the directory of BDB
+	 */
+	public Database10g11gSE(Model model0, String envDir) {
+		super(model0, envDir, 0);
+		this.model = model0;
+		this.store = super.getStore();
+		this.dao = super.getDao();
+		super.initSqlTextResolver("sql_id", false);
+		super.initSqlPlanCapture();
 	}
 
 	/* (non-Javadoc)
@@ -169,9 +170,9 @@ public class Database10g11gSE extends ASHDatabase {
 	}
 
 	/* (non-Javadoc)
-	 * @see org.ash.database.DatabaseMain#loadDataToChartPanelDataSet(org.jfree.data.xy.CategoryTableXYDataset)
+	 * @see org.ash.database.DatabaseMain#loadDataToChartPanelDataSet(org.ash.util.RingTableXYDataset)
 	 */
-	public void loadDataToChartPanelDataSet(CategoryTableXYDataset _dataset) {
+	public void loadDataToChartPanelDataSet(RingTableXYDataset _dataset) {
 		super.loadDataToChartPanelDataSet(_dataset);
 	}
 
@@ -263,18 +264,10 @@ public class Database10g11gSE extends ASHDatabase {
 					// Create row for wait event 
 							if (waitTime == 0 && !waitClass.equalsIgnoreCase("Idle")) {
 
-						try {
-							dao.ashById.putNoOverwrite(new AshIdTime(
-									valueSampleIdTimeLongWait,
-									valueSampleIdTimeLongWait.doubleValue()));
-						} catch (DatabaseException e) {
-							e.printStackTrace();
-						}
-
 						// Load data for active session history (wait event)
 						try {
-							dao.activeSessionHistoryById
-									.putNoReturn(new ActiveSessionHistory(
+							dao.putActiveSessionHistory(valueSampleIdTimeLongWait.doubleValue(),
+									new ActiveSessionHistory(
 											activeSessionHistoryIdWait,
 											valueSampleIdTimeLongWait,
 											sessionId, sessionSerial,
@@ -308,12 +301,8 @@ public class Database10g11gSE extends ASHDatabase {
 									+ sessionSerial.toString(), timeWaited
 									.toString());
 
-							dao.ashById.putNoOverwrite(new AshIdTime(
-									valueSampleIdTimeLongCpu,
-									valueSampleIdTimeLongCpu.doubleValue()));
-
-							dao.activeSessionHistoryById
-									.putNoReturn(new ActiveSessionHistory(
+							dao.putActiveSessionHistory(valueSampleIdTimeLongCpu.doubleValue(),
+									new ActiveSessionHistory(
 											activeSessionHistoryIdCpu,
 											valueSampleIdTimeLongCpu,
 											sessionId, sessionSerial,
@@ -360,6 +349,10 @@ public class Database10g11gSE extends ASHDatabase {
 						e.printStackTrace();
 					}
 				}
+
+				// Save rows of samples, which are not saved yet
+				flushAshRows();
+
 				if (conn != null) {
 					model.getConnectionPool().free(conn);
 				}
@@ -401,23 +394,35 @@ public class Database10g11gSE extends ASHDatabase {
 	public void calculateSqlsSessionsData(double beginTime, double endTime,
 			String eventFlag) {
 
-		try {
+		if (eventFlag.equalsIgnoreCase("All")) {
+			this.calculateSqlsSessionsData(super.getSqlsTemp(),
+					super.getSessionsTemp(), beginTime - rangeHalf, true,
+					endTime + rangeHalf, true, eventFlag);
+		} else {
+			this.calculateSqlsSessionsData(super.getSqlsTempDetail(),
+					super.getSessionsTempDetail(), beginTime - rangeHalf, true,
+					endTime + rangeHalf, true, eventFlag);
+		}
+	}
 
-			SqlsTemp tmpSqlsTemp = null;
-			SessionsTemp tmpSessionsTemp = null;
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.ash.database.ASHDatabase#calculateSqlsSessionsData(org.ash.datatemp.SqlsTemp,
+	 *      org.ash.datatemp.SessionsTemp, double, boolean, double, boolean,
+	 *      java.lang.String)
+	 */
+	protected void calculateSqlsSessionsData(SqlsTemp tmpSqlsTemp,
+			SessionsTemp tmpSessionsTemp, double fromTime,
+			boolean fromInclusive, double toTime, boolean toInclusive,
+			String eventFlag) {
 
-			if (eventFlag.equalsIgnoreCase("All")) {
-				tmpSqlsTemp = super.getSqlsTemp();
-				tmpSessionsTemp = super.getSessionsTemp();
-			} else {
-				tmpSqlsTemp = super.getSqlsTempDetail();
-				tmpSessionsTemp = super.getSessionsTempDetail();
-			}
+		try {
 
-			// get sample id's for beginTime and endTime
+			// get sample id's for time range
 			EntityCursor<AshIdTime> ashSampleIds;
-			ashSampleIds = dao.doRangeQuery(dao.ashBySampleTime, beginTime
-					- rangeHalf, true, endTime + rangeHalf, true);
+			ashSampleIds = dao.doRangeQuery(dao.ashBySampleTime, fromTime,
+					fromInclusive, toTime, toInclusive);
 			/* Iterate on Ash by SampleTime. */
 			Iterator<AshIdTime> ashIter = ashSampleIds.iterator();
 
@@ -426,12 +431,8 @@ public class Database10g11gSE extends ASHDatabase {
 				AshIdTime ashSumMain = ashIter.next();
 
 				// get rows from ActiveSessionHistory for samplId
-				EntityCursor<ActiveSessionHistory> ActiveSessionHistoryCursor;
-				ActiveSessionHistoryCursor = dao.doRangeQuery(
-						dao.activeSessionHistoryByAshId, ashSumMain
-								.getsampleId(), true, ashSumMain.getsampleId(),
-						true);
-				Iterator<ActiveSessionHistory> ActiveSessionHistoryIter = ActiveSessionHistoryCursor
+				Iterator<ActiveSessionHistory> ActiveSessionHistoryIter = dao
+						.getActiveSessionHistoryBySampleId(ashSumMain.getsampleId())
 						.iterator();
 
 				while (ActiveSessionHistoryIter.hasNext()) {
@@ -492,7 +493,6 @@ public class Database10g11gSE extends ASHDatabase {
 					}
 				}
 				// Close cursor!!
-				ActiveSessionHistoryCursor.close();
 			}
 			tmpSqlsTemp.set_sum();
 			tmpSessionsTemp.set_sum();
@@ -506,27 +506,6 @@ public class Database10g11gSE extends ASHDatabase {
 	}
 	
 
-	/*
-	 * (non-Javadoc)
-	 * 
-	 * @see org.ash.database.DatabaseMain#loadCommandTypeFromDB(java.util.List)
-	 */
-	public void loadSqlTextCommandTypeFromDB(List<String> arraySqlId) {
-		
-		// Load all sqlId
-		ArrayList<String> sqlIdAll = new ArrayList<String>();
-		
-		Iterator<String> arraySqlIdIter = arraySqlId.iterator();
-		while (arraySqlIdIter.hasNext()) {
-			String sqlId = arraySqlIdIter.next();
-			if (!isSqlTextExist(sqlId)){
-				sqlIdAll.add(sqlId);
-			}
-		}
-
-		this.loadSqlTextSqlIdFromDB(sqlIdAll);
-	}
-
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -534,7 +513,7 @@ public class Database10g11gSE extends ASHDatabase {
 	 */
 	public void loadSqlPlanFromDB(List<String> arraySqlId, boolean isDetail) {
 		
-		loadSqlPlanHashValueFromDBToLocalBDB(arraySqlId);
+		super.loadSqlPlanToLocalBDB(arraySqlId, null);
 	}
 
 	/*
@@ -638,371 +617,12 @@ public class Database10g11gSE extends ASHDatabase {
 	/*
 	 * (non-Javadoc)
 	 * 
-	 * @see org.ash.database.DatabaseMain#isSqlPlanHashValueExist(ExplainPlanModel)
+	 * @see org.ash.database.DatabaseMain#getSqlPlanModelByPlanHashValue(java.lang.Double, java.lang.String)
 	 */
 	public TreeTableModel getSqlPlanModelByPlanHashValue(
 			Double sqlPlanHashValue, String sqlId) {
-
-		ExplainPlanModel10g2 model = null;
-		ExplainPlanModel10g2.ExplainRow lastRow = null;
-		EntityCursor<AshSqlPlanDetail> ashSqlPlan = null;
-		long previousLevel = 1;
-		boolean isRecalculateDepth = false;
-		boolean exitFromCycle = false;
-		boolean isChildNumberSaved = false;
-		long childNumberBySql = 0;
-		long ii = 0;
-		
-		while (!exitFromCycle) {
-			exitFromCycle = true;
-
-			try {
-				ashSqlPlan = dao.doRangeQuery(dao
-						.getAshSqlPlanHashValueDetail(), sqlPlanHashValue,
-						true, sqlPlanHashValue, true);
-				Iterator<AshSqlPlanDetail> ashSqlPlanIter = ashSqlPlan
-						.iterator();
-
-				// Iterate
-				while (ashSqlPlanIter.hasNext()) {
-					AshSqlPlanDetail ashSqlPlanMain = ashSqlPlanIter.next();
-					String sqlIdTmp = ashSqlPlanMain.getSqlId();
-					long childNumberTmp = ashSqlPlanMain.getChildNumber();
-					
-					if (!isChildNumberSaved && sqlId.equalsIgnoreCase(sqlIdTmp)){
-						childNumberBySql = childNumberTmp;
-						isChildNumberSaved = true;
-					} else {
-						if (!sqlId.equalsIgnoreCase(sqlIdTmp))
-							continue;
-					}
-
-					Long id = ashSqlPlanMain.getId();
-
-					if (id == ii && childNumberBySql == childNumberTmp) {
-						exitFromCycle = false;
-
-						String address = ashSqlPlanMain.getAddress();
-						Double hashValue = ashSqlPlanMain.getHashValue();
-						//String sqlId = ashSqlPlanMain.getSqlId();
-						//Double planHashValue = sqlPlanHashValue;
-						String childAddress = ashSqlPlanMain.getChildAddress();
-						Long childNumber = ashSqlPlanMain.getChildNumber();
-						String operation  = ashSqlPlanMain.getOperation();
-						String options  = ashSqlPlanMain.getOptions();
-						String objectNode = ashSqlPlanMain.getObjectNode();
-						Double object = ashSqlPlanMain.getObject();
-						String objectOwner = ashSqlPlanMain.getObjectOwner();
-						String objectName = ashSqlPlanMain.getObjectName();
-						String objectAlias = ashSqlPlanMain.getObjectAlias();
-						String objectType = ashSqlPlanMain.getObjectType();
-						String optimizer = ashSqlPlanMain.getOptimizer();
-						Long Id = ashSqlPlanMain.getId(); 
-						Long parentId = ashSqlPlanMain.getParentId();
-			   /*Depth*/Long level = ashSqlPlanMain.getDepth() + 1;
-						Long position  = ashSqlPlanMain.getPosition();
-						Long searchColumns = ashSqlPlanMain.getSearchColumns();
-						Double cost = ashSqlPlanMain.getCost();
-						Double cardinality  = ashSqlPlanMain.getCardinality();
-						Double bytes  = ashSqlPlanMain.getBytes();
-						String otherTag  = ashSqlPlanMain.getOtherTag();
-						String partitionStart  = ashSqlPlanMain.getPartitionStart();
-						String partitionStop  = ashSqlPlanMain.getPartitionStop();
-						Double partitionId  = ashSqlPlanMain.getPartitionId();
-						String other  = ashSqlPlanMain.getOther();
-						String distribution  = ashSqlPlanMain.getDistribution();
-						Double cpuCost  = ashSqlPlanMain.getCpuCost();
-						Double ioCost  = ashSqlPlanMain.getIoCost();
-						Double tempSpace  = ashSqlPlanMain.getTempSpace();
-						String accessPredicates  = ashSqlPlanMain.getAccessPredicates();
-						String filterPredicates  = ashSqlPlanMain.getFilterPredicates();
-						String projection  = ashSqlPlanMain.getProjection();
-						Double time  = ashSqlPlanMain.getTime();
-						String qblockName  = ashSqlPlanMain.getQblockName();
-						String remarks  = ashSqlPlanMain.getRemarks();
-						
-						ExplainPlanModel10g2.ExplainRow parent = null;
-
-						if (level == 1) {
-							long tmp = 0;
-							ExplainPlanModel10g2.ExplainRow rowRoot = new ExplainPlanModel10g2.ExplainRow(
-									parent, null, null, null, null, null, null,
-									null, null, null, null, null, null, null,
-									null, null, tmp, null, null, null,
-									null, null, null, null, null, null, null,
-									null, null, null, null, null, null, null,
-									null, null, null, null, null);
-							model = new ExplainPlanModel10g2(rowRoot);
-
-							ExplainPlanModel10g2.ExplainRow row = new ExplainPlanModel10g2.ExplainRow(
-									rowRoot,  address,  hashValue,  sqlIdTmp, sqlPlanHashValue,
-									childAddress,  childNumber, operation, options,
-									objectNode, object, objectOwner, objectName, objectAlias,
-									objectType, optimizer, Id, parentId, /*Depth*/level, position,
-									searchColumns, cost, cardinality, bytes, otherTag,
-									partitionStart, partitionStop, partitionId, other, distribution,
-									cpuCost, ioCost, tempSpace, accessPredicates, filterPredicates,
-									projection, time, qblockName, remarks);
-
-							rowRoot.addChild(row);
-							lastRow = row;
-							previousLevel = level;
-							continue;
-						} else if (previousLevel == level) {
-							parent = ((ExplainPlanModel10g2.ExplainRow) lastRow
-									.getParent().getParent())
-									.findChild(parentId.intValue());
-						} else if (level > previousLevel) {
-							parent = ((ExplainPlanModel10g2.ExplainRow) lastRow
-									.getParent()).findChild(parentId
-									.intValue());
-						} else if (level < previousLevel) {
-							parent = (ExplainPlanModel10g2.ExplainRow) lastRow
-									.getParent();
-							for (long i = previousLevel - level; i >= 0; i--) {
-								parent = (ExplainPlanModel10g2.ExplainRow) parent
-										.getParent();
-							}
-							parent = parent.findChild(parentId.intValue());
-						}
-						if (parent == null) {
-							isRecalculateDepth = true;
-							break;
-						}
-
-						ExplainPlanModel10g2.ExplainRow row = new ExplainPlanModel10g2.ExplainRow(
-									parent, address,  hashValue,  sqlIdTmp, sqlPlanHashValue,
-								 	childAddress,  childNumber, operation, options,
-									objectNode, object, objectOwner, objectName, objectAlias,
-									objectType, optimizer, Id, parentId, /*Depth*/level, position,
-									searchColumns, cost, cardinality, bytes, otherTag,
-									partitionStart, partitionStop, partitionId, other, distribution,
-									cpuCost, ioCost, tempSpace, accessPredicates, filterPredicates,
-									projection, time, qblockName, remarks);
-						parent.addChild(row);
-						lastRow = row;
-						previousLevel = level;
-						
-						break;
-					}
-				}
-			} catch (DatabaseException e) {
-				e.printStackTrace();
-			} finally {
-				try {
-					ashSqlPlan.close();
-				} catch (DatabaseException e) {
-					e.printStackTrace();
-				}
-				ii++;
-			}
-
-		}
-
-		// Recalculate wrong node levels
-		if (isRecalculateDepth) {
-			HashMap<Long, Long> idParentId = new HashMap<Long, Long>();
-			HashMap<Long, Long> idLevel = new HashMap<Long, Long>();
-
-			EntityCursor<AshSqlPlanDetail> ashSqlPlanP = null;
-
-			try {
-				ashSqlPlanP = dao.doRangeQuery(dao.ashSqlPlanHashValueDetail,
-						sqlPlanHashValue, true, sqlPlanHashValue, true);
-				Iterator<AshSqlPlanDetail> ashSqlPlanIterP = ashSqlPlanP
-						.iterator();
-
-				// Iterate
-				while (ashSqlPlanIterP.hasNext()) {
-					AshSqlPlanDetail ashSqlPlanMainP = ashSqlPlanIterP.next();
-
-					Long idP = ashSqlPlanMainP.getId();
-					Long parent_idP = ashSqlPlanMainP.getParentId();
-					long tmp = -1;
-					if (idP == 0) {
-						idParentId.put(idP, tmp);
-					} else {
-						idParentId.put(idP, parent_idP);
-					}
-				}
-
-			} catch (DatabaseException e) {
-				e.printStackTrace();
-			} finally {
-				try {
-					ashSqlPlanP.close();
-				} catch (DatabaseException e) {
-					e.printStackTrace();
-				}
-			}
-
-			idLevel = Utils.getLevels(idParentId);
-			model = (ExplainPlanModel10g2) getSqlPlanModelByPlanHashValueP(idLevel, sqlPlanHashValue, sqlId);
-		}
-
-		return model;
-	}
-
-	/*
-	 * (non-Javadoc)
-	 * 
-	 * @see org.ash.database.DatabaseMain#getSqlPlanModelByPlanHashValueP(ExplainPlanModel)
-	 */
-	public TreeTableModel getSqlPlanModelByPlanHashValueP(
-			HashMap<Long, Long> idLevel, Double sqlPlanHashValue, String sqlId) {
-
-		ExplainPlanModel10g2 model = null;
-		ExplainPlanModel10g2.ExplainRow lastRow = null;
-		EntityCursor<AshSqlPlanDetail> ashSqlPlan = null;
-		long previousLevel = 1;
-		boolean exitFromCycle = false;
-		boolean isChildNumberSaved = false;
-		long childNumberBySql = 0;
-		long ii = 0;
-		
-		while (!exitFromCycle) {
-			exitFromCycle = true;
-
-			try {
-				ashSqlPlan = dao.doRangeQuery(dao
-						.getAshSqlPlanHashValueDetail(), sqlPlanHashValue,
-						true, sqlPlanHashValue, true);
-				Iterator<AshSqlPlanDetail> ashSqlPlanIter = ashSqlPlan
-						.iterator();
-
-				// Iterate
-				while (ashSqlPlanIter.hasNext()) {
-					AshSqlPlanDetail ashSqlPlanMain = ashSqlPlanIter.next();
-					String sqlIdTmp = ashSqlPlanMain.getSqlId();
-					long childNumberTmp = ashSqlPlanMain.getChildNumber();
-					
-					if (!isChildNumberSaved && sqlId.equalsIgnoreCase(sqlIdTmp)){
-						childNumberBySql = childNumberTmp;
-						isChildNumberSaved = true;
-					} else {
-						if (!sqlId.equalsIgnoreCase(sqlIdTmp))
-							continue;
-					}
-
-					Long id = ashSqlPlanMain.getId();
-
-					if (id == ii && childNumberBySql == childNumberTmp) {
-						exitFromCycle = false;
-						
-						String address = ashSqlPlanMain.getAddress();
-						Double hashValue = ashSqlPlanMain.getHashValue();
-						//String sqlId = ashSqlPlanMain.getSqlId();
-						//Double planHashValue = sqlPlanHashValue;
-						String childAddress = ashSqlPlanMain.getChildAddress();
-						Long childNumber = ashSqlPlanMain.getChildNumber();
-						String operation  = ashSqlPlanMain.getOperation();
-						String options  = ashSqlPlanMain.getOptions();
-						String objectNode = ashSqlPlanMain.getObjectNode();
-						Double object = ashSqlPlanMain.getObject();
-						String objectOwner = ashSqlPlanMain.getObjectOwner();
-						String objectName = ashSqlPlanMain.getObjectName();
-						String objectAlias = ashSqlPlanMain.getObjectAlias();
-						String objectType = ashSqlPlanMain.getObjectType();
-						String optimizer = ashSqlPlanMain.getOptimizer();
-						Long Id = ashSqlPlanMain.getId(); 
-						Long parentId = ashSqlPlanMain.getParentId();
-			   /*Depth*/Long level = idLevel.get(id);// ashSqlPlanMain.getDepth()+1;
-						Long position  = ashSqlPlanMain.getPosition();
-						Long searchColumns = ashSqlPlanMain.getSearchColumns();
-						Double cost = ashSqlPlanMain.getCost();
-						Double cardinality  = ashSqlPlanMain.getCardinality();
-						Double bytes  = ashSqlPlanMain.getBytes();
-						String otherTag  = ashSqlPlanMain.getOtherTag();
-						String partitionStart  = ashSqlPlanMain.getPartitionStart();
-						String partitionStop  = ashSqlPlanMain.getPartitionStop();
-						Double partitionId  = ashSqlPlanMain.getPartitionId();
-						String other  = ashSqlPlanMain.getOther();
-						String distribution  = ashSqlPlanMain.getDistribution();
-						Double cpuCost  = ashSqlPlanMain.getCpuCost();
-						Double ioCost  = ashSqlPlanMain.getIoCost();
-						Double tempSpace  = ashSqlPlanMain.getTempSpace();
-						String accessPredicates  = ashSqlPlanMain.getAccessPredicates();
-						String filterPredicates  = ashSqlPlanMain.getFilterPredicates();
-						String projection  = ashSqlPlanMain.getProjection();
-						Double time  = ashSqlPlanMain.getTime();
-						String qblockName  = ashSqlPlanMain.getQblockName();
-						String remarks  = ashSqlPlanMain.getRemarks();	
-						
-					ExplainPlanModel10g2.ExplainRow parent = null;
-
-					if (level == 1) {
-						long tmp = 0;
-						ExplainPlanModel10g2.ExplainRow rowRoot = new ExplainPlanModel10g2.ExplainRow(
-								parent , null, null, null, null, null, null,
-								null, null, null, null, null, null, null,
-								null, null, tmp, null, null, null,
-								null, null, null, null, null, null, null,
-								null, null, null, null, null, null, null,
-								null, null, null, null, null);
-						model = new ExplainPlanModel10g2(rowRoot);
-
-						ExplainPlanModel10g2.ExplainRow row = new ExplainPlanModel10g2.ExplainRow(
-								rowRoot, address,  hashValue,  sqlIdTmp, sqlPlanHashValue,
-							 	childAddress,  childNumber, operation, options,
-								objectNode, object, objectOwner, objectName, objectAlias,
-								objectType, optimizer, Id, parentId, /*Depth*/level, position,
-								searchColumns, cost, cardinality, bytes, otherTag,
-								partitionStart, partitionStop, partitionId, other, distribution,
-								cpuCost, ioCost, tempSpace, accessPredicates, filterPredicates,
-								projection, time, qblockName, remarks);
-
-						rowRoot.addChild(row);
-						lastRow = row;
-						previousLevel = level;
-						continue;
-					} else if (previousLevel == level) {
-						parent = ((ExplainPlanModel10g2.ExplainRow) lastRow
-								.getParent().getParent()).findChild(parentId
-								.intValue());
-					} else if (level > previousLevel) {
-						parent = ((ExplainPlanModel10g2.ExplainRow) lastRow
-								.getParent()).findChild(parentId.intValue());
-					} else if (level < previousLevel) {
-						parent = (ExplainPlanModel10g2.ExplainRow) lastRow
-								.getParent();
-						for (long i = previousLevel - level; i >= 0; i--) {
-							parent = (ExplainPlanModel10g2.ExplainRow) parent
-									.getParent();
-						}
-						parent = parent.findChild(parentId.intValue());
-					}
-					if (parent == null)
-						break;
-
-					ExplainPlanModel10g2.ExplainRow row = new ExplainPlanModel10g2.ExplainRow(
-							parent, address,  hashValue,  sqlIdTmp, sqlPlanHashValue,
-						 	childAddress,  childNumber, operation, options,
-							objectNode, object, objectOwner, objectName, objectAlias,
-							objectType, optimizer, Id, parentId, /*Depth*/level, position,
-							searchColumns, cost, cardinality, bytes, otherTag,
-							partitionStart, partitionStop, partitionId, other, distribution,
-							cpuCost, ioCost, tempSpace, accessPredicates, filterPredicates,
-							projection, time, qblockName, remarks);
-					parent.addChild(row);
-					lastRow = row;
-					previousLevel = level;
-					
-					break;
-				}	
-			  }
-			} catch (DatabaseException e) {
-				e.printStackTrace();
-			} finally {
-				try {
-					ashSqlPlan.close();
-				} catch (DatabaseException e) {
-					e.printStackTrace();
-				}
-			ii++;
-		  }
-		}
-
-		return model;
+		List<AshSqlPlanDetail> lines = getSqlPlanLines(sqlPlanHashValue, sqlId);
+		return SqlPlanTreeBuilder.buildModel10g2(lines, sqlPlanHashValue);
 	}
 
 	/*
@@ -1106,172 +726,6 @@ public class Database10g11gSE extends ASHDatabase {
 		}
 	}
 
-	/**
-	 * Load sql_text, sql_id from database.
-	 * 
-	 * @param array10
-	 */
-	public void loadSqlTextSqlIdFromDB(List<String> array10) {
-
-		ResultSet resultSet = null;
-		PreparedStatement statement = null;
-		Connection conn = null;
-
-		try {
-		conn = this.model.getConnectionPool().getConnection();
-
-		statement = conn.prepareStatement(this.querySQL);
-
-		Iterator<String> iter = array10.iterator();
-		while (iter.hasNext()) {
-			
-			statement.setString(1, iter.next());
-			
-			resultSet = statement.executeQuery();
-
-			while (resultSet.next()) {
-				String sqlId = resultSet.getString("SQL_ID");
-				String sqlText = resultSet.getString("SQL_TEXT");
-				String commType = Options.getInstance().getResource(
-						resultSet.getLong("COMMAND_TYPE") + "");
-				
-				try {
-					dao.ashSqlIdTypeTextId.putNoReturn(new AshSqlIdTypeText(sqlId,
-							commType, sqlText));
-				} catch (DatabaseException e) {
-					e.printStackTrace();
-				}
-			}
-		  }
-		} catch (Exception e) {
-			System.out.println("SQL Exception occured: " + e.getMessage());
-		} finally {
-			if (resultSet != null) {
-				try {
-					resultSet.close();
-				} catch (Exception e) {
-					e.printStackTrace();
-				}
-			}
-			if (statement != null) {
-				try {
-					statement.close();
-				} catch (Exception e) {
-					e.printStackTrace();
-				}
-			}
-			if (conn != null) {
-				model.getConnectionPool().free(conn);
-			}
-		}
-	}
-
-	/**
-	 * Load sql plan from database and store to local BDB storage.
-	 * @param array10
-	 *            the array10
-	 */
-	private void loadSqlPlanHashValueFromDBToLocalBDB(List<String> arraySqlId) {
-
-		ResultSet resultSet = null;
-		PreparedStatement statement = null;
-		Connection conn = null;
-
-		// Get sequence activeSessionHistoryId
-		try {
-			seq = store.getSequence("AshSqlPlanId");
-		} catch (DatabaseException e) {
-			e.printStackTrace();
-		}
-
-		try {
-			conn = this.model.getConnectionPool().getConnection();
-
-			statement = conn.prepareStatement(this.querySQLPLAN);
-			statement.setFetchSize(250);
-
-			Iterator<String> iterSqlId = arraySqlId.iterator();
-			while (iterSqlId.hasNext()) {
-					
-			statement.setString(1, iterSqlId.next());
-
-			resultSet = statement.executeQuery();
-
-			while (resultSet.next()) {
-
-				Double planHashValue = resultSet.getDouble("PLAN_HASH_VALUE");
-				String sqlId = resultSet.getString("SQL_ID");
-				String address = "";
-				
-				try {
-					Byte[] useValue = null;
-					byte[] bytes = (byte[]) resultSet.getObject("ADDRESS");
-					useValue = new Byte[bytes.length];
-         			for (int m=0; m<bytes.length; m++) {
-         				useValue[m] = Byte.valueOf(bytes[m]);
-                     }
-         			address = BinaryDisplayConverter.convertToString(useValue,
-         					BinaryDisplayConverter.HEX, false);
-         			
-				  } catch (Exception e) {
-					  address = "";
-				  }
-				
-				// Load sql plan data to parent and detail
-				try {
-					dao.getAshSqlPlanPKParent().putNoOverwrite(
-							new AshSqlPlanParent(planHashValue, sqlId));
-					
-					dao.getAshSqlPlanPKDetail().putNoReturn(
-							new AshSqlPlanDetail(
-							   seq.get(null, 1), address, resultSet.getDouble("HASH_VALUE"),sqlId,
-							   planHashValue,"", resultSet.getLong("CHILD_NUMBER"),0,
-							   resultSet.getString("OPERATION"), resultSet.getString("OPTIONS"),
-							   resultSet.getString("OBJECT_NODE"), resultSet.getDouble("OBJECT#"),
-							   resultSet.getString("OBJECT_OWNER"),resultSet.getString("OBJECT_NAME"),
-							   resultSet.getString("OBJECT_ALIAS"),resultSet.getString("OBJECT_TYPE"),
-							   resultSet.getString("OPTIMIZER"), resultSet.getLong("ID"),
-							   resultSet.getLong("PARENT_ID"), resultSet.getLong("DEPTH"),
-							   resultSet.getLong("POSITION"), resultSet.getLong("SEARCH_COLUMNS"),
-							   resultSet.getDouble("COST"), resultSet.getDouble("CARDINALITY"),
-							   resultSet.getDouble("BYTES"), resultSet.getString("OTHER_TAG"), 
-							   resultSet.getString("PARTITION_START"),resultSet.getString("PARTITION_STOP"),
-							   resultSet.getLong("PARTITION_ID"),resultSet.getString("OTHER"), 
-							   resultSet.getString("DISTRIBUTION"),resultSet.getDouble("CPU_COST"),
-							   resultSet.getDouble("IO_COST"),resultSet.getDouble("TEMP_SPACE"),
-							   resultSet.getString("ACCESS_PREDICATES"),resultSet.getString("FILTER_PREDICATES"),
-							   resultSet.getString("PROJECTION"),resultSet.getDouble("TIME"),
-							   resultSet.getString("QBLOCK_NAME"),resultSet.getString("REMARKS")
-							)
-					);
-					
-				} catch (Exception e) {
-					e.printStackTrace();
-				}
-			}
-		  }
-		} catch (Exception e) {
-			System.out.println("SQL Exception occured: " + e.getMessage());
-		} finally {
-			if (resultSet != null) {
-				try {
-					resultSet.close();
-				} catch (Exception e) {
-					e.printStackTrace();
-				}
-			}
-			if (statement != null) {
-				try {
-					statement.close();
-				} catch (Exception e) {
-					e.printStackTrace();
-				}
-			}
-			if (conn != null) {
-				model.getConnectionPool().free(conn);
-			}
-		}
-	}
 
 
 	/* (non-Javadoc)
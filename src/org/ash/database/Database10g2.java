@@ -28,11 +28,9 @@ import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 
 import oracle.jdbc.OracleResultSet;
 
@@ -41,15 +39,12 @@ import org.ash.datamodel.ActiveSessionHistory;
 import org.ash.datamodel.AshIdTime;
 import org.ash.datamodel.AshSqlIdTypeText;
 import org.ash.datamodel.AshSqlPlanDetail;
-import org.ash.datamodel.AshSqlPlanParent;
 import org.ash.datatemp.SessionsTemp;
 import org.ash.datatemp.SqlsTemp;
-import org.ash.explainplanmodel.ExplainPlanModel10g2;
-import org.ash.util.BinaryDisplayConverter;
 import org.ash.util.Options;
+import org.ash.util.RingTableXYDataset;
 import org.ash.util.Utils;
 import org.jdesktop.swingx.treetable.TreeTableModel;
-import org.jfree.data.xy.CategoryTableXYDataset;
 
 import com.sleepycat.je.DatabaseException;
 import com.sleepycat.je.Sequence;
@@ -73,22 +68,20 @@ public class Database10g2 extends ASHDatabase {
 	/** The BDB dao. */
 	private AshDataAccessor dao;
 
+	/** The select list of ASH data, columns in order of reads of loadAshDataToLocal. */
+	private String queryASH = "SELECT sample_id, sample_time, session_id, session_serial#,"
+			+ " session_type, user_id, sql_id, sql_child_number, sql_opcode,"
+			+ " force_matching_signature, sql_plan_hash_value, qc_instance_id,"
+			+ " qc_session_id, event, event_id, event#, seq#, p1text, p1, p2text,"
+			+ " p2, p3text, p3, wait_class, wait_class_id, wait_time, session_state,"
+			+ " time_waited, blocking_session_status, blocking_session,"
+			+ " blocking_session_serial#, current_obj#, current_file#,"
+			+ " current_block#, xid, service_hash, program, module, action,"
+			+ " client_id";
+
 	/** The range for sqls and sessions temp (e-gantt) */
 	private int rangeHalf = 7500;
 
-	/** The query sql. */
-	private String querySQL = "SELECT sql_id, command_type, sql_text "
-			+ "FROM v$sql " + "WHERE sql_id = ?";
-
-	/** The query sql plan data. */
-	private String querySQLPLAN = "SELECT address, hash_value, sql_id, plan_hash_value, child_number," +
-		" operation, options, object_node, object#, object_owner, object_name, object_alias," +
-		" object_type, optimizer, id, parent_id, depth, position, search_columns, cost," +
-		" cardinality, bytes, other_tag, partition_start, partition_stop, partition_id," +
-		" other, distribution, cpu_cost, io_cost, temp_space, access_predicates, filter_predicates," +
-		" projection, time, qblock_name, remarks" +
-		" FROM v$sql_plan " +
-		" WHERE sql_id = ? and plan_hash_value = ?";
 	
 	/** The k for sample_id after reconnect */
 	private long kReconnect = 0;
@@ -111,6 +104,25 @@ public class Database10g2 extends ASHDatabase {
 		this.model = model0;
 		this.store = super.getStore();
 		this.dao = super.getDao();
+		super.initSqlTextResolver("sql_id", false);
+		super.initSqlPlanCapture();
+	}
+
+	/**
+	 * Instantiates a new database 10g2 (one of many targets or
+	 * instances of RAC in one process).
+	 * 
+	 * @param model0 the model0
+	 * @param envDir the directory of BDB
+	 * @param instId the instance number, 0 for V$ACTIVE_SESSION_HISTORY
+	 */
+	public Database10g2(Model model0, String envDir, int instId) {
+		super(model0, envDir, instId);
+		this.model = model0;
+		this.store = super.getStore();
+		this.dao = super.getDao();
+		super.initSqlTextResolver("sql_id", false);
+		super.initSqlPlanCapture();
 	}
 
 	/*
@@ -156,9 +168,9 @@ public class Database10g2 extends ASHDatabase {
 	/*
 	 * (non-Javadoc)
 	 * 
-	 * @see org.ash.database.DatabaseMain#loadDataToChartPanelDataSet(org.jfree.data.xy.CategoryTableXYDataset)
+	 * @see org.ash.database.DatabaseMain#loadDataToChartPanelDataSet(org.ash.util.RingTableXYDataset)
 	 */
-	public void loadDataToChartPanelDataSet(CategoryTableXYDataset _dataset) {
+	public void loadDataToChartPanelDataSet(RingTableXYDataset _dataset) {
 		super.loadDataToChartPanelDataSet(_dataset);
 	}
 
@@ -180,12 +192,9 @@ public class Database10g2 extends ASHDatabase {
 		PreparedStatement statement = null;
 		Connection conn = null;
 
-		// Get sequence activeSessionHistoryId
-		try {
-			seq = store.getSequence("activeSessionHistoryId");
-		} catch (DatabaseException e) {
-			e.printStackTrace();
-		}
+		// Time and count of rows for throughput counter
+		long beginLoad = System.nanoTime();
+		long rowCount = 0;
 
 		try {
 
@@ -195,16 +204,16 @@ public class Database10g2 extends ASHDatabase {
 
 				if (super.getSampleId() == -1) {
 					statement = conn
-							.prepareStatement("SELECT * FROM V$ACTIVE_SESSION_HISTORY");
+							.prepareStatement(getQueryAsh(queryASH, false));
 				} else {
 					if (!this.isReconnect()) {
 						statement = conn
-								.prepareStatement("SELECT * FROM V$ACTIVE_SESSION_HISTORY WHERE SAMPLE_ID > ?");
+								.prepareStatement(getQueryAsh(queryASH, true));
 						statement.setLong(1, super.getSampleId()
 								+ this.getKReconnect());
 					} else {
 						statement = conn
-								.prepareStatement("SELECT * FROM V$ACTIVE_SESSION_HISTORY");
+								.prepareStatement(getQueryAsh(queryASH, false));
 					}
 				}
 
@@ -217,49 +226,39 @@ public class Database10g2 extends ASHDatabase {
 
 					// Sample time
 					oracle.sql.DATE oracleDateSampleTime = ((OracleResultSet) resultSetAsh)
-							.getDATE("SAMPLE_TIME");
+							.getDATE(2); // SAMPLE_TIME
 					double valueSampleTime = (new Long(oracleDateSampleTime
 							.timestampValue().getTime())).doubleValue();
 
 					// Get sample id
-					long sampleIdTmp = resultSetAsh.getLong("SAMPLE_ID");
+					long sampleIdTmp = resultSetAsh.getLong(1); // SAMPLE_ID
 					if (isReconnect()) {
 						setKReconnect(sampleIdTmp - super.getSampleId());
 						setReconnect(false);
 					}
 					long sampleId = sampleIdTmp + this.getKReconnect();
 
-					// Load data for sampleId (ASH)
-					try {
-						dao.ashById.putNoOverwrite(new AshIdTime(sampleId,
-								valueSampleTime));
-					} catch (DatabaseException e) {
-						e.printStackTrace();
-					}
-
-					// Load data for active session history
+					// Load data for active session history, columns are read
+					// in order of queryASH
+					int c = 3;
 					try {
 
-						dao.activeSessionHistoryById
-								.putNoReturn(new ActiveSessionHistory(
-										seq.get(null, 1),
+						dao.putActiveSessionHistory(valueSampleTime,
+								new ActiveSessionHistory(
+										nextActiveSessionHistoryId(),
 										sampleId,
-										resultSetAsh.getLong("SESSION_ID"),
-										resultSetAsh
-												.getDouble("SESSION_SERIAL#"),
-										resultSetAsh.getString("SESSION_TYPE"),
+										resultSetAsh.getLong(c++), // SESSION_ID
+										resultSetAsh.getDouble(c++), // SESSION_SERIAL#
+										resultSetAsh.getString(c++), // SESSION_TYPE
 										0.0,
-										resultSetAsh.getLong("USER_ID"),
-										resultSetAsh.getString("SQL_ID"),
-										resultSetAsh
-												.getDouble("SQL_CHILD_NUMBER"),
-										resultSetAsh.getDouble("SQL_OPCODE"),
-										resultSetAsh
-												.getDouble("FORCE_MATCHING_SIGNATURE"),
+										resultSetAsh.getLong(c++), // USER_ID
+										resultSetAsh.getString(c++), // SQL_ID
+										resultSetAsh.getDouble(c++), // SQL_CHILD_NUMBER
+										resultSetAsh.getDouble(c++), // SQL_OPCODE
+										resultSetAsh.getDouble(c++), // FORCE_MATCHING_SIGNATURE
 										"",
 										0.0,
-										resultSetAsh
-												.getDouble("SQL_PLAN_HASH_VALUE"),
+										resultSetAsh.getDouble(c++), // SQL_PLAN_HASH_VALUE
 										0.0,
 										"",
 										"",
@@ -269,47 +268,62 @@ public class Database10g2 extends ASHDatabase {
 										0.0,
 										0.0,
 										0.0,
-										resultSetAsh
-												.getDouble("QC_INSTANCE_ID"),
-										resultSetAsh.getDouble("QC_SESSION_ID"),
+										resultSetAsh.getDouble(c++), // QC_INSTANCE_ID
+										resultSetAsh.getDouble(c++), // QC_SESSION_ID
+										0.0,
+										resultSetAsh.getString(c++), // EVENT
+										resultSetAsh.getDouble(c++), // EVENT_ID
+										resultSetAsh.getDouble(c++), // EVENT#
+										resultSetAsh.getDouble(c++), // SEQ#
+										resultSetAsh.getString(c++), // P1TEXT
+										resultSetAsh.getDouble(c++), // P1
+										resultSetAsh.getString(c++), // P2TEXT
+										resultSetAsh.getDouble(c++), // P2
+										resultSetAsh.getString(c++), // P3TEXT
+										resultSetAsh.getDouble(c++), // P3
+										resultSetAsh.getString(c++), // WAIT_CLASS
+										resultSetAsh.getDouble(c++), // WAIT_CLASS_ID
+										resultSetAsh.getDouble(c++), // WAIT_TIME
+										resultSetAsh.getString(c++), // SESSION_STATE
+										resultSetAsh.getDouble(c++), // TIME_WAITED
+										resultSetAsh.getString(c++), // BLOCKING_SESSION_STATUS
+										resultSetAsh.getDouble(c++), // BLOCKING_SESSION
+										resultSetAsh.getDouble(c++), // BLOCKING_SESSION_SERIAL#
+										resultSetAsh.getDouble(c++), // CURRENT_OBJ#
+										resultSetAsh.getDouble(c++), // CURRENT_FILE#
+										resultSetAsh.getDouble(c++), // CURRENT_BLOCK#
+										0.0,
 										0.0,
-										resultSetAsh.getString("EVENT"),
-										resultSetAsh.getDouble("EVENT_ID"),
-										resultSetAsh.getDouble("EVENT#"),
-										resultSetAsh.getDouble("SEQ#"),
-										resultSetAsh.getString("P1TEXT"),
-										resultSetAsh.getDouble("P1"),
-										resultSetAsh.getString("P2TEXT"),
-										resultSetAsh.getDouble("P2"),
-										resultSetAsh.getString("P3TEXT"),
-										resultSetAsh.getDouble("P3"),
-										resultSetAsh.getString("WAIT_CLASS"),
-										resultSetAsh.getDouble("WAIT_CLASS_ID"),
-										resultSetAsh.getDouble("WAIT_TIME"),
-										resultSetAsh.getString("SESSION_STATE"),
-										resultSetAsh.getDouble("TIME_WAITED"),
-										resultSetAsh
-												.getString("BLOCKING_SESSION_STATUS"),
-										resultSetAsh
-												.getDouble("BLOCKING_SESSION"),
-										resultSetAsh
-												.getDouble("BLOCKING_SESSION_SERIAL#"),
-										resultSetAsh.getDouble("CURRENT_OBJ#"),
-										resultSetAsh.getDouble("CURRENT_FILE#"),
-										resultSetAsh
-												.getDouble("CURRENT_BLOCK#"),
-										0.0, 0.0,
-										resultSetAsh.getString("XID"), 0.0, "",
-										"", "", "", "", "", "", "", "", "",
-										resultSetAsh.getDouble("SERVICE_HASH"),
-										resultSetAsh.getString("PROGRAM"),
-										resultSetAsh.getString("MODULE"),
-										resultSetAsh.getString("ACTION"),
-										resultSetAsh.getString("CLIENT_ID")));
+										resultSetAsh.getString(c++), // XID
+										0.0,
+										"",
+										"",
+										"",
+										"",
+										"",
+										"",
+										"",
+										"",
+										"",
+										"",
+										resultSetAsh.getDouble(c++), // SERVICE_HASH
+										resultSetAsh.getString(c++), // PROGRAM
+										resultSetAsh.getString(c++), // MODULE
+										resultSetAsh.getString(c++), // ACTION
+										resultSetAsh.getString(c++))); // CLIENT_ID
+
+						rowCount++;
 					} catch (Exception e) {
 						e.printStackTrace();
 					}
 				}
+
+				// Save rows of samples, which are not saved yet
+				flushAshRows();
+
+				super.getIngestThroughput().add(rowCount,
+						System.nanoTime() - beginLoad);
+
 				if (conn != null) {
 					model.getConnectionPool().free(conn);
 				}
@@ -350,23 +364,35 @@ public class Database10g2 extends ASHDatabase {
 	public void calculateSqlsSessionsData(double beginTime, double endTime,
 			String eventFlag) {
 
-		try {
+		if (eventFlag.equalsIgnoreCase("All")) {
+			this.calculateSqlsSessionsData(super.getSqlsTemp(),
+					super.getSessionsTemp(), beginTime - rangeHalf, true,
+					endTime + rangeHalf, true, eventFlag);
+		} else {
+			this.calculateSqlsSessionsData(super.getSqlsTempDetail(),
+					super.getSessionsTempDetail(), beginTime - rangeHalf, true,
+					endTime + rangeHalf, true, eventFlag);
+		}
+	}
 
-			SqlsTemp tmpSqlsTemp = null;
-			SessionsTemp tmpSessionsTemp = null;
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.ash.database.ASHDatabase#calculateSqlsSessionsData(org.ash.datatemp.SqlsTemp,
+	 *      org.ash.datatemp.SessionsTemp, double, boolean, double, boolean,
+	 *      java.lang.String)
+	 */
+	protected void calculateSqlsSessionsData(SqlsTemp tmpSqlsTemp,
+			SessionsTemp tmpSessionsTemp, double fromTime,
+			boolean fromInclusive, double toTime, boolean toInclusive,
+			String eventFlag) {
 
-			if (eventFlag.equalsIgnoreCase("All")) {
-				tmpSqlsTemp = super.getSqlsTemp();
-				tmpSessionsTemp = super.getSessionsTemp();
-			} else {
-				tmpSqlsTemp = super.getSqlsTempDetail();
-				tmpSessionsTemp = super.getSessionsTempDetail();
-			}
+		try {
 
-			// get sample id's for beginTime and endTime
+			// get sample id's for time range
 			EntityCursor<AshIdTime> ashSampleIds;
-			ashSampleIds = dao.doRangeQuery(dao.ashBySampleTime, beginTime
-					- rangeHalf, true, endTime + rangeHalf, true);
+			ashSampleIds = dao.doRangeQuery(dao.ashBySampleTime, fromTime,
+					fromInclusive, toTime, toInclusive);
 			/* Iterate on Ash by SampleTime. */
 			Iterator<AshIdTime> ashIter = ashSampleIds.iterator();
 
@@ -375,12 +401,8 @@ public class Database10g2 extends ASHDatabase {
 				AshIdTime ashSumMain = ashIter.next();
 
 				// get rows from ActiveSessionHistory for samplId
-				EntityCursor<ActiveSessionHistory> ActiveSessionHistoryCursor;
-				ActiveSessionHistoryCursor = dao.doRangeQuery(
-						dao.activeSessionHistoryByAshId, ashSumMain
-								.getsampleId(), true, ashSumMain.getsampleId(),
-						true);
-				Iterator<ActiveSessionHistory> ActiveSessionHistoryIter = ActiveSessionHistoryCursor
+				Iterator<ActiveSessionHistory> ActiveSessionHistoryIter = dao
+						.getActiveSessionHistoryBySampleId(ashSumMain.getsampleId())
 						.iterator();
 
 				while (ActiveSessionHistoryIter.hasNext()) {
@@ -442,7 +464,6 @@ public class Database10g2 extends ASHDatabase {
 					}
 				}
 				// Close cursor!!
-				ActiveSessionHistoryCursor.close();
 			}
 			tmpSqlsTemp.set_sum();
 			tmpSessionsTemp.set_sum();
@@ -455,36 +476,16 @@ public class Database10g2 extends ASHDatabase {
 		}
 	}
 
-	/*
-	 * (non-Javadoc)
-	 * 
-	 * @see org.ash.database.DatabaseMain#loadCommandTypeFromDB(java.util.List)
-	 */
-	public void loadSqlTextCommandTypeFromDB(List<String> arraySqlId) {
-		
-		// Load all sqlId
-		ArrayList<String> sqlIdAll = new ArrayList<String>();
-		
-		Iterator<String> arraySqlIdIter = arraySqlId.iterator();
-		while (arraySqlIdIter.hasNext()) {
-			String sqlId = arraySqlIdIter.next();
-			if (!isSqlTextExist(sqlId)){
-				sqlIdAll.add(sqlId);
-			}
-		}
-
-		this.loadSqlTextSqlIdFromDB(sqlIdAll);
-	}
-
 	/*
 	 * (non-Javadoc)
 	 * 
 	 * @see org.ash.database.DatabaseMain#loadSqlPlanFromDB(java.util.List)
 	 */
 	public void loadSqlPlanFromDB(List<String> arraySqlId, boolean isDetail) {
-		
-		// Load plan_hash_value:sql_id
-		Map<Double, String> planHashValueSqlId = new HashMap<Double, String>();
+
+		// Load plan_hash_value, sql_id pairs
+		List<String> sqlIds = new ArrayList<String>();
+		List<Double> planHashValues = new ArrayList<Double>();
 		
 		Iterator<String> arraySqlIdIter = arraySqlId.iterator();
 		while (arraySqlIdIter.hasNext()) {
@@ -501,19 +502,20 @@ public class Database10g2 extends ASHDatabase {
 			} catch (RuntimeException e) {
 				e.printStackTrace();
 			}
+			if (listPlanHashValueTmp == null) {
+				continue;
+			}
 			Iterator<Double> listPlanHashValueTmpIter = 
 									listPlanHashValueTmp.iterator();
 
 			while (listPlanHashValueTmpIter.hasNext()) {
-				Double tmpPlanHashValue = listPlanHashValueTmpIter.next();
-				if (!isSqlPlanHashValueExist(tmpPlanHashValue, sqlId)) {
-					planHashValueSqlId.put(tmpPlanHashValue, sqlId);
-				}
+				sqlIds.add(sqlId);
+				planHashValues.add(listPlanHashValueTmpIter.next());
 			}
 		}
 
-		// Load plan hash value from Oracle database		
-		loadSqlPlanHashValueFromDBToLocalBDB(planHashValueSqlId);
+		// Load plans not in local BDB from Oracle database
+		super.loadSqlPlanToLocalBDB(sqlIds, planHashValues);
 	}
 
 	/*
@@ -581,371 +583,12 @@ public class Database10g2 extends ASHDatabase {
 	/*
 	 * (non-Javadoc)
 	 * 
-	 * @see org.ash.database.DatabaseMain#isSqlPlanHashValueExist(ExplainPlanModel)
+	 * @see org.ash.database.DatabaseMain#getSqlPlanModelByPlanHashValue(java.lang.Double, java.lang.String)
 	 */
 	public TreeTableModel getSqlPlanModelByPlanHashValue(
 			Double sqlPlanHashValue, String sqlId) {
-
-		ExplainPlanModel10g2 model = null;
-		ExplainPlanModel10g2.ExplainRow lastRow = null;
-		EntityCursor<AshSqlPlanDetail> ashSqlPlan = null;
-		long previousLevel = 1;
-		boolean isRecalculateDepth = false;
-		boolean exitFromCycle = false;
-		boolean isChildNumberSaved = false;
-		long childNumberBySql = 0;
-		long ii = 0;
-		
-		while (!exitFromCycle) {
-			exitFromCycle = true;
-
-			try {
-				ashSqlPlan = dao.doRangeQuery(dao
-						.getAshSqlPlanHashValueDetail(), sqlPlanHashValue,
-						true, sqlPlanHashValue, true);
-				Iterator<AshSqlPlanDetail> ashSqlPlanIter = ashSqlPlan
-						.iterator();
-
-				// Iterate
-				while (ashSqlPlanIter.hasNext()) {
-					AshSqlPlanDetail ashSqlPlanMain = ashSqlPlanIter.next();
-					String sqlIdTmp = ashSqlPlanMain.getSqlId();
-					long childNumberTmp = ashSqlPlanMain.getChildNumber();
-					
-					if (!isChildNumberSaved && sqlId.equalsIgnoreCase(sqlIdTmp)){
-						childNumberBySql = childNumberTmp;
-						isChildNumberSaved = true;
-					} else {
-						if (!sqlId.equalsIgnoreCase(sqlIdTmp))
-							continue;
-					}
-
-					Long id = ashSqlPlanMain.getId();
-
-					if (id == ii && childNumberBySql == childNumberTmp) {
-						exitFromCycle = false;
-
-						String address = ashSqlPlanMain.getAddress();
-						Double hashValue = ashSqlPlanMain.getHashValue();
-						//String sqlId = ashSqlPlanMain.getSqlId();
-						//Double planHashValue = sqlPlanHashValue;
-						String childAddress = ashSqlPlanMain.getChildAddress();
-						Long childNumber = ashSqlPlanMain.getChildNumber();
-						String operation  = ashSqlPlanMain.getOperation();
-						String options  = ashSqlPlanMain.getOptions();
-						String objectNode = ashSqlPlanMain.getObjectNode();
-						Double object = ashSqlPlanMain.getObject();
-						String objectOwner = ashSqlPlanMain.getObjectOwner();
-						String objectName = ashSqlPlanMain.getObjectName();
-						String objectAlias = ashSqlPlanMain.getObjectAlias();
-						String objectType = ashSqlPlanMain.getObjectType();
-						String optimizer = ashSqlPlanMain.getOptimizer();
-						Long Id = ashSqlPlanMain.getId(); 
-						Long parentId = ashSqlPlanMain.getParentId();
-			   /*Depth*/Long level = ashSqlPlanMain.getDepth() + 1;
-						Long position  = ashSqlPlanMain.getPosition();
-						Long searchColumns = ashSqlPlanMain.getSearchColumns();
-						Double cost = ashSqlPlanMain.getCost();
-						Double cardinality  = ashSqlPlanMain.getCardinality();
-						Double bytes  = ashSqlPlanMain.getBytes();
-						String otherTag  = ashSqlPlanMain.getOtherTag();
-						String partitionStart  = ashSqlPlanMain.getPartitionStart();
-						String partitionStop  = ashSqlPlanMain.getPartitionStop();
-						Double partitionId  = ashSqlPlanMain.getPartitionId();
-						String other  = ashSqlPlanMain.getOther();
-						String distribution  = ashSqlPlanMain.getDistribution();
-						Double cpuCost  = ashSqlPlanMain.getCpuCost();
-						Double ioCost  = ashSqlPlanMain.getIoCost();
-						Double tempSpace  = ashSqlPlanMain.getTempSpace();
-						String accessPredicates  = ashSqlPlanMain.getAccessPredicates();
-						String filterPredicates  = ashSqlPlanMain.getFilterPredicates();
-						String projection  = ashSqlPlanMain.getProjection();
-						Double time  = ashSqlPlanMain.getTime();
-						String qblockName  = ashSqlPlanMain.getQblockName();
-						String remarks  = ashSqlPlanMain.getRemarks();
-						
-						ExplainPlanModel10g2.ExplainRow parent = null;
-
-						if (level == 1) {
-							long tmp = 0;
-							ExplainPlanModel10g2.ExplainRow rowRoot = new ExplainPlanModel10g2.ExplainRow(
-									parent, null, null, null, null, null, null,
-									null, null, null, null, null, null, null,
-									null, null, tmp, null, null, null,
-									null, null, null, null, null, null, null,
-									null, null, null, null, null, null, null,
-									null, null, null, null, null);
-							model = new ExplainPlanModel10g2(rowRoot);
-
-							ExplainPlanModel10g2.ExplainRow row = new ExplainPlanModel10g2.ExplainRow(
-									rowRoot,  address,  hashValue,  sqlIdTmp, sqlPlanHashValue,
-									childAddress,  childNumber, operation, options,
-									objectNode, object, objectOwner, objectName, objectAlias,
-									objectType, optimizer, Id, parentId, /*Depth*/level, position,
-									searchColumns, cost, cardinality, bytes, otherTag,
-									partitionStart, partitionStop, partitionId, other, distribution,
-									cpuCost, ioCost, tempSpace, accessPredicates, filterPredicates,
-									projection, time, qblockName, remarks);
-
-							rowRoot.addChild(row);
-							lastRow = row;
-							previousLevel = level;
-							continue;
-						} else if (previousLevel == level) {
-							parent = ((ExplainPlanModel10g2.ExplainRow) lastRow
-									.getParent().getParent())
-									.findChild(parentId.intValue());
-						} else if (level > previousLevel) {
-							parent = ((ExplainPlanModel10g2.ExplainRow) lastRow
-									.getParent()).findChild(parentId
-									.intValue());
-						} else if (level < previousLevel) {
-							parent = (ExplainPlanModel10g2.ExplainRow) lastRow
-									.getParent();
-							for (long i = previousLevel - level; i >= 0; i--) {
-								parent = (ExplainPlanModel10g2.ExplainRow) parent
-										.getParent();
-							}
-							parent = parent.findChild(parentId.intValue());
-						}
-						if (parent == null) {
-							isRecalculateDepth = true;
-							break;
-						}
-
-						ExplainPlanModel10g2.ExplainRow row = new ExplainPlanModel10g2.ExplainRow(
-									parent, address,  hashValue,  sqlIdTmp, sqlPlanHashValue,
-								 	childAddress,  childNumber, operation, options,
-									objectNode, object, objectOwner, objectName, objectAlias,
-									objectType, optimizer, Id, parentId, /*Depth*/level, position,
-									searchColumns, cost, cardinality, bytes, otherTag,
-									partitionStart, partitionStop, partitionId, other, distribution,
-									cpuCost, ioCost, tempSpace, accessPredicates, filterPredicates,
-									projection, time, qblockName, remarks);
-						parent.addChild(row);
-						lastRow = row;
-						previousLevel = level;
-						
-						break;
-					}
-				}
-			} catch (DatabaseException e) {
-				e.printStackTrace();
-			} finally {
-				try {
-					ashSqlPlan.close();
-				} catch (DatabaseException e) {
-					e.printStackTrace();
-				}
-				ii++;
-			}
-
-		}
-
-		// Recalculate wrong node levels
-		if (isRecalculateDepth) {
-			HashMap<Long, Long> idParentId = new HashMap<Long, Long>();
-			HashMap<Long, Long> idLevel = new HashMap<Long, Long>();
-
-			EntityCursor<AshSqlPlanDetail> ashSqlPlanP = null;
-
-			try {
-				ashSqlPlanP = dao.doRangeQuery(dao.ashSqlPlanHashValueDetail,
-						sqlPlanHashValue, true, sqlPlanHashValue, true);
-				Iterator<AshSqlPlanDetail> ashSqlPlanIterP = ashSqlPlanP
-						.iterator();
-
-				// Iterate
-				while (ashSqlPlanIterP.hasNext()) {
-					AshSqlPlanDetail ashSqlPlanMainP = ashSqlPlanIterP.next();
-
-					Long idP = ashSqlPlanMainP.getId();
-					Long parent_idP = ashSqlPlanMainP.getParentId();
-					long tmp = -1;
-					if (idP == 0) {
-						idParentId.put(idP, tmp);
-					} else {
-						idParentId.put(idP, parent_idP);
-					}
-				}
-
-			} catch (DatabaseException e) {
-				e.printStackTrace();
-			} finally {
-				try {
-					ashSqlPlanP.close();
-				} catch (DatabaseException e) {
-					e.printStackTrace();
-				}
-			}
-
-			idLevel = Utils.getLevels(idParentId);
-			model = (ExplainPlanModel10g2) getSqlPlanModelByPlanHashValueP(idLevel, sqlPlanHashValue, sqlId);
-		}
-
-		return model;
-	}
-
-	/*
-	 * (non-Javadoc)
-	 * 
-	 * @see org.ash.database.DatabaseMain#getSqlPlanModelByPlanHashValueP(ExplainPlanModel)
-	 */
-	public TreeTableModel getSqlPlanModelByPlanHashValueP(
-			HashMap<Long, Long> idLevel, Double sqlPlanHashValue, String sqlId) {
-
-		ExplainPlanModel10g2 model = null;
-		ExplainPlanModel10g2.ExplainRow lastRow = null;
-		EntityCursor<AshSqlPlanDetail> ashSqlPlan = null;
-		long previousLevel = 1;
-		boolean exitFromCycle = false;
-		boolean isChildNumberSaved = false;
-		long childNumberBySql = 0;
-		long ii = 0;
-		
-		while (!exitFromCycle) {
-			exitFromCycle = true;
-
-			try {
-				ashSqlPlan = dao.doRangeQuery(dao
-						.getAshSqlPlanHashValueDetail(), sqlPlanHashValue,
-						true, sqlPlanHashValue, true);
-				Iterator<AshSqlPlanDetail> ashSqlPlanIter = ashSqlPlan
-						.iterator();
-
-				// Iterate
-				while (ashSqlPlanIter.hasNext()) {
-					AshSqlPlanDetail ashSqlPlanMain = ashSqlPlanIter.next();
-					String sqlIdTmp = ashSqlPlanMain.getSqlId();
-					long childNumberTmp = ashSqlPlanMain.getChildNumber();
-					
-					if (!isChildNumberSaved && sqlId.equalsIgnoreCase(sqlIdTmp)){
-						childNumberBySql = childNumberTmp;
-						isChildNumberSaved = true;
-					} else {
-						if (!sqlId.equalsIgnoreCase(sqlIdTmp))
-							continue;
-					}
-
-					Long id = ashSqlPlanMain.getId();
-
-					if (id == ii && childNumberBySql == childNumberTmp) {
-						exitFromCycle = false;
-						
-						String address = ashSqlPlanMain.getAddress();
-						Double hashValue = ashSqlPlanMain.getHashValue();
-						//String sqlId = ashSqlPlanMain.getSqlId();
-						//Double planHashValue = sqlPlanHashValue;
-						String childAddress = ashSqlPlanMain.getChildAddress();
-						Long childNumber = ashSqlPlanMain.getChildNumber();
-						String operation  = ashSqlPlanMain.getOperation();
-						String options  = ashSqlPlanMain.getOptions();
-						String objectNode = ashSqlPlanMain.getObjectNode();
-						Double object = ashSqlPlanMain.getObject();
-						String objectOwner = ashSqlPlanMain.getObjectOwner();
-						String objectName = ashSqlPlanMain.getObjectName();
-						String objectAlias = ashSqlPlanMain.getObjectAlias();
-						String objectType = ashSqlPlanMain.getObjectType();
-						String optimizer = ashSqlPlanMain.getOptimizer();
-						Long Id = ashSqlPlanMain.getId(); 
-						Long parentId = ashSqlPlanMain.getParentId();
-			   /*Depth*/Long level = idLevel.get(id);// ashSqlPlanMain.getDepth()+1;
-						Long position  = ashSqlPlanMain.getPosition();
-						Long searchColumns = ashSqlPlanMain.getSearchColumns();
-						Double cost = ashSqlPlanMain.getCost();
-						Double cardinality  = ashSqlPlanMain.getCardinality();
-						Double bytes  = ashSqlPlanMain.getBytes();
-						String otherTag  = ashSqlPlanMain.getOtherTag();
-						String partitionStart  = ashSqlPlanMain.getPartitionStart();
-						String partitionStop  = ashSqlPlanMain.getPartitionStop();
-						Double partitionId  = ashSqlPlanMain.getPartitionId();
-						String other  = ashSqlPlanMain.getOther();
-						String distribution  = ashSqlPlanMain.getDistribution();
-						Double cpuCost  = ashSqlPlanMain.getCpuCost();
-						Double ioCost  = ashSqlPlanMain.getIoCost();
-						Double tempSpace  = ashSqlPlanMain.getTempSpace();
-						String accessPredicates  = ashSqlPlanMain.getAccessPredicates();
-						String filterPredicates  = ashSqlPlanMain.getFilterPredicates();
-						String projection  = ashSqlPlanMain.getProjection();
-						Double time  = ashSqlPlanMain.getTime();
-						String qblockName  = ashSqlPlanMain.getQblockName();
-						String remarks  = ashSqlPlanMain.getRemarks();	
-						
-					ExplainPlanModel10g2.ExplainRow parent = null;
-
-					if (level == 1) {
-						long tmp = 0;
-						ExplainPlanModel10g2.ExplainRow rowRoot = new ExplainPlanModel10g2.ExplainRow(
-								parent , null, null, null, null, null, null,
-								null, null, null, null, null, null, null,
-								null, null, tmp, null, null, null,
-								null, null, null, null, null, null, null,
-								null, null, null, null, null, null, null,
-								null, null, null, null, null);
-						model = new ExplainPlanModel10g2(rowRoot);
-
-						ExplainPlanModel10g2.ExplainRow row = new ExplainPlanModel10g2.ExplainRow(
-								rowRoot, address,  hashValue,  sqlIdTmp, sqlPlanHashValue,
-							 	childAddress,  childNumber, operation, options,
-								objectNode, object, objectOwner, objectName, objectAlias,
-								objectType, optimizer, Id, parentId, /*Depth*/level, position,
-								searchColumns, cost, cardinality, bytes, otherTag,
-								partitionStart, partitionStop, partitionId, other, distribution,
-								cpuCost, ioCost, tempSpace, accessPredicates, filterPredicates,
-								projection, time, qblockName, remarks);
-
-						rowRoot.addChild(row);
-						lastRow = row;
-						previousLevel = level;
-						continue;
-					} else if (previousLevel == level) {
-						parent = ((ExplainPlanModel10g2.ExplainRow) lastRow
-								.getParent().getParent()).findChild(parentId
-								.intValue());
-					} else if (level > previousLevel) {
-						parent = ((ExplainPlanModel10g2.ExplainRow) lastRow
-								.getParent()).findChild(parentId.intValue());
-					} else if (level < previousLevel) {
-						parent = (ExplainPlanModel10g2.ExplainRow) lastRow
-								.getParent();
-						for (long i = previousLevel - level; i >= 0; i--) {
-							parent = (ExplainPlanModel10g2.ExplainRow) parent
-									.getParent();
-						}
-						parent = parent.findChild(parentId.intValue());
-					}
-					if (parent == null)
-						break;
-
-					ExplainPlanModel10g2.ExplainRow row = new ExplainPlanModel10g2.ExplainRow(
-							parent, address,  hashValue,  sqlIdTmp, sqlPlanHashValue,
-						 	childAddress,  childNumber, operation, options,
-							objectNode, object, objectOwner, objectName, objectAlias,
-							objectType, optimizer, Id, parentId, /*Depth*/level, position,
-							searchColumns, cost, cardinality, bytes, otherTag,
-							partitionStart, partitionStop, partitionId, other, distribution,
-							cpuCost, ioCost, tempSpace, accessPredicates, filterPredicates,
-							projection, time, qblockName, remarks);
-					parent.addChild(row);
-					lastRow = row;
-					previousLevel = level;
-					
-					break;
-				}	
-			  }
-			} catch (DatabaseException e) {
-				e.printStackTrace();
-			} finally {
-				try {
-					ashSqlPlan.close();
-				} catch (DatabaseException e) {
-					e.printStackTrace();
-				}
-			ii++;
-		  }
-		}
-
-		return model;
+		List<AshSqlPlanDetail> lines = getSqlPlanLines(sqlPlanHashValue, sqlId);
+		return SqlPlanTreeBuilder.buildModel10g2(lines, sqlPlanHashValue);
 	}
 
 	/*
@@ -1049,173 +692,6 @@ public class Database10g2 extends ASHDatabase {
 		}
 	}
 
-	/**
-	 * Load sql_text, sql_id from database.
-	 * 
-	 * @param array10
-	 */
-	public void loadSqlTextSqlIdFromDB(List<String> array10) {
-
-		ResultSet resultSet = null;
-		PreparedStatement statement = null;
-		Connection conn = null;
-
-	try {
-		conn = this.model.getConnectionPool().getConnection();
-
-		statement = conn.prepareStatement(this.querySQL);
-
-		Iterator<String> iter = array10.iterator();
-		
-		while (iter.hasNext()) {
-				
-			statement.setString(1, iter.next());
-			
-			resultSet = statement.executeQuery();
-
-			while (resultSet.next()) {
-				String sqlId = resultSet.getString("SQL_ID");
-				String sqlText = resultSet.getString("SQL_TEXT");
-				String commType = Options.getInstance().getResource(
-						resultSet.getLong("COMMAND_TYPE") + "");
-				
-				try {
-					dao.ashSqlIdTypeTextId.putNoReturn(new AshSqlIdTypeText(sqlId,
-							commType, sqlText));
-				} catch (DatabaseException e) {
-					e.printStackTrace();
-				}
-			}
-		  }
-		} catch (Exception e) {
-			System.out.println("SQL Exception occured: " + e.getMessage());
-		} finally {
-			if (resultSet != null) {
-				try {
-					resultSet.close();
-				} catch (Exception e) {
-					e.printStackTrace();
-				}
-			}
-			if (statement != null) {
-				try {
-					statement.close();
-				} catch (Exception e) {
-					e.printStackTrace();
-				}
-			}
-			if (conn != null) {
-				model.getConnectionPool().free(conn);
-			}
-		}
-	}
-
-	/**
-	 * Load sql plan from database and store to local BDB storage.
-	 * @param arrayPlanHashValueSqlId
-	 */
-	private void loadSqlPlanHashValueFromDBToLocalBDB(Map<Double, String> arrayPlanHashValueSqlId) {
-
-		ResultSet resultSet = null;
-		PreparedStatement statement = null;
-		Connection conn = null;
-
-		// Get sequence activeSessionHistoryId
-		try {
-			seq = store.getSequence("AshSqlPlanId");
-		} catch (DatabaseException e) {
-			e.printStackTrace();
-		}
-
-		try {
-			conn = this.model.getConnectionPool().getConnection();
-
-			statement = conn.prepareStatement(this.querySQLPLAN);
-			statement.setFetchSize(250);	
-
-		for (Entry<Double, String> me : arrayPlanHashValueSqlId.entrySet()) {
-			statement.setString(1, me.getValue());
-			statement.setDouble(2, me.getKey());
-			
-			resultSet = statement.executeQuery();
-
-			while (resultSet.next()) {
-
-				Double planHashValue = resultSet.getDouble("PLAN_HASH_VALUE");
-				String sqlId = resultSet.getString("SQL_ID");
-				String address = "";
-				
-				try {
-					Byte[] useValue = null;
-					byte[] bytes = (byte[]) resultSet.getObject("ADDRESS");
-					useValue = new Byte[bytes.length];
-         			for (int m=0; m<bytes.length; m++) {
-         				useValue[m] = Byte.valueOf(bytes[m]);
-                     }
-         			address = BinaryDisplayConverter.convertToString(useValue,
-         					BinaryDisplayConverter.HEX, false);
-         			
-				  } catch (Exception e) {
-					  address = "";
-				  }
-		
-				
-				// Load sql plan data to parent and detail
-				try {
-					dao.getAshSqlPlanPKParent().putNoOverwrite(
-							new AshSqlPlanParent(planHashValue, sqlId));
-					dao.getAshSqlPlanPKDetail().putNoReturn(
-							new AshSqlPlanDetail(
-							   seq.get(null, 1), address, resultSet.getDouble("HASH_VALUE"),sqlId,
-							   planHashValue,"", resultSet.getLong("CHILD_NUMBER"),0,
-							   resultSet.getString("OPERATION"), resultSet.getString("OPTIONS"),
-							   resultSet.getString("OBJECT_NODE"), resultSet.getDouble("OBJECT#"),
-							   resultSet.getString("OBJECT_OWNER"),resultSet.getString("OBJECT_NAME"),
-							   resultSet.getString("OBJECT_ALIAS"),resultSet.getString("OBJECT_TYPE"),
-							   resultSet.getString("OPTIMIZER"), resultSet.getLong("ID"),
-							   resultSet.getLong("PARENT_ID"), resultSet.getLong("DEPTH"),
-							   resultSet.getLong("POSITION"), resultSet.getLong("SEARCH_COLUMNS"),
-							   resultSet.getDouble("COST"), resultSet.getDouble("CARDINALITY"),
-							   resultSet.getDouble("BYTES"), resultSet.getString("OTHER_TAG"), 
-							   resultSet.getString("PARTITION_START"),resultSet.getString("PARTITION_STOP"),
-							   resultSet.getLong("PARTITION_ID"),resultSet.getString("OTHER"), 
-							   resultSet.getString("DISTRIBUTION"),resultSet.getDouble("CPU_COST"),
-							   resultSet.getDouble("IO_COST"),resultSet.getDouble("TEMP_SPACE"),
-							   resultSet.getString("ACCESS_PREDICATES"),resultSet.getString("FILTER_PREDICATES"),
-							   resultSet.getString("PROJECTION"),resultSet.getDouble("TIME"),
-							   resultSet.getString("QBLOCK_NAME"),resultSet.getString("REMARKS")
-							)
-							
-					);
-				} catch (Exception e) {
-					e.printStackTrace();
-				}
-			}
-			
-		}	
-
-		} catch (Exception e) {
-			System.out.println("SQL Exception occured: " + e.getMessage());
-		} finally {
-			if (resultSet != null) {
-				try {
-					resultSet.close();
-				} catch (Exception e) {
-					e.printStackTrace();
-				}
-			}
-			if (statement != null) {
-				try {
-					statement.close();
-				} catch (Exception e) {
-					e.printStackTrace();
-				}
-			}
-			if (conn != null) {
-				model.getConnectionPool().free(conn);
-			}
-		}
-	}
 
 
 	/* (non-Javadoc)
@@ -32,6 +32,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 import oracle.jdbc.OracleResultSet;
 
@@ -40,18 +42,14 @@ import org.ash.datamodel.ActiveSessionHistory;
 import org.ash.datamodel.AshIdTime;
 import org.ash.datamodel.AshSqlIdTypeText;
 import org.ash.datamodel.AshSqlPlanDetail;
-import org.ash.datamodel.AshSqlPlanParent;
 import org.ash.datatemp.SessionsTemp;
 import org.ash.datatemp.SqlsTemp;
-import org.ash.explainplanmodel.ExplainPlanModel10g2;
-import org.ash.util.BinaryDisplayConverter;
 import org.ash.util.Options;
+import org.ash.util.RingTableXYDataset;
 import org.ash.util.Utils;
 import org.jdesktop.swingx.treetable.TreeTableModel;
-import org.jfree.data.xy.CategoryTableXYDataset;
 
 import com.sleepycat.je.DatabaseException;
-import com.sleepycat.je.Sequence;
 import com.sleepycat.persist.EntityCursor;
 import com.sleepycat.persist.EntityStore;
 
@@ -63,9 +61,6 @@ public class Database11g2 extends ASHDatabase {
 	/** The model. */
 	private Model model;
 
-	/** The sequence. */
-	private Sequence seq;
-
 	/** The store. */
 	private EntityStore store;
 
@@ -75,19 +70,25 @@ public class Database11g2 extends ASHDatabase {
 	/** The range for sqls and sessions temp (e-gantt) */
 	private int rangeHalf = 7500;
 
-	/** The query sql. */
-	private String querySQL = "SELECT sql_id, command_type, sql_text FROM v$sql "
-			+ "WHERE sql_id = ?";
+	/** The select list of ASH counts aggregated on server by sample, wait class and event. */
+	private String queryASHAggregate = "SELECT sample_id, sample_time, session_state,"
+			+ " wait_class_id, wait_class, event, count(*)";
+
+	/** The group by of ASH counts aggregated on server. */
+	private String groupByASHAggregate = " GROUP BY sample_id, sample_time,"
+			+ " session_state, wait_class_id, wait_class, event ORDER BY sample_id";
+
+	/** The sample ids (and times) loaded as counts only, rows of them are not in local BDB. */
+	private TreeMap<Long, Double> samplesWithoutRows = new TreeMap<Long, Double>();
+	
+	/** The max count of samples without rows, older samples are out of
+	 *  v$active_session_history already (one day of 1 sec samples). */
+	private static final int MAX_SAMPLES_WITHOUT_ROWS = 86400;
+	
+	/** The mode of collection is saved to local BDB (for history). */
+	private boolean isAggregateParamSaved = false;
+
 	
-	/** The query sql plan data. */
-	private String querySQLPLAN = "SELECT address, hash_value, sql_id, plan_hash_value, child_number," +
-		" operation, options, object_node, object#, object_owner, object_name, object_alias," +
-		" object_type, optimizer, id, parent_id, depth, position, search_columns, cost," +
-		" cardinality, bytes, other_tag, partition_start, partition_stop, partition_id," +
-		" other, distribution, cpu_cost, io_cost, temp_space, access_predicates, filter_predicates," +
-		" projection, time, qblock_name, remarks" +
-		" FROM v$sql_plan " +
-		" WHERE sql_id = ? and plan_hash_value = ?";
 
 	/** The k for sample_id after reconnect */
 	private long kReconnect = 0;
@@ -110,6 +111,25 @@ public class Database11g2 extends ASHDatabase {
 		this.model = model0;
 		this.store = super.getStore();
 		this.dao = super.getDao();
+		super.initSqlTextResolver("sql_id", false);
+		super.initSqlPlanCapture();
+	}
+
+	/**
+	 * Instantiates a new database 11g2 (one of many targets or
+	 * instances of RAC in one process).
+	 * 
+	 * @param model0 the model0
+	 * @param envDir the directory of BDB
+	 * @param instId the instance number, 0 for V$ACTIVE_SESSION_HISTORY
+	 */
+	public Database11g2(Model model0, String envDir, int instId) {
+		super(model0, envDir, instId);
+		this.model = model0;
+		this.store = super.getStore();
+		this.dao = super.getDao();
+		super.initSqlTextResolver("sql_id", false);
+		super.initSqlPlanCapture();
 	}
 
 	/*
@@ -155,9 +175,9 @@ public class Database11g2 extends ASHDatabase {
 	/*
 	 * (non-Javadoc)
 	 * 
-	 * @see org.ash.database.DatabaseMain#loadDataToChartPanelDataSet(org.jfree.data.xy.CategoryTableXYDataset)
+	 * @see org.ash.database.DatabaseMain#loadDataToChartPanelDataSet(org.ash.util.RingTableXYDataset)
 	 */
-	public void loadDataToChartPanelDataSet(CategoryTableXYDataset _dataset) {
+	public void loadDataToChartPanelDataSet(RingTableXYDataset _dataset) {
 		super.loadDataToChartPanelDataSet(_dataset);
 	}
 
@@ -170,21 +190,44 @@ public class Database11g2 extends ASHDatabase {
 		super.updateDataToChartPanelDataSet();
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.ash.database.ASHDatabase#deleteData(long, long)
+	 */
+	public void deleteData(long start, long end) {
+		super.deleteData(start, end);
+		
+		// Rows of deleted samples are not loaded on select of interval
+		synchronized (samplesWithoutRows) {
+			Iterator<Double> iterTime = samplesWithoutRows.values().iterator();
+			while (iterTime.hasNext()) {
+				double sampleTime = iterTime.next();
+				if (sampleTime >= start && sampleTime <= end) {
+					iterTime.remove();
+				}
+			}
+		}
+	}
+
 	/**
 	 * Load ash data to local BDB.
 	 */
 	private void loadAshDataToLocal() {
 
+		// Counts aggregated on server, rows are loaded on select of interval
+		if (Options.getInstance().isAggregateOnServer()) {
+			loadAshAggregatesToLocal();
+			return;
+		}
+
 		ResultSet resultSetAsh = null;
 		PreparedStatement statement = null;
 		Connection conn = null;
 
-		// Get sequence activeSessionHistoryId
-		try {
-			seq = store.getSequence("activeSessionHistoryId");
-		} catch (DatabaseException e) {
-			e.printStackTrace();
-		}
+		// Time and count of rows for throughput counter
+		long beginLoad = System.nanoTime();
+		long rowCount = 0;
 
 		try {
 
@@ -193,17 +236,14 @@ public class Database11g2 extends ASHDatabase {
 				conn = this.model.getConnectionPool().getConnection();
 
 				if (super.getSampleId() == -1) {
-					statement = conn
-							.prepareStatement("SELECT * FROM V$ACTIVE_SESSION_HISTORY");
+					statement = conn.prepareStatement(getQueryAsh(Database11g1.QUERY_ASH, false));
 				} else {
 					if (!this.isReconnect()) {
-						statement = conn
-								.prepareStatement("SELECT * FROM V$ACTIVE_SESSION_HISTORY WHERE SAMPLE_ID > ?");
+						statement = conn.prepareStatement(getQueryAsh(Database11g1.QUERY_ASH, true));
 						statement.setLong(1, super.getSampleId()
 								- this.getKReconnect());
 					} else {
-						statement = conn
-								.prepareStatement("SELECT * FROM V$ACTIVE_SESSION_HISTORY");
+						statement = conn.prepareStatement(getQueryAsh(Database11g1.QUERY_ASH, false));
 					}
 				}
 
@@ -214,139 +254,158 @@ public class Database11g2 extends ASHDatabase {
 
 				while (resultSetAsh.next()) {
 
+					// Get sample id
+					long sampleIdTmp = resultSetAsh.getLong(1); // SAMPLE_ID
+					if (isReconnect()) {
+						setKReconnect(Math.abs(super.getSampleId()-sampleIdTmp)+1000);
+						setReconnect(false);
+					}
+					long sampleId = sampleIdTmp + this.getKReconnect();
+
 					// Sample time
 					oracle.sql.DATE oracleDateSampleTime = ((OracleResultSet) resultSetAsh)
-							.getDATE("SAMPLE_TIME");
+							.getDATE(2); // SAMPLE_TIME
 					double valueSampleTime = (new Long(oracleDateSampleTime
 							.timestampValue().getTime())).doubleValue();
 
+					// Load data for active session history
+					try {
+						dao.putActiveSessionHistory(valueSampleTime,
+								Database11g1.readAshRow(resultSetAsh,
+										nextActiveSessionHistoryId(), sampleId));
+
+						rowCount++;
+					} catch (Exception e) {
+						e.printStackTrace();
+					}
+				}
+
+				// Save rows of samples, which are not saved yet
+				flushAshRows();
+
+				super.getIngestThroughput().add(rowCount,
+						System.nanoTime() - beginLoad);
+
+				if (conn != null) {
+					model.getConnectionPool().free(conn);
+				}
+			} else {
+				// Connect is lost
+				setReconnect(true);
+				model.closeConnectionPool();
+				model.connectionPoolInitReconnect();
+			}
+		} catch (SQLException e) {
+			System.out.println("SQL Exception occured: " + e.getMessage());
+			model.closeConnectionPool();
+		} finally {
+			if (resultSetAsh != null) {
+				try {
+					resultSetAsh.close();
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+			}
+			if (statement != null) {
+				try {
+					statement.close();
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Load ASH counts by sample, wait class and event aggregated on server
+	 * to 15 sec storage (rollup). Only sample id and time are saved for each
+	 * sample, rows are loaded by loadAshRowsOfInterval.
+	 */
+	private void loadAshAggregatesToLocal() {
+
+		// Rows of samples are not in local BDB, history hides views of rows
+		if (!isAggregateParamSaved) {
+			saveParameterToLocalBDB(PARAM_AGGREGATE_ON_SERVER, "1");
+			isAggregateParamSaved = true;
+		}
+
+		ResultSet resultSetAsh = null;
+		PreparedStatement statement = null;
+		Connection conn = null;
+
+		// Time and count of rows for throughput counter
+		long beginLoad = System.nanoTime();
+		long rowCount = 0;
+
+		try {
+
+			if (model.getConnectionPool() != null) {
+
+				conn = this.model.getConnectionPool().getConnection();
+
+				if (super.getSampleId() == -1 || this.isReconnect()) {
+					statement = conn.prepareStatement(
+							getQueryAsh(queryASHAggregate, false) + groupByASHAggregate);
+				} else {
+					statement = conn.prepareStatement(
+							getQueryAsh(queryASHAggregate, true) + groupByASHAggregate);
+					statement.setLong(1, super.getSampleId() - this.getKReconnect());
+				}
+
+				statement.setFetchSize(5000);
+
+				resultSetAsh = statement.executeQuery();
+
+				long lastSampleId = -1;
+
+				while (resultSetAsh.next()) {
+
 					// Get sample id
-					long sampleIdTmp = resultSetAsh.getLong("SAMPLE_ID");
+					long sampleIdTmp = resultSetAsh.getLong(1); // SAMPLE_ID
 					if (isReconnect()) {
 						setKReconnect(Math.abs(super.getSampleId()-sampleIdTmp)+1000);
 						setReconnect(false);
 					}
 					long sampleId = sampleIdTmp + this.getKReconnect();
 
-					// Load data for sampleId (ASH)
-					try {
-						dao.ashById.putNoOverwrite(new AshIdTime(sampleId,
-								valueSampleTime));
-					} catch (DatabaseException e) {
-						e.printStackTrace();
-					}
-
-					// Load data for active session history
-					try {
+					// Sample time
+					oracle.sql.DATE oracleDateSampleTime = ((OracleResultSet) resultSetAsh)
+							.getDATE(2); // SAMPLE_TIME
+					double valueSampleTime = (new Long(oracleDateSampleTime
+							.timestampValue().getTime())).doubleValue();
 
-						oracle.sql.DATE oracleDateSqlExecStart = ((OracleResultSet) resultSetAsh)
-								.getDATE("SQL_EXEC_START");
-						double valueDateSqlExecStart = 0;
-						if (oracleDateSqlExecStart != null) {
-							valueDateSqlExecStart = (new Long(
-									oracleDateSqlExecStart.timestampValue()
-											.getTime())).doubleValue();
+					// Load data for sampleId (ASH), once for sample
+					if (sampleId != lastSampleId) {
+						try {
+							dao.ashById.putNoOverwrite(new AshIdTime(sampleId,
+									valueSampleTime));
+						} catch (DatabaseException e) {
+							e.printStackTrace();
 						}
-
-						dao.activeSessionHistoryById
-								.putNoReturn(new ActiveSessionHistory(
-										seq.get(null, 1),
-										sampleId,
-										resultSetAsh.getLong("SESSION_ID"),
-										resultSetAsh
-												.getDouble("SESSION_SERIAL#"),
-										resultSetAsh.getString("SESSION_TYPE"),
-										resultSetAsh.getDouble("FLAGS"),
-										resultSetAsh.getLong("USER_ID"),
-										resultSetAsh.getString("SQL_ID"),
-										resultSetAsh
-												.getDouble("SQL_CHILD_NUMBER"),
-										resultSetAsh.getDouble("SQL_OPCODE"),
-										resultSetAsh
-												.getDouble("FORCE_MATCHING_SIGNATURE"),
-										resultSetAsh
-												.getString("TOP_LEVEL_SQL_ID"),
-										resultSetAsh
-												.getDouble("TOP_LEVEL_SQL_OPCODE"),
-										resultSetAsh
-												.getDouble("SQL_PLAN_HASH_VALUE"),
-										resultSetAsh
-												.getDouble("SQL_PLAN_LINE_ID"),
-										resultSetAsh
-												.getString("SQL_PLAN_OPERATION"),
-										resultSetAsh
-												.getString("SQL_PLAN_OPTIONS"),
-										resultSetAsh.getDouble("SQL_EXEC_ID"),
-										valueDateSqlExecStart,
-										resultSetAsh
-												.getDouble("PLSQL_ENTRY_OBJECT_ID"),
-										resultSetAsh
-												.getDouble("PLSQL_ENTRY_SUBPROGRAM_ID"),
-										resultSetAsh
-												.getDouble("PLSQL_OBJECT_ID"),
-										resultSetAsh
-												.getDouble("PLSQL_SUBPROGRAM_ID"),
-										resultSetAsh
-												.getDouble("QC_INSTANCE_ID"),
-										resultSetAsh.getDouble("QC_SESSION_ID"),
-										resultSetAsh
-												.getDouble("QC_SESSION_SERIAL#"),
-										resultSetAsh.getString("EVENT"),
-										resultSetAsh.getDouble("EVENT_ID"),
-										resultSetAsh.getDouble("EVENT#"),
-										resultSetAsh.getDouble("SEQ#"),
-										resultSetAsh.getString("P1TEXT"),
-										resultSetAsh.getDouble("P1"),
-										resultSetAsh.getString("P2TEXT"),
-										resultSetAsh.getDouble("P2"),
-										resultSetAsh.getString("P3TEXT"),
-										resultSetAsh.getDouble("P3"),
-										resultSetAsh.getString("WAIT_CLASS"),
-										resultSetAsh.getDouble("WAIT_CLASS_ID"),
-										resultSetAsh.getDouble("WAIT_TIME"),
-										resultSetAsh.getString("SESSION_STATE"),
-										resultSetAsh.getDouble("TIME_WAITED"),
-										resultSetAsh
-												.getString("BLOCKING_SESSION_STATUS"),
-										resultSetAsh
-												.getDouble("BLOCKING_SESSION"),
-										resultSetAsh
-												.getDouble("BLOCKING_SESSION_SERIAL#"),
-										resultSetAsh.getDouble("CURRENT_OBJ#"),
-										resultSetAsh.getDouble("CURRENT_FILE#"),
-										resultSetAsh
-												.getDouble("CURRENT_BLOCK#"),
-										resultSetAsh.getDouble("CURRENT_ROW#"),
-										resultSetAsh
-												.getDouble("CONSUMER_GROUP_ID"),
-										resultSetAsh.getString("XID"),
-										resultSetAsh
-												.getDouble("REMOTE_INSTANCE#"),
-										resultSetAsh
-												.getString("IN_CONNECTION_MGMT"),
-										resultSetAsh.getString("IN_PARSE"),
-										resultSetAsh.getString("IN_HARD_PARSE"),
-										resultSetAsh
-												.getString("IN_SQL_EXECUTION"),
-										resultSetAsh
-												.getString("IN_PLSQL_EXECUTION"),
-										resultSetAsh.getString("IN_PLSQL_RPC"),
-										resultSetAsh
-												.getString("IN_PLSQL_COMPILATION"),
-										resultSetAsh
-												.getString("IN_JAVA_EXECUTION"),
-										resultSetAsh.getString("IN_BIND"),
-										resultSetAsh
-												.getString("IN_CURSOR_CLOSE"),
-										resultSetAsh.getDouble("SERVICE_HASH"),
-										resultSetAsh.getString("PROGRAM"),
-										resultSetAsh.getString("MODULE"),
-										resultSetAsh.getString("ACTION"),
-										resultSetAsh.getString("CLIENT_ID")));
-					} catch (Exception e) {
-						e.printStackTrace();
+						synchronized (samplesWithoutRows) {
+							samplesWithoutRows.put(sampleId, valueSampleTime);
+							while (samplesWithoutRows.size() > MAX_SAMPLES_WITHOUT_ROWS) {
+								samplesWithoutRows.remove(samplesWithoutRows.firstKey());
+							}
+						}
+						lastSampleId = sampleId;
 					}
+
+					// Update counters for 15 sec storage
+					int count = resultSetAsh.getInt(7);
+					dao.addToRollup(valueSampleTime,
+							"ON CPU".equals(resultSetAsh.getString(3)), // SESSION_STATE
+							resultSetAsh.getDouble(4), // WAIT_CLASS_ID
+							resultSetAsh.getString(5), // WAIT_CLASS
+							resultSetAsh.getString(6), // EVENT
+							count);
+
+					rowCount += count;
 				}
+
+				super.getIngestThroughput().add(rowCount,
+						System.nanoTime() - beginLoad);
+
 				if (conn != null) {
 					model.getConnectionPool().free(conn);
 				}
@@ -377,6 +436,116 @@ public class Database11g2 extends ASHDatabase {
 		}
 	}
 
+	/**
+	 * Load rows of ASH data for interval, for samples loaded as counts
+	 * only (aggregated on server). Rows are not added to rollup, they are
+	 * already counted.
+	 * 
+	 * @param beginTime the begin time
+	 * @param endTime the end time
+	 */
+	private synchronized void loadAshRowsOfInterval(double beginTime, double endTime) {
+
+		// Sample ids of interval without rows
+		TreeSet<Long> sampleIds = new TreeSet<Long>();
+		synchronized (samplesWithoutRows) {
+			if (samplesWithoutRows.isEmpty()) {
+				return;
+			}
+		}
+		try {
+			EntityCursor<AshIdTime> ashSampleIds = dao.doRangeQuery(
+					dao.ashBySampleTime, beginTime, true, endTime, true);
+			try {
+				Iterator<AshIdTime> ashIter = ashSampleIds.iterator();
+				synchronized (samplesWithoutRows) {
+					while (ashIter.hasNext()) {
+						long sampleId = ashIter.next().getsampleId();
+						if (samplesWithoutRows.containsKey(sampleId)) {
+							sampleIds.add(sampleId);
+						}
+					}
+				}
+			} finally {
+				ashSampleIds.close();
+			}
+		} catch (DatabaseException e) {
+			e.printStackTrace();
+			return;
+		}
+		if (sampleIds.isEmpty()) {
+			return;
+		}
+
+		ResultSet resultSetAsh = null;
+		PreparedStatement statement = null;
+		Connection conn = null;
+
+		try {
+			if (model.getConnectionPool() == null) {
+				return;
+			}
+			conn = this.model.getConnectionPool().getConnection();
+
+			statement = conn.prepareStatement(getQueryAsh(Database11g1.QUERY_ASH, true)
+					+ " AND SAMPLE_ID <= ?");
+			statement.setLong(1, sampleIds.first() - 1 - this.getKReconnect());
+			statement.setLong(2, sampleIds.last() - this.getKReconnect());
+			statement.setFetchSize(5000);
+
+			resultSetAsh = statement.executeQuery();
+
+			while (resultSetAsh.next()) {
+				long sampleId = resultSetAsh.getLong(1) + this.getKReconnect(); // SAMPLE_ID
+				if (!sampleIds.contains(sampleId)) {
+					continue;
+				}
+
+				oracle.sql.DATE oracleDateSampleTime = ((OracleResultSet) resultSetAsh)
+						.getDATE(2); // SAMPLE_TIME
+				double valueSampleTime = (new Long(oracleDateSampleTime
+						.timestampValue().getTime())).doubleValue();
+
+				// Rows are already counted in rollup
+				try {
+					dao.putActiveSessionHistory(valueSampleTime,
+							Database11g1.readAshRow(resultSetAsh,
+								nextActiveSessionHistoryId(), sampleId), false);
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+			}
+
+			flushAshRows();
+
+			// Samples out of v$active_session_history are not queried again
+			synchronized (samplesWithoutRows) {
+				samplesWithoutRows.keySet().removeAll(sampleIds);
+			}
+
+		} catch (SQLException e) {
+			System.out.println("SQL Exception occured: " + e.getMessage());
+		} finally {
+			if (resultSetAsh != null) {
+				try {
+					resultSetAsh.close();
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+			}
+			if (statement != null) {
+				try {
+					statement.close();
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+			}
+			if (conn != null && model.getConnectionPool() != null) {
+				model.getConnectionPool().free(conn);
+			}
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -386,23 +555,38 @@ public class Database11g2 extends ASHDatabase {
 	public void calculateSqlsSessionsData(double beginTime, double endTime,
 			String eventFlag) {
 
-		try {
+		if (eventFlag.equalsIgnoreCase("All")) {
+			this.calculateSqlsSessionsData(super.getSqlsTemp(),
+					super.getSessionsTemp(), beginTime - rangeHalf, true,
+					endTime + rangeHalf, true, eventFlag);
+		} else {
+			this.calculateSqlsSessionsData(super.getSqlsTempDetail(),
+					super.getSessionsTempDetail(), beginTime - rangeHalf, true,
+					endTime + rangeHalf, true, eventFlag);
+		}
+	}
 
-			SqlsTemp tmpSqlsTemp = null;
-			SessionsTemp tmpSessionsTemp = null;
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.ash.database.ASHDatabase#calculateSqlsSessionsData(org.ash.datatemp.SqlsTemp,
+	 *      org.ash.datatemp.SessionsTemp, double, boolean, double, boolean,
+	 *      java.lang.String)
+	 */
+	protected void calculateSqlsSessionsData(SqlsTemp tmpSqlsTemp,
+			SessionsTemp tmpSessionsTemp, double fromTime,
+			boolean fromInclusive, double toTime, boolean toInclusive,
+			String eventFlag) {
 
-			if (eventFlag.equalsIgnoreCase("All")) {
-				tmpSqlsTemp = super.getSqlsTemp();
-				tmpSessionsTemp = super.getSessionsTemp();
-			} else {
-				tmpSqlsTemp = super.getSqlsTempDetail();
-				tmpSessionsTemp = super.getSessionsTempDetail();
-			}
+		// Rows of interval, if ASH data is aggregated on server
+		loadAshRowsOfInterval(fromTime, toTime);
+
+		try {
 
-			// get sample id's for beginTime and endTime
+			// get sample id's for time range
 			EntityCursor<AshIdTime> ashSampleIds;
-			ashSampleIds = dao.doRangeQuery(dao.ashBySampleTime, beginTime
-					- rangeHalf, true, endTime + rangeHalf, true);
+			ashSampleIds = dao.doRangeQuery(dao.ashBySampleTime, fromTime,
+					fromInclusive, toTime, toInclusive);
 			/* Iterate on Ash by SampleTime. */
 			Iterator<AshIdTime> ashIter = ashSampleIds.iterator();
 
@@ -411,12 +595,8 @@ public class Database11g2 extends ASHDatabase {
 				AshIdTime ashSumMain = ashIter.next();
 
 				// get rows from ActiveSessionHistory for samplId
-				EntityCursor<ActiveSessionHistory> ActiveSessionHistoryCursor;
-				ActiveSessionHistoryCursor = dao.doRangeQuery(
-						dao.activeSessionHistoryByAshId, ashSumMain
-								.getsampleId(), true, ashSumMain.getsampleId(),
-						true);
-				Iterator<ActiveSessionHistory> ActiveSessionHistoryIter = ActiveSessionHistoryCursor
+				Iterator<ActiveSessionHistory> ActiveSessionHistoryIter = dao
+						.getActiveSessionHistoryBySampleId(ashSumMain.getsampleId())
 						.iterator();
 
 				while (ActiveSessionHistoryIter.hasNext()) {
@@ -477,8 +657,6 @@ public class Database11g2 extends ASHDatabase {
 
 					}
 				}
-				// Close cursor!!
-				ActiveSessionHistoryCursor.close();
 			}
 			tmpSqlsTemp.set_sum();
 			tmpSessionsTemp.set_sum();
@@ -491,54 +669,16 @@ public class Database11g2 extends ASHDatabase {
 		}
 	}
 
-	/*
-	 * (non-Javadoc)
-	 * 
-	 * @see org.ash.database.DatabaseMain#loadCommandTypeFromDB(java.util.List)
-	 */
-	public void loadSqlTextCommandTypeFromDB(List<String> arraySqlId) {
-						
-		// Load all sqlId
-		ArrayList<String> sqlIdAll = new ArrayList<String>();
-		
-		Iterator<String> arraySqlIdIter = arraySqlId.iterator();
-		while (arraySqlIdIter.hasNext()) {
-			String sqlId = arraySqlIdIter.next();
-			if (!isSqlTextExist(sqlId)){
-				sqlIdAll.add(sqlId);
-			}
-		}
-
-		// Load sqlId, up to 10 values
-		ArrayList<String> bulkInsertSqlId10 = new ArrayList<String>();
-		Iterator<String> bulkInsertSqlId10Iter = sqlIdAll.iterator();
-		
-		int i = 0;
-		while (bulkInsertSqlId10Iter.hasNext()) {			
-			if (i < 10) {
-				bulkInsertSqlId10.add(bulkInsertSqlId10Iter.next());
-				i++;
-			} else {
-				this.loadSqlTextSqlIdFromDB(bulkInsertSqlId10);
-				bulkInsertSqlId10.clear();
-				i = 0;
-			}
-		}
-		
-		if (!bulkInsertSqlId10.isEmpty()) {
-			this.loadSqlTextSqlIdFromDB(bulkInsertSqlId10);
-		}
-
-	}
-
 	/*
 	 * (non-Javadoc)
 	 * 
 	 * @see org.ash.database.DatabaseMain#loadSqlPlanFromDB(java.util.List)
 	 */
 	public void loadSqlPlanFromDB(List<String> arraySqlId, boolean isDetail) {
-		// Load plan_hash_value:sql_id
-		Map<Double, String> planHashValueSqlId = new HashMap<Double, String>();
+
+		// Load plan_hash_value, sql_id pairs
+		List<String> sqlIds = new ArrayList<String>();
+		List<Double> planHashValues = new ArrayList<Double>();
 		
 		Iterator<String> arraySqlIdIter = arraySqlId.iterator();
 		while (arraySqlIdIter.hasNext()) {
@@ -555,19 +695,20 @@ public class Database11g2 extends ASHDatabase {
 			} catch (RuntimeException e) {
 				e.printStackTrace();
 			}
+			if (listPlanHashValueTmp == null) {
+				continue;
+			}
 			Iterator<Double> listPlanHashValueTmpIter = 
 									listPlanHashValueTmp.iterator();
 
 			while (listPlanHashValueTmpIter.hasNext()) {
-				Double tmpPlanHashValue = listPlanHashValueTmpIter.next();
-				if (!isSqlPlanHashValueExist(tmpPlanHashValue, sqlId)) {
-					planHashValueSqlId.put(tmpPlanHashValue, sqlId);
-				}
+				sqlIds.add(sqlId);
+				planHashValues.add(listPlanHashValueTmpIter.next());
 			}
 		}
 
-		// Load plan hash value from Oracle database		
-		loadSqlPlanHashValueFromDBToLocalBDB(planHashValueSqlId);
+		// Load plans not in local BDB from Oracle database
+		super.loadSqlPlanToLocalBDB(sqlIds, planHashValues);
 	}
 
 	/*
@@ -635,371 +776,12 @@ public class Database11g2 extends ASHDatabase {
 	/*
 	 * (non-Javadoc)
 	 * 
-	 * @see org.ash.database.DatabaseMain#isSqlPlanHashValueExist(ExplainPlanModel)
+	 * @see org.ash.database.DatabaseMain#getSqlPlanModelByPlanHashValue(java.lang.Double, java.lang.String)
 	 */
 	public TreeTableModel getSqlPlanModelByPlanHashValue(
 			Double sqlPlanHashValue, String sqlId) {
-
-		ExplainPlanModel10g2 model = null;
-		ExplainPlanModel10g2.ExplainRow lastRow = null;
-		EntityCursor<AshSqlPlanDetail> ashSqlPlan = null;
-		long previousLevel = 1;
-		boolean isRecalculateDepth = false;
-		boolean exitFromCycle = false;
-		boolean isChildNumberSaved = false;
-		long childNumberBySql = 0;
-		long ii = 0;
-		
-		while (!exitFromCycle) {
-			exitFromCycle = true;
-
-			try {
-				ashSqlPlan = dao.doRangeQuery(dao
-						.getAshSqlPlanHashValueDetail(), sqlPlanHashValue,
-						true, sqlPlanHashValue, true);
-				Iterator<AshSqlPlanDetail> ashSqlPlanIter = ashSqlPlan
-						.iterator();
-
-				// Iterate
-				while (ashSqlPlanIter.hasNext()) {
-					AshSqlPlanDetail ashSqlPlanMain = ashSqlPlanIter.next();
-					String sqlIdTmp = ashSqlPlanMain.getSqlId();
-					long childNumberTmp = ashSqlPlanMain.getChildNumber();
-					
-					if (!isChildNumberSaved && sqlId.equalsIgnoreCase(sqlIdTmp)){
-						childNumberBySql = childNumberTmp;
-						isChildNumberSaved = true;
-					} else {
-						if (!sqlId.equalsIgnoreCase(sqlIdTmp))
-							continue;
-					}
-
-					Long id = ashSqlPlanMain.getId();
-
-					if (id == ii && childNumberBySql == childNumberTmp) {
-						exitFromCycle = false;
-
-						String address = ashSqlPlanMain.getAddress();
-						Double hashValue = ashSqlPlanMain.getHashValue();
-						//String sqlId = ashSqlPlanMain.getSqlId();
-						//Double planHashValue = sqlPlanHashValue;
-						String childAddress = ashSqlPlanMain.getChildAddress();
-						Long childNumber = ashSqlPlanMain.getChildNumber();
-						String operation  = ashSqlPlanMain.getOperation();
-						String options  = ashSqlPlanMain.getOptions();
-						String objectNode = ashSqlPlanMain.getObjectNode();
-						Double object = ashSqlPlanMain.getObject();
-						String objectOwner = ashSqlPlanMain.getObjectOwner();
-						String objectName = ashSqlPlanMain.getObjectName();
-						String objectAlias = ashSqlPlanMain.getObjectAlias();
-						String objectType = ashSqlPlanMain.getObjectType();
-						String optimizer = ashSqlPlanMain.getOptimizer();
-						Long Id = ashSqlPlanMain.getId(); 
-						Long parentId = ashSqlPlanMain.getParentId();
-			   /*Depth*/Long level = ashSqlPlanMain.getDepth() + 1;
-						Long position  = ashSqlPlanMain.getPosition();
-						Long searchColumns = ashSqlPlanMain.getSearchColumns();
-						Double cost = ashSqlPlanMain.getCost();
-						Double cardinality  = ashSqlPlanMain.getCardinality();
-						Double bytes  = ashSqlPlanMain.getBytes();
-						String otherTag  = ashSqlPlanMain.getOtherTag();
-						String partitionStart  = ashSqlPlanMain.getPartitionStart();
-						String partitionStop  = ashSqlPlanMain.getPartitionStop();
-						Double partitionId  = ashSqlPlanMain.getPartitionId();
-						String other  = ashSqlPlanMain.getOther();
-						String distribution  = ashSqlPlanMain.getDistribution();
-						Double cpuCost  = ashSqlPlanMain.getCpuCost();
-						Double ioCost  = ashSqlPlanMain.getIoCost();
-						Double tempSpace  = ashSqlPlanMain.getTempSpace();
-						String accessPredicates  = ashSqlPlanMain.getAccessPredicates();
-						String filterPredicates  = ashSqlPlanMain.getFilterPredicates();
-						String projection  = ashSqlPlanMain.getProjection();
-						Double time  = ashSqlPlanMain.getTime();
-						String qblockName  = ashSqlPlanMain.getQblockName();
-						String remarks  = ashSqlPlanMain.getRemarks();
-						
-						ExplainPlanModel10g2.ExplainRow parent = null;
-
-						if (level == 1) {
-							long tmp = 0;
-							ExplainPlanModel10g2.ExplainRow rowRoot = new ExplainPlanModel10g2.ExplainRow(
-									parent, null, null, null, null, null, null,
-									null, null, null, null, null, null, null,
-									null, null, tmp, null, null, null,
-									null, null, null, null, null, null, null,
-									null, null, null, null, null, null, null,
-									null, null, null, null, null);
-							model = new ExplainPlanModel10g2(rowRoot);
-
-							ExplainPlanModel10g2.ExplainRow row = new ExplainPlanModel10g2.ExplainRow(
-									rowRoot,  address,  hashValue,  sqlIdTmp, sqlPlanHashValue,
-									childAddress,  childNumber, operation, options,
-									objectNode, object, objectOwner, objectName, objectAlias,
-									objectType, optimizer, Id, parentId, /*Depth*/level, position,
-									searchColumns, cost, cardinality, bytes, otherTag,
-									partitionStart, partitionStop, partitionId, other, distribution,
-									cpuCost, ioCost, tempSpace, accessPredicates, filterPredicates,
-									projection, time, qblockName, remarks);
-
-							rowRoot.addChild(row);
-							lastRow = row;
-							previousLevel = level;
-							continue;
-						} else if (previousLevel == level) {
-							parent = ((ExplainPlanModel10g2.ExplainRow) lastRow
-									.getParent().getParent())
-									.findChild(parentId.intValue());
-						} else if (level > previousLevel) {
-							parent = ((ExplainPlanModel10g2.ExplainRow) lastRow
-									.getParent()).findChild(parentId
-									.intValue());
-						} else if (level < previousLevel) {
-							parent = (ExplainPlanModel10g2.ExplainRow) lastRow
-									.getParent();
-							for (long i = previousLevel - level; i >= 0; i--) {
-								parent = (ExplainPlanModel10g2.ExplainRow) parent
-										.getParent();
-							}
-							parent = parent.findChild(parentId.intValue());
-						}
-						if (parent == null) {
-							isRecalculateDepth = true;
-							break;
-						}
-
-						ExplainPlanModel10g2.ExplainRow row = new ExplainPlanModel10g2.ExplainRow(
-									parent, address,  hashValue,  sqlIdTmp, sqlPlanHashValue,
-								 	childAddress,  childNumber, operation, options,
-									objectNode, object, objectOwner, objectName, objectAlias,
-									objectType, optimizer, Id, parentId, /*Depth*/level, position,
-									searchColumns, cost, cardinality, bytes, otherTag,
-									partitionStart, partitionStop, partitionId, other, distribution,
-									cpuCost, ioCost, tempSpace, accessPredicates, filterPredicates,
-									projection, time, qblockName, remarks);
-						parent.addChild(row);
-						lastRow = row;
-						previousLevel = level;
-						
-						break;
-					}
-				}
-			} catch (DatabaseException e) {
-				e.printStackTrace();
-			} finally {
-				try {
-					ashSqlPlan.close();
-				} catch (DatabaseException e) {
-					e.printStackTrace();
-				}
-				ii++;
-			}
-
-		}
-
-		// Recalculate wrong node levels
-		if (isRecalculateDepth) {
-			HashMap<Long, Long> idParentId = new HashMap<Long, Long>();
-			HashMap<Long, Long> idLevel = new HashMap<Long, Long>();
-
-			EntityCursor<AshSqlPlanDetail> ashSqlPlanP = null;
-
-			try {
-				ashSqlPlanP = dao.doRangeQuery(dao.ashSqlPlanHashValueDetail,
-						sqlPlanHashValue, true, sqlPlanHashValue, true);
-				Iterator<AshSqlPlanDetail> ashSqlPlanIterP = ashSqlPlanP
-						.iterator();
-
-				// Iterate
-				while (ashSqlPlanIterP.hasNext()) {
-					AshSqlPlanDetail ashSqlPlanMainP = ashSqlPlanIterP.next();
-
-					Long idP = ashSqlPlanMainP.getId();
-					Long parent_idP = ashSqlPlanMainP.getParentId();
-					long tmp = -1;
-					if (idP == 0) {
-						idParentId.put(idP, tmp);
-					} else {
-						idParentId.put(idP, parent_idP);
-					}
-				}
-
-			} catch (DatabaseException e) {
-				e.printStackTrace();
-			} finally {
-				try {
-					ashSqlPlanP.close();
-				} catch (DatabaseException e) {
-					e.printStackTrace();
-				}
-			}
-
-			idLevel = Utils.getLevels(idParentId);
-			model = (ExplainPlanModel10g2) getSqlPlanModelByPlanHashValueP(idLevel, sqlPlanHashValue, sqlId);
-		}
-
-		return model;
-	}
-
-	/*
-	 * (non-Javadoc)
-	 * 
-	 * @see org.ash.database.DatabaseMain#getSqlPlanModelByPlanHashValueP(ExplainPlanModel)
-	 */
-	public TreeTableModel getSqlPlanModelByPlanHashValueP(
-			HashMap<Long, Long> idLevel, Double sqlPlanHashValue, String sqlId) {
-
-		ExplainPlanModel10g2 model = null;
-		ExplainPlanModel10g2.ExplainRow lastRow = null;
-		EntityCursor<AshSqlPlanDetail> ashSqlPlan = null;
-		long previousLevel = 1;
-		boolean exitFromCycle = false;
-		boolean isChildNumberSaved = false;
-		long childNumberBySql = 0;
-		long ii = 0;
-		
-		while (!exitFromCycle) {
-			exitFromCycle = true;
-
-			try {
-				ashSqlPlan = dao.doRangeQuery(dao
-						.getAshSqlPlanHashValueDetail(), sqlPlanHashValue,
-						true, sqlPlanHashValue, true);
-				Iterator<AshSqlPlanDetail> ashSqlPlanIter = ashSqlPlan
-						.iterator();
-
-				// Iterate
-				while (ashSqlPlanIter.hasNext()) {
-					AshSqlPlanDetail ashSqlPlanMain = ashSqlPlanIter.next();
-					String sqlIdTmp = ashSqlPlanMain.getSqlId();
-					long childNumberTmp = ashSqlPlanMain.getChildNumber();
-					
-					if (!isChildNumberSaved && sqlId.equalsIgnoreCase(sqlIdTmp)){
-						childNumberBySql = childNumberTmp;
-						isChildNumberSaved = true;
-					} else {
-						if (!sqlId.equalsIgnoreCase(sqlIdTmp))
-							continue;
-					}
-
-					Long id = ashSqlPlanMain.getId();
-
-					if (id == ii && childNumberBySql == childNumberTmp) {
-						exitFromCycle = false;
-						
-						String address = ashSqlPlanMain.getAddress();
-						Double hashValue = ashSqlPlanMain.getHashValue();
-						//String sqlId = ashSqlPlanMain.getSqlId();
-						//Double planHashValue = sqlPlanHashValue;
-						String childAddress = ashSqlPlanMain.getChildAddress();
-						Long childNumber = ashSqlPlanMain.getChildNumber();
-						String operation  = ashSqlPlanMain.getOperation();
-						String options  = ashSqlPlanMain.getOptions();
-						String objectNode = ashSqlPlanMain.getObjectNode();
-						Double object = ashSqlPlanMain.getObject();
-						String objectOwner = ashSqlPlanMain.getObjectOwner();
-						String objectName = ashSqlPlanMain.getObjectName();
-						String objectAlias = ashSqlPlanMain.getObjectAlias();
-						String objectType = ashSqlPlanMain.getObjectType();
-						String optimizer = ashSqlPlanMain.getOptimizer();
-						Long Id = ashSqlPlanMain.getId(); 
-						Long parentId = ashSqlPlanMain.getParentId();
-			   /*Depth*/Long level = idLevel.get(id);// ashSqlPlanMain.getDepth()+1;
-						Long position  = ashSqlPlanMain.getPosition();
-						Long searchColumns = ashSqlPlanMain.getSearchColumns();
-						Double cost = ashSqlPlanMain.getCost();
-						Double cardinality  = ashSqlPlanMain.getCardinality();
-						Double bytes  = ashSqlPlanMain.getBytes();
-						String otherTag  = ashSqlPlanMain.getOtherTag();
-						String partitionStart  = ashSqlPlanMain.getPartitionStart();
-						String partitionStop  = ashSqlPlanMain.getPartitionStop();
-						Double partitionId  = ashSqlPlanMain.getPartitionId();
-						String other  = ashSqlPlanMain.getOther();
-						String distribution  = ashSqlPlanMain.getDistribution();
-						Double cpuCost  = ashSqlPlanMain.getCpuCost();
-						Double ioCost  = ashSqlPlanMain.getIoCost();
-						Double tempSpace  = ashSqlPlanMain.getTempSpace();
-						String accessPredicates  = ashSqlPlanMain.getAccessPredicates();
-						String filterPredicates  = ashSqlPlanMain.getFilterPredicates();
-						String projection  = ashSqlPlanMain.getProjection();
-						Double time  = ashSqlPlanMain.getTime();
-						String qblockName  = ashSqlPlanMain.getQblockName();
-						String remarks  = ashSqlPlanMain.getRemarks();	
-						
-					ExplainPlanModel10g2.ExplainRow parent = null;
-
-					if (level == 1) {
-						long tmp = 0;
-						ExplainPlanModel10g2.ExplainRow rowRoot = new ExplainPlanModel10g2.ExplainRow(
-								parent , null, null, null, null, null, null,
-								null, null, null, null, null, null, null,
-								null, null, tmp, null, null, null,
-								null, null, null, null, null, null, null,
-								null, null, null, null, null, null, null,
-								null, null, null, null, null);
-						model = new ExplainPlanModel10g2(rowRoot);
-
-						ExplainPlanModel10g2.ExplainRow row = new ExplainPlanModel10g2.ExplainRow(
-								rowRoot, address,  hashValue,  sqlIdTmp, sqlPlanHashValue,
-							 	childAddress,  childNumber, operation, options,
-								objectNode, object, objectOwner, objectName, objectAlias,
-								objectType, optimizer, Id, parentId, /*Depth*/level, position,
-								searchColumns, cost, cardinality, bytes, otherTag,
-								partitionStart, partitionStop, partitionId, other, distribution,
-								cpuCost, ioCost, tempSpace, accessPredicates, filterPredicates,
-								projection, time, qblockName, remarks);
-
-						rowRoot.addChild(row);
-						lastRow = row;
-						previousLevel = level;
-						continue;
-					} else if (previousLevel == level) {
-						parent = ((ExplainPlanModel10g2.ExplainRow) lastRow
-								.getParent().getParent()).findChild(parentId
-								.intValue());
-					} else if (level > previousLevel) {
-						parent = ((ExplainPlanModel10g2.ExplainRow) lastRow
-								.getParent()).findChild(parentId.intValue());
-					} else if (level < previousLevel) {
-						parent = (ExplainPlanModel10g2.ExplainRow) lastRow
-								.getParent();
-						for (long i = previousLevel - level; i >= 0; i--) {
-							parent = (ExplainPlanModel10g2.ExplainRow) parent
-									.getParent();
-						}
-						parent = parent.findChild(parentId.intValue());
-					}
-					if (parent == null)
-						break;
-
-					ExplainPlanModel10g2.ExplainRow row = new ExplainPlanModel10g2.ExplainRow(
-							parent, address,  hashValue,  sqlIdTmp, sqlPlanHashValue,
-						 	childAddress,  childNumber, operation, options,
-							objectNode, object, objectOwner, objectName, objectAlias,
-							objectType, optimizer, Id, parentId, /*Depth*/level, position,
-							searchColumns, cost, cardinality, bytes, otherTag,
-							partitionStart, partitionStop, partitionId, other, distribution,
-							cpuCost, ioCost, tempSpace, accessPredicates, filterPredicates,
-							projection, time, qblockName, remarks);
-					parent.addChild(row);
-					lastRow = row;
-					previousLevel = level;
-					
-					break;
-				}	
-			  }
-			} catch (DatabaseException e) {
-				e.printStackTrace();
-			} finally {
-				try {
-					ashSqlPlan.close();
-				} catch (DatabaseException e) {
-					e.printStackTrace();
-				}
-			ii++;
-		  }
-		}
-
-		return model;
+		List<AshSqlPlanDetail> lines = getSqlPlanLines(sqlPlanHashValue, sqlId);
+		return SqlPlanTreeBuilder.buildModel10g2(lines, sqlPlanHashValue);
 	}
 
 	/*
@@ -1103,173 +885,6 @@ public class Database11g2 extends ASHDatabase {
 		}
 	}
 
-	/**
-	 * Load sql_text, sql_id from database.
-	 * 
-	 * @param array10
-	 */
-	public void loadSqlTextSqlIdFromDB(List<String> array10) {
-
-		ResultSet resultSet = null;
-		PreparedStatement statement = null;
-		Connection conn = null;
-
-	 try {
-		conn = this.model.getConnectionPool().getConnection();
-
-		statement = conn.prepareStatement(this.querySQL);
-
-		Iterator<String> iter = array10.iterator();
-			
-		  while (iter.hasNext()) {
-			statement.setString(1, iter.next());
-			
-			resultSet = statement.executeQuery();
-
-			while (resultSet.next()) {
-				String sqlId = resultSet.getString("SQL_ID");
-				String sqlText = resultSet.getString("SQL_TEXT");
-				String commType = Options.getInstance().getResource(
-						resultSet.getLong("COMMAND_TYPE") + "");
-				
-				try {
-					dao.ashSqlIdTypeTextId.putNoReturn(new AshSqlIdTypeText(sqlId,
-							commType, sqlText));
-				} catch (DatabaseException e) {
-					e.printStackTrace();
-				}
-			}
-		  }
-		} catch (Exception e) {
-			System.out.println("SQL Exception occured: " + e.getMessage());
-		} finally {
-			if (resultSet != null) {
-				try {
-					resultSet.close();
-				} catch (Exception e) {
-					e.printStackTrace();
-				}
-			}
-			if (statement != null) {
-				try {
-					statement.close();
-				} catch (Exception e) {
-					e.printStackTrace();
-				}
-			}
-			if (conn != null) {
-				model.getConnectionPool().free(conn);
-			}
-		}
-	}
-
-	/**
-	 * Load sql plan from database and store to local BDB storage.
-	 * @param array10
-	 *            the array10
-	 */
-	private void loadSqlPlanHashValueFromDBToLocalBDB(Map<Double, String> arrayPlanHashValueSqlId) {
-
-		ResultSet resultSet = null;
-		PreparedStatement statement = null;
-		Connection conn = null;
-
-		// Get sequence activeSessionHistoryId
-		try {
-			seq = store.getSequence("AshSqlPlanId");
-		} catch (DatabaseException e) {
-			e.printStackTrace();
-		}
-
-		try {
-			conn = this.model.getConnectionPool().getConnection();
-
-			statement = conn.prepareStatement(this.querySQLPLAN);
-			statement.setFetchSize(250);	
-
-		for (Entry<Double, String> me : arrayPlanHashValueSqlId.entrySet()) {
-			statement.setString(1, me.getValue());
-			statement.setDouble(2, me.getKey());
-			
-			resultSet = statement.executeQuery();
-
-			while (resultSet.next()) {
-
-				Double planHashValue = resultSet.getDouble("PLAN_HASH_VALUE");
-				String sqlId = resultSet.getString("SQL_ID");
-				String address = "";
-				
-				try {
-					Byte[] useValue = null;
-					byte[] bytes = (byte[]) resultSet.getObject("ADDRESS");
-					useValue = new Byte[bytes.length];
-         			for (int m=0; m<bytes.length; m++) {
-         				useValue[m] = Byte.valueOf(bytes[m]);
-                     }
-         			address = BinaryDisplayConverter.convertToString(useValue,
-         					BinaryDisplayConverter.HEX, false);
-         			
-				  } catch (Exception e) {
-					  address = "";
-				  }
-		
-				
-				// Load sql plan data to parent and detail
-				try {
-					dao.getAshSqlPlanPKParent().putNoOverwrite(
-							new AshSqlPlanParent(planHashValue, sqlId));
-					dao.getAshSqlPlanPKDetail().putNoReturn(
-							new AshSqlPlanDetail(
-							   seq.get(null, 1), address, resultSet.getDouble("HASH_VALUE"),sqlId,
-							   planHashValue,"", resultSet.getLong("CHILD_NUMBER"),0,
-							   resultSet.getString("OPERATION"), resultSet.getString("OPTIONS"),
-							   resultSet.getString("OBJECT_NODE"), resultSet.getDouble("OBJECT#"),
-							   resultSet.getString("OBJECT_OWNER"),resultSet.getString("OBJECT_NAME"),
-							   resultSet.getString("OBJECT_ALIAS"),resultSet.getString("OBJECT_TYPE"),
-							   resultSet.getString("OPTIMIZER"), resultSet.getLong("ID"),
-							   resultSet.getLong("PARENT_ID"), resultSet.getLong("DEPTH"),
-							   resultSet.getLong("POSITION"), resultSet.getLong("SEARCH_COLUMNS"),
-							   resultSet.getDouble("COST"), resultSet.getDouble("CARDINALITY"),
-							   resultSet.getDouble("BYTES"), resultSet.getString("OTHER_TAG"), 
-							   resultSet.getString("PARTITION_START"),resultSet.getString("PARTITION_STOP"),
-							   resultSet.getLong("PARTITION_ID"),resultSet.getString("OTHER"), 
-							   resultSet.getString("DISTRIBUTION"),resultSet.getDouble("CPU_COST"),
-							   resultSet.getDouble("IO_COST"),resultSet.getDouble("TEMP_SPACE"),
-							   resultSet.getString("ACCESS_PREDICATES"),resultSet.getString("FILTER_PREDICATES"),
-							   resultSet.getString("PROJECTION"),resultSet.getDouble("TIME"),
-							   resultSet.getString("QBLOCK_NAME"),resultSet.getString("REMARKS")
-							)
-							
-					);
-				} catch (Exception e) {
-					e.printStackTrace();
-				}
-			}
-			
-		}	
-
-		} catch (Exception e) {
-			System.out.println("SQL Exception occured: " + e.getMessage());
-		} finally {
-			if (resultSet != null) {
-				try {
-					resultSet.close();
-				} catch (Exception e) {
-					e.printStackTrace();
-				}
-			}
-			if (statement != null) {
-				try {
-					statement.close();
-				} catch (Exception e) {
-					e.printStackTrace();
-				}
-			}
-			if (conn != null) {
-				model.getConnectionPool().free(conn);
-			}
-		}
-	}
 
 	/* (non-Javadoc)
 	 * @see org.ash.database.ASHDatabase#getSqlPlanDBMS_XPLAN(java.lang.String, int)
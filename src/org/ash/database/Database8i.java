@@ -41,7 +41,7 @@ import org.ash.datamodel.AshSqlIdTypeText;
 import org.ash.datatemp.SessionsTemp;
 import org.ash.datatemp.SqlsTemp;
 import org.ash.util.Options;
-import org.jfree.data.xy.CategoryTableXYDataset;
+import org.ash.util.RingTableXYDataset;
 
 import com.sleepycat.je.DatabaseException;
 import com.sleepycat.je.Sequence;
@@ -68,10 +68,6 @@ public class Database8i extends ASHDatabase {
 	/** The range for sqls and sessions temp (gantt)*/
 	private int rangeHalf = 7500;
 
-	/** The query sql. */
-	private String querySQL = "SELECT hash_value, command_type, sql_text FROM v$sql "
-			+ "WHERE hash_value = ?";
-
 	/** The query ash. */
 	private String queryASH = "SELECT "
 			+ "sysdate SAMPLE_TIME,"
@@ -138,6 +134,21 @@ public class Database8i extends ASHDatabase {
 		this.model = model0;
 		this.store = super.getStore();
 		this.dao = super.getDao();
+		super.initSqlTextResolver("hash_value", true);
+	}
+
+	/**
+	 * Instantiates a new database 8i (one of many targets in one process).
+	 * 
+	 * @param model0 the model0
+	 * @param envDir the directory of BDB
+	 */
+	public Database8i(Model model0, String envDir) {
+		super(model0, envDir, 0);
+		this.model = model0;
+		this.store = super.getStore();
+		this.dao = super.getDao();
+		super.initSqlTextResolver("hash_value", true);
 	}
 
 	/* (non-Javadoc)
@@ -175,9 +186,9 @@ public class Database8i extends ASHDatabase {
 	}
 
 	/* (non-Javadoc)
-	 * @see org.ash.database.DatabaseMain#loadDataToChartPanelDataSet(org.jfree.data.xy.CategoryTableXYDataset)
+	 * @see org.ash.database.DatabaseMain#loadDataToChartPanelDataSet(org.ash.util.RingTableXYDataset)
 	 */
-	public void loadDataToChartPanelDataSet(CategoryTableXYDataset _dataset) {
+	public void loadDataToChartPanelDataSet(RingTableXYDataset _dataset) {
 		super.loadDataToChartPanelDataSet(_dataset);
 	}
 
@@ -332,15 +343,6 @@ public class Database8i extends ASHDatabase {
 					Long valueSampleIdTimeLong = (new Long(oracleDateSampleTime
 							.timestampValue().getTime()));
 
-					// Add to ash sample id and sample time
-					try {
-						dao.ashById.putNoOverwrite(new AshIdTime(
-								valueSampleIdTimeLong, valueSampleIdTimeLong
-										.doubleValue()));
-					} catch (DatabaseException e) {
-						e.printStackTrace();
-					}
-
 					// Get session state
 					String sessionState = resultSetAsh.getString(
 							"SESSION_STATE").equals("0") ? "WAITING" : "ON CPU";
@@ -351,8 +353,8 @@ public class Database8i extends ASHDatabase {
 
 					try {
 
-						dao.activeSessionHistoryById
-								.putNoReturn(new ActiveSessionHistory(
+						dao.putActiveSessionHistory(valueSampleIdTimeLong.doubleValue(),
+								new ActiveSessionHistory(
 										seq.get(null, 1),
 										valueSampleIdTimeLong,
 										resultSetAsh.getLong("SESSION_ID"),
@@ -414,6 +416,9 @@ public class Database8i extends ASHDatabase {
 					}
 				}
 
+				// Save rows of samples, which are not saved yet
+				flushAshRows();
+
 				if (conn != null) {
 					model.getConnectionPool().free(conn);
 				}
@@ -479,12 +484,8 @@ public class Database8i extends ASHDatabase {
 				AshIdTime ashSumMain = ashIter.next();
 
 				// get rows from ActiveSessionHistory for samplId 
-				EntityCursor<ActiveSessionHistory> ActiveSessionHistoryCursor;
-				ActiveSessionHistoryCursor = dao.doRangeQuery(
-						dao.activeSessionHistoryByAshId, ashSumMain
-								.getsampleId(), true, ashSumMain.getsampleId(),
-						true);
-				Iterator<ActiveSessionHistory> ActiveSessionHistoryIter = ActiveSessionHistoryCursor
+				Iterator<ActiveSessionHistory> ActiveSessionHistoryIter = dao
+						.getActiveSessionHistoryBySampleId(ashSumMain.getsampleId())
 						.iterator();
 
 				while (ActiveSessionHistoryIter.hasNext()) {
@@ -545,7 +546,6 @@ public class Database8i extends ASHDatabase {
 				}
 
 				// Close cursor!!
-				ActiveSessionHistoryCursor.close();
 
 			}
 			tmpSqlsTemp.set_sum();
@@ -559,27 +559,6 @@ public class Database8i extends ASHDatabase {
 		}
 	}
 
-	/*
-	 * (non-Javadoc)
-	 * 
-	 * @see org.ash.database.DatabaseMain#loadCommandTypeFromDB(java.util.List)
-	 */
-	public void loadSqlTextCommandTypeFromDB(List<String> arraySqlId) {
-		
-		// Load all sqlId
-		ArrayList<String> sqlIdAll = new ArrayList<String>();
-		
-		Iterator<String> arraySqlIdIter = arraySqlId.iterator();
-		while (arraySqlIdIter.hasNext()) {
-			String sqlId = arraySqlIdIter.next();
-			if (!isSqlTextExist(sqlId)){
-				sqlIdAll.add(sqlId);
-			}
-		}
-
-		this.loadSqlTextSqlIdFromDB(sqlIdAll);
-	}
-	
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -694,68 +673,6 @@ public class Database8i extends ASHDatabase {
 		}
 	}
 
-	/**
-	 * Load sql_text, sql_id from database.
-	 * 
-	 * @param array10
-	 */
-	public void loadSqlTextSqlIdFromDB(List<String> array10) {
-
-		ResultSet resultSet = null;
-		PreparedStatement statement = null;
-		Connection conn = null;
-
-		try {
-			conn = this.model.getConnectionPool().getConnection();
-
-			statement = conn.prepareStatement(this.querySQL);
-
-			Iterator<String> iter = array10.iterator();
-			
-			while (iter.hasNext()) {
-			
-			long l = Long.parseLong(iter.next());
-			statement.setLong(1,l);
-			
-			resultSet = statement.executeQuery();
-
-			while (resultSet.next()) {
-				String hashValue = resultSet.getString("HASH_VALUE");
-				String sqlText = resultSet.getString("SQL_TEXT");
-				String commType = Options.getInstance().getResource(
-						resultSet.getLong("COMMAND_TYPE") + "");
-				
-				try {
-					dao.ashSqlIdTypeTextId.putNoReturn(new AshSqlIdTypeText(hashValue,
-							commType, sqlText));
-				} catch (DatabaseException e) {
-					e.printStackTrace();
-				}
-			}
-		  }
-		} catch (Exception e) {
-			System.out.println("SQL Exception occured 111: " + e.getMessage());
-		} finally {
-			if (resultSet != null) {
-				try {
-					resultSet.close();
-				} catch (Exception e) {
-					e.printStackTrace();
-				}
-			}
-			if (statement != null) {
-				try {
-					statement.close();
-				} catch (Exception e) {
-					e.printStackTrace();
-				}
-			}
-			if (conn != null) {
-				model.getConnectionPool().free(conn);
-			}
-		}
-	}
-
 	/**
 	 * Gets the wait class id for9i.
 	 * 
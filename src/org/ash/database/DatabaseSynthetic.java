@@ -0,0 +1,215 @@
+/*
+ *-------------------
+ * The DatabaseSynthetic.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+
+import org.ash.conn.model.ConnectionPool;
+import org.ash.datamodel.AshParamValue;
+
+import com.sleepycat.je.DatabaseException;
+
+/**
+ * The Class DatabaseSynthetic.
+ *
+ * Stand-in of 11g EE database for load and soak tests without Oracle:
+ * samples are taken from AshSampleSource (synthetic sessions or replay of
+ * recorded ASH) instead of v$active_session_history and are loaded by
+ * Database11g1.loadAshRows, the same code as rows of Oracle (see
+ * AshSampleResultSet). Sql text and plans are not loaded, sysdate is the
+ * local time.
+ */
+public class DatabaseSynthetic extends Database11g1 {
+
+	/** The source of samples. */
+	private AshSampleSource source;
+
+	/** The dao. */
+	private AshDataAccessor dao;
+
+	/**
+	 * Instantiates a new synthetic database.
+	 *
+	 * @param source the source of samples
+	 * @param envDir the directory of BDB
+	 */
+	public DatabaseSynthetic(AshSampleSource source, String envDir) {
+		super(null, envDir, 0);
+		this.source = source;
+		this.dao = super.getDao();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.ash.database.Database11g1#loadToLocalBDB()
+	 */
+	public void loadToLocalBDB() {
+
+		// Get max value of ash
+		super.initializeVarsOnLoad();
+
+		// Load pare userid and username
+		loadUserIdUsername();
+
+		// Load parameter values
+		loadParameters();
+
+		// Load data to activeSessionHistoryById
+		loadAshDataToLocal();
+
+		// Load data locally
+		super.loadToSubByEventAnd10Sec();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.ash.database.Database11g1#loadToLocalBDBCollector()
+	 */
+	public synchronized void loadToLocalBDBCollector() {
+		// Get max value of ash
+		super.initializeVarsOnLoad();
+
+		// Load data to activeSessionHistoryById
+		loadAshDataToLocal();
+
+		// Load data locally
+		super.loadToSubByEventAnd10Sec();
+	}
+
+	/**
+	 * Load samples due by now from source to local BDB.
+	 */
+	private void loadAshDataToLocal() {
+
+		// Time and count of rows for throughput counter
+		long beginLoad = System.nanoTime();
+
+		double sysdate = getSysdate();
+
+		List<AshSample> samples = new ArrayList<AshSample>();
+		AshSample sample;
+		while ((sample = source.nextSample(sysdate)) != null) {
+			samples.add(sample);
+		}
+
+		int rowCount = loadSamples(samples);
+
+		super.getIngestThroughput().add(rowCount, System.nanoTime() - beginLoad);
+	}
+
+	/**
+	 * Load samples to local BDB by the loader of rows of
+	 * v$active_session_history (Database11g1.loadAshRows).
+	 *
+	 * @param samples the samples
+	 * @return the count of rows
+	 */
+	public int loadSamples(List<AshSample> samples) {
+		int rowCount = 0;
+
+		// Rows of samples as rows of v$active_session_history
+		ResultSet resultSetAsh = AshSampleResultSet.create(samples);
+		try {
+			rowCount = loadAshRows(resultSetAsh);
+		} catch (SQLException e) {
+			System.out.println("SQL Exception occured: " + e.getMessage());
+		} finally {
+			try {
+				resultSetAsh.close();
+			} catch (SQLException e) {
+				e.printStackTrace();
+			}
+		}
+		return rowCount;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.ash.database.ASHDatabase#loadUserIdUsername()
+	 */
+	protected void loadUserIdUsername() {
+		Iterator<Entry<Long, String>> iter = source.getUsernames().entrySet()
+				.iterator();
+		while (iter.hasNext()) {
+			Entry<Long, String> entry = iter.next();
+			super.getSessionsTemp().addUsername(entry.getKey(), entry.getValue());
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.ash.database.ASHDatabase#loadParameters()
+	 */
+	protected void loadParameters() {
+		try {
+			dao.ashParamValue.putNoReturn(new AshParamValue("cpu_count",
+					String.valueOf(source.getCpuCount())));
+			dao.ashParamValue.putNoReturn(new AshParamValue("dbid", "0"));
+			dao.ashParamValue.putNoReturn(new AshParamValue("instance_number", "1"));
+		} catch (DatabaseException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.ash.database.ASHDatabase#loadSqlTextCommandTypeFromDB(java.util.List)
+	 */
+	public void loadSqlTextCommandTypeFromDB(List<String> arraySqlId) {
+	}
+
+	/* (non-Javadoc)
+	 * @see org.ash.database.ASHDatabase#loadSqlTextCommandTypeFromDBAsync(java.util.List, java.lang.Runnable)
+	 */
+	public void loadSqlTextCommandTypeFromDBAsync(List<String> arraySqlId,
+			Runnable onLoad) {
+		onLoad.run();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.ash.database.Database11g1#loadSqlPlanFromDB(java.util.List, boolean)
+	 */
+	public void loadSqlPlanFromDB(List<String> arraySqlId, boolean isDetail) {
+	}
+
+	/* (non-Javadoc)
+	 * @see org.ash.database.ASHDatabase#getSysdate()
+	 */
+	public double getSysdate() {
+		return System.currentTimeMillis();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.ash.database.ASHDatabase#getConnectionPool()
+	 */
+	public ConnectionPool getConnectionPool() {
+		return null;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.ash.database.ASHDatabase#close()
+	 */
+	public void close() {
+		source.close();
+		super.close();
+	}
+}
@@ -0,0 +1,461 @@
+/*
+ *-------------------
+ * The ReplaySampleSource.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.database;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.ash.datamodel.ActiveSessionHistory;
+
+/**
+ * The Class ReplaySampleSource.
+ *
+ * Replay of recorded ASH: CSV file with header of v$active_session_history
+ * column names (SAMPLE_ID and SAMPLE_TIME are required, missing columns are
+ * null/0), rows ordered by sample_id. Sample times are moved to start time
+ * and divided by speed. At the end of file it is read again with next
+ * sample ids and times (soak test). SAMPLE_TIME, SQL_EXEC_START are
+ * yyyy-MM-dd HH:mm:ss[.fff] or millisec.
+ */
+public class ReplaySampleSource implements AshSampleSource {
+
+	/** The format of dates. */
+	private static final String DATE_FORMAT = "yyyy-MM-dd HH:mm:ss";
+
+	/** The file. */
+	private File file;
+
+	/** The reader, null on end of file. */
+	private BufferedReader reader;
+
+	/** The indexes of columns by name. */
+	private Map<String, Integer> columns;
+
+	/** The date format. */
+	private SimpleDateFormat dateFormat = new SimpleDateFormat(DATE_FORMAT);
+
+	/** The time of first sample. */
+	private double startTime;
+
+	/** The speed of replay (1 - as recorded). */
+	private double speed;
+
+	/** The count of CPU. */
+	private int cpuCount;
+
+	/** The usernames by user id (USERNAME column). */
+	private Map<Long, String> usernames = new HashMap<Long, String>();
+
+	/** The first line of next sample. */
+	private String[] nextLine;
+
+	/** The sample id of first sample in file. */
+	private long firstSampleId = -1;
+
+	/** The sample time of first sample in file. */
+	private double firstSampleTime;
+
+	/** The sample id of last read sample in file. */
+	private long lastSampleId;
+
+	/** The sample time of last read sample in file. */
+	private double lastSampleTime;
+
+	/** The offset of sample id of current read of file. */
+	private long sampleIdOffset = 0;
+
+	/** The offset of sample time of current read of file. */
+	private double sampleTimeOffset = 0;
+
+	/** The id of next row. */
+	private long rowId = 1;
+
+	/**
+	 * Instantiates a new replay sample source.
+	 *
+	 * @param file the CSV file
+	 * @param startTime the time of first sample
+	 * @param speed the speed of replay
+	 * @param cpuCount the count of CPU, 0 - max count of ON CPU sessions
+	 *        of samples in file
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public ReplaySampleSource(File file, double startTime, double speed,
+			int cpuCount) throws IOException {
+		this.file = file;
+		this.startTime = startTime;
+		this.speed = speed;
+		this.cpuCount = cpuCount > 0 ? cpuCount : getMaxOnCpu();
+		open();
+		if (nextLine == null) {
+			close();
+			throw new IOException("No ASH rows in " + file);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.ash.database.AshSampleSource#nextSample(double)
+	 */
+	public synchronized AshSample nextSample(double time) {
+		if (nextLine == null) {
+			// Read file again after last sample
+			sampleIdOffset += lastSampleId - firstSampleId + 1;
+			sampleTimeOffset += lastSampleTime - firstSampleTime + 1000;
+			open();
+			if (nextLine == null) {
+				return null;
+			}
+		}
+
+		long sampleIdFile = getLong(nextLine, "SAMPLE_ID");
+		double sampleTimeFile = getDate(nextLine, "SAMPLE_TIME");
+		double sampleTime = startTime + (sampleTimeFile - firstSampleTime
+				+ sampleTimeOffset) / speed;
+		if (sampleTime > time) {
+			return null;
+		}
+		long sampleId = sampleIdFile - firstSampleId + 1 + sampleIdOffset;
+
+		List<ActiveSessionHistory> rows = new ArrayList<ActiveSessionHistory>();
+		while (nextLine != null && getLong(nextLine, "SAMPLE_ID") == sampleIdFile) {
+			rows.add(newRow(nextLine, sampleId));
+			nextLine = readLine();
+		}
+		lastSampleId = sampleIdFile;
+		lastSampleTime = sampleTimeFile;
+
+		return new AshSample(sampleId, sampleTime, rows);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.ash.database.AshSampleSource#getUsernames()
+	 */
+	public synchronized Map<Long, String> getUsernames() {
+		return new HashMap<Long, String>(usernames);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.ash.database.AshSampleSource#getCpuCount()
+	 */
+	public int getCpuCount() {
+		return cpuCount;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.ash.database.AshSampleSource#close()
+	 */
+	public synchronized void close() {
+		if (reader != null) {
+			try {
+				reader.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			reader = null;
+		}
+		nextLine = null;
+	}
+
+	/**
+	 * Open file and read header and first line.
+	 */
+	private void open() {
+		close();
+		try {
+			reader = new BufferedReader(new FileReader(file));
+			String[] header = split(reader.readLine());
+			columns = new HashMap<String, Integer>();
+			for (int i = 0; i < header.length; i++) {
+				columns.put(header[i].trim().toUpperCase(), i);
+			}
+			if (!columns.containsKey("SAMPLE_ID")
+					|| !columns.containsKey("SAMPLE_TIME")) {
+				throw new IOException("SAMPLE_ID, SAMPLE_TIME columns are required in " + file);
+			}
+			nextLine = readLine();
+			if (nextLine != null && firstSampleId == -1) {
+				firstSampleId = getLong(nextLine, "SAMPLE_ID");
+				firstSampleTime = getDate(nextLine, "SAMPLE_TIME");
+			}
+		} catch (IOException e) {
+			System.out.println("Error on reading ASH file " + file + ": " + e.getMessage());
+			close();
+		}
+	}
+
+	/**
+	 * Read next line of file, null on end of file.
+	 *
+	 * @return the values of line
+	 */
+	private String[] readLine() {
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.trim().length() > 0) {
+					return split(line);
+				}
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		return null;
+	}
+
+	/**
+	 * Gets the max count of ON CPU sessions of samples in file.
+	 *
+	 * @return the count, at least 1
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private int getMaxOnCpu() throws IOException {
+		open();
+		int max = 1;
+		long sampleId = -1;
+		int count = 0;
+		while (nextLine != null) {
+			long sampleIdTmp = getLong(nextLine, "SAMPLE_ID");
+			if (sampleIdTmp != sampleId) {
+				sampleId = sampleIdTmp;
+				count = 0;
+			}
+			if ("ON CPU".equals(getString(nextLine, "SESSION_STATE"))) {
+				count++;
+				max = Math.max(max, count);
+			}
+			nextLine = readLine();
+		}
+		close();
+		return max;
+	}
+
+	/**
+	 * New row of active session history, columns in order of queryASH of
+	 * Database11g2.
+	 *
+	 * @param line the values of line
+	 * @param sampleId the sample id
+	 * @return the row
+	 */
+	private ActiveSessionHistory newRow(String[] line, long sampleId) {
+		long userId = getLong(line, "USER_ID");
+		String username = getString(line, "USERNAME");
+		if (username != null) {
+			usernames.put(userId, username);
+		}
+		return new ActiveSessionHistory(
+				rowId++,
+				sampleId,
+				getLong(line, "SESSION_ID"),
+				getDouble(line, "SESSION_SERIAL#"),
+				getString(line, "SESSION_TYPE"),
+				getDouble(line, "FLAGS"),
+				userId,
+				getString(line, "SQL_ID"),
+				getDouble(line, "SQL_CHILD_NUMBER"),
+				getDouble(line, "SQL_OPCODE"),
+				getDouble(line, "FORCE_MATCHING_SIGNATURE"),
+				getString(line, "TOP_LEVEL_SQL_ID"),
+				getDouble(line, "TOP_LEVEL_SQL_OPCODE"),
+				getDouble(line, "SQL_PLAN_HASH_VALUE"),
+				getDouble(line, "SQL_PLAN_LINE_ID"),
+				getString(line, "SQL_PLAN_OPERATION"),
+				getString(line, "SQL_PLAN_OPTIONS"),
+				getDouble(line, "SQL_EXEC_ID"),
+				getString(line, "SQL_EXEC_START") == null ? 0
+						: getDate(line, "SQL_EXEC_START"),
+				getDouble(line, "PLSQL_ENTRY_OBJECT_ID"),
+				getDouble(line, "PLSQL_ENTRY_SUBPROGRAM_ID"),
+				getDouble(line, "PLSQL_OBJECT_ID"),
+				getDouble(line, "PLSQL_SUBPROGRAM_ID"),
+				getDouble(line, "QC_INSTANCE_ID"),
+				getDouble(line, "QC_SESSION_ID"),
+				getDouble(line, "QC_SESSION_SERIAL#"),
+				getString(line, "EVENT"),
+				getDouble(line, "EVENT_ID"),
+				getDouble(line, "EVENT#"),
+				getDouble(line, "SEQ#"),
+				getString(line, "P1TEXT"),
+				getDouble(line, "P1"),
+				getString(line, "P2TEXT"),
+				getDouble(line, "P2"),
+				getString(line, "P3TEXT"),
+				getDouble(line, "P3"),
+				getString(line, "WAIT_CLASS"),
+				getDouble(line, "WAIT_CLASS_ID"),
+				getDouble(line, "WAIT_TIME"),
+				getString(line, "SESSION_STATE"),
+				getDouble(line, "TIME_WAITED"),
+				getString(line, "BLOCKING_SESSION_STATUS"),
+				getDouble(line, "BLOCKING_SESSION"),
+				getDouble(line, "BLOCKING_SESSION_SERIAL#"),
+				getDouble(line, "CURRENT_OBJ#"),
+				getDouble(line, "CURRENT_FILE#"),
+				getDouble(line, "CURRENT_BLOCK#"),
+				getDouble(line, "CURRENT_ROW#"),
+				getDouble(line, "CONSUMER_GROUP_ID"),
+				getString(line, "XID"),
+				getDouble(line, "REMOTE_INSTANCE#"),
+				getString(line, "IN_CONNECTION_MGMT"),
+				getString(line, "IN_PARSE"),
+				getString(line, "IN_HARD_PARSE"),
+				getString(line, "IN_SQL_EXECUTION"),
+				getString(line, "IN_PLSQL_EXECUTION"),
+				getString(line, "IN_PLSQL_RPC"),
+				getString(line, "IN_PLSQL_COMPILATION"),
+				getString(line, "IN_JAVA_EXECUTION"),
+				getString(line, "IN_BIND"),
+				getString(line, "IN_CURSOR_CLOSE"),
+				getDouble(line, "SERVICE_HASH"),
+				getString(line, "PROGRAM"),
+				getString(line, "MODULE"),
+				getString(line, "ACTION"),
+				getString(line, "CLIENT_ID"));
+	}
+
+	/**
+	 * Gets the value of column, null if column is missing or value is empty.
+	 *
+	 * @param line the values of line
+	 * @param name the name of column
+	 * @return the value
+	 */
+	private String getString(String[] line, String name) {
+		Integer index = columns.get(name);
+		if (index == null || index >= line.length || line[index].length() == 0) {
+			return null;
+		}
+		return line[index];
+	}
+
+	/**
+	 * Gets the number value of column, 0 if column is missing.
+	 *
+	 * @param line the values of line
+	 * @param name the name of column
+	 * @return the value
+	 */
+	private double getDouble(String[] line, String name) {
+		String value = getString(line, name);
+		if (value == null) {
+			return 0;
+		}
+		try {
+			return Double.parseDouble(value.trim());
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+
+	/**
+	 * Gets the integer value of column, 0 if column is missing.
+	 *
+	 * @param line the values of line
+	 * @param name the name of column
+	 * @return the value
+	 */
+	private long getLong(String[] line, String name) {
+		return (long) getDouble(line, name);
+	}
+
+	/**
+	 * Gets the date value of column (millisec).
+	 *
+	 * @param line the values of line
+	 * @param name the name of column
+	 * @return the value
+	 */
+	private double getDate(String[] line, String name) {
+		String value = getString(line, name);
+		if (value == null) {
+			return 0;
+		}
+		value = value.trim();
+		if (value.indexOf('-') < 0) {
+			return getDouble(line, name);
+		}
+		double millis = 0;
+		int dot = value.indexOf('.');
+		if (dot > 0) {
+			// Fraction of second, any count of digits
+			try {
+				millis = Double.parseDouble("0" + value.substring(dot)) * 1000;
+			} catch (NumberFormatException e) {
+				millis = 0;
+			}
+			value = value.substring(0, dot);
+		}
+		try {
+			return dateFormat.parse(value).getTime() + millis;
+		} catch (ParseException e) {
+			System.out.println("Error on parsing date " + value + ": " + e.getMessage());
+			return 0;
+		}
+	}
+
+	/**
+	 * Split line of CSV (values may be in double quotes).
+	 *
+	 * @param line the line
+	 * @return the values
+	 */
+	private static String[] split(String line) {
+		if (line == null) {
+			return new String[0];
+		}
+		List<String> values = new ArrayList<String>();
+		StringBuilder value = new StringBuilder();
+		boolean isQuoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (isQuoted) {
+				if (c == '"') {
+					if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+						value.append('"');
+						i++;
+					} else {
+						isQuoted = false;
+					}
+				} else {
+					value.append(c);
+				}
+			} else if (c == '"') {
+				isQuoted = true;
+			} else if (c == ',') {
+				values.add(value.toString());
+				value.setLength(0);
+			} else {
+				value.append(c);
+			}
+		}
+		values.add(value.toString());
+		return values.toArray(new String[values.size()]);
+	}
+}
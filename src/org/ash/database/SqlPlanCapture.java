@@ -0,0 +1,289 @@
+/*
+ *-------------------
+ * The SqlPlanCapture.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.ash.conn.model.Model;
+import org.ash.datamodel.AshSqlPlanDetail;
+import org.ash.datamodel.AshSqlPlanParent;
+import org.ash.util.BinaryDisplayConverter;
+
+import com.sleepycat.je.DatabaseException;
+
+/**
+ * The Class SqlPlanCapture.
+ *
+ * Loads sql plans from v$sql_plan to local BDB by IN list of BATCH_SIZE
+ * (sql_id, plan_hash_value) pairs per query. For SE, where ASH rows have
+ * no plan hash value, the pairs of sql ids are read from v$sql first.
+ * Plan lines come ordered by plan, so the parent record is written once
+ * per plan and ids of lines are given by the BDB sequence AshSqlPlanId
+ * of AshSqlPlanDetail.
+ */
+public class SqlPlanCapture {
+
+	/** The count of plans in one query. */
+	public static final int BATCH_SIZE = 20;
+
+	/** The columns of v$sql_plan. */
+	private static final String SELECT_SQLPLAN = "SELECT address, hash_value, sql_id, plan_hash_value, child_number," +
+		" operation, options, object_node, object#, object_owner, object_name, object_alias," +
+		" object_type, optimizer, id, parent_id, depth, position, search_columns, cost," +
+		" cardinality, bytes, other_tag, partition_start, partition_stop, partition_id," +
+		" other, distribution, cpu_cost, io_cost, temp_space, access_predicates, filter_predicates," +
+		" projection, time, qblock_name, remarks" +
+		" FROM v$sql_plan ";
+
+	/** The model. */
+	private Model model;
+
+	/** The dao. */
+	private AshDataAccessor dao;
+
+	/** The query sql plan data, BATCH_SIZE plans. */
+	private String querySQLPLAN;
+
+	/** The query plan hash values of sql ids, BATCH_SIZE sql ids. */
+	private String queryPLANHASHVALUE;
+
+	/**
+	 * Instantiates a new sql plan capture.
+	 *
+	 * @param model the model
+	 * @param dao the dao
+	 */
+	public SqlPlanCapture(Model model, AshDataAccessor dao) {
+		this.model = model;
+		this.dao = dao;
+
+		StringBuilder query = new StringBuilder(SELECT_SQLPLAN);
+		query.append(" WHERE (sql_id, plan_hash_value) IN (");
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			if (i > 0) {
+				query.append(", ");
+			}
+			query.append("(?, ?)");
+		}
+		query.append(") ORDER BY sql_id, plan_hash_value, child_number, id");
+		this.querySQLPLAN = query.toString();
+
+		query = new StringBuilder("SELECT DISTINCT sql_id, plan_hash_value FROM v$sql"
+				+ " WHERE plan_hash_value != 0 AND sql_id IN (");
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			if (i > 0) {
+				query.append(", ");
+			}
+			query.append("?");
+		}
+		query.append(")");
+		this.queryPLANHASHVALUE = query.toString();
+	}
+
+	/**
+	 * Load plan hash values of sql ids from v$sql (for SE).
+	 *
+	 * @param arraySqlId the sql ids
+	 * @param sqlIds the sql id of each plan (output)
+	 * @param planHashValues the plan hash value of each plan (output)
+	 */
+	public void loadPlanHashValues(List<String> arraySqlId,
+			List<String> sqlIds, List<Double> planHashValues) {
+
+		if (arraySqlId.isEmpty()) {
+			return;
+		}
+
+		ResultSet resultSet = null;
+		PreparedStatement statement = null;
+		Connection conn = null;
+
+		try {
+			conn = this.model.getConnectionPool().getConnection();
+			statement = conn.prepareStatement(this.queryPLANHASHVALUE);
+
+			for (int from = 0; from < arraySqlId.size(); from += BATCH_SIZE) {
+				int to = Math.min(from + BATCH_SIZE, arraySqlId.size());
+
+				for (int i = 0; i < BATCH_SIZE; i++) {
+					statement.setString(i + 1, arraySqlId.get(Math.min(from + i, to - 1)));
+				}
+
+				resultSet = statement.executeQuery();
+				while (resultSet.next()) {
+					sqlIds.add(resultSet.getString("SQL_ID"));
+					planHashValues.add(resultSet.getDouble("PLAN_HASH_VALUE"));
+				}
+				resultSet.close();
+				resultSet = null;
+			}
+		} catch (Exception e) {
+			System.out.println("SQL Exception occured: " + e.getMessage());
+		} finally {
+			if (resultSet != null) {
+				try {
+					resultSet.close();
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+			}
+			if (statement != null) {
+				try {
+					statement.close();
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+			}
+			if (conn != null) {
+				model.getConnectionPool().free(conn);
+			}
+		}
+	}
+
+	/**
+	 * Load sql plans from v$sql_plan to local BDB.
+	 *
+	 * @param arraySqlId the sql ids
+	 * @param arrayPlanHashValue the plan hash values (same size as sql ids)
+	 * @return the keys (planHashValue:sqlId) of loaded plans
+	 */
+	public synchronized Set<String> load(List<String> arraySqlId,
+			List<Double> arrayPlanHashValue) {
+
+		Set<String> loaded = new HashSet<String>();
+		if (arraySqlId.isEmpty()) {
+			return loaded;
+		}
+
+		ResultSet resultSet = null;
+		PreparedStatement statement = null;
+		Connection conn = null;
+
+		try {
+			conn = this.model.getConnectionPool().getConnection();
+			statement = conn.prepareStatement(this.querySQLPLAN);
+			statement.setFetchSize(250);
+
+			for (int from = 0; from < arraySqlId.size(); from += BATCH_SIZE) {
+				int to = Math.min(from + BATCH_SIZE, arraySqlId.size());
+
+				// Unused binds repeat last plan, so the text of query is the same
+				for (int i = 0; i < BATCH_SIZE; i++) {
+					int k = Math.min(from + i, to - 1);
+					statement.setString(2 * i + 1, arraySqlId.get(k));
+					statement.setDouble(2 * i + 2, arrayPlanHashValue.get(k));
+				}
+
+				resultSet = statement.executeQuery();
+				String lastKey = null;
+
+				while (resultSet.next()) {
+
+					Double planHashValue = resultSet.getDouble("PLAN_HASH_VALUE");
+					String sqlId = resultSet.getString("SQL_ID");
+					String key = getKey(planHashValue, sqlId);
+
+					String address = "";
+					try {
+						address = BinaryDisplayConverter.toHexString(
+								resultSet.getBytes("ADDRESS"));
+					} catch (Exception e) {
+						address = "";
+					}
+
+					try {
+						// Load sql plan data to parent (once per plan) and detail
+						if (!key.equals(lastKey)) {
+							dao.getAshSqlPlanPKParent().putNoOverwrite(
+									new AshSqlPlanParent(planHashValue, sqlId));
+							lastKey = key;
+							loaded.add(key);
+						}
+						dao.getAshSqlPlanPKDetail().putNoReturn(
+								new AshSqlPlanDetail(
+								   0, address, resultSet.getDouble("HASH_VALUE"),sqlId,
+								   planHashValue,"", resultSet.getLong("CHILD_NUMBER"),0,
+								   resultSet.getString("OPERATION"), resultSet.getString("OPTIONS"),
+								   resultSet.getString("OBJECT_NODE"), resultSet.getDouble("OBJECT#"),
+								   resultSet.getString("OBJECT_OWNER"),resultSet.getString("OBJECT_NAME"),
+								   resultSet.getString("OBJECT_ALIAS"),resultSet.getString("OBJECT_TYPE"),
+								   resultSet.getString("OPTIMIZER"), resultSet.getLong("ID"),
+								   resultSet.getLong("PARENT_ID"), resultSet.getLong("DEPTH"),
+								   resultSet.getLong("POSITION"), resultSet.getLong("SEARCH_COLUMNS"),
+								   resultSet.getDouble("COST"), resultSet.getDouble("CARDINALITY"),
+								   resultSet.getDouble("BYTES"), resultSet.getString("OTHER_TAG"),
+								   resultSet.getString("PARTITION_START"),resultSet.getString("PARTITION_STOP"),
+								   resultSet.getLong("PARTITION_ID"),resultSet.getString("OTHER"),
+								   resultSet.getString("DISTRIBUTION"),resultSet.getDouble("CPU_COST"),
+								   resultSet.getDouble("IO_COST"),resultSet.getDouble("TEMP_SPACE"),
+								   resultSet.getString("ACCESS_PREDICATES"),resultSet.getString("FILTER_PREDICATES"),
+								   resultSet.getString("PROJECTION"),resultSet.getDouble("TIME"),
+								   resultSet.getString("QBLOCK_NAME"),resultSet.getString("REMARKS")
+								)
+						);
+					} catch (DatabaseException e) {
+						e.printStackTrace();
+					}
+				}
+				resultSet.close();
+				resultSet = null;
+			}
+		} catch (Exception e) {
+			System.out.println("SQL Exception occured: " + e.getMessage());
+		} finally {
+			if (resultSet != null) {
+				try {
+					resultSet.close();
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+			}
+			if (statement != null) {
+				try {
+					statement.close();
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+			}
+			if (conn != null) {
+				model.getConnectionPool().free(conn);
+			}
+		}
+		return loaded;
+	}
+
+	/**
+	 * Gets the key of plan.
+	 *
+	 * @param planHashValue the plan hash value
+	 * @param sqlId the sql id
+	 * @return the key
+	 */
+	public static String getKey(Double planHashValue, String sqlId) {
+		return planHashValue.longValue() + ":" + sqlId;
+	}
+}
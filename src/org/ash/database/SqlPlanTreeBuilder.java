@@ -0,0 +1,229 @@
+/*
+ *-------------------
+ * The SqlPlanTreeBuilder.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.database;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.ash.datamodel.AshSqlPlanDetail;
+import org.ash.explainplanmodel.ExplainPlanModel10g2;
+import org.ash.explainplanmodel.ExplainPlanModel9i;
+
+import com.sleepycat.je.DatabaseException;
+import com.sleepycat.persist.EntityCursor;
+
+/**
+ * The Class SqlPlanTreeBuilder.
+ *
+ * Builds tree of sql plan from lines of plan in local BDB. Lines are read
+ * by one range query, sorted by id and each line is added to the row of its
+ * parent id (parent lines have lower ids), the level of row is the level
+ * of parent + 1. Lines without parent row are skipped.
+ */
+public class SqlPlanTreeBuilder {
+
+	/** The order of lines by id. */
+	private static final Comparator<AshSqlPlanDetail> BY_ID =
+		new Comparator<AshSqlPlanDetail>() {
+			public int compare(AshSqlPlanDetail o1, AshSqlPlanDetail o2) {
+				return o1.getId() < o2.getId() ? -1
+						: (o1.getId() == o2.getId() ? 0 : 1);
+			}
+		};
+
+	/**
+	 * Load lines of plan from local BDB: lines of sql id and of the child
+	 * number of the first line of sql id, first line of each id, by id.
+	 *
+	 * @param dao the dao
+	 * @param sqlPlanHashValue the plan hash value
+	 * @param sqlId the sql id
+	 * @return the lines
+	 */
+	public static List<AshSqlPlanDetail> loadLines(AshDataAccessor dao,
+			Double sqlPlanHashValue, String sqlId) {
+
+		Map<Long, AshSqlPlanDetail> lineById = new HashMap<Long, AshSqlPlanDetail>();
+		EntityCursor<AshSqlPlanDetail> ashSqlPlan = null;
+		boolean isChildNumberSaved = false;
+		long childNumberBySql = 0;
+
+		try {
+			ashSqlPlan = dao.doRangeQuery(dao.getAshSqlPlanHashValueDetail(),
+					sqlPlanHashValue, true, sqlPlanHashValue, true);
+			Iterator<AshSqlPlanDetail> ashSqlPlanIter = ashSqlPlan.iterator();
+
+			while (ashSqlPlanIter.hasNext()) {
+				AshSqlPlanDetail ashSqlPlanMain = ashSqlPlanIter.next();
+				if (!sqlId.equalsIgnoreCase(ashSqlPlanMain.getSqlId())) {
+					continue;
+				}
+				if (!isChildNumberSaved) {
+					childNumberBySql = ashSqlPlanMain.getChildNumber();
+					isChildNumberSaved = true;
+				}
+				Long id = ashSqlPlanMain.getId();
+				if (ashSqlPlanMain.getChildNumber() == childNumberBySql
+						&& !lineById.containsKey(id)) {
+					lineById.put(id, ashSqlPlanMain);
+				}
+			}
+		} catch (DatabaseException e) {
+			e.printStackTrace();
+		} finally {
+			if (ashSqlPlan != null) {
+				try {
+					ashSqlPlan.close();
+				} catch (DatabaseException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+
+		List<AshSqlPlanDetail> lines = new ArrayList<AshSqlPlanDetail>(lineById.values());
+		Collections.sort(lines, BY_ID);
+		return lines;
+	}
+
+	/**
+	 * Build model of plan for 10g and higher.
+	 *
+	 * @param lines the lines (by id)
+	 * @param sqlPlanHashValue the plan hash value
+	 * @return the model, null if there are no lines
+	 */
+	public static ExplainPlanModel10g2 buildModel10g2(
+			List<AshSqlPlanDetail> lines, Double sqlPlanHashValue) {
+
+		ExplainPlanModel10g2 model = null;
+		ExplainPlanModel10g2.ExplainRow rowRoot = null;
+		Map<Long, ExplainPlanModel10g2.ExplainRow> rowById =
+			new HashMap<Long, ExplainPlanModel10g2.ExplainRow>();
+		Map<Long, Long> levelById = new HashMap<Long, Long>();
+
+		for (int i = 0; i < lines.size(); i++) {
+			AshSqlPlanDetail line = lines.get(i);
+			ExplainPlanModel10g2.ExplainRow parent;
+			Long level;
+
+			if (model == null) {
+				long tmp = 0;
+				rowRoot = new ExplainPlanModel10g2.ExplainRow(
+						null, null, null, null, null, null, null,
+						null, null, null, null, null, null, null,
+						null, null, tmp, null, null, null,
+						null, null, null, null, null, null, null,
+						null, null, null, null, null, null, null,
+						null, null, null, null, null);
+				model = new ExplainPlanModel10g2(rowRoot);
+				parent = rowRoot;
+				level = 1L;
+			} else {
+				parent = rowById.get(line.getParentId());
+				if (parent == null) {
+					continue;
+				}
+				level = levelById.get(line.getParentId()) + 1;
+			}
+
+			ExplainPlanModel10g2.ExplainRow row = new ExplainPlanModel10g2.ExplainRow(
+					parent, line.getAddress(), line.getHashValue(), line.getSqlId(), sqlPlanHashValue,
+					line.getChildAddress(), line.getChildNumber(), line.getOperation(), line.getOptions(),
+					line.getObjectNode(), line.getObject(), line.getObjectOwner(), line.getObjectName(),
+					line.getObjectAlias(), line.getObjectType(), line.getOptimizer(), line.getId(),
+					line.getParentId(), /*Depth*/level, line.getPosition(), line.getSearchColumns(),
+					line.getCost(), line.getCardinality(), line.getBytes(), line.getOtherTag(),
+					line.getPartitionStart(), line.getPartitionStop(), line.getPartitionId(),
+					line.getOther(), line.getDistribution(), line.getCpuCost(), line.getIoCost(),
+					line.getTempSpace(), line.getAccessPredicates(), line.getFilterPredicates(),
+					line.getProjection(), line.getTime(), line.getQblockName(), line.getRemarks());
+			parent.addChild(row);
+			rowById.put(line.getId(), row);
+			levelById.put(line.getId(), level);
+		}
+
+		return model;
+	}
+
+	/**
+	 * Build model of plan for 9i.
+	 *
+	 * @param lines the lines (by id)
+	 * @param sqlPlanHashValue the plan hash value
+	 * @return the model, null if there are no lines
+	 */
+	public static ExplainPlanModel9i buildModel9i(
+			List<AshSqlPlanDetail> lines, Double sqlPlanHashValue) {
+
+		ExplainPlanModel9i model = null;
+		ExplainPlanModel9i.ExplainRow rowRoot = null;
+		Map<Long, ExplainPlanModel9i.ExplainRow> rowById =
+			new HashMap<Long, ExplainPlanModel9i.ExplainRow>();
+		Map<Long, Long> levelById = new HashMap<Long, Long>();
+
+		for (int i = 0; i < lines.size(); i++) {
+			AshSqlPlanDetail line = lines.get(i);
+			ExplainPlanModel9i.ExplainRow parent;
+			Long level;
+
+			if (model == null) {
+				long tmp = 0;
+				rowRoot = new ExplainPlanModel9i.ExplainRow(
+						null, null, null, null, null, null, null,
+						null, null, null, null, null, null, null,
+						null, null, tmp, null, null, null,
+						null, null, null, null, null, null, null,
+						null, null, null, null, null, null);
+				model = new ExplainPlanModel9i(rowRoot);
+				parent = rowRoot;
+				level = 1L;
+			} else {
+				parent = rowById.get(line.getParentId());
+				if (parent == null) {
+					continue;
+				}
+				level = levelById.get(line.getParentId()) + 1;
+			}
+
+			ExplainPlanModel9i.ExplainRow row = new ExplainPlanModel9i.ExplainRow(
+					parent, line.getAddress(), line.getHashValue(), line.getSqlId(), sqlPlanHashValue,
+					line.getChildAddress(), line.getChildNumber(), line.getOperation(), line.getOptions(),
+					line.getObjectNode(), line.getObject(), line.getObjectOwner(), line.getObjectName(),
+					line.getOptimizer(), line.getId(), line.getParentId(), /*Depth*/level,
+					line.getPosition(), line.getSearchColumns(), line.getCost(), line.getCardinality(),
+					line.getBytes(), line.getOtherTag(), line.getPartitionStart(), line.getPartitionStop(),
+					line.getPartitionId(), line.getOther(), line.getDistribution(), line.getCpuCost(),
+					line.getIoCost(), line.getTempSpace(), line.getAccessPredicates(),
+					line.getFilterPredicates());
+			parent.addChild(row);
+			rowById.put(line.getId(), row);
+			levelById.put(line.getId(), level);
+		}
+
+		return model;
+	}
+}
@@ -0,0 +1,364 @@
+/*
+ *-------------------
+ * The SqlTextResolver.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.ash.conn.model.Model;
+import org.ash.datamodel.AshSqlIdTypeText;
+import org.ash.util.Options;
+
+import com.sleepycat.je.DatabaseException;
+
+/**
+ * The Class SqlTextResolver.
+ *
+ * Loads command type and sql text from v$sql to local BDB by IN list of
+ * BATCH_SIZE ids per query. All loads run on one thread in order of
+ * requests, so an id requested by two panels is queried once and the
+ * second request is done after the first one. Ids not found in v$sql are
+ * not queried again for NOT_FOUND_TTL.
+ */
+public class SqlTextResolver {
+
+	/** The count of ids in one query. */
+	public static final int BATCH_SIZE = 50;
+
+	/** The time to keep ids not found in v$sql (millisec). */
+	public static final long NOT_FOUND_TTL = 300000;
+
+	/** The model. */
+	private Model model;
+
+	/** The dao. */
+	private AshDataAccessor dao;
+
+	/** Is id a number (hash_value for 8i/9i). */
+	private boolean isNumericId;
+
+	/** The query of sql text, BATCH_SIZE binds. */
+	private String querySQL;
+
+	/** The ids queued or being loaded. */
+	private Set<String> pending = new HashSet<String>();
+
+	/** The time when id was not found in v$sql. */
+	private Map<String, Long> notFound = new HashMap<String, Long>();
+
+	/** The thread of loads. */
+	private ExecutorService executor;
+
+	/**
+	 * Instantiates a new sql text resolver.
+	 *
+	 * @param model the model
+	 * @param dao the dao
+	 * @param sqlIdColumn the column of id in v$sql (sql_id or hash_value)
+	 * @param isNumericId true, if id is a number
+	 */
+	public SqlTextResolver(Model model, AshDataAccessor dao,
+			String sqlIdColumn, boolean isNumericId) {
+		this.model = model;
+		this.dao = dao;
+		this.isNumericId = isNumericId;
+
+		StringBuilder query = new StringBuilder("SELECT " + sqlIdColumn
+				+ ", command_type, sql_text FROM v$sql WHERE " + sqlIdColumn + " IN (");
+		for (int i = 0; i < BATCH_SIZE; i++) {
+			query.append(i == 0 ? "?" : ", ?");
+		}
+		query.append(")");
+		this.querySQL = query.toString();
+
+		this.executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "SqlTextResolver");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+	}
+
+	/**
+	 * Load sql text of ids not in local storage, wait for the end of load.
+	 *
+	 * @param arraySqlId the ids
+	 */
+	public void resolve(List<String> arraySqlId) {
+		waitFor(submit(claim(arraySqlId, false), null));
+	}
+
+	/**
+	 * Load sql text of ids again (ids in local storage too), wait for the end of load.
+	 *
+	 * @param arraySqlId the ids
+	 */
+	public void reload(List<String> arraySqlId) {
+		waitFor(submit(claim(arraySqlId, true), null));
+	}
+
+	/**
+	 * Load sql text of ids not in local storage on the thread of loads.
+	 *
+	 * @param arraySqlId the ids
+	 * @param onLoad called on the thread of loads when all ids are loaded (may be null)
+	 */
+	public void resolveAsync(List<String> arraySqlId, Runnable onLoad) {
+		submit(claim(arraySqlId, false), onLoad);
+	}
+
+	/**
+	 * Checks if id is queued or being loaded.
+	 *
+	 * @param sqlId the id
+	 * @return true, if is pending
+	 */
+	public synchronized boolean isPending(String sqlId) {
+		return pending.contains(sqlId);
+	}
+
+	/**
+	 * Stop the thread of loads after the queued loads.
+	 */
+	public void close() {
+		executor.shutdown();
+		try {
+			executor.awaitTermination(30, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Get ids to load and mark them as pending. Ids pending for other
+	 * request are skipped, they are loaded before this request.
+	 *
+	 * @param arraySqlId the ids
+	 * @param isReload load ids in local storage or not found in v$sql
+	 * @return the ids to load
+	 */
+	private synchronized List<String> claim(List<String> arraySqlId, boolean isReload) {
+		List<String> out = new ArrayList<String>();
+		long now = System.currentTimeMillis();
+
+		Iterator<String> iter = arraySqlId.iterator();
+		while (iter.hasNext()) {
+			String sqlId = iter.next();
+			if (sqlId == null || pending.contains(sqlId)) {
+				continue;
+			}
+			if (!isReload) {
+				Long notFoundTime = notFound.get(sqlId);
+				if (notFoundTime != null && now - notFoundTime < NOT_FOUND_TTL) {
+					continue;
+				}
+				try {
+					if (dao.getAshSqlIdTypeTextId().contains(sqlId)) {
+						continue;
+					}
+				} catch (DatabaseException e) {
+					e.printStackTrace();
+				}
+			}
+			pending.add(sqlId);
+			out.add(sqlId);
+		}
+		return out;
+	}
+
+	/**
+	 * Submit load to the thread of loads.
+	 *
+	 * @param arraySqlId the ids to load
+	 * @param onLoad called after load (may be null)
+	 * @return the future, null if nothing to do
+	 */
+	private Future<?> submit(final List<String> arraySqlId, final Runnable onLoad) {
+		if (arraySqlId.isEmpty() && onLoad == null) {
+			return null;
+		}
+		try {
+			return executor.submit(new Runnable() {
+				public void run() {
+					try {
+						load(arraySqlId);
+					} finally {
+						if (onLoad != null) {
+							onLoad.run();
+						}
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			// Closed
+			unclaim(arraySqlId);
+			return null;
+		}
+	}
+
+	/**
+	 * Wait for the end of load.
+	 *
+	 * @param future the future
+	 */
+	private void waitFor(Future<?> future) {
+		if (future == null) {
+			return;
+		}
+		try {
+			future.get();
+		} catch (InterruptedException e) {
+			e.printStackTrace();
+		} catch (ExecutionException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Remove ids from pending.
+	 *
+	 * @param arraySqlId the ids
+	 */
+	private synchronized void unclaim(List<String> arraySqlId) {
+		pending.removeAll(arraySqlId);
+	}
+
+	/**
+	 * Save time of ids not found in v$sql.
+	 *
+	 * @param arraySqlId the ids of query
+	 * @param found the ids found
+	 */
+	private synchronized void setNotFound(List<String> arraySqlId, Set<String> found) {
+		long now = System.currentTimeMillis();
+		Iterator<String> iter = arraySqlId.iterator();
+		while (iter.hasNext()) {
+			String sqlId = iter.next();
+			if (found.contains(sqlId)) {
+				notFound.remove(sqlId);
+			} else {
+				notFound.put(sqlId, now);
+			}
+		}
+
+		// Remove expired
+		Iterator<Long> iterTime = notFound.values().iterator();
+		while (iterTime.hasNext()) {
+			if (now - iterTime.next() >= NOT_FOUND_TTL) {
+				iterTime.remove();
+			}
+		}
+	}
+
+	/**
+	 * Load command type, sql text from v$sql to local BDB.
+	 *
+	 * @param arraySqlId the ids
+	 */
+	private void load(List<String> arraySqlId) {
+		if (arraySqlId.isEmpty()) {
+			return;
+		}
+
+		ResultSet resultSet = null;
+		PreparedStatement statement = null;
+		Connection conn = null;
+
+		try {
+			conn = this.model.getConnectionPool().getConnection();
+			statement = conn.prepareStatement(this.querySQL);
+
+			for (int from = 0; from < arraySqlId.size(); from += BATCH_SIZE) {
+				List<String> batch = arraySqlId.subList(from,
+						Math.min(from + BATCH_SIZE, arraySqlId.size()));
+
+				// Unused binds repeat last id, so the text of query is the same
+				for (int i = 0; i < BATCH_SIZE; i++) {
+					String sqlId = batch.get(Math.min(i, batch.size() - 1));
+					if (isNumericId) {
+						statement.setLong(i + 1, Long.parseLong(sqlId));
+					} else {
+						statement.setString(i + 1, sqlId);
+					}
+				}
+
+				Set<String> found = new HashSet<String>();
+				resultSet = statement.executeQuery();
+				while (resultSet.next()) {
+					String sqlId = resultSet.getString(1);
+					String commType = Options.getInstance().getResource(
+							resultSet.getLong("COMMAND_TYPE") + "");
+					String sqlText = resultSet.getString("SQL_TEXT");
+
+					try {
+						dao.ashSqlIdTypeTextId.putNoReturn(new AshSqlIdTypeText(sqlId,
+								commType, sqlText));
+					} catch (DatabaseException e) {
+						e.printStackTrace();
+					}
+					found.add(sqlId);
+				}
+				resultSet.close();
+				resultSet = null;
+
+				setNotFound(batch, found);
+			}
+		} catch (Exception e) {
+			System.out.println("SQL Exception occured: " + e.getMessage());
+		} finally {
+			unclaim(arraySqlId);
+			if (resultSet != null) {
+				try {
+					resultSet.close();
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+			}
+			if (statement != null) {
+				try {
+					statement.close();
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+			}
+			if (conn != null) {
+				model.getConnectionPool().free(conn);
+			}
+		}
+	}
+}
@@ -0,0 +1,298 @@
+/*
+ *-------------------
+ * The SyntheticSampleSource.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.database;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.ash.datamodel.ActiveSessionHistory;
+
+/**
+ * The Class SyntheticSampleSource.
+ *
+ * Generator of ASH samples without Oracle: one sample each interval, each
+ * session is active with probability activeRatio, wait class (or CPU) is
+ * taken by weights of mix, sql ids are skewed (few sqls have most rows).
+ * The same seed gives the same rows.
+ */
+public class SyntheticSampleSource implements AshSampleSource {
+
+	/** The index of CPU in mix. */
+	public static final int CPU = 13;
+
+	/** The names of wait classes by index (as in ActiveSessionHistory15). */
+	private static final String[] WAIT_CLASSES = {"Other", "Application",
+		"Configuration", "Administrative", "Concurrency", "Commit", "Idle",
+		"Network", "User I/O", "System I/O", "Scheduler", "Cluster", "Queueing"};
+
+	/** The wait class ids by index. */
+	private static final double[] WAIT_CLASS_IDS = {1893977003.0, 4217450380.0,
+		3290255840.0, 4166625743.0, 3875070507.0, 3386400367.0, 2723168908.0,
+		2000153315.0, 1740759767.0, 4108307767.0, 2396326234.0, 3871361733.0,
+		644977587.0};
+
+	/** The count of events of one wait class. */
+	private static final int EVENTS = 3;
+
+	/** The count of users of sessions. */
+	private static final int USERS = 20;
+
+	/** The programs of sessions. */
+	private static final String[] PROGRAMS = {"JDBC Thin Client",
+		"sqlplus@app01 (TNS V1-V3)", "oracle@db01 (J000)", "w3wp.exe"};
+
+	/** The count of sessions. */
+	private int sessions;
+
+	/** The count of sql ids. */
+	private int sqls;
+
+	/** The part of active sessions in sample (0..1). */
+	private double activeRatio;
+
+	/** The cumulative weights of wait classes and CPU. */
+	private double[] cumulative;
+
+	/** The interval between samples (millisec). */
+	private double interval;
+
+	/** The count of CPU, active sessions on CPU on average. */
+	private int cpuCount;
+
+	/** The random. */
+	private Random random;
+
+	/** The sample id of next sample. */
+	private long sampleId = 1;
+
+	/** The sample time of next sample. */
+	private double sampleTime;
+
+	/** The id of next row. */
+	private long rowId = 1;
+
+	/**
+	 * Instantiates a new synthetic sample source, one sample per second.
+	 *
+	 * @param sessions the count of sessions
+	 * @param sqls the count of sql ids
+	 * @param activeRatio the part of active sessions in sample
+	 * @param mix the weights of wait classes 0..12 and CPU (13)
+	 * @param startTime the time of first sample
+	 * @param seed the seed
+	 */
+	public SyntheticSampleSource(int sessions, int sqls, double activeRatio,
+			double[] mix, double startTime, long seed) {
+		this(sessions, sqls, activeRatio, mix, startTime, 1000, seed);
+	}
+
+	/**
+	 * Instantiates a new synthetic sample source.
+	 *
+	 * @param sessions the count of sessions
+	 * @param sqls the count of sql ids
+	 * @param activeRatio the part of active sessions in sample
+	 * @param mix the weights of wait classes 0..12 and CPU (13)
+	 * @param startTime the time of first sample
+	 * @param interval the interval between samples (millisec)
+	 * @param seed the seed
+	 */
+	public SyntheticSampleSource(int sessions, int sqls, double activeRatio,
+			double[] mix, double startTime, double interval, long seed) {
+		this.sessions = sessions;
+		this.sqls = sqls;
+		this.activeRatio = activeRatio;
+		this.sampleTime = startTime;
+		this.interval = interval;
+		this.random = new Random(seed);
+
+		this.cumulative = new double[mix.length];
+		double sum = 0;
+		for (int i = 0; i < mix.length; i++) {
+			sum += mix[i];
+			cumulative[i] = sum;
+		}
+		for (int i = 0; i < mix.length; i++) {
+			cumulative[i] /= sum;
+		}
+
+		this.cpuCount = Math.max(1, (int) Math.ceil(sessions * activeRatio
+				* mix[CPU] / sum));
+	}
+
+	/**
+	 * Gets the weights of wait classes and CPU by name.
+	 *
+	 * @param name oltp, io or cpu
+	 * @return the weights of wait classes 0..12 and CPU (13)
+	 */
+	public static double[] getMix(String name) {
+		double[] mix = new double[CPU + 1];
+		if (name.equalsIgnoreCase("io")) {
+			mix[CPU] = 15;
+			mix[8] = 60;
+			mix[9] = 15;
+			mix[0] = 10;
+		} else if (name.equalsIgnoreCase("cpu")) {
+			mix[CPU] = 90;
+			mix[4] = 5;
+			mix[0] = 5;
+		} else {
+			mix[CPU] = 45;
+			mix[8] = 30;
+			mix[5] = 8;
+			mix[4] = 5;
+			mix[7] = 4;
+			mix[1] = 3;
+			mix[9] = 2;
+			mix[0] = 3;
+		}
+		return mix;
+	}
+
+	/**
+	 * Gets the sample id of next sample.
+	 *
+	 * @return the sample id
+	 */
+	public long getSampleId() {
+		return sampleId;
+	}
+
+	/**
+	 * Gets the sample time of next sample.
+	 *
+	 * @return the sample time
+	 */
+	public double getSampleTime() {
+		return sampleTime;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.ash.database.AshSampleSource#nextSample(double)
+	 */
+	public AshSample nextSample(double time) {
+		if (sampleTime > time) {
+			return null;
+		}
+		return nextSample();
+	}
+
+	/**
+	 * Next sample.
+	 *
+	 * @return the sample
+	 */
+	public AshSample nextSample() {
+		List<ActiveSessionHistory> rows = new ArrayList<ActiveSessionHistory>();
+		for (int session = 0; session < sessions; session++) {
+			if (random.nextDouble() < activeRatio) {
+				rows.add(newRow(session));
+			}
+		}
+		AshSample sample = new AshSample(sampleId, sampleTime, rows);
+		sampleId++;
+		sampleTime += interval;
+		return sample;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.ash.database.AshSampleSource#getUsernames()
+	 */
+	public Map<Long, String> getUsernames() {
+		Map<Long, String> usernames = new HashMap<Long, String>();
+		usernames.put(0L, "SYS");
+		for (long i = 1; i < USERS; i++) {
+			usernames.put(i, "APP" + i);
+		}
+		return usernames;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.ash.database.AshSampleSource#getCpuCount()
+	 */
+	public int getCpuCount() {
+		return cpuCount;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.ash.database.AshSampleSource#close()
+	 */
+	public void close() {
+	}
+
+	/**
+	 * New row of active session.
+	 *
+	 * @param session the index of session
+	 * @return the row
+	 */
+	private ActiveSessionHistory newRow(int session) {
+		int waitClass = getWaitClass();
+		boolean isOnCpu = waitClass == CPU;
+
+		String sqlId = null;
+		double sqlPlanHashValue = 0;
+		if (random.nextInt(10) != 0) {
+			// Few sqls have most rows
+			double r = random.nextDouble();
+			int sql = (int) (sqls * r * r * r);
+			sqlId = "sql" + sql;
+			sqlPlanHashValue = 1000000 + sql % 997;
+		}
+
+		String event = isOnCpu ? null : WAIT_CLASSES[waitClass] + " event "
+				+ random.nextInt(EVENTS);
+
+		return new ActiveSessionHistory(rowId++, sampleId, session + 1,
+				session % 7 + 1, "FOREGROUND", 0.0, session % USERS, sqlId, 0.0,
+				3.0, 0.0, "", 0.0, sqlPlanHashValue, 0.0, "", "", 0.0, 0.0,
+				0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, event, 0.0, 0.0, 0.0, "",
+				0.0, "", 0.0, "", 0.0,
+				isOnCpu ? null : WAIT_CLASSES[waitClass],
+				isOnCpu ? 0.0 : WAIT_CLASS_IDS[waitClass],
+				isOnCpu ? 1000.0 : 0.0,
+				isOnCpu ? "ON CPU" : "WAITING",
+				isOnCpu ? 0.0 : random.nextInt(20000),
+				"", 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, 0.0, "", 0.0, "", "", "",
+				"", "", "", "", "", "", "", 0.0,
+				PROGRAMS[session % PROGRAMS.length], "", "", "");
+	}
+
+	/**
+	 * Gets the wait class (or CPU) by weights of mix.
+	 *
+	 * @return the index of wait class, CPU
+	 */
+	private int getWaitClass() {
+		double r = random.nextDouble();
+		for (int i = 0; i < cumulative.length; i++) {
+			if (r < cumulative[i]) {
+				return i;
+			}
+		}
+		return CPU;
+	}
+}
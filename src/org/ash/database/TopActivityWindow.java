@@ -0,0 +1,234 @@
+/*
+ *-------------------
+ * The TopActivityWindow.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.database;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+
+import org.ash.datatemp.SessionsTemp;
+import org.ash.datatemp.SqlsTemp;
+
+import com.sleepycat.persist.EntityStore;
+
+/**
+ * The Class TopActivityWindow.
+ *
+ * Top SQL and Top sessions of sliding window (auto selection). Rows of
+ * window are kept as slices [from, to) of sqls and sessions counters, the
+ * sum of slices is kept too. On each run only the new slice is calculated
+ * from local BDB and added, expired slices are subtracted. Rows newer than
+ * SETTLE_TIME before the last sample can be loaded yet, they are calculated
+ * on each run and are not kept in slices.
+ */
+public class TopActivityWindow {
+
+	/** The time before the last sample, rows of it are calculated on each run (millisec). */
+	private static final double SETTLE_TIME = 15000;
+
+	/** The max length of slice, first slice is calculated again when it expires partly (millisec). */
+	private static final double SLICE_TIME = 15000;
+
+	/** The database. */
+	private ASHDatabase database;
+
+	/** The BDB store. */
+	private EntityStore store;
+
+	/** The BDB dao. */
+	private AshDataAccessor dao;
+
+	/** The slices of window in order of time. */
+	private LinkedList<Slice> slices = new LinkedList<Slice>();
+
+	/** The sum of sqls of slices. */
+	private SqlsTemp windowSqls;
+
+	/** The sum of sessions of slices. */
+	private SessionsTemp windowSessions;
+
+	/** The begin of window (inclusive), -1 if window is empty. */
+	private double fromTime = -1;
+
+	/** The end of slices (exclusive). */
+	private double slicesToTime = -1;
+
+	/**
+	 * Instantiates a new top activity window.
+	 *
+	 * @param database the database
+	 * @param store the store
+	 * @param dao the dao
+	 */
+	public TopActivityWindow(ASHDatabase database, EntityStore store,
+			AshDataAccessor dao) {
+		this.database = database;
+		this.store = store;
+		this.dao = dao;
+		this.windowSqls = new SqlsTemp();
+		this.windowSessions = new SessionsTemp(store, dao);
+	}
+
+	/**
+	 * Calculate sqls, sessions data of window [fromTime, toTime].
+	 *
+	 * @param from the begin of window
+	 * @param to the end of window
+	 * @param outSqls the sqls temp (cleared)
+	 * @param outSessions the sessions temp (cleared)
+	 */
+	public synchronized void calculate(double from, double to,
+			SqlsTemp outSqls, SessionsTemp outSessions) {
+
+		double settledTime = Math.min(database.getMaxSampleTime() - SETTLE_TIME, to);
+
+		if (fromTime == -1 || from < fromTime || from >= slicesToTime
+				|| settledTime < slicesToTime) {
+			// Window is moved back or does not overlap
+			clear();
+			fromTime = from;
+			slicesToTime = from;
+		} else {
+			// Subtract expired slices
+			while (!slices.isEmpty() && slices.getFirst().toTime <= from) {
+				subtract(slices.removeFirst());
+			}
+			// Calculate first slice again without expired rows
+			if (!slices.isEmpty() && slices.getFirst().fromTime < from) {
+				Slice first = slices.removeFirst();
+				subtract(first);
+				Slice slice = newSlice(from, first.toTime);
+				slices.addFirst(slice);
+				add(slice);
+			}
+			fromTime = from;
+		}
+
+		// Add new slices, not longer than SLICE_TIME
+		while (settledTime > slicesToTime) {
+			Slice slice = newSlice(slicesToTime,
+					Math.min(slicesToTime + SLICE_TIME, settledTime));
+			slices.addLast(slice);
+			add(slice);
+			slicesToTime = slice.toTime;
+		}
+
+		// Subtracted keys are kept with zero counters, sum slices again
+		if (windowSqls.getSizeMainSqls() > 2 * windowSqls.getSizeWithRows() + 1000
+				|| windowSessions.getSizeMainSessions() > 2 * windowSessions.getSizeWithRows() + 1000) {
+			windowSqls.clear();
+			windowSessions.clear();
+			Iterator<Slice> iter = slices.iterator();
+			while (iter.hasNext()) {
+				add(iter.next());
+			}
+		}
+
+		outSqls.clear();
+		outSessions.clear();
+		outSqls.addAll(windowSqls, 1);
+		outSessions.addAll(windowSessions, 1);
+
+		// Rows after slices
+		database.calculateSqlsSessionsData(outSqls, outSessions,
+				slicesToTime, true, to, true, "All");
+	}
+
+	/**
+	 * Clear window.
+	 */
+	public synchronized void clear() {
+		slices.clear();
+		windowSqls.clear();
+		windowSessions.clear();
+		fromTime = -1;
+		slicesToTime = -1;
+	}
+
+	/**
+	 * Calculate slice from local BDB.
+	 *
+	 * @param from the begin (inclusive)
+	 * @param to the end (exclusive)
+	 * @return the slice
+	 */
+	private Slice newSlice(double from, double to) {
+		Slice slice = new Slice(from, to, new SqlsTemp(),
+				new SessionsTemp(store, dao));
+		database.calculateSqlsSessionsData(slice.sqls, slice.sessions,
+				from, true, to, false, "All");
+		return slice;
+	}
+
+	/**
+	 * Add slice to sum.
+	 *
+	 * @param slice the slice
+	 */
+	private void add(Slice slice) {
+		windowSqls.addAll(slice.sqls, 1);
+		windowSessions.addAll(slice.sessions, 1);
+	}
+
+	/**
+	 * Subtract slice from sum.
+	 *
+	 * @param slice the slice
+	 */
+	private void subtract(Slice slice) {
+		windowSqls.addAll(slice.sqls, -1);
+		windowSessions.addAll(slice.sessions, -1);
+	}
+
+	/**
+	 * The Class Slice (sqls and sessions of time range).
+	 */
+	private static class Slice {
+
+		/** The begin (inclusive). */
+		private double fromTime;
+
+		/** The end (exclusive). */
+		private double toTime;
+
+		/** The sqls. */
+		private SqlsTemp sqls;
+
+		/** The sessions. */
+		private SessionsTemp sessions;
+
+		/**
+		 * Instantiates a new slice.
+		 *
+		 * @param fromTime the begin
+		 * @param toTime the end
+		 * @param sqls the sqls
+		 * @param sessions the sessions
+		 */
+		Slice(double fromTime, double toTime, SqlsTemp sqls,
+				SessionsTemp sessions) {
+			this.fromTime = fromTime;
+			this.toTime = toTime;
+			this.sqls = sqls;
+			this.sessions = sessions;
+		}
+	}
+}
@@ -0,0 +1,89 @@
+/*
+ *-------------------
+ * The ActiveSessionHistoryBlock.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.datamodel;
+
+import com.sleepycat.persist.model.Entity;
+import com.sleepycat.persist.model.PrimaryKey;
+
+/**
+ * The Class ActiveSessionHistoryBlock (all rows of one sample,
+ * columnar format, see AshBlockCodec).
+ */
+@Entity
+public
+class ActiveSessionHistoryBlock {
+
+    /** The sample id. */
+    @PrimaryKey
+    long sampleId;
+
+    /** The count of rows. */
+    int rowCount;
+
+    /** The encoded rows. */
+    byte[] data;
+
+    /**
+     * Instantiates a new active session history block.
+     *
+     * @param sampleId the sample id
+     * @param rowCount the count of rows
+     * @param data the encoded rows
+     */
+    public ActiveSessionHistoryBlock(long sampleId, int rowCount, byte[] data) {
+        this.sampleId = sampleId;
+        this.rowCount = rowCount;
+        this.data = data;
+    }
+
+	/**
+	 * Instantiates a new active session history block.
+	 */
+	private ActiveSessionHistoryBlock() {} // For bindings.
+
+    /**
+     * Gets the sample id.
+     *
+     * @return the sample id
+     */
+    public long getSampleId() {
+        return sampleId;
+    }
+
+    /**
+     * Gets the count of rows.
+     *
+     * @return the count of rows
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Gets the encoded rows.
+     *
+     * @return the encoded rows
+     */
+    public byte[] getData() {
+        return data;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ *-------------------
+ * The ActiveSessionHistoryDim.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.datamodel;
+
+import com.sleepycat.persist.model.Entity;
+import com.sleepycat.persist.model.PrimaryKey;
+import com.sleepycat.persist.model.SecondaryKey;
+import static com.sleepycat.persist.model.Relationship.MANY_TO_ONE;
+
+/**
+ * The Class ActiveSessionHistoryDim (sample with rows of one value of
+ * dimension: sql id, session, event, wait class, module or program).
+ */
+@Entity
+public
+class ActiveSessionHistoryDim {
+
+    /** The value of dimension, sample time and sample id. */
+    @PrimaryKey
+    AshDimKey key;
+
+    /** The sample id (for delete of sample). */
+    @SecondaryKey(relate = MANY_TO_ONE)
+    long sampleId;
+
+    /**
+     * Instantiates a new active session history dim.
+     *
+     * @param key the dimension and value
+     * @param sampleTime the sample time
+     * @param sampleId the sample id
+     */
+    public ActiveSessionHistoryDim(String key, double sampleTime, long sampleId) {
+        this.key = new AshDimKey(key, sampleTime, sampleId);
+        this.sampleId = sampleId;
+    }
+
+	/**
+	 * Instantiates a new active session history dim.
+	 */
+	private ActiveSessionHistoryDim() {} // For bindings.
+
+    /**
+     * Gets the key.
+     *
+     * @return the key
+     */
+    public AshDimKey getKey() {
+        return key;
+    }
+
+    /**
+     * Gets the sample id.
+     *
+     * @return the sample id
+     */
+    public long getSampleId() {
+        return sampleId;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ *-------------------
+ * The ActiveSessionHistorySum.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.datamodel;
+
+import com.sleepycat.persist.model.Entity;
+import com.sleepycat.persist.model.PrimaryKey;
+
+/**
+ * The Class ActiveSessionHistorySum (sum of 15 sec buckets of
+ * ActiveSessionHistory15 for 1 min, 5 min, 1 hour or 1 day).
+ */
+@Entity
+public
+class ActiveSessionHistorySum {
+
+    /** The level and begin time of bucket. */
+    @PrimaryKey
+    AshSumKey key;
+
+    /** The count of 15 sec buckets. */
+    int count;
+
+    /** The sums by wait class index, CPU and COUNT_AAS (see AshRollup). */
+    double[] sum;
+
+    /**
+     * Instantiates a new active session history sum.
+     *
+     * @param level the level
+     * @param sampleTime the begin time of bucket
+     * @param count the count of 15 sec buckets
+     * @param sum the sums
+     */
+    public ActiveSessionHistorySum(int level, double sampleTime,
+    		int count, double[] sum) {
+        this.key = new AshSumKey(level, sampleTime);
+        this.count = count;
+        this.sum = sum;
+    }
+
+	/**
+	 * Instantiates a new active session history sum.
+	 */
+	private ActiveSessionHistorySum() {} // For bindings.
+
+    /**
+     * Gets the key.
+     *
+     * @return the key
+     */
+    public AshSumKey getKey() {
+        return key;
+    }
+
+    /**
+     * Gets the count of 15 sec buckets.
+     *
+     * @return the count
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the sums.
+     *
+     * @return the sums
+     */
+    public double[] getSum() {
+        return sum;
+    }
+}
@@ -0,0 +1,470 @@
+/*
+ *-------------------
+ * The AshBlockCodec.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.datamodel;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import com.sleepycat.je.DatabaseException;
+
+/**
+ * The Class AshBlockCodec.
+ *
+ * Encode rows of ActiveSessionHistory (one sample) to columnar format:
+ * strings are stored once in the dictionary of the block and referenced by
+ * index, numbers are stored by column as delta from the previous row (varint),
+ * non integer numbers are stored as is. With AshDictionary the repeated
+ * strings (event, wait class, program...) are stored as id of dictionary.
+ */
+public class AshBlockCodec {
+
+	/** The version of format (strings of block). */
+	private static final int VERSION = 1;
+
+	/** The version of format (strings of block and AshDictionary). */
+	private static final int VERSION_DICTIONARY = 2;
+
+	/** The count of number columns. */
+	private static final int NUMBER_COLUMNS = 39;
+
+	/** The count of string columns. */
+	private static final int STRING_COLUMNS = 27;
+
+	/** The index of sqlExecStart column (can be null). */
+	private static final int SQL_EXEC_START = 13;
+
+	/** The max integer value stored as delta (2^52). */
+	private static final double MAX_DELTA_VALUE = 4503599627370496.0;
+
+	/** The tag of non integer number. */
+	private static final int TAG_RAW = 1;
+
+	/** The tag of null number. */
+	private static final int TAG_NULL = 3;
+
+	/** The string columns with many distinct values (sqlId, topLevelSqlId, xid, clientId),
+	 *  not stored in AshDictionary. */
+	private static final boolean[] LOCAL_STRING_COLUMNS = new boolean[STRING_COLUMNS];
+	static {
+		LOCAL_STRING_COLUMNS[1] = true;
+		LOCAL_STRING_COLUMNS[2] = true;
+		LOCAL_STRING_COLUMNS[12] = true;
+		LOCAL_STRING_COLUMNS[26] = true;
+	}
+
+	/**
+	 * Encode rows of one sample.
+	 *
+	 * @param rows the rows
+	 * @param stringDictionary the dictionary of strings (can be null)
+	 * @return the encoded rows
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 * @throws DatabaseException the database exception
+	 */
+	public static byte[] encode(List<ActiveSessionHistory> rows,
+			AshDictionary stringDictionary) throws IOException, DatabaseException {
+
+		int rowCount = rows.size();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + rowCount * 48);
+		DataOutputStream out = new DataOutputStream(bytes);
+
+		// Dictionary of strings, 0 is null
+		HashMap<String, Integer> dictionary = new HashMap<String, Integer>();
+		List<String> strings = new ArrayList<String>();
+		long[][] stringIndex = new long[STRING_COLUMNS][rowCount];
+
+		for (int c = 0; c < STRING_COLUMNS; c++){
+			boolean isDictionaryColumn = stringDictionary != null && !LOCAL_STRING_COLUMNS[c];
+			for (int r = 0; r < rowCount; r++){
+				String value = getString(rows.get(r), c);
+				if (isDictionaryColumn){
+					stringIndex[c][r] = stringDictionary.getId(value);
+				} else if (value != null){
+					Integer index = dictionary.get(value);
+					if (index == null){
+						strings.add(value);
+						index = strings.size();
+						dictionary.put(value, index);
+					}
+					stringIndex[c][r] = index;
+				}
+			}
+		}
+
+		writeVarLong(out, stringDictionary == null ? VERSION : VERSION_DICTIONARY);
+		writeVarLong(out, rowCount);
+
+		writeVarLong(out, strings.size());
+		for (int i = 0; i < strings.size(); i++){
+			out.writeUTF(strings.get(i));
+		}
+
+		for (int c = 0; c < STRING_COLUMNS; c++){
+			for (int r = 0; r < rowCount; r++){
+				writeVarLong(out, stringIndex[c][r]);
+			}
+		}
+
+		for (int c = 0; c < NUMBER_COLUMNS; c++){
+			long previous = 0;
+			for (int r = 0; r < rowCount; r++){
+				ActiveSessionHistory ash = rows.get(r);
+				if (c == SQL_EXEC_START && ash.sqlExecStart == null){
+					writeVarLong(out, TAG_NULL);
+					continue;
+				}
+				double value = getNumber(ash, c);
+				if (value == Math.rint(value) && Math.abs(value) < MAX_DELTA_VALUE){
+					long current = (long) value;
+					long delta = current - previous;
+					writeVarLong(out, ((delta << 1) ^ (delta >> 63)) << 1);
+					previous = current;
+				} else {
+					writeVarLong(out, TAG_RAW);
+					out.writeLong(Double.doubleToLongBits(value));
+				}
+			}
+		}
+
+		out.flush();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Count of rows of one sample, only the header of block is read.
+	 *
+	 * @param data the encoded rows
+	 * @return the count of rows
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static int rowCount(byte[] data) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+		readVarLong(in);
+		return (int) readVarLong(in);
+	}
+
+	/**
+	 * Decode rows of one sample.
+	 *
+	 * @param data the encoded rows
+	 * @param stringDictionary the dictionary of strings (can be null for blocks without it)
+	 * @return the rows
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 * @throws DatabaseException the database exception
+	 */
+	public static List<ActiveSessionHistory> decode(byte[] data,
+			AshDictionary stringDictionary) throws IOException, DatabaseException {
+
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+
+		int version = (int) readVarLong(in);
+		if (version != VERSION && version != VERSION_DICTIONARY){
+			throw new IOException("Unknown version of ASH block: " + version);
+		}
+		if (version == VERSION_DICTIONARY && stringDictionary == null){
+			throw new IOException("No dictionary of strings for ASH block");
+		}
+		int rowCount = (int) readVarLong(in);
+
+		int stringCount = (int) readVarLong(in);
+		String[] strings = new String[stringCount + 1];
+		for (int i = 1; i <= stringCount; i++){
+			strings[i] = in.readUTF();
+		}
+
+		List<ActiveSessionHistory> rows = new ArrayList<ActiveSessionHistory>(rowCount);
+		for (int r = 0; r < rowCount; r++){
+			rows.add(new ActiveSessionHistory());
+		}
+
+		for (int c = 0; c < STRING_COLUMNS; c++){
+			boolean isDictionaryColumn = version == VERSION_DICTIONARY && !LOCAL_STRING_COLUMNS[c];
+			for (int r = 0; r < rowCount; r++){
+				long index = readVarLong(in);
+				if (isDictionaryColumn){
+					setString(rows.get(r), c, stringDictionary.getString(index));
+				} else {
+					setString(rows.get(r), c, strings[(int) index]);
+				}
+			}
+		}
+
+		for (int c = 0; c < NUMBER_COLUMNS; c++){
+			long previous = 0;
+			for (int r = 0; r < rowCount; r++){
+				ActiveSessionHistory ash = rows.get(r);
+				long tag = readVarLong(in);
+				if (tag == TAG_NULL){
+					ash.sqlExecStart = null;
+				} else if (tag == TAG_RAW){
+					setNumber(ash, c, Double.longBitsToDouble(in.readLong()));
+				} else {
+					long zigzag = tag >>> 1;
+					long current = previous + ((zigzag >>> 1) ^ -(zigzag & 1));
+					setNumber(ash, c, current);
+					previous = current;
+				}
+			}
+		}
+
+		return rows;
+	}
+
+	/**
+	 * Write unsigned variable length long.
+	 *
+	 * @param out the out
+	 * @param value the value
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+		while ((value & ~0x7FL) != 0){
+			out.writeByte((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.writeByte((int) value);
+	}
+
+	/**
+	 * Read unsigned variable length long.
+	 *
+	 * @param in the in
+	 * @return the value
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	private static long readVarLong(DataInputStream in) throws IOException {
+		long value = 0;
+		int shift = 0;
+		int b;
+		do {
+			b = in.readUnsignedByte();
+			value |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+
+	/**
+	 * Gets the value of number column.
+	 *
+	 * @param ash the row
+	 * @param column the column
+	 * @return the value
+	 */
+	private static double getNumber(ActiveSessionHistory ash, int column){
+		switch (column){
+			case 0: return ash.activeSessionHistoryId;
+			case 1: return ash.sampleId;
+			case 2: return ash.sessionId;
+			case 3: return ash.sessionSerial;
+			case 4: return ash.flags;
+			case 5: return ash.userId;
+			case 6: return ash.sqlChildNumber;
+			case 7: return ash.sqlOPCode;
+			case 8: return ash.forceMutchingSignature;
+			case 9: return ash.topLevelSqlOpCode;
+			case 10: return ash.sqlPlanHashValue;
+			case 11: return ash.sqlPlanLineId;
+			case 12: return ash.sqlExecId;
+			case 13: return ash.sqlExecStart;
+			case 14: return ash.plsqlEntryObjectId;
+			case 15: return ash.plsqlEntrySubprogramId;
+			case 16: return ash.plsqlObjectId;
+			case 17: return ash.plsqlSubprogramId;
+			case 18: return ash.qcInstanceId;
+			case 19: return ash.qcSessionId;
+			case 20: return ash.qcSessionSerial;
+			case 21: return ash.eventId;
+			case 22: return ash.eventHash;
+			case 23: return ash.SEQHash;
+			case 24: return ash.p1;
+			case 25: return ash.p2;
+			case 26: return ash.p3;
+			case 27: return ash.waitClassId;
+			case 28: return ash.waitTime;
+			case 29: return ash.timeWaited;
+			case 30: return ash.blockingSession;
+			case 31: return ash.blockingSessionSerialHash;
+			case 32: return ash.currentObjHash;
+			case 33: return ash.currentFileHash;
+			case 34: return ash.currentBlockHash;
+			case 35: return ash.currentRowHash;
+			case 36: return ash.consumerGroupId;
+			case 37: return ash.remoteInstance;
+			case 38: return ash.serviceHash;
+			default: throw new IllegalArgumentException("Column: " + column);
+		}
+	}
+
+	/**
+	 * Sets the value of number column.
+	 *
+	 * @param ash the row
+	 * @param column the column
+	 * @param value the value
+	 */
+	private static void setNumber(ActiveSessionHistory ash, int column, double value){
+		switch (column){
+			case 0: ash.activeSessionHistoryId = (long) value; break;
+			case 1: ash.sampleId = (long) value; break;
+			case 2: ash.sessionId = (long) value; break;
+			case 3: ash.sessionSerial = value; break;
+			case 4: ash.flags = value; break;
+			case 5: ash.userId = (long) value; break;
+			case 6: ash.sqlChildNumber = value; break;
+			case 7: ash.sqlOPCode = value; break;
+			case 8: ash.forceMutchingSignature = value; break;
+			case 9: ash.topLevelSqlOpCode = value; break;
+			case 10: ash.sqlPlanHashValue = value; break;
+			case 11: ash.sqlPlanLineId = value; break;
+			case 12: ash.sqlExecId = value; break;
+			case 13: ash.sqlExecStart = value; break;
+			case 14: ash.plsqlEntryObjectId = value; break;
+			case 15: ash.plsqlEntrySubprogramId = value; break;
+			case 16: ash.plsqlObjectId = value; break;
+			case 17: ash.plsqlSubprogramId = value; break;
+			case 18: ash.qcInstanceId = value; break;
+			case 19: ash.qcSessionId = value; break;
+			case 20: ash.qcSessionSerial = value; break;
+			case 21: ash.eventId = value; break;
+			case 22: ash.eventHash = value; break;
+			case 23: ash.SEQHash = value; break;
+			case 24: ash.p1 = value; break;
+			case 25: ash.p2 = value; break;
+			case 26: ash.p3 = value; break;
+			case 27: ash.waitClassId = value; break;
+			case 28: ash.waitTime = value; break;
+			case 29: ash.timeWaited = value; break;
+			case 30: ash.blockingSession = value; break;
+			case 31: ash.blockingSessionSerialHash = value; break;
+			case 32: ash.currentObjHash = value; break;
+			case 33: ash.currentFileHash = value; break;
+			case 34: ash.currentBlockHash = value; break;
+			case 35: ash.currentRowHash = value; break;
+			case 36: ash.consumerGroupId = value; break;
+			case 37: ash.remoteInstance = value; break;
+			case 38: ash.serviceHash = value; break;
+			default: throw new IllegalArgumentException("Column: " + column);
+		}
+	}
+
+	/**
+	 * Replace repeated strings of row (all string columns except sqlId,
+	 * topLevelSqlId, xid, clientId) by shared values of dictionary.
+	 *
+	 * @param ash the row
+	 * @param stringDictionary the dictionary of strings
+	 */
+	public static void intern(ActiveSessionHistory ash, AshDictionary stringDictionary){
+		for (int c = 0; c < STRING_COLUMNS; c++){
+			if (!LOCAL_STRING_COLUMNS[c]){
+				setString(ash, c, stringDictionary.intern(getString(ash, c)));
+			}
+		}
+	}
+
+	/**
+	 * Gets the value of string column.
+	 *
+	 * @param ash the row
+	 * @param column the column
+	 * @return the value
+	 */
+	private static String getString(ActiveSessionHistory ash, int column){
+		switch (column){
+			case 0: return ash.sessionType;
+			case 1: return ash.sqlId;
+			case 2: return ash.topLevelSqlId;
+			case 3: return ash.sqlPlanOperation;
+			case 4: return ash.sqlPlanOptions;
+			case 5: return ash.event;
+			case 6: return ash.p1Text;
+			case 7: return ash.p2Text;
+			case 8: return ash.p3Text;
+			case 9: return ash.waitClass;
+			case 10: return ash.sessionState;
+			case 11: return ash.blockingSessionStatus;
+			case 12: return ash.xid;
+			case 13: return ash.inConnectionMgmt;
+			case 14: return ash.inParse;
+			case 15: return ash.inHardParse;
+			case 16: return ash.inSqlExecution;
+			case 17: return ash.inPlSqlExecution;
+			case 18: return ash.inPlSqlRpc;
+			case 19: return ash.inPlSqlCompilation;
+			case 20: return ash.inJavaExecution;
+			case 21: return ash.inBind;
+			case 22: return ash.inCursorClose;
+			case 23: return ash.program;
+			case 24: return ash.module;
+			case 25: return ash.action;
+			case 26: return ash.clientId;
+			default: throw new IllegalArgumentException("Column: " + column);
+		}
+	}
+
+	/**
+	 * Sets the value of string column.
+	 *
+	 * @param ash the row
+	 * @param column the column
+	 * @param value the value
+	 */
+	private static void setString(ActiveSessionHistory ash, int column, String value){
+		switch (column){
+			case 0: ash.sessionType = value; break;
+			case 1: ash.sqlId = value; break;
+			case 2: ash.topLevelSqlId = value; break;
+			case 3: ash.sqlPlanOperation = value; break;
+			case 4: ash.sqlPlanOptions = value; break;
+			case 5: ash.event = value; break;
+			case 6: ash.p1Text = value; break;
+			case 7: ash.p2Text = value; break;
+			case 8: ash.p3Text = value; break;
+			case 9: ash.waitClass = value; break;
+			case 10: ash.sessionState = value; break;
+			case 11: ash.blockingSessionStatus = value; break;
+			case 12: ash.xid = value; break;
+			case 13: ash.inConnectionMgmt = value; break;
+			case 14: ash.inParse = value; break;
+			case 15: ash.inHardParse = value; break;
+			case 16: ash.inSqlExecution = value; break;
+			case 17: ash.inPlSqlExecution = value; break;
+			case 18: ash.inPlSqlRpc = value; break;
+			case 19: ash.inPlSqlCompilation = value; break;
+			case 20: ash.inJavaExecution = value; break;
+			case 21: ash.inBind = value; break;
+			case 22: ash.inCursorClose = value; break;
+			case 23: ash.program = value; break;
+			case 24: ash.module = value; break;
+			case 25: ash.action = value; break;
+			case 26: ash.clientId = value; break;
+			default: throw new IllegalArgumentException("Column: " + column);
+		}
+	}
+}
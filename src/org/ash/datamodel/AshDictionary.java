@@ -0,0 +1,59 @@
+/*
+ *-------------------
+ * The AshDictionary.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.datamodel;
+
+import com.sleepycat.je.DatabaseException;
+
+/**
+ * The Interface AshDictionary.
+ *
+ * Ids of repeated string values of ASH rows, used by AshBlockCodec
+ * (see org.ash.database.AshStringDictionary).
+ */
+public interface AshDictionary {
+
+	/**
+	 * Gets the id of value, new value is added to dictionary.
+	 *
+	 * @param value the value
+	 * @return the id (0 for null)
+	 * @throws DatabaseException the database exception
+	 */
+	long getId(String value) throws DatabaseException;
+
+	/**
+	 * Gets the value by id.
+	 *
+	 * @param id the id
+	 * @return the value (null for 0)
+	 * @throws DatabaseException the database exception
+	 */
+	String getString(long id) throws DatabaseException;
+
+	/**
+	 * Gets the shared String object for value (value is added to dictionary).
+	 *
+	 * @param value the value
+	 * @return the shared value
+	 */
+	String intern(String value);
+}
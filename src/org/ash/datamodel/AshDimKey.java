@@ -0,0 +1,90 @@
+/*
+ *-------------------
+ * The AshDimKey.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.datamodel;
+
+import com.sleepycat.persist.model.KeyField;
+import com.sleepycat.persist.model.Persistent;
+
+/**
+ * The Class AshDimKey (value of dimension, sample time and sample id).
+ */
+@Persistent
+public
+class AshDimKey {
+
+    /** The dimension and value (see AshDimensionIndex). */
+    @KeyField(1)
+    String key;
+
+    /** The sample time. */
+    @KeyField(2)
+    double sampleTime;
+
+    /** The sample id. */
+    @KeyField(3)
+    long sampleId;
+
+    /**
+     * Instantiates a new ash dim key.
+     *
+     * @param key the dimension and value
+     * @param sampleTime the sample time
+     * @param sampleId the sample id
+     */
+    public AshDimKey(String key, double sampleTime, long sampleId) {
+        this.key = key;
+        this.sampleTime = sampleTime;
+        this.sampleId = sampleId;
+    }
+
+	/**
+	 * Instantiates a new ash dim key.
+	 */
+	private AshDimKey() {} // For bindings.
+
+    /**
+     * Gets the dimension and value.
+     *
+     * @return the key
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Gets the sample time.
+     *
+     * @return the sample time
+     */
+    public double getSampleTime() {
+        return sampleTime;
+    }
+
+    /**
+     * Gets the sample id.
+     *
+     * @return the sample id
+     */
+    public long getSampleId() {
+        return sampleId;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ *-------------------
+ * The AshPartition.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.datamodel;
+
+import com.sleepycat.persist.model.Entity;
+import com.sleepycat.persist.model.PrimaryKey;
+
+/**
+ * The Class AshPartition (one day of ActiveSessionHistory rows,
+ * stored in separate entity store, see AshPartitions).
+ */
+@Entity
+public
+class AshPartition {
+
+    /** The name of partition (yyyyMMdd). */
+    @PrimaryKey
+    String name;
+
+    /** The min sample id. */
+    long minSampleId;
+
+    /** The max sample id. */
+    long maxSampleId;
+
+    /** The min sample time. */
+    double minSampleTime;
+
+    /** The max sample time. */
+    double maxSampleTime;
+
+    /**
+     * Instantiates a new ash partition.
+     *
+     * @param name the name
+     * @param sampleId the first sample id
+     * @param sampleTime the first sample time
+     */
+    public AshPartition(String name, long sampleId, double sampleTime) {
+        this.name = name;
+        this.minSampleId = sampleId;
+        this.maxSampleId = sampleId;
+        this.minSampleTime = sampleTime;
+        this.maxSampleTime = sampleTime;
+    }
+
+	/**
+	 * Instantiates a new ash partition.
+	 */
+	private AshPartition() {} // For bindings.
+
+    /**
+     * Add sample to range of partition.
+     *
+     * @param sampleId the sample id
+     * @param sampleTime the sample time
+     * @return true, if range is changed
+     */
+    public boolean addSample(long sampleId, double sampleTime) {
+        boolean isChanged = false;
+        if (sampleId < minSampleId) {
+            minSampleId = sampleId;
+            isChanged = true;
+        }
+        if (sampleId > maxSampleId) {
+            maxSampleId = sampleId;
+            isChanged = true;
+        }
+        if (sampleTime < minSampleTime) {
+            minSampleTime = sampleTime;
+            isChanged = true;
+        }
+        if (sampleTime > maxSampleTime) {
+            maxSampleTime = sampleTime;
+            isChanged = true;
+        }
+        return isChanged;
+    }
+
+    /**
+     * Gets the name.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the min sample id.
+     *
+     * @return the min sample id
+     */
+    public long getMinSampleId() {
+        return minSampleId;
+    }
+
+    /**
+     * Gets the max sample id.
+     *
+     * @return the max sample id
+     */
+    public long getMaxSampleId() {
+        return maxSampleId;
+    }
+
+    /**
+     * Gets the min sample time.
+     *
+     * @return the min sample time
+     */
+    public double getMinSampleTime() {
+        return minSampleTime;
+    }
+
+    /**
+     * Gets the max sample time.
+     *
+     * @return the max sample time
+     */
+    public double getMaxSampleTime() {
+        return maxSampleTime;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ *-------------------
+ * The AshStringId.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.datamodel;
+
+import com.sleepycat.persist.model.Entity;
+import com.sleepycat.persist.model.PrimaryKey;
+import com.sleepycat.persist.model.SecondaryKey;
+import static com.sleepycat.persist.model.Relationship.ONE_TO_ONE;
+
+/**
+ * The Class AshStringId (dictionary of repeated string values).
+ */
+@Entity
+public
+class AshStringId {
+
+    /** The id. */
+    @PrimaryKey(sequence="AshStringId")
+    long id;
+
+    /** The value. */
+    @SecondaryKey(relate = ONE_TO_ONE)
+    String value;
+
+    /**
+     * Instantiates a new ash string id.
+     *
+     * @param id the id
+     * @param value the value
+     */
+    public AshStringId(long id, String value) {
+        this.id = id;
+        this.value = value;
+    }
+
+	/**
+	 * Instantiates a new ash string id.
+	 */
+	private AshStringId() {} // For bindings.
+
+    /**
+     * Gets the id.
+     *
+     * @return the id
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Gets the value.
+     *
+     * @return the value
+     */
+    public String getValue() {
+        return value;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ *-------------------
+ * The AshSumKey.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.datamodel;
+
+import com.sleepycat.persist.model.KeyField;
+import com.sleepycat.persist.model.Persistent;
+
+/**
+ * The Class AshSumKey (level of series and begin of bucket).
+ */
+@Persistent
+public
+class AshSumKey {
+
+    /** The level (1 - 1 min, 2 - 5 min, 3 - 1 hour, 4 - 1 day). */
+    @KeyField(1)
+    int level;
+
+    /** The begin time of bucket. */
+    @KeyField(2)
+    double sampleTime;
+
+    /**
+     * Instantiates a new ash sum key.
+     *
+     * @param level the level
+     * @param sampleTime the begin time of bucket
+     */
+    public AshSumKey(int level, double sampleTime) {
+        this.level = level;
+        this.sampleTime = sampleTime;
+    }
+
+	/**
+	 * Instantiates a new ash sum key.
+	 */
+	private AshSumKey() {} // For bindings.
+
+    /**
+     * Gets the level.
+     *
+     * @return the level
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Gets the begin time of bucket.
+     *
+     * @return the sample time
+     */
+    public double getSampleTime() {
+        return sampleTime;
+    }
+}
@@ -0,0 +1,663 @@
+/*
+ *-------------------
+ * The GroupCounters.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.datatemp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.ash.util.TopK;
+import org.ash.util.Utils;
+
+/**
+ * The Class GroupCounters.
+ *
+ * Counters of ASH rows by key (sql id, session) without boxing of values:
+ * counters of wait classes are kept in one double array by index of key,
+ * keys and events are found by open addressing maps. The map of maps
+ * (key -> "0".."13", COUNT, events, attributes) for Top SQL/Top sessions
+ * is built from counters on demand.
+ */
+public class GroupCounters {
+
+	/** The index of cpu counter ("13"). */
+	public static final int CPU = 13;
+
+	/** The index of count of rows ("COUNT"). */
+	public static final int COUNT = 14;
+
+	/** The index of count of all rows, idle too (not in map). */
+	public static final int ROWS = 15;
+
+	/** The count of counters of one key. */
+	public static final int WIDTH = 16;
+
+	/** The names of counters in map (as before: "0".."13" without idle "6"). */
+	private static final String[] NAMES = {"0", "1", "2", "3", "4", "5", null,
+		"7", "8", "9", "10", "11", "12", "13", "COUNT", null};
+
+	/** The index of key by key. */
+	private StringIntMap keyIndex = new StringIntMap();
+
+	/** The keys by index. */
+	private List<String> keys = new ArrayList<String>();
+
+	/** The attributes by index of key (sql type, username...). */
+	private List<HashMap<String, Object>> attributes = new ArrayList<HashMap<String, Object>>();
+
+	/** The counters, WIDTH values for each key. */
+	private double[] counters = new double[16 * WIDTH];
+
+	/** The sum of counters of all keys. */
+	private double[] totals = new double[WIDTH];
+
+	/** The index of event by event name. */
+	private StringIntMap eventIndex = new StringIntMap();
+
+	/** The event names by index. */
+	private List<String> events = new ArrayList<String>();
+
+	/** The counts of events by index of key and index of event. */
+	private LongDoubleMap eventCounts = new LongDoubleMap();
+
+	/** The last key (rows of one key come in a row). */
+	private String lastKey = null;
+
+	/** The index of last key. */
+	private int lastIndex = -1;
+
+	/** The map for Top SQL/Top sessions, null if counters are changed. */
+	private HashMap<String, HashMap<String, Object>> map = null;
+
+	/**
+	 * Gets the index of key, new key is added with zero counters.
+	 *
+	 * @param key the key
+	 * @return the index of key
+	 */
+	public int addKey(String key) {
+		int index = keyIndex.get(key);
+		if (index == -1) {
+			index = keys.size();
+			keyIndex.put(key, index);
+			keys.add(key);
+			attributes.add(new HashMap<String, Object>());
+			if ((index + 1) * WIDTH > counters.length) {
+				double[] tmp = new double[counters.length * 2];
+				System.arraycopy(counters, 0, tmp, 0, counters.length);
+				counters = tmp;
+			}
+			map = null;
+		}
+		return index;
+	}
+
+	/**
+	 * Gets the index of key.
+	 *
+	 * @param key the key
+	 * @return the index of key, -1 if key is not added
+	 */
+	public int getKey(String key) {
+		if (key == lastKey) {
+			return lastIndex;
+		}
+		int index = keyIndex.get(key);
+		if (index != -1) {
+			lastKey = key;
+			lastIndex = index;
+		}
+		return index;
+	}
+
+	/**
+	 * Set attribute of key.
+	 *
+	 * @param index the index of key
+	 * @param name the name
+	 * @param value the value
+	 */
+	public void setAttribute(int index, String name, Object value) {
+		attributes.get(index).put(name, value);
+		if (map != null) {
+			map.get(keys.get(index)).put(name, value);
+		}
+	}
+
+	/**
+	 * Add row to counters of wait class (or cpu) and count of rows.
+	 *
+	 * @param index the index of key
+	 * @param waitTime the wait time (not 0 - on cpu)
+	 * @param waitClassId the wait class id
+	 * @param count the count
+	 */
+	public void add(int index, double waitTime, double waitClassId, double count) {
+		int offset = index * WIDTH;
+
+		counters[offset + ROWS] += count;
+		totals[ROWS] += count;
+
+		if (waitTime != 0) { //Session State = ON_CPU
+			counters[offset + CPU] += count;
+			counters[offset + COUNT] += count;
+			totals[CPU] += count;
+			totals[COUNT] += count;
+		}
+
+		int waitClass = Utils.getWaitClassIndex(waitClassId);
+		if (waitClass != -1) {
+			counters[offset + waitClass] += count;
+			counters[offset + COUNT] += count;
+			totals[waitClass] += count;
+			totals[COUNT] += count;
+		}
+		map = null;
+	}
+
+	/**
+	 * Add count of event.
+	 *
+	 * @param index the index of key
+	 * @param event the event name
+	 * @param count the count
+	 * @return true, if event is new for all keys
+	 */
+	public boolean addEvent(int index, String event, double count) {
+		boolean isNew = false;
+		int eventId = eventIndex.get(event);
+		if (eventId == -1) {
+			eventId = events.size();
+			eventIndex.put(event, eventId);
+			events.add(event);
+			isNew = true;
+		}
+		eventCounts.add(((long) index << 32) | eventId, count);
+		map = null;
+		return isNew;
+	}
+
+	/**
+	 * Add counters and events of other counters multiplied by sign
+	 * (1 - add, -1 - subtract). Keys without rows in other counters
+	 * are skipped, new keys are added with attributes of other counters.
+	 *
+	 * @param other the other counters
+	 * @param sign the sign
+	 * @return the index of key by index of key of other counters, -1 if skipped
+	 */
+	public int[] addAll(GroupCounters other, double sign) {
+		int[] indexes = new int[other.size()];
+		for (int otherIndex = 0; otherIndex < indexes.length; otherIndex++) {
+			int otherOffset = otherIndex * WIDTH;
+			if (other.counters[otherOffset + ROWS] == 0) {
+				indexes[otherIndex] = -1;
+				continue;
+			}
+			String key = other.keys.get(otherIndex);
+			int index = keyIndex.get(key);
+			if (index == -1) {
+				index = addKey(key);
+				attributes.get(index).putAll(other.attributes.get(otherIndex));
+			}
+			int offset = index * WIDTH;
+			for (int i = 0; i < WIDTH; i++) {
+				counters[offset + i] += sign * other.counters[otherOffset + i];
+			}
+			indexes[otherIndex] = index;
+		}
+		for (int i = 0; i < WIDTH; i++) {
+			totals[i] += sign * other.totals[i];
+		}
+
+		long[] eventKeys = other.eventCounts.keys();
+		for (int i = 0; i < eventKeys.length; i++) {
+			int index = indexes[(int) (eventKeys[i] >>> 32)];
+			double count = other.eventCounts.get(eventKeys[i]);
+			if (index != -1 && count != 0) {
+				addEvent(index, other.events.get((int) eventKeys[i]), sign * count);
+			}
+		}
+		map = null;
+		return indexes;
+	}
+
+	/**
+	 * Gets the count of keys with rows (keys of subtracted rows
+	 * are kept with zero counters).
+	 *
+	 * @return the count of keys with rows
+	 */
+	public int sizeWithRows() {
+		int out = 0;
+		for (int index = 0; index < keys.size(); index++) {
+			if (counters[index * WIDTH + ROWS] != 0) {
+				out++;
+			}
+		}
+		return out;
+	}
+
+	/**
+	 * Gets the sum of counter for all keys.
+	 *
+	 * @param counter the index of counter (wait class, CPU, COUNT)
+	 * @return the sum
+	 */
+	public double getTotal(int counter) {
+		return totals[counter];
+	}
+
+	/**
+	 * Gets the counter of key.
+	 *
+	 * @param index the index of key
+	 * @param counter the index of counter (wait class, CPU, COUNT)
+	 * @return the value
+	 */
+	public double getCounter(int index, int counter) {
+		return counters[index * WIDTH + counter];
+	}
+
+	/**
+	 * Gets the count of keys.
+	 *
+	 * @return the count of keys
+	 */
+	public int size() {
+		return keys.size();
+	}
+
+	/**
+	 * Gets the map key -> counters ("0".."13", COUNT), events and attributes.
+	 *
+	 * @return the map
+	 */
+	public HashMap<String, HashMap<String, Object>> getMap() {
+		if (map != null) {
+			return map;
+		}
+
+		map = new HashMap<String, HashMap<String, Object>>();
+		for (int index = 0; index < keys.size(); index++) {
+			map.put(keys.get(index), newValues(index));
+		}
+
+		long[] eventKeys = eventCounts.keys();
+		for (int i = 0; i < eventKeys.length; i++) {
+			int index = (int) (eventKeys[i] >>> 32);
+			int eventId = (int) eventKeys[i];
+			map.get(keys.get(index)).put(events.get(eventId),
+					eventCounts.get(eventKeys[i]));
+		}
+		return map;
+	}
+
+	/**
+	 * Gets the top k keys by counter, values as in getMap.
+	 * Only maps of top keys are built.
+	 *
+	 * @param counter the index of counter (wait class, CPU, COUNT)
+	 * @param k the max count of keys
+	 * @return the LinkedHashMap in desc order of counter
+	 */
+	public LinkedHashMap<String, HashMap<String, Object>> getTop(int counter, int k) {
+		int[] top = TopK.select(counters, counter, WIDTH, keys, k);
+
+		LinkedHashMap<String, HashMap<String, Object>> out =
+			new LinkedHashMap<String, HashMap<String, Object>>();
+		for (int j = 0; j < top.length; j++) {
+			int index = top[j];
+			HashMap<String, Object> values;
+			if (map != null) {
+				values = map.get(keys.get(index));
+			} else {
+				values = newValues(index);
+				for (int eventId = 0; eventId < events.size(); eventId++) {
+					long eventKey = ((long) index << 32) | eventId;
+					if (eventCounts.containsKey(eventKey)) {
+						values.put(events.get(eventId), eventCounts.get(eventKey));
+					}
+				}
+			}
+			out.put(keys.get(index), values);
+		}
+		return out;
+	}
+
+	/**
+	 * New map of attributes and counters of key (without events).
+	 *
+	 * @param index the index of key
+	 * @return the map
+	 */
+	private HashMap<String, Object> newValues(int index) {
+		HashMap<String, Object> values =
+			new HashMap<String, Object>(attributes.get(index));
+		int offset = index * WIDTH;
+		for (int i = 0; i < WIDTH; i++) {
+			if (NAMES[i] != null) {
+				values.put(NAMES[i], counters[offset + i]);
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * Clear.
+	 */
+	public void clear() {
+		keyIndex.clear();
+		keys.clear();
+		attributes.clear();
+		counters = new double[16 * WIDTH];
+		totals = new double[WIDTH];
+		eventIndex.clear();
+		events.clear();
+		eventCounts.clear();
+		lastKey = null;
+		lastIndex = -1;
+		map = null;
+	}
+
+	/**
+	 * Open addressing map String -> int (linear probing).
+	 */
+	static class StringIntMap {
+
+		/** The keys. */
+		private String[] keys = new String[16];
+
+		/** The values. */
+		private int[] values = new int[16];
+
+		/** The size. */
+		private int size = 0;
+
+		/**
+		 * Gets the value.
+		 *
+		 * @param key the key
+		 * @return the value, -1 if key is not found
+		 */
+		int get(String key) {
+			int mask = keys.length - 1;
+			int i = hash(key.hashCode()) & mask;
+			while (keys[i] != null) {
+				if (keys[i].equals(key)) {
+					return values[i];
+				}
+				i = (i + 1) & mask;
+			}
+			return -1;
+		}
+
+		/**
+		 * Put new key.
+		 *
+		 * @param key the key
+		 * @param value the value
+		 */
+		void put(String key, int value) {
+			if ((size + 1) * 2 > keys.length) {
+				resize();
+			}
+			int mask = keys.length - 1;
+			int i = hash(key.hashCode()) & mask;
+			while (keys[i] != null) {
+				if (keys[i].equals(key)) {
+					values[i] = value;
+					return;
+				}
+				i = (i + 1) & mask;
+			}
+			keys[i] = key;
+			values[i] = value;
+			size++;
+		}
+
+		/**
+		 * Clear.
+		 */
+		void clear() {
+			keys = new String[16];
+			values = new int[16];
+			size = 0;
+		}
+
+		/**
+		 * Double capacity.
+		 */
+		private void resize() {
+			String[] oldKeys = keys;
+			int[] oldValues = values;
+			keys = new String[oldKeys.length * 2];
+			values = new int[oldKeys.length * 2];
+			size = 0;
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != null) {
+					put(oldKeys[i], oldValues[i]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Open addressing map long -> double (linear probing), values are added.
+	 */
+	static class LongDoubleMap {
+
+		/** The marker of free slot. */
+		private static final long FREE = Long.MIN_VALUE;
+
+		/** The keys. */
+		private long[] keys = newKeys(16);
+
+		/** The values. */
+		private double[] values = new double[16];
+
+		/** The size. */
+		private int size = 0;
+
+		/**
+		 * Add value to value of key.
+		 *
+		 * @param key the key
+		 * @param value the value
+		 */
+		void add(long key, double value) {
+			if ((size + 1) * 2 > keys.length) {
+				resize();
+			}
+			int i = find(key);
+			if (keys[i] == FREE) {
+				keys[i] = key;
+				size++;
+			}
+			values[i] += value;
+		}
+
+		/**
+		 * Gets the value.
+		 *
+		 * @param key the key
+		 * @return the value (0 if key is not found)
+		 */
+		double get(long key) {
+			int i = find(key);
+			return keys[i] == FREE ? 0.0 : values[i];
+		}
+
+		/**
+		 * Checks if key is found.
+		 *
+		 * @param key the key
+		 * @return true, if key is found
+		 */
+		boolean containsKey(long key) {
+			return keys[find(key)] != FREE;
+		}
+
+		/**
+		 * Gets the keys.
+		 *
+		 * @return the keys
+		 */
+		long[] keys() {
+			long[] out = new long[size];
+			int j = 0;
+			for (int i = 0; i < keys.length; i++) {
+				if (keys[i] != FREE) {
+					out[j++] = keys[i];
+				}
+			}
+			return out;
+		}
+
+		/**
+		 * Clear.
+		 */
+		void clear() {
+			keys = newKeys(16);
+			values = new double[16];
+			size = 0;
+		}
+
+		/**
+		 * Find slot of key (or free slot for key).
+		 *
+		 * @param key the key
+		 * @return the slot
+		 */
+		private int find(long key) {
+			int mask = keys.length - 1;
+			int i = hash((int) (key ^ (key >>> 32)) * 31 + (int) key) & mask;
+			while (keys[i] != FREE && keys[i] != key) {
+				i = (i + 1) & mask;
+			}
+			return i;
+		}
+
+		/**
+		 * Double capacity.
+		 */
+		private void resize() {
+			long[] oldKeys = keys;
+			double[] oldValues = values;
+			keys = newKeys(oldKeys.length * 2);
+			values = new double[oldKeys.length * 2];
+			size = 0;
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != FREE) {
+					add(oldKeys[i], oldValues[i]);
+				}
+			}
+		}
+
+		/**
+		 * New array of free keys.
+		 *
+		 * @param length the length
+		 * @return the array
+		 */
+		private static long[] newKeys(int length) {
+			long[] out = new long[length];
+			Arrays.fill(out, FREE);
+			return out;
+		}
+	}
+
+	/**
+	 * Open addressing set of double values, values are kept in order of add.
+	 */
+	static class DoubleSet {
+
+		/** The table of values (by hash). */
+		private double[] table = new double[8];
+
+		/** Is slot of table used. */
+		private boolean[] used = new boolean[8];
+
+		/** The values in order of add. */
+		private List<Double> list = new ArrayList<Double>();
+
+		/**
+		 * Add value.
+		 *
+		 * @param value the value
+		 * @return true, if value is new
+		 */
+		boolean add(double value) {
+			if ((list.size() + 1) * 2 > table.length) {
+				resize();
+			}
+			int mask = table.length - 1;
+			long bits = Double.doubleToLongBits(value);
+			int i = hash((int) (bits ^ (bits >>> 32))) & mask;
+			while (used[i]) {
+				if (table[i] == value) {
+					return false;
+				}
+				i = (i + 1) & mask;
+			}
+			table[i] = value;
+			used[i] = true;
+			list.add(value);
+			return true;
+		}
+
+		/**
+		 * Gets the values in order of add.
+		 *
+		 * @return the list
+		 */
+		List<Double> getList() {
+			return list;
+		}
+
+		/**
+		 * Double capacity.
+		 */
+		private void resize() {
+			table = new double[table.length * 2];
+			used = new boolean[used.length * 2];
+			List<Double> oldList = list;
+			list = new ArrayList<Double>();
+			for (int i = 0; i < oldList.size(); i++) {
+				add(oldList.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Spread bits of hash code.
+	 *
+	 * @param h the hash code
+	 * @return the hash
+	 */
+	private static int hash(int h) {
+		h ^= (h >>> 20) ^ (h >>> 12);
+		return h ^ (h >>> 7) ^ (h >>> 4);
+	}
+}
@@ -25,16 +25,19 @@ import org.ash.util.Options;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 
 /**
  * The Class SqlsTemp.
+ * 
+ * Counters by sql id are kept in GroupCounters (primitive arrays),
+ * map of maps for Top SQL is built on getMainSqls.
  */
 public class SqlsTemp {
 	
-	/** The main sqls. */
-	private HashMap<String, HashMap<String,Object>> mainSqls;
+	/** The counters by sql id. */
+	private GroupCounters counters;
 	
 	/** The SQL_TEXT. */
 	private String SQL_TEXT = "SQL_TEXT";
@@ -42,110 +45,20 @@ public class SqlsTemp {
 	/** The SQL_TYPE. */
 	private String SQL_TYPE = "SQL_TYPE";
 	
-	/** The other0. */
-	private String other0 = "0";
-	
-	/** The application1. */
-	private String application1 = "1";
-	
-	/** The configuration2. */
-	private String configuration2 = "2";
-	
-	/** The administrative3. */
-	private String administrative3 = "3";
-	
-	/** The concurrency4. */
-	private String concurrency4 = "4";
-	
-	/** The commit5. */
-	private String commit5 = "5";
-	
-	/** The network7. */
-	private String network7 = "7";
-	
-	/** The user i o8. */
-	private String userIO8 = "8";
-	
-	/** The system i o9. */
-	private String systemIO9 = "9";
-	
-	/** The scheduler10. */
-	private String scheduler10 = "10";
-	
-	/** The cluster11. */
-	private String cluster11 = "11";
-	
-	/** The queueing12. */
-	private String queueing12 = "12";	
-	
-	/** The cpu. */
-	private String cpu  = "13";
-	
-	/** The COUNT. */
-	private String COUNT  = "COUNT";
-	
-	/** The SQL PLAN. */
-	private String SQLPLAN  = "SQLPLAN";
-	
-	/** The _other0_sum. */
-	private double _other0_sum = 0;
-	
-	/** The _application1_sum. */
-	private double _application1_sum = 0;
-	
-	/** The _configuration2_sum. */
-	private double _configuration2_sum = 0;
-	
-	/** The _administrative3_sum. */
-	private double _administrative3_sum = 0;
-	
-	/** The _concurrency4_sum. */
-	private double _concurrency4_sum = 0;
-	
-	/** The _commit5_sum. */
-	private double _commit5_sum = 0;
-	
-	/** The _idle6_sum. */
-	private double _idle6_sum = 0;
-	
-	/** The _network7_sum. */
-	private double _network7_sum = 0;
-	
-	/** The _user i o8_sum. */
-	private double _userIO8_sum = 0;
-	
-	/** The _system i o9_sum. */
-	private double _systemIO9_sum = 0;
-	
-	/** The _scheduler10_sum. */
-	private double _scheduler10_sum = 0;
-	
-	/** The _cluster11_sum. */
-	private double _cluster11_sum = 0;
-	
-	/** The _queueing12_sum. */
-	private double _queueing12_sum = 0;
-	
-	/** The _cpu_sum. */
-	private double _cpu_sum = 0;	
-	
 	/** The _sum. */
 	private double _sum = 0;
 	
-	/** The count of sql rows */
-	private double _countSql = 0;
-	
 	/** The event list. */
 	private List eventList = new ArrayList();
 	
-	/** The sql hash value list. */
-	private HashMap<String, List<Double>> sqlHashValueHashMap = new HashMap<String, List<Double>>();
+	/** The sql plan hash values by index of sql id. */
+	private List<GroupCounters.DoubleSet> sqlHashValues = new ArrayList<GroupCounters.DoubleSet>();
 	
 	/**
 	 * Instantiates a new sqls temp.
 	 */
 	public SqlsTemp(){
-		mainSqls = new HashMap<String, HashMap<String, Object>>();
+		counters = new GroupCounters();
 	}
 	
 	/**
@@ -154,31 +67,15 @@ public class SqlsTemp {
 	 * @param sqlId the new sql_id
 	 */ 
 	public void setSqlId(String sqlId){
-		if (!mainSqls.containsKey(sqlId)){
+		if (counters.getKey(sqlId) == -1){
 			// Add SQL_ID, init storage for rows
-			mainSqls.put(sqlId, new HashMap<String, Object>());
-			// Save 0 values for group event 
-			mainSqls.get(sqlId).put(other0, 0.0);
-			mainSqls.get(sqlId).put(application1, 0.0);
-			mainSqls.get(sqlId).put(configuration2, 0.0);
-			mainSqls.get(sqlId).put(administrative3, 0.0);
-			mainSqls.get(sqlId).put(concurrency4, 0.0);
-			mainSqls.get(sqlId).put(commit5, 0.0);
-			mainSqls.get(sqlId).put(network7, 0.0);
-			mainSqls.get(sqlId).put(userIO8, 0.0);
-			mainSqls.get(sqlId).put(systemIO9, 0.0);
-			mainSqls.get(sqlId).put(scheduler10, 0.0);
-			mainSqls.get(sqlId).put(cluster11, 0.0);
-			mainSqls.get(sqlId).put(queueing12, 0.0);
-			mainSqls.get(sqlId).put(cpu, 0.0);
-			// Set count to 0
-			mainSqls.get(sqlId).put(COUNT, 0.0);
+			int index = counters.addKey(sqlId);
 			// Set SQL_TYPE to UNKNOWN
-			mainSqls.get(sqlId).put(SQL_TYPE, 
+			counters.setAttribute(index, SQL_TYPE, 
 					Options.getInstance().getResource(
 							Options.getInstance().getResource("0")));
-			// Initialize list for sqlid
-			sqlHashValueHashMap.put(sqlId, new ArrayList<Double>());
+			// Initialize set for sqlid
+			sqlHashValues.add(new GroupCounters.DoubleSet());
 		}
 	}
 	
@@ -189,19 +86,9 @@ public class SqlsTemp {
 	 * @param sqlPlanHashValue
 	 */
 	public void saveSqlPlanHashValue(String sqlId, double sqlPlanHashValue){
-		//System.out.println("Add to temp object1 "+sqlId+"  "+sqlPlanHashValue);
-		List<Double> list = sqlHashValueHashMap.get(sqlId); 
-		Iterator<Double> listIter = list.iterator();
-		boolean isExist = false;
-		while (listIter.hasNext() ){
-			if (listIter.next() == sqlPlanHashValue){
-				isExist =  true;
-			}
+		if (sqlPlanHashValue != 0.0){
+			sqlHashValues.get(counters.getKey(sqlId)).add(sqlPlanHashValue);
 		}
-		if(!isExist && sqlPlanHashValue != 0.0) 
-			{list.add(sqlPlanHashValue);
-			//System.out.println("Add to temp object2 "+sqlId+"  "+sqlPlanHashValue);
-			}
 	}
 	
 	/**
@@ -211,12 +98,15 @@ public class SqlsTemp {
 	 * @return
 	 */
 	public List<Double> getSqlPlanHashValue(String sqlId){
-		List<Double> list = sqlHashValueHashMap.get(sqlId);
-			return list;
+		int index = counters.getKey(sqlId);
+		if (index == -1){
+			return null;
+		}
+		return sqlHashValues.get(index).getList();
 	}
 
 	public void putSqlType(String sqlId, String sqlType){
-		mainSqls.get(sqlId).put(SQL_TYPE, sqlType);
+		counters.setAttribute(counters.getKey(sqlId), SQL_TYPE, sqlType);
 	}
 	
 	/**
@@ -233,100 +123,7 @@ public class SqlsTemp {
 			double waitTime,
 			double waitClassId,
 			double _count){
-		
-		boolean isCountWaitEvent = false;
-		
-		if (waitTime!=0){ //Session State = ON_CPU
-			double _cpu = (Double)mainSqls.get(sqlId).get(cpu);
-			this.set_cpu_sum(_count);
-    		mainSqls.get(sqlId).put(cpu, _cpu + _count);
-    		
-    		/** Set count of sql rows */
-    		double _counts = (Double)mainSqls.get(sqlId).get(COUNT);
-    		this.setCountSql_sum(_count);
-    		mainSqls.get(sqlId).put(COUNT, _counts + _count);
-    	} 
-			
-		if (waitClassId == 1740759767.0){ //User IO 8
-    			double _userIO8 = (Double)mainSqls.get(sqlId).get(userIO8);
-    			this.set_userIO8_sum(_count);
-    			mainSqls.get(sqlId).put(userIO8, _userIO8 + _count);
-    			isCountWaitEvent = true;
-    		} 
-    		else if (waitClassId == 4108307767.0){//System IO 9
-    			double _systemIO9 = (Double)mainSqls.get(sqlId).get(systemIO9);
-    			this.set_systemIO9_sum(_count);
-    			mainSqls.get(sqlId).put(systemIO9, _systemIO9 + _count);
-    			isCountWaitEvent = true;
-    		}
-    		else if (waitClassId == 3875070507.0){//Concurrency 4
-    			double _concurrency4 = (Double)mainSqls.get(sqlId).get(concurrency4);
-    			this.set_concurrency4_sum(_count);
-    			mainSqls.get(sqlId).put(concurrency4, _concurrency4 + _count);
-    			isCountWaitEvent = true;
-    		}
-    		else if (waitClassId == 2000153315.0){//Network 7
-    			double _network7 = (Double)mainSqls.get(sqlId).get(network7);
-    			this.set_network7_sum(_count);
-    			mainSqls.get(sqlId).put(network7, _network7 + _count);
-    			isCountWaitEvent = true;
-    		}
-    		else if (waitClassId == 3386400367.0){//Commit 5
-    			double _commit5 = (Double)mainSqls.get(sqlId).get(commit5);
-    			this.set_commit5_sum(_count);
-    			mainSqls.get(sqlId).put(commit5, _commit5 + _count);
-    			isCountWaitEvent = true;
-    		}
-    		else if (waitClassId == 4217450380.0){//Application 1
-    			double _application1 = (Double)mainSqls.get(sqlId).get(application1);
-    			this.set_application1_sum(_count);
-    			mainSqls.get(sqlId).put(application1, _application1 + _count);
-    			isCountWaitEvent = true;
-    		}
-    		else if (waitClassId == 4166625743.0){//Administrative 3
-    			double _administrative3 = (Double)mainSqls.get(sqlId).get(administrative3);
-    			this.set_administrative3_sum(_count);
-    			mainSqls.get(sqlId).put(administrative3, _administrative3 + _count);
-    			isCountWaitEvent = true;
-    		}
-    		else if (waitClassId == 3290255840.0){//Configuration 2
-    			double _configuration2 = (Double)mainSqls.get(sqlId).get(configuration2);
-    			this.set_configuration2_sum(_count);
-    			mainSqls.get(sqlId).put(configuration2, _configuration2 + _count);
-    			isCountWaitEvent = true;
-    		}
-    		else if (waitClassId == 1893977003.0){//Other 0
-    			double _other0 = (Double)mainSqls.get(sqlId).get(other0);
-    			this.set_other0_sum(_count);
-    			mainSqls.get(sqlId).put(other0, _other0 + _count);
-    			isCountWaitEvent = true;
-    		}
-    		else if (waitClassId == 2396326234.0){//Scheduler 10
-    			double _scheduler10 = (Double)mainSqls.get(sqlId).get(scheduler10);
-    			this.set_scheduler10_sum(_count);
-    			mainSqls.get(sqlId).put(scheduler10, _scheduler10 + _count);
-    			isCountWaitEvent = true;
-    		}
-    		else if (waitClassId == 3871361733.0){//Cluster 11
-    			double _cluster11 = (Double)mainSqls.get(sqlId).get(cluster11);
-    			this.set_cluster11_sum(_count);
-    			mainSqls.get(sqlId).put(cluster11, _cluster11 + _count);
-    			isCountWaitEvent = true;
-    		}
-    		else if (waitClassId == 644977587.0){//Queueing 12
-    			double _queueing12 = (Double)mainSqls.get(sqlId).get(queueing12);
-    			this.set_queueing12_sum(_count);
-    			mainSqls.get(sqlId).put(queueing12, _queueing12 + _count);
-    			isCountWaitEvent = true;
-    		}
-    	
-		/** Set count of sql rows */
-		if (isCountWaitEvent){
-			double _counts = (Double)mainSqls.get(sqlId).get(COUNT);
-			this.setCountSql_sum(_count);
-
-			mainSqls.get(sqlId).put(COUNT, _counts + _count);
-		}
+		counters.add(counters.getKey(sqlId), waitTime, waitClassId, _count);
 	}
 	
 	/**
@@ -345,15 +142,8 @@ public class SqlsTemp {
 			double waitClassId,
 			String waitEvent,
 			double _count){
-				
-		if (!mainSqls.get(sqlId).containsKey(waitEvent)){
-			mainSqls.get(sqlId).put(waitEvent, _count);
-			if (!eventList.contains(waitEvent)){
-				eventList.add(waitEvent);
-			}
-		} else {
-			double _eventCount = (Double)mainSqls.get(sqlId).get(waitEvent);
-			mainSqls.get(sqlId).put(waitEvent,_eventCount + _count);
+		if (counters.addEvent(counters.getKey(sqlId), waitEvent, _count)){
+			eventList.add(waitEvent);
 		}
 	}
 	
@@ -370,25 +160,47 @@ public class SqlsTemp {
 	 * Clear.
 	 */
 	public void clear(){
-		mainSqls.clear();
+		counters.clear();
 		eventList.clear();
-		sqlHashValueHashMap.clear();
-		
-		_other0_sum = 0;
-		_application1_sum = 0;
-		_configuration2_sum = 0;
-		_administrative3_sum = 0;
-		_concurrency4_sum = 0;
-		_commit5_sum = 0;
-		_idle6_sum = 0;
-		_network7_sum = 0;
-		_userIO8_sum = 0;
-		_systemIO9_sum = 0;
-		_scheduler10_sum = 0;
-		_cluster11_sum = 0;
-		_queueing12_sum = 0;
-		_cpu_sum = 0;
-		_countSql = 0;
+		sqlHashValues.clear();
+		_sum = 0;
+	}
+	
+	/**
+	 * Add counters of other sqls temp multiplied by sign (1 - add, -1 - subtract).
+	 * Sql ids without rows in other sqls temp are skipped.
+	 * 
+	 * @param other the other sqls temp
+	 * @param sign the sign
+	 */
+	public void addAll(SqlsTemp other, double sign){
+		int[] indexes = counters.addAll(other.counters, sign);
+		while (sqlHashValues.size() < counters.size()){
+			sqlHashValues.add(new GroupCounters.DoubleSet());
+		}
+		// Plan hash values are only added, they are used to load plans
+		for (int i = 0; i < indexes.length; i++){
+			if (indexes[i] != -1){
+				List<Double> planHashValues = other.sqlHashValues.get(i).getList();
+				for (int j = 0; j < planHashValues.size(); j++){
+					sqlHashValues.get(indexes[i]).add(planHashValues.get(j));
+				}
+			}
+		}
+		for (int i = 0; i < other.eventList.size(); i++){
+			if (!eventList.contains(other.eventList.get(i))){
+				eventList.add(other.eventList.get(i));
+			}
+		}
+	}
+	
+	/**
+	 * Gets the count of sql ids with rows.
+	 * 
+	 * @return the count of sql ids with rows
+	 */
+	public int getSizeWithRows() {
+		return counters.sizeWithRows();
 	}
 	
 	/**
@@ -397,16 +209,26 @@ public class SqlsTemp {
 	 * @return the main sqls
 	 */
 	public HashMap<String, HashMap<String, Object>> getMainSqls() {
-		return mainSqls;
+		return counters.getMap();
+	}
+
+	/**
+	 * Gets the top sqls by count.
+	 * 
+	 * @param k the max count of sqls
+	 * @return the top sqls in desc order
+	 */
+	public LinkedHashMap<String, HashMap<String, Object>> getTopSqls(int k) {
+		return counters.getTop(GroupCounters.COUNT, k);
 	}
 
 	/**
-	 * Sets the main sqls.
+	 * Gets the count of sql ids.
 	 * 
-	 * @param mainSqls the main sqls
+	 * @return the count of sql ids
 	 */
-	public void setMainSqls(HashMap<String, HashMap<String, Object>> mainSqls) {
-		this.mainSqls = mainSqls;
+	public int getSizeMainSqls() {
+		return counters.size();
 	}
 
 	/**
@@ -433,7 +255,7 @@ public class SqlsTemp {
 	 * @return the _other0_sum
 	 */
 	public double get_other0_sum() {
-		return _other0_sum;
+		return counters.getTotal(0);
 	}
 
 	/**
@@ -442,7 +264,7 @@ public class SqlsTemp {
 	 * @return the _application1_sum
 	 */
 	public double get_application1_sum() {
-		return _application1_sum;
+		return counters.getTotal(1);
 	}
 
 	/**
@@ -451,7 +273,7 @@ public class SqlsTemp {
 	 * @return the _configuration2_sum
 	 */
 	public double get_configuration2_sum() {
-		return _configuration2_sum;
+		return counters.getTotal(2);
 	}
 
 	/**
@@ -460,7 +282,7 @@ public class SqlsTemp {
 	 * @return the _administrative3_sum
 	 */
 	public double get_administrative3_sum() {
-		return _administrative3_sum;
+		return counters.getTotal(3);
 	}
 
 	/**
@@ -469,7 +291,7 @@ public class SqlsTemp {
 	 * @return the _concurrency4_sum
 	 */
 	public double get_concurrency4_sum() {
-		return _concurrency4_sum;
+		return counters.getTotal(4);
 	}
 
 	/**
@@ -478,7 +300,7 @@ public class SqlsTemp {
 	 * @return the _commit5_sum
 	 */
 	public double get_commit5_sum() {
-		return _commit5_sum;
+		return counters.getTotal(5);
 	}
 
 	/**
@@ -487,7 +309,7 @@ public class SqlsTemp {
 	 * @return the _idle6_sum
 	 */
 	public double get_idle6_sum() {
-		return _idle6_sum;
+		return counters.getTotal(6);
 	}
 
 	/**
@@ -496,7 +318,7 @@ public class SqlsTemp {
 	 * @return the _network7_sum
 	 */
 	public double get_network7_sum() {
-		return _network7_sum;
+		return counters.getTotal(7);
 	}
 
 	/**
@@ -505,7 +327,7 @@ public class SqlsTemp {
 	 * @return the _user i o8_sum
 	 */
 	public double get_userIO8_sum() {
-		return _userIO8_sum;
+		return counters.getTotal(8);
 	}
 
 	/**
@@ -514,7 +336,7 @@ public class SqlsTemp {
 	 * @return the _system i o9_sum
 	 */
 	public double get_systemIO9_sum() {
-		return _systemIO9_sum;
+		return counters.getTotal(9);
 	}
 
 	/**
@@ -523,7 +345,7 @@ public class SqlsTemp {
 	 * @return the _scheduler10_sum
 	 */
 	public double get_scheduler10_sum() {
-		return _scheduler10_sum;
+		return counters.getTotal(10);
 	}
 
 	/**
@@ -532,7 +354,7 @@ public class SqlsTemp {
 	 * @return the _cluster11_sum
 	 */
 	public double get_cluster11_sum() {
-		return _cluster11_sum;
+		return counters.getTotal(11);
 	}
 
 	/**
@@ -541,7 +363,7 @@ public class SqlsTemp {
 	 * @return the _queueing12_sum
 	 */
 	public double get_queueing12_sum() {
-		return _queueing12_sum;
+		return counters.getTotal(12);
 	}
 
 	/**
@@ -550,133 +372,7 @@ public class SqlsTemp {
 	 * @return the _cpu_sum
 	 */
 	public double get_cpu_sum() {
-		return _cpu_sum;
-	}
-
-	/**
-	 * Sets the _other0_sum.
-	 * 
-	 * @param _other0_sum the new _other0_sum
-	 */
-	public void set_other0_sum(double _other0_sum) {
-		this._other0_sum = this._other0_sum + _other0_sum;
-	}
-
-	/**
-	 * Sets the _application1_sum.
-	 * 
-	 * @param _application1_sum the new _application1_sum
-	 */
-	public void set_application1_sum(double _application1_sum) {
-		this._application1_sum = this._application1_sum + _application1_sum;
-	}
-
-	/**
-	 * Sets the _configuration2_sum.
-	 * 
-	 * @param _configuration2_sum the new _configuration2_sum
-	 */
-	public void set_configuration2_sum(double _configuration2_sum) {
-		this._configuration2_sum = this._configuration2_sum + _configuration2_sum;
-	}
-
-	/**
-	 * Sets the _administrative3_sum.
-	 * 
-	 * @param _administrative3_sum the new _administrative3_sum
-	 */
-	public void set_administrative3_sum(double _administrative3_sum) {
-		this._administrative3_sum = this._administrative3_sum + _administrative3_sum;
-	}
-
-	/**
-	 * Sets the _concurrency4_sum.
-	 * 
-	 * @param _concurrency4_sum the new _concurrency4_sum
-	 */
-	public void set_concurrency4_sum(double _concurrency4_sum) {
-		this._concurrency4_sum = this._concurrency4_sum + _concurrency4_sum;
-	}
-
-	/**
-	 * Sets the _commit5_sum.
-	 * 
-	 * @param _commit5_sum the new _commit5_sum
-	 */
-	public void set_commit5_sum(double _commit5_sum) {
-		this._commit5_sum = this._commit5_sum + _commit5_sum;
-	}
-
-	/**
-	 * Sets the _idle6_sum.
-	 * 
-	 * @param _idle6_sum the new _idle6_sum
-	 */
-	public void set_idle6_sum(double _idle6_sum) {
-		this._idle6_sum = this._idle6_sum + _idle6_sum;
-	}
-
-	/**
-	 * Sets the _network7_sum.
-	 * 
-	 * @param _network7_sum the new _network7_sum
-	 */
-	public void set_network7_sum(double _network7_sum) {
-		this._network7_sum = this._network7_sum + _network7_sum;
-	}
-
-	/**
-	 * Sets the _user i o8_sum.
-	 * 
-	 * @param _userio8_sum the new _user i o8_sum
-	 */
-	public void set_userIO8_sum(double _userio8_sum) {
-		this._userIO8_sum = this._userIO8_sum + _userio8_sum;
-	}
-
-	/**
-	 * Sets the _system i o9_sum.
-	 * 
-	 * @param _systemio9_sum the new _system i o9_sum
-	 */
-	public void set_systemIO9_sum(double _systemio9_sum) {
-		this._systemIO9_sum = this._systemIO9_sum + _systemio9_sum;
-	}
-
-	/**
-	 * Sets the _scheduler10_sum.
-	 * 
-	 * @param _scheduler10_sum the new _scheduler10_sum
-	 */
-	public void set_scheduler10_sum(double _scheduler10_sum) {
-		this._scheduler10_sum = this._scheduler10_sum + _scheduler10_sum;
-	}
-
-	/**
-	 * Sets the _cluster11_sum.
-	 * 
-	 * @param _cluster11_sum the new _cluster11_sum
-	 */
-	public void set_cluster11_sum(double _cluster11_sum) {
-		this._cluster11_sum = this._cluster11_sum + _cluster11_sum;
-	}
-
-	/**
-	 * Sets the _queueing12_sum.
-	 * 
-	 * @param _queueing12_sum the new _queueing12_sum
-	 */
-	public void set_queueing12_sum(double _queueing12_sum) {
-		this._queueing12_sum = this._queueing12_sum + _queueing12_sum;
-	}
-
-	/**
-	 * Sets the _cpu_sum.
-	 * 
-	 * @param _cpu_sum the new _cpu_sum
-	 */
-	public void set_cpu_sum(double _cpu_sum) {
-		this._cpu_sum = this._cpu_sum + _cpu_sum;
+		return counters.getTotal(GroupCounters.CPU);
 	}
 
 	/**
@@ -687,21 +383,13 @@ public class SqlsTemp {
 	public double get_sum() {
 		return _sum;
 	}
-	
-
-	/**
-	 * Set count of sql rows (for range)
-	 */
-	public void setCountSql_sum(double _countSql) {
-		this._countSql = this._countSql + _countSql;
-	}
 
 	/**
 	 * Get sum of count (for range)
 	 * @return
 	 */
 	public double getCountSql() {
-		return _countSql;
+		return counters.getTotal(GroupCounters.COUNT);
 	}
 	
 	/**
@@ -36,6 +36,7 @@ import javax.swing.event.ChangeListener;
 
 import org.ash.database.ASHDatabase;
 import org.ash.gui.StatusBar;
+import org.ash.invoker.ChartRepaintScheduler;
 import org.ash.util.Options;
 import org.jfree.chart.ChartPanel;
 
@@ -215,6 +216,12 @@ public class DetailPanels extends JPanel{
 	/** The divider. */
 	private int dividerLocation = 290;
 	
+	/** The images of detail charts (thumbnail). */
+	private ImageIcon[] thumbnailImages;
+	
+	/** The tick of repaint of charts, when images were created. */
+	private long thumbnailTick = -1;
+	
 	/**
 	 * Constructor DetailFrame
 	 * 
@@ -560,95 +567,51 @@ public class DetailPanels extends JPanel{
     }
 	
     /**
-     * Get thumbnail details charts
+     * Get thumbnail details charts. Images are created again only when
+     * charts are changed (once per tick of repaint of charts).
      * 
      * @return
      */
     public JPanel getThumbnailDetailPanel(){
-    	JPanel mainPanel = new JPanel(new GridLayout(3, 5));
+    	StackedChartDetail[] charts = {
+    			this.cpuStackedChartMainObjectDetail,
+    			this.schedulerStackedChartMainObjectDetail,
+    			this.userIOStackedChartMainObjectDetail,
+    			this.systemIOStackedChartMainObjectDetail,
+    			this.concurrencyStackedChartMainObjectDetail,
+    			this.applicationStackedChartMainObjectDetail,
+    			this.commitStackedChartMainObjectDetail,
+    			this.configurationStackedChartMainObjectDetail,
+    			this.administrativeStackedChartMainObjectDetail,
+    			this.networkStackedChartMainObjectDetail,
+    			null,
+    			this.queuningStackedChartMainObjectDetail,
+    			this.clusterStackedChartMainObjectDetail,
+    			this.otherStackedChartMainObjectDetail,
+    			null};
     	
-    	BufferedImage thumbCpu = 
-    		this.cpuStackedChartMainObjectDetail.
-    			createBufferedImage(120, 80, 360, 240,null);
-    	ImageIcon imageCpu = new ImageIcon(thumbCpu);
-        mainPanel.add(new JButton(imageCpu));
-        
-    	BufferedImage thumbScheduler = 
-    		this.schedulerStackedChartMainObjectDetail.
-    			createBufferedImage(120, 80, 360, 240,null);
-    	ImageIcon imageScheduler = new ImageIcon(thumbScheduler);
-        mainPanel.add(new JButton(imageScheduler));
-        
-    	BufferedImage thumbUserIO = 
-    		this.userIOStackedChartMainObjectDetail.
-    			createBufferedImage(120, 80, 360, 240,null);
-    	ImageIcon imageUserIO = new ImageIcon(thumbUserIO);
-        mainPanel.add(new JButton(imageUserIO));
-        
-    	BufferedImage thumbSystemIO = 
-    		this.systemIOStackedChartMainObjectDetail.
-    			createBufferedImage(120, 80, 360, 240,null);
-    	ImageIcon imageSystemIO = new ImageIcon(thumbSystemIO);
-        mainPanel.add(new JButton(imageSystemIO));
-        
-    	BufferedImage thumbConcurrency = 
-    		this.concurrencyStackedChartMainObjectDetail.
-    			createBufferedImage(120, 80, 360, 240,null);
-    	ImageIcon imageConcurrency = new ImageIcon(thumbConcurrency);
-        mainPanel.add(new JButton(imageConcurrency));
-        
-    	BufferedImage thumbApplication = 
-    		this.applicationStackedChartMainObjectDetail.
-    			createBufferedImage(120, 80, 360, 240,null);
-    	ImageIcon imageApplication = new ImageIcon(thumbApplication);
-        mainPanel.add(new JButton(imageApplication));
-        
-    	BufferedImage thumbCommit = 
-    		this.commitStackedChartMainObjectDetail.
-    			createBufferedImage(120, 80, 360, 240,null);
-    	ImageIcon imageCommit = new ImageIcon(thumbCommit);
-        mainPanel.add(new JButton(imageCommit));
-        
-    	BufferedImage thumbConfiguration = 
-    		this.configurationStackedChartMainObjectDetail.
-    			createBufferedImage(120, 80, 360, 240,null);
-    	ImageIcon imageConfiguration = new ImageIcon(thumbConfiguration);
-        mainPanel.add(new JButton(imageConfiguration));
-        
-    	BufferedImage thumbAdministrative = 
-    		this.administrativeStackedChartMainObjectDetail.
-    			createBufferedImage(120, 80, 360, 240,null);
-    	ImageIcon imageAdministrative = new ImageIcon(thumbAdministrative);
-        mainPanel.add(new JButton(imageAdministrative));
-        
-    	BufferedImage thumbNetwork = 
-    		this.networkStackedChartMainObjectDetail.
-    			createBufferedImage(120, 80, 360, 240,null);
-    	ImageIcon imageNetwork = new ImageIcon(thumbNetwork);
-        mainPanel.add(new JButton(imageNetwork));
-        
-        mainPanel.add(new JPanel());
-        
-    	BufferedImage thumbQueuning = 
-    		this.queuningStackedChartMainObjectDetail.
-    			createBufferedImage(120, 80, 360, 240,null);
-    	ImageIcon imageQueuning = new ImageIcon(thumbQueuning);
-        mainPanel.add(new JButton(imageQueuning));
-        
-    	BufferedImage thumbCluster = 
-    		this.clusterStackedChartMainObjectDetail.
-    			createBufferedImage(120, 80, 360, 240,null);
-    	ImageIcon imageCluster = new ImageIcon(thumbCluster);
-        mainPanel.add(new JButton(imageCluster));
-        
-    	BufferedImage thumbOther = 
-    		this.otherStackedChartMainObjectDetail.
-    			createBufferedImage(120, 80, 360, 240,null);
-    	ImageIcon imageOther = new ImageIcon(thumbOther);
-        mainPanel.add(new JButton(imageOther));
+    	ChartRepaintScheduler scheduler = this.database.getChartRepaintScheduler();
+    	if (this.thumbnailImages == null || this.thumbnailTick != scheduler.getTick()){
+    		// Charts of other tabs show the last data
+    		scheduler.showHidden();
+    		this.thumbnailImages = new ImageIcon[charts.length];
+    		for (int i = 0; i < charts.length; i++){
+    			if (charts[i] != null){
+    				BufferedImage thumb = charts[i].createBufferedImage(120, 80, 360, 240,null);
+    				this.thumbnailImages[i] = new ImageIcon(thumb);
+    			}
+    		}
+    		this.thumbnailTick = scheduler.getTick();
+    	}
     	
-        mainPanel.add(new JPanel());
-        
+    	JPanel mainPanel = new JPanel(new GridLayout(3, 5));
+    	for (int i = 0; i < charts.length; i++){
+    		if (this.thumbnailImages[i] != null){
+    			mainPanel.add(new JButton(this.thumbnailImages[i]));
+    		} else {
+    			mainPanel.add(new JPanel());
+    		}
+    	}
     	return mainPanel;
     }
     
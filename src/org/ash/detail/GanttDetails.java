@@ -33,6 +33,7 @@ import ext.egantt.swing.GanttTable;
 import org.ash.database.ASHDatabase;
 import org.ash.gui.ASHMainrawdata;
 import org.ash.gui.GanttSplitPane;
+import org.ash.gui.GanttSqlText;
 import org.ash.gui.SqlPlan;
 import org.ash.util.Options;
 import org.ash.util.ProgressBarUtil;
@@ -45,6 +46,7 @@ import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
 import java.awt.*;
 import java.awt.event.MouseEvent;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -200,12 +202,20 @@ public class GanttDetails extends JPanel{
 			/** Array SqlIdText for SQL Text tab*/
 			Map<Integer,String> arraySqlIdText50SQLTextTab = new HashMap<Integer, String>();
 			
+			/** Sql ids of rows of Top SQL*/
+			List<String> sqlIdRows = new ArrayList<String>();
+			
 			/** Create gantt table */
 			final GanttTable tableGanttSql = new GanttTable(
-					ganttSqls.getDataToSqlsGantt(arraySqlIdText50SQLTextTab), columnNamesSqls, getBasicJTableList(),eventListSqls);
+					ganttSqls.getDataToSqlsGantt(sqlIdRows), columnNamesSqls, getBasicJTableList(),eventListSqls);
 			final GanttTable tableGanttSessions = new GanttTable(
 					ganttSessions.getDataToSessionsGantt(), columnNamesSessions, getBasicJTableList(),eventListSessions);   
 			
+			/** Load sql text to Top SQL*/
+			GanttSqlText ganttSqlText = new GanttSqlText(database,
+					tableGanttSql.getModel(), sqlIdRows, arraySqlIdText50SQLTextTab);
+			ganttSqlText.load(ganttSqls.getTopSqlIds(sqlIdRows));
+			
 			/** Set tooltip and percent*/
 			setTooltipAndPercent(tableGanttSql);
 			setTooltipAndPercent(tableGanttSessions);
@@ -240,6 +250,9 @@ public class GanttDetails extends JPanel{
 			tableGanttSql.getJTable().setCellSelectionEnabled(true);
 			tableGanttSessions.getJTable().setCellSelectionEnabled(true);
 
+			/** Copy sql text of Top SQL to clipboard by popup menu */
+			ganttSqlText.addClipboardMenu(tableGanttSql.getJTable());
+
 			/** Add component to left tabs*/
 			tabsTopSQLText.add(leftPane,Options.getInstance().getResource("tabTopSQL.text"));
 			tabsTopSQLText.add(jtextAreaSqlText,Options.getInstance().getResource("tabSQLText.text"));
@@ -95,7 +95,7 @@ public class GanttSessions {
 		
 		int i = 0;
 		int sizeGanttTable = 100;
-		int sizeMainSqls = database.getSessionsTempDetail().getMainSessions().size();
+		int sizeMainSqls = database.getSessionsTempDetail().getSizeMainSessions();
 		Object[][] data = new Object[Math.min(sizeGanttTable, sizeMainSqls)][4];
 		
 		final GanttDrawingPartHelper partHelper = new GanttDrawingPartHelper();
@@ -105,7 +105,7 @@ public class GanttSessions {
 		
 		// Desc sorting
 		HashMap<String, HashMap<String, Object>> sortedSessionMap =
-			Utils.sortHashMapByValues(database.getSessionsTempDetail().getMainSessions(),COUNT);
+			database.getSessionsTempDetail().getTopSessions(sizeGanttTable);
 		
 		for (Entry<String, HashMap<String, Object>> me : sortedSessionMap.entrySet()) {
 			
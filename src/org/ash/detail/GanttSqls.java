@@ -86,12 +86,13 @@ public class GanttSqls {
 	}
 	
 	/**
-	 * Load data to sessions gantt.
+	 * Load data to sqls gantt.
 	 * 
-	 * @return SESSIONID, USERNAME, PROGRAM
+	 * @param sqlIdRows the sql ids of rows (out)
+	 * @return the object[][]
 	 */
-	public Object[][] getDataToSqlsGantt(Map<Integer,String> arraySqlIdTSQLTextTab){
-		return this.loadDataToSqlsGanttPr(arraySqlIdTSQLTextTab);
+	public Object[][] getDataToSqlsGantt(List<String> sqlIdRows){
+		return this.loadDataToSqlsGanttPr(sqlIdRows);
 	}
 
 	/**
@@ -99,13 +100,11 @@ public class GanttSqls {
 	 * 
 	 * @return the object[][]
 	 */
-	private Object[][] loadDataToSqlsGanttPr(Map<Integer,String> arraySqlIdTSQLTextTab){
+	private Object[][] loadDataToSqlsGanttPr(List<String> sqlIdRows){
 		
 		int i = 0;		
-		int ii = 0;
 		int sizeGanttTable = 100;
-		int sizeMainSqls = database.getSqlsTempDetail().getMainSqls().size();
-		StringBuilder clipBoardContent = new StringBuilder();
+		int sizeMainSqls = database.getSqlsTempDetail().getSizeMainSqls();
 		Object[][] data = new Object[Math.min(sizeGanttTable, sizeMainSqls)][3];
 		
 		final GanttDrawingPartHelper partHelper = new GanttDrawingPartHelper();
@@ -115,9 +114,7 @@ public class GanttSqls {
 		
 		// Desc sorting
 		HashMap<String, HashMap<String, Object>> sortedSessionMap =
-			Utils.sortHashMapByValues(database.getSqlsTempDetail().getMainSqls(),COUNT);
-		
-		List<String> arraySqlId = new ArrayList<String>();
+			database.getSqlsTempDetail().getTopSqls(sizeGanttTable);
 		
 		for (Entry<String, HashMap<String, Object>> me : sortedSessionMap.entrySet()) {	
 			
@@ -127,62 +124,36 @@ public class GanttSqls {
 			data[i][1] = me.getKey();
 			data[i][2] = UNKNOWN;
 			
-			/** Load sqlid, sqltype, sqltext from local storage */
-			if (ii < this.topSqlsSqlText) {
-				arraySqlId.add(me.getKey());
-			}
+			sqlIdRows.add(me.getKey());
 			
-			/** Exit when rows > 100 */
+			/** Exit when rows > 500 */
 			if (i+1==Math.min(sizeGanttTable, sizeMainSqls)){
 				break;
 			}
 			i++;
-			ii++;
 		}
-		/** Load commandType, sqlText from Oracle database*/
-		database.loadSqlTextCommandTypeFromDB(arraySqlId);
 
 		/** Load sql plan to local BDB*/
 		if (isSelectSqlPlan){
-			database.loadSqlPlanFromDB(arraySqlId, true);
+			database.loadSqlPlanFromDB(getTopSqlIds(sqlIdRows), true);
 		}
 		
-		/** Load CommandType, SqlText to gantt*/
-		ii = 0;
-		for (Entry<String, HashMap<String, Object>> me : sortedSessionMap
-				.entrySet()) {
-			String sqlId = me.getKey();
-			String sqlText = database.getSqlText(sqlId);
-			String sqlType = database.getSqlType(sqlId);
-
-			data[ii][1] = createDrawingStateSqlId(partHelper, sqlId, sqlText);
-			if (!sqlType.equals(""))
-				data[ii][2] = sqlType;
-
-			// Save clipboard content 
-			clipBoardContent.append(sqlId + ":::" + sqlText + "\n");
-
-			/** Save arraySqlIdText50 for SQL Text tab*/
-			if (!sqlType.equalsIgnoreCase("UNKNOWN")) {
-				arraySqlIdTSQLTextTab.put(ii, sqlId);
-			}
-			
-			/** Exit when rows > 500 */
-			if (ii + 1 == Math.min(sizeGanttTable, sizeMainSqls)) {
-				break;
-			}
-			
-			ii++;
-		}
-
-		/** Set clipboard content */
-		Utils.setClipBoardContent(clipBoardContent.toString());
-		
 		percentPrev = 0;
 		
 		return data;
 	}
 	
+	/**
+	 * Get sql ids of top rows for loading sql text and plan.
+	 * 
+	 * @param sqlIdRows the sql ids of rows
+	 * @return the sql ids
+	 */
+	public List<String> getTopSqlIds(List<String> sqlIdRows){
+		return new ArrayList<String>(sqlIdRows.subList(0,
+				Math.min(this.topSqlsSqlText, sqlIdRows.size())));
+	}
+	
 	/**
 	 * Creates the drawing state for Sqls and Sessions.
 	 *
@@ -330,47 +301,6 @@ public class GanttSqls {
 			
 		}
 	
-		/**
-		 * Creates the drawing state for SqlId.
-		 * 
-		 * @param helper  the helper
-		 * @return the drawing state
-		 */
-		private DrawingState createDrawingStateSqlId(GanttDrawingPartHelper helper,
-				String key,
-				String value) {
-
-			BasicDrawingState state = helper.createDrawingState();
-			ListDrawingPart part = helper.createDrawingPart(false);
-			ListDrawingPart textLayer = helper.createDrawingPart(true);
-
-			//String key = "";
-			//String value = "";
-
-			// Set tooltip (sql_text)
-			final StringBuffer o = new StringBuffer();
-
-			if (value.equals("")) {
-				value = "No data";
-			}
-			o.append(Utils.formatSqlQueryShort(value));
-
-			// Show sqlid
-			helper.createActivityEntry(new StringBuffer(key), new Date(5),
-					new Date(95), BasicPainterModule.BASIC_STRING_PAINTER,
-					TEXT_PAINTER, textLayer);
-
-			helper.createActivityEntry(o, new Date(0), new Date(100),
-					BasicPainterModule.BASIC_STRING_PAINTER, part);
-
-			state.addDrawingPart(part);
-			state.addDrawingPart(textLayer);
-            state.setTextValue(key);
-			return state;
-
-		}
-
-	
 	/**
 	 * @return the topSqlsSqlText
 	 */
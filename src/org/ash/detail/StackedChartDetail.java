@@ -37,6 +37,7 @@ import java.util.Set;
 
 import org.ash.database.ASHDatabase;
 import org.ash.util.Options;
+import org.ash.util.RingTableXYDataset;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.ChartRenderingInfo;
@@ -52,7 +53,6 @@ import org.jfree.chart.plot.ValueMarker;
 import org.jfree.chart.plot.XYPlot;
 import org.jfree.chart.renderer.xy.StackedXYAreaRenderer3;
 import org.jfree.chart.title.LegendTitle;
-import org.jfree.data.xy.CategoryTableXYDataset;
 import org.jfree.ui.HorizontalAlignment;
 import org.jfree.ui.LengthAdjustmentType;
 import org.jfree.ui.RectangleAnchor;
@@ -69,8 +69,11 @@ public class StackedChartDetail {
 	/** The database. */
 	private ASHDatabase database;
 	
-	/** The dataset. */
-	private CategoryTableXYDataset dataset;
+	/** The dataset (updated by collector). */
+	private RingTableXYDataset dataset;
+	
+	/** The dataset of chart (snapshot of dataset, EDT). */
+	private RingTableXYDataset chartDataset;
 	
 	/** The renderer. */
 	private StackedXYAreaRenderer3 renderer;
@@ -144,10 +147,16 @@ public class StackedChartDetail {
      * @throws DatabaseException the database exception
      */
     public ChartPanel createChartPanel(){
-    	dataset = new CategoryTableXYDataset();
+    	// Chart panel is created again, the old one is not updated
+    	if (dataset != null) {
+    		this.database.getChartRepaintScheduler().unregister(dataset);
+    	}
+    	dataset = new RingTableXYDataset();
+    	chartDataset = new RingTableXYDataset();
         JFreeChart chart = createChart();
         chartPanel = new ChartPanel(chart);
         chartPanel.setRangeZoomable(false);
+        this.database.getChartRepaintScheduler().register(dataset, chartDataset, chartPanel);
         return chartPanel;
     }
 
@@ -373,24 +382,10 @@ public class StackedChartDetail {
 	 */
 	public void deleteValuesFromDatasetDetail(Double beginRange){
 		
-		// Clear values from dataset when it's not empty
-		if (this.renderer.getLegendItems().getItemCount()!=0){
-			for (int i=0;i<50;i++) {
-				
-				Double xValue = (Double)dataset.getX(0, i);
-				
-				if(xValue>beginRange){
-					break;
-				}
-				
-				try {
-					dataset.removeRow(xValue);
-				} catch (Exception e){
-					e.printStackTrace();
-				}
-			  }
-			}
-		}
+		// Legend of chart is shown later (snapshot), expire of empty dataset does nothing
+		dataset.expire(beginRange);
+	}
+	
     
     /**
      * Calculate sum, save data to dataset and clear temp. array
@@ -493,7 +488,7 @@ public class StackedChartDetail {
         	"", 		 					 // chart title
             "X Value",                       // domain axis label
             "Active Sessions",               // range axis label
-            dataset,                         // data
+            chartDataset,                    // data
             PlotOrientation.VERTICAL,        // the plot orientation
             xAxis,							 // xAxis
             false,                           // legend
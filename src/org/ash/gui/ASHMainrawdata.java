@@ -23,6 +23,7 @@ package org.ash.gui;
 
 import com.sleepycat.je.DatabaseException;
 import org.ash.database.ASHDatabase;
+import org.ash.database.AshRawDataTableModel;
 import org.ash.searchable.DecoratorFactory;
 import org.ash.searchable.MatchingTextHighlighter;
 import org.ash.searchable.XMatchingTextHighlighter;
@@ -40,7 +41,6 @@ import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.EtchedBorder;
 import javax.swing.border.TitledBorder;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
@@ -153,10 +153,10 @@ public class ASHMainrawdata extends JPanel {
 					root.repaint();
 
 					/*----------------------*/
-					DefaultTableModel model;
+					AshRawDataTableModel model;
 					try {
 						model = database.getASHRawData(begin, end, detail);
-						table = new JXTable(model);
+						table = new RawDataTable(model);
 
 						final JXCollapsiblePane collapsible = connectCollapsibleFindBarWithTable();
 
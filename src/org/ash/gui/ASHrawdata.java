@@ -23,6 +23,7 @@ package org.ash.gui;
 
 import com.sleepycat.je.DatabaseException;
 import org.ash.history.ASHDatabaseH;
+import org.ash.database.AshRawDataTableModel;
 import org.ash.searchable.DecoratorFactory;
 import org.ash.searchable.MatchingTextHighlighter;
 import org.ash.searchable.XMatchingTextHighlighter;
@@ -40,7 +41,6 @@ import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.EtchedBorder;
 import javax.swing.border.TitledBorder;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
@@ -63,6 +63,15 @@ public class ASHrawdata extends JPanel {
 
 	private JXTable table;
 
+	/** The filter by dimension (see AshDimensionIndex), null for all rows. */
+	private volatile String dimension;
+
+	/** The value of dimension. */
+	private volatile String dimensionValue;
+
+	/** The label of filter. */
+	private JLabel filterLabel = new JLabel();
+
 
 	/**
 	 * Constructor.
@@ -104,6 +113,12 @@ public class ASHrawdata extends JPanel {
 
 		getASHReportButton.addActionListener(buttonListener);
 
+		// All rows button (clear filter)
+		JButton allRowsButton = new JButton();
+		allRowsButton.setText("All rows");
+		allRowsButton.setActionCommand("ASHrawdataAll");
+		allRowsButton.addActionListener(buttonListener);
+
 		// Layout of buttons
 		buttonPanel.add(Box.createRigidArea(new Dimension(10, 0)));
 		buttonPanel.add(getASHReportButton);
@@ -113,6 +128,10 @@ public class ASHrawdata extends JPanel {
 						dateFormat.format(end)
 				)
 		);
+		buttonPanel.add(Box.createRigidArea(new Dimension(10, 0)));
+		buttonPanel.add(allRowsButton);
+		buttonPanel.add(Box.createRigidArea(new Dimension(10, 0)));
+		buttonPanel.add(filterLabel);
 
 		// Add buttonPanel, main
 		this.main.add(buttonPanel, BorderLayout.NORTH);
@@ -144,6 +163,9 @@ public class ASHrawdata extends JPanel {
 
 			if (str.equalsIgnoreCase("ASHrawdata")) {
 				getASHReport();
+			} else if (str.equalsIgnoreCase("ASHrawdataAll")) {
+				setDimension(null, null);
+				getASHReport();
 			}
 		}
 
@@ -169,11 +191,17 @@ public class ASHrawdata extends JPanel {
 					root.repaint();
 
 					/*----------------------*/
-					DefaultTableModel model;
+					AshRawDataTableModel model;
 					try {
-						model = database.getASHRawData(begin, end);
+						String dim = dimension;
+						String dimValue = dimensionValue;
+						if (dim != null) {
+							model = database.getASHRawData(begin, end, dim, dimValue);
+						} else {
+							model = database.getASHRawData(begin, end);
+						}
 
-						table = new JXTable(model);
+						table = new RawDataTable(model);
 
 						final JXCollapsiblePane collapsible = connectCollapsibleFindBarWithTable();
 
@@ -247,6 +275,23 @@ public class ASHrawdata extends JPanel {
 		}
 	}
 
+	/**
+	 * Sets the filter of rows by value of dimension (selected top sql or
+	 * session), rows are read by index of dimensions on next load.
+	 *
+	 * @param dimension the dimension (see AshDimensionIndex), null for all rows
+	 * @param value the value of dimension
+	 */
+	public void setDimension(final String dimension, final String value) {
+		this.dimension = dimension;
+		this.dimensionValue = value;
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				filterLabel.setText(dimension != null ? dimension + " = " + value : "");
+			}
+		});
+	}
+
 	/**
 	 * Creates the progress bar.
 	 *
@@ -57,6 +57,7 @@ import org.ash.database.Database11g1;
 import org.ash.database.Database11g2;
 import org.ash.util.Options;
 import org.ash.util.ProgressBarUtil;
+import org.ash.util.TopK;
 import org.ash.util.Utils;
 import org.syntax.jedit.JEditTextArea;
 import org.syntax.jedit.tokenmarker.PLSQLTokenMarker;
@@ -199,8 +200,19 @@ public class Gantt extends JPanel {
 	 * @param beginTime the begin time
 	 * @param endTime the end time
 	 */
+	public void loadDataToJPanels(double beginTime, double endTime) {
+		loadDataToJPanels(beginTime, endTime, false);
+	}
+
+	/**
+	 * Load data to jpanels.
+	 * 
+	 * @param beginTime the begin time
+	 * @param endTime the end time
+	 * @param isAutoSelection true for sliding window (auto selection)
+	 */
 	public synchronized void loadDataToJPanels(final double beginTime,
-			final double endTime) {
+			final double endTime, final boolean isAutoSelection) {
 
 		this.main.removeAll();
 		JPanel panel = createProgressBar("Loading, please wait...");
@@ -215,7 +227,7 @@ public class Gantt extends JPanel {
 				} catch (InterruptedException e) {
 					e.printStackTrace();
 				}
-				loadDataToJPanelsPrivate(beginTime, endTime);
+				loadDataToJPanelsPrivate(beginTime, endTime, isAutoSelection);
 			}
 		};
 		t.start();
@@ -226,14 +238,20 @@ public class Gantt extends JPanel {
 	 * 
 	 * @param beginTime the begin time
 	 * @param endTime the end time
+	 * @param isAutoSelection true for sliding window (auto selection)
 	 */
-	private void loadDataToJPanelsPrivate(double beginTime, double endTime) {
+	private void loadDataToJPanelsPrivate(double beginTime, double endTime,
+			boolean isAutoSelection) {
 
 		JSplitPane splitPane = new GanttSplitPane(JSplitPane.HORIZONTAL_SPLIT);
 
-		this.database.getSqlsTemp().clear();
-		this.database.getSessionsTemp().clear();
-		this.database.calculateSqlsSessionsData(beginTime, endTime, "All");
+		if (isAutoSelection) {
+			this.database.calculateSqlsSessionsDataWindow(beginTime, endTime);
+		} else {
+			this.database.getSqlsTemp().clear();
+			this.database.getSessionsTemp().clear();
+			this.database.calculateSqlsSessionsData(beginTime, endTime, "All");
+		}
 
 		// Load data to JTable model
 		try {
@@ -252,14 +270,22 @@ public class Gantt extends JPanel {
 			/** Array NofRow-sqlId for SQL Text tab*/
 			Map<Integer, String> arraySqlIdTSQLTextTab = new HashMap<Integer, String>();
 
+			/** Sql ids of rows of Top SQL*/
+			List<String> sqlIdRows = new ArrayList<String>();
+
 			/** Create gantt table */
 			final GanttTable tableGanttSql = new GanttTable(
-					loadDataToSqlsGantt(arraySqlIdTSQLTextTab), columnNamesSqls,
+					loadDataToSqlsGantt(sqlIdRows), columnNamesSqls,
 					getBasicJTableList());
 			final GanttTable tableGanttSessions = new GanttTable(
 					loadDataToSessionsGantt(), columnNamesSessions,
 					getBasicJTableList());
 
+			/** Load sql text to Top SQL*/
+			GanttSqlText ganttSqlText = new GanttSqlText(database,
+					tableGanttSql.getModel(), sqlIdRows, arraySqlIdTSQLTextTab);
+			ganttSqlText.load(getTopSqlIds(sqlIdRows));
+
 			/** Set tooltip and percent*/
 			setTooltipAndPercent(tableGanttSql);
 			setTooltipAndPercent(tableGanttSessions);
@@ -290,6 +316,9 @@ public class Gantt extends JPanel {
 			tableGanttSql.getJTable().setCellSelectionEnabled(true);
 			tableGanttSessions.getJTable().setCellSelectionEnabled(true);
 
+			/** Copy sql text of Top SQL to clipboard by popup menu */
+			ganttSqlText.addClipboardMenu(tableGanttSql.getJTable());
+
 			/** Add component to left tabs*/
 			tabsTopSQLText.add(leftPane, Options.getInstance().getResource(
 					"tabTopSQL.text"));
@@ -323,11 +352,15 @@ public class Gantt extends JPanel {
 				tabPane.add("Top sql & sessions",splitPane);
 				tabPane.add("ASH Report",new ASHReport(root,database,beginTime,endTime));
 				tabPane.add("ASH raw data",new ASHMainrawdata(root,database,beginTime,endTime,""));
+				tabPane.add("Top by dimension",new GroupByPanel(root,database.getDao(),beginTime,endTime));
 				this.main.add(tabPane);
 				this.validate();
 				
 			} else {
-				this.main.add(splitPane);
+				JTabbedPane tabPane = new JTabbedPane();
+				tabPane.add("Top sql & sessions",splitPane);
+				tabPane.add("Top by dimension",new GroupByPanel(root,database.getDao(),beginTime,endTime));
+				this.main.add(tabPane);
 				this.validate();
 			}
 
@@ -500,16 +533,15 @@ public class Gantt extends JPanel {
 	/**
 	 * Load data to sqls gantt.
 	 * 
+	 * @param sqlIdRows the sql ids of rows (out)
 	 * @return the object[][]
 	 */
-	private Object[][] loadDataToSqlsGantt(Map<Integer, String> arraySqlIdTSQLTextTab) {
+	private Object[][] loadDataToSqlsGantt(List<String> sqlIdRows) {
 
 		int i = 0;
-		int ii = 0;
 		int sizeGanttTable = 100;
-		int sizeMainSqls = database.getSqlsTemp().getMainSqls().size();
+		int sizeMainSqls = database.getSqlsTemp().getSizeMainSqls();
 		
-		StringBuilder clipBoardContent = new StringBuilder();
 		Object[][] data = new Object[Math.min(sizeGanttTable, sizeMainSqls)][3];
 
 		final GanttDrawingPartHelper partHelper = new GanttDrawingPartHelper();
@@ -518,10 +550,7 @@ public class Gantt extends JPanel {
 		double sumOfRange = database.getSqlsTemp().get_sum();
 
 		// Desc sorting
-		HashMap<String, HashMap<String, Object>> sortedSessionMap = sortHashMapByValuesCOUNT(database
-				.getSqlsTemp().getMainSqls());
-
-		List<String> arraySqlId = new ArrayList<String>();
+		HashMap<String, HashMap<String, Object>> sortedSessionMap = database.getSqlsTemp().getTopSqls(sizeGanttTable);
 
 		for (Entry<String, HashMap<String, Object>> me : sortedSessionMap
 				.entrySet()) {
@@ -532,62 +561,36 @@ public class Gantt extends JPanel {
 			data[i][1] = me.getKey();
 			data[i][2] = UNKNOWN;
 
-			/** Load sqlid, sqltype, sqltext from local storage */
-			if (ii < this.topSqlsSqlText) {
-				arraySqlId.add(me.getKey());
-			}
+			sqlIdRows.add(me.getKey());
+
 			/** Exit when rows > 500 */
 			if (i + 1 == Math.min(sizeGanttTable, sizeMainSqls)) {
 				break;
 			}
 			i++;
-			ii++;
 		}
-				
-		/** Load commandType, sqlText from Oracle database*/
-		database.loadSqlTextCommandTypeFromDB(arraySqlId);
 
 		/** Load sql plan to local BDB*/
 		if (isSelectSqlPlan){
-			database.loadSqlPlanFromDB(arraySqlId, false);	
-		}
-		
-		/** Load CommandType, SqlText to gantt*/
-		ii = 0;
-		for (Entry<String, HashMap<String, Object>> me : sortedSessionMap
-				.entrySet()) {
-			String sqlId = me.getKey();
-			String sqlText = database.getSqlText(sqlId);
-			String sqlType = database.getSqlType(sqlId);
-
-			data[ii][1] = createDrawingStateSqlId(partHelper, sqlId, sqlText);
-			if (!sqlType.equals(""))
-				data[ii][2] = sqlType;
-
-			// Save clipboard content 
-			clipBoardContent.append(sqlId + ":::" + sqlText + "\n");
-
-			/** Save arraySqlIdText50 for SQL Text tab*/
-			if (!sqlType.equalsIgnoreCase("UNKNOWN")) {
-				arraySqlIdTSQLTextTab.put(ii, sqlId);
-			}
-			
-			/** Exit when rows > 500 */
-			if (ii + 1 == Math.min(sizeGanttTable, sizeMainSqls)) {
-				break;
-			}
-			
-			ii++;
+			database.loadSqlPlanFromDB(getTopSqlIds(sqlIdRows), false);	
 		}
 
-		/** Set clipboard content */
-		Utils.setClipBoardContent(clipBoardContent.toString());
-
 		percentPrev = 0;
 
 		return data;
 	}
 
+	/**
+	 * Get sql ids of top rows for loading sql text and plan.
+	 * 
+	 * @param sqlIdRows the sql ids of rows
+	 * @return the sql ids
+	 */
+	private List<String> getTopSqlIds(List<String> sqlIdRows) {
+		return new ArrayList<String>(sqlIdRows.subList(0,
+				Math.min(this.topSqlsSqlText, sqlIdRows.size())));
+	}
+
 	/**
 	 * Load data to sessions gantt.
 	 * 
@@ -600,7 +603,7 @@ public class Gantt extends JPanel {
 
 		int i = 0;
 		int sizeGanttTable = 100;
-		int sizeMainSqls = database.getSessionsTemp().getMainSessions().size();
+		int sizeMainSqls = database.getSessionsTemp().getSizeMainSessions();
 		Object[][] data = new Object[Math.min(sizeGanttTable, sizeMainSqls)][4];
 
 		final GanttDrawingPartHelper partHelper = new GanttDrawingPartHelper();
@@ -609,8 +612,7 @@ public class Gantt extends JPanel {
 		double sumOfRange = database.getSessionsTemp().get_sum();
 
 		// Desc sorting
-		HashMap<String, HashMap<String, Object>> sortedSessionMap = sortHashMapByValuesCOUNT(database
-				.getSessionsTemp().getMainSessions());
+		HashMap<String, HashMap<String, Object>> sortedSessionMap = database.getSessionsTemp().getTopSessions(sizeGanttTable);
 
 		for (Entry<String, HashMap<String, Object>> me : sortedSessionMap
 				.entrySet()) {
@@ -779,48 +781,6 @@ public class Gantt extends JPanel {
 		return state;
 	}
 
-	/**
-	 * Creates the drawing state for SqlId.
-	 * 
-	 * @param helper  the helper
-	 * @param me  the me
-	 * @param arraySqlIdText50
-	 * @return the drawing state
-	 */
-	private DrawingState createDrawingStateSqlId(GanttDrawingPartHelper helper,
-			String key,
-			String value) {
-
-		BasicDrawingState state = helper.createDrawingState();
-		ListDrawingPart part = helper.createDrawingPart(false);
-		ListDrawingPart textLayer = helper.createDrawingPart(true);
-
-		//String key = "";
-		//String value = "";
-
-		// Set tooltip (sql_text)
-		final StringBuffer o = new StringBuffer();
-
-		if (value.equals("")) {
-			value = "No data";
-		}
-		o.append(Utils.formatSqlQueryShort(value));
-
-		// Show sqlid
-		helper.createActivityEntry(new StringBuffer(key), new Date(5),
-				new Date(95), BasicPainterModule.BASIC_STRING_PAINTER,
-				TEXT_PAINTER, textLayer);
-
-		helper.createActivityEntry(o, new Date(0), new Date(100),
-				BasicPainterModule.BASIC_STRING_PAINTER, part);
-
-		state.addDrawingPart(part);
-		state.addDrawingPart(textLayer);
-		state.setTextValue(key);
-		return state;
-
-	}
-
 	/**
 	 * Sort hash map by values d.
 	 * 
@@ -829,35 +789,7 @@ public class Gantt extends JPanel {
 	 * @return the linked hash map
 	 */
 	public LinkedHashMap sortHashMapByValuesD(HashMap<String, Double> passedMap) {
-		List mapKeys = new ArrayList(passedMap.keySet());
-		List mapValues = new ArrayList(passedMap.values());
-		Collections.sort(mapValues);
-		Collections.sort(mapKeys);
-		Collections.reverse(mapValues);
-
-		LinkedHashMap sortedMap = new LinkedHashMap();
-
-		Iterator valueIt = mapValues.iterator();
-		while (valueIt.hasNext()) {
-			Object val = valueIt.next();
-			Iterator keyIt = mapKeys.iterator();
-
-			while (keyIt.hasNext()) {
-				Object key = keyIt.next();
-				String comp1 = passedMap.get(key).toString();
-				String comp2 = val.toString();
-
-				if (comp1.equals(comp2)) {
-					passedMap.remove(key);
-					mapKeys.remove(key);
-					sortedMap.put(key, val);
-					break;
-				}
-
-			}
-
-		}
-		return sortedMap;
+		return TopK.top(passedMap, passedMap.size());
 	}
 
 	/**
@@ -869,44 +801,7 @@ public class Gantt extends JPanel {
 	 */
 	public LinkedHashMap<String, HashMap<String, Object>> sortHashMapByValuesSUMD(
 			HashMap<String, HashMap<String, Object>> passedMap) {
-
-		//bdb.getSqlsTemp().getMainSqls()
-
-		List mapKeys = new ArrayList();
-		List mapValues = new ArrayList();
-
-		for (Entry<String, HashMap<String, Object>> me : passedMap.entrySet()) {
-			mapKeys.add(me.getKey());
-			mapValues.add(me.getValue().get(SUM));
-		}
-
-		Collections.sort(mapValues);
-		Collections.sort(mapKeys);
-		Collections.reverse(mapValues);
-
-		LinkedHashMap<String, HashMap<String, Object>> sortedMap = new LinkedHashMap<String, HashMap<String, Object>>();
-
-		Iterator valueIt = mapValues.iterator();
-		while (valueIt.hasNext()) {
-			Object val = valueIt.next();
-			Iterator keyIt = mapKeys.iterator();
-
-			while (keyIt.hasNext()) {
-				Object key = keyIt.next();
-				String comp1 = passedMap.get(key).get(SUM).toString();
-				String comp2 = val.toString();
-
-				if (comp1.equals(comp2)) {
-					sortedMap.put((String) key, passedMap.get(key));
-					passedMap.remove(key);
-					mapKeys.remove(key);
-					break;
-				}
-
-			}
-
-		}
-		return sortedMap;
+		return TopK.top(passedMap, SUM, passedMap.size());
 	}
 
 	/**
@@ -918,44 +813,7 @@ public class Gantt extends JPanel {
 	 */
 	public LinkedHashMap<String, HashMap<String, Object>> sortHashMapByValuesCOUNT(
 			HashMap<String, HashMap<String, Object>> passedMap) {
-
-		//bdb.getSqlsTemp().getMainSqls()
-
-		List mapKeys = new ArrayList();
-		List mapValues = new ArrayList();
-
-		for (Entry<String, HashMap<String, Object>> me : passedMap.entrySet()) {
-			mapKeys.add(me.getKey());
-			mapValues.add(me.getValue().get(COUNT));
-		}
-
-		Collections.sort(mapValues);
-		Collections.sort(mapKeys);
-		Collections.reverse(mapValues);
-
-		LinkedHashMap<String, HashMap<String, Object>> sortedMap = new LinkedHashMap<String, HashMap<String, Object>>();
-
-		Iterator valueIt = mapValues.iterator();
-		while (valueIt.hasNext()) {
-			Object val = valueIt.next();
-			Iterator keyIt = mapKeys.iterator();
-
-			while (keyIt.hasNext()) {
-				Object key = keyIt.next();
-				String comp1 = passedMap.get(key).get(COUNT).toString();
-				String comp2 = val.toString();
-
-				if (comp1.equals(comp2)) {
-					sortedMap.put((String) key, passedMap.get(key));
-					passedMap.remove(key);
-					mapKeys.remove(key);
-					break;
-				}
-
-			}
-
-		}
-		return sortedMap;
+		return TopK.top(passedMap, COUNT, passedMap.size());
 	}
 
 	/**
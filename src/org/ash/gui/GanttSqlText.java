@@ -0,0 +1,220 @@
+/*
+ *-------------------
+ * The GanttSqlText.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.gui;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.JMenuItem;
+import javax.swing.JPopupMenu;
+import javax.swing.JTable;
+import javax.swing.SwingUtilities;
+import javax.swing.table.TableModel;
+
+import org.ash.database.ASHDatabase;
+import org.ash.util.Options;
+import org.ash.util.Utils;
+
+import com.egantt.model.drawing.DrawingState;
+import com.egantt.model.drawing.part.ListDrawingPart;
+
+import ext.egantt.drawing.module.BasicPainterModule;
+import ext.egantt.model.drawing.state.BasicDrawingState;
+import ext.egantt.swing.GanttDrawingPartHelper;
+
+/**
+ * The Class GanttSqlText.
+ *
+ * Sql id and sql type of rows of Top SQL gantt (Top Activity and details).
+ * Rows are filled from local storage right away and refreshed on the EDT
+ * when sql text of top sqls is loaded from v$sql in background. Sql text
+ * is copied to clipboard when it is loaded (option "Copy to clipboard SQL",
+ * as in history) and by the "To Clipboard" item of the popup menu.
+ */
+public class GanttSqlText {
+
+	/** The UNKNOWN var. */
+	public static final String UNKNOWN = "UNKNOWN";
+
+	/** The PENDING var (sql text is being loaded). */
+	private static final String PENDING = "...";
+
+	/** The TEXT_PAINTER. */
+	private static final String TEXT_PAINTER = "MyTextPainter";
+
+	/** The database. */
+	private ASHDatabase database;
+
+	/** The model of sqls gantt. */
+	private TableModel model;
+
+	/** The sql ids of rows. */
+	private List<String> sqlIdRows;
+
+	/** The array NofRow-sqlId for SQL Text tab. */
+	private Map<Integer, String> arraySqlIdTSQLTextTab;
+
+	/**
+	 * Instantiates a new gantt sql text.
+	 *
+	 * @param database the database
+	 * @param model the model of sqls gantt
+	 * @param sqlIdRows the sql ids of rows
+	 * @param arraySqlIdTSQLTextTab the array NofRow-sqlId for SQL Text tab
+	 */
+	public GanttSqlText(ASHDatabase database, TableModel model,
+			List<String> sqlIdRows, Map<Integer, String> arraySqlIdTSQLTextTab) {
+		this.database = database;
+		this.model = model;
+		this.sqlIdRows = sqlIdRows;
+		this.arraySqlIdTSQLTextTab = arraySqlIdTSQLTextTab;
+	}
+
+	/**
+	 * Load commandType, sqlText from Oracle database in background,
+	 * rows are updated (and copied to clipboard, if option is on) when sql
+	 * text is loaded.
+	 *
+	 * @param topSqlIds the sql ids of top rows
+	 */
+	public void load(List<String> topSqlIds) {
+
+		database.loadSqlTextCommandTypeFromDBAsync(topSqlIds, new Runnable() {
+			public void run() {
+				SwingUtilities.invokeLater(new Runnable() {
+					public void run() {
+						setSqlText();
+						Utils.setClipBoardContent(getClipboardContent());
+					}
+				});
+			}
+		});
+
+		setSqlText();
+	}
+
+	/**
+	 * Add popup menu "To Clipboard" to Top SQL table.
+	 *
+	 * @param table the table of sqls gantt
+	 */
+	public void addClipboardMenu(JTable table) {
+		JMenuItem menuItem = new JMenuItem(Options.getInstance().getResource(
+				"to clipboard"));
+		menuItem.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				copyToClipboard();
+			}
+		});
+		JPopupMenu popupMenu = new JPopupMenu();
+		popupMenu.add(menuItem);
+		table.setComponentPopupMenu(popupMenu);
+	}
+
+	/**
+	 * Copy sqlId:::sqlText of rows to clipboard (loaded sql text).
+	 */
+	public void copyToClipboard() {
+		Utils.copyToClipboard(getClipboardContent());
+	}
+
+	/**
+	 * Gets sqlId:::sqlText of rows.
+	 *
+	 * @return the content for clipboard
+	 */
+	private String getClipboardContent() {
+		StringBuilder clipBoardContent = new StringBuilder();
+		for (String sqlId : sqlIdRows) {
+			clipBoardContent.append(sqlId + ":::" + database.getSqlText(sqlId) + "\n");
+		}
+		return clipBoardContent.toString();
+	}
+
+	/**
+	 * Load CommandType, SqlText from local storage to gantt.
+	 */
+	private void setSqlText() {
+
+		final GanttDrawingPartHelper partHelper = new GanttDrawingPartHelper();
+
+		for (int i = 0; i < sqlIdRows.size(); i++) {
+			String sqlId = sqlIdRows.get(i);
+			String sqlText = database.getSqlText(sqlId);
+			String sqlType = database.getSqlType(sqlId);
+
+			model.setValueAt(createDrawingStateSqlId(partHelper, sqlId, sqlText), i, 1);
+			if (!sqlType.equals("")) {
+				model.setValueAt(sqlType, i, 2);
+			} else if (database.isSqlTextPending(sqlId)) {
+				model.setValueAt(PENDING, i, 2);
+			} else {
+				model.setValueAt(UNKNOWN, i, 2);
+			}
+
+			/** Save arraySqlIdText50 for SQL Text tab*/
+			if (!sqlType.equalsIgnoreCase(UNKNOWN)) {
+				arraySqlIdTSQLTextTab.put(i, sqlId);
+			}
+		}
+	}
+
+	/**
+	 * Creates the drawing state for SqlId.
+	 *
+	 * @param helper the helper
+	 * @param key the sql id
+	 * @param value the sql text
+	 * @return the drawing state
+	 */
+	private DrawingState createDrawingStateSqlId(GanttDrawingPartHelper helper,
+			String key, String value) {
+
+		BasicDrawingState state = helper.createDrawingState();
+		ListDrawingPart part = helper.createDrawingPart(false);
+		ListDrawingPart textLayer = helper.createDrawingPart(true);
+
+		// Set tooltip (sql_text)
+		final StringBuffer o = new StringBuffer();
+
+		if (value.equals("")) {
+			value = "No data";
+		}
+		o.append(Utils.formatSqlQueryShort(value));
+
+		// Show sqlid
+		helper.createActivityEntry(new StringBuffer(key), new Date(5),
+				new Date(95), BasicPainterModule.BASIC_STRING_PAINTER,
+				TEXT_PAINTER, textLayer);
+
+		helper.createActivityEntry(o, new Date(0), new Date(100),
+				BasicPainterModule.BASIC_STRING_PAINTER, part);
+
+		state.addDrawingPart(part);
+		state.addDrawingPart(textLayer);
+		state.setTextValue(key);
+		return state;
+	}
+}
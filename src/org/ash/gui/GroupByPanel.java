@@ -0,0 +1,278 @@
+/*
+ *-------------------
+ * The GroupByPanel.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.gui;
+
+import com.sleepycat.je.DatabaseException;
+import org.ash.database.AshDataAccessor;
+import org.ash.database.AshDimensionIndex;
+import org.ash.database.AshGroupBy;
+import org.ash.datatemp.GroupCounters;
+import org.ash.util.ProgressBarUtil;
+import org.ash.util.Utils;
+import org.jdesktop.swingx.JXTable;
+
+import javax.swing.*;
+import javax.swing.border.EtchedBorder;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map.Entry;
+
+/**
+ * The Class GroupByPanel.
+ *
+ * Top-K of ASH rows of range by 1-3 dimensions (module, action, client id,
+ * current obj# etc.) with optional filter by value of dimension, calculated
+ * by AshGroupBy over local BDB. Used by Gantt (live) and GanttH (history).
+ */
+public class GroupByPanel extends JPanel {
+
+	private static final long serialVersionUID = 1L;
+
+	/** The count of top rows. */
+	private static final int TOP_K = 100;
+
+	/** The empty item of combo box (no dimension). */
+	private static final String NONE = "";
+
+	/** The main. */
+	private JPanel main;
+
+	/** The root. */
+	private JFrame root;
+
+	/** The dao. */
+	private AshDataAccessor dao;
+
+	/** The begin. */
+	private double begin;
+
+	/** The end. */
+	private double end;
+
+	/** The dimensions of group by. */
+	private JComboBox[] dimensionBoxes = new JComboBox[AshGroupBy.MAX_DIMENSIONS];
+
+	/** The dimension of filter. */
+	private JComboBox filterBox;
+
+	/** The value of filter. */
+	private JTextField filterValueField = new JTextField(15);
+
+	/** The result. */
+	private JPanel result = new JPanel(new GridLayout(1, 1, 3, 3));
+
+	/**
+	 * Constructor.
+	 *
+	 * @param rootFrame0 the root frame
+	 * @param dao0 the dao of local BDB
+	 * @param begin the begin
+	 * @param end the end
+	 */
+	public GroupByPanel(JFrame rootFrame0, AshDataAccessor dao0, double begin, double end) {
+		super();
+		setLayout(new GridLayout(1, 1, 3, 3));
+
+		this.root = rootFrame0;
+		this.dao = dao0;
+		this.begin = begin;
+		this.end = end;
+
+		this.main = new JPanel();
+		this.main.setLayout(new BorderLayout());
+		this.add(this.main);
+
+		// The button panel
+		JToolBar buttonPanel = new JToolBar("PanelButton");
+		buttonPanel.setFloatable(false);
+		buttonPanel.setBorder(new EtchedBorder());
+
+		for (int i = 0; i < dimensionBoxes.length; i++) {
+			dimensionBoxes[i] = new JComboBox(getItems(i > 0));
+			buttonPanel.add(Box.createRigidArea(new Dimension(5, 0)));
+			buttonPanel.add(dimensionBoxes[i]);
+		}
+		dimensionBoxes[0].setSelectedItem(AshDimensionIndex.MODULE);
+
+		filterBox = new JComboBox(getItems(true));
+		buttonPanel.add(Box.createRigidArea(new Dimension(10, 0)));
+		buttonPanel.add(new JLabel("Filter: "));
+		buttonPanel.add(filterBox);
+		buttonPanel.add(new JLabel(" = "));
+		buttonPanel.add(filterValueField);
+
+		JButton groupByButton = new JButton();
+		groupByButton.setText("Group");
+		groupByButton.setActionCommand("GroupBy");
+		groupByButton.addActionListener(new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				if (e.getActionCommand().equalsIgnoreCase("GroupBy")) {
+					groupBy();
+				}
+			}
+		});
+		buttonPanel.add(Box.createRigidArea(new Dimension(10, 0)));
+		buttonPanel.add(groupByButton);
+
+		this.main.add(buttonPanel, BorderLayout.NORTH);
+		this.main.add(result, BorderLayout.CENTER);
+	}
+
+	/**
+	 * Group rows by selected dimensions in thread and show top-K.
+	 */
+	private void groupBy() {
+		List<String> dimensionList = new ArrayList<String>();
+		for (int i = 0; i < dimensionBoxes.length; i++) {
+			String dimension = (String) dimensionBoxes[i].getSelectedItem();
+			if (!NONE.equals(dimension) && !dimensionList.contains(dimension)) {
+				dimensionList.add(dimension);
+			}
+		}
+		if (dimensionList.isEmpty()) {
+			return;
+		}
+
+		final AshGroupBy groupBy = new AshGroupBy(dao,
+				dimensionList.toArray(new String[dimensionList.size()]));
+		String filter = (String) filterBox.getSelectedItem();
+		if (!NONE.equals(filter)) {
+			groupBy.setFilter(filter, filterValueField.getText().trim());
+		}
+
+		result.removeAll();
+		result.add(createProgressBar("Loading, please wait..."));
+		result.validate();
+		root.repaint();
+
+		Thread t = new Thread() {
+			@Override
+			public void run() {
+				try {
+					final DefaultTableModel model = createModel(groupBy,
+							groupBy.calculate(begin, end));
+					SwingUtilities.invokeLater(new Runnable() {
+						public void run() {
+							JXTable table = new JXTable(model);
+							table.setColumnControlVisible(true);
+							table.setHorizontalScrollEnabled(true);
+							table.packAll();
+
+							result.removeAll();
+							result.add(new JScrollPane(table));
+							result.validate();
+							root.repaint();
+						}
+					});
+				} catch (final DatabaseException e) {
+					e.printStackTrace();
+					SwingUtilities.invokeLater(new Runnable() {
+						public void run() {
+							result.removeAll();
+							result.validate();
+							root.repaint();
+							JOptionPane.showMessageDialog(root, e.getMessage(),
+									"Database error", JOptionPane.ERROR_MESSAGE);
+						}
+					});
+				}
+			}
+		};
+		t.start();
+	}
+
+	/**
+	 * Create table model of top-K keys.
+	 *
+	 * @param groupBy the group by
+	 * @param counters the counters
+	 * @return the table model
+	 */
+	private DefaultTableModel createModel(AshGroupBy groupBy, GroupCounters counters) {
+		String[] dimensions = groupBy.getDimensions();
+		String[] columns = new String[dimensions.length + 3];
+		System.arraycopy(dimensions, 0, columns, 0, dimensions.length);
+		columns[dimensions.length] = "Activity %";
+		columns[dimensions.length + 1] = "Count";
+		columns[dimensions.length + 2] = "CPU";
+
+		DefaultTableModel model = new DefaultTableModel(columns, 0);
+		double total = counters.getTotal(GroupCounters.COUNT);
+
+		LinkedHashMap<String, HashMap<String, Object>> top =
+			counters.getTop(GroupCounters.COUNT, TOP_K);
+		for (Entry<String, HashMap<String, Object>> me : top.entrySet()) {
+			HashMap<String, Object> values = me.getValue();
+			double count = (Double) values.get("COUNT");
+			if (count == 0) {
+				continue;
+			}
+			Object[] row = new Object[columns.length];
+			for (int i = 0; i < dimensions.length; i++) {
+				row[i] = values.get(dimensions[i]);
+			}
+			row[dimensions.length] = Utils.round(count / total * 100, 2);
+			row[dimensions.length + 1] = (long) count;
+			row[dimensions.length + 2] = ((Double) values.get(String.valueOf(GroupCounters.CPU))).longValue();
+			model.addRow(row);
+		}
+		return model;
+	}
+
+	/**
+	 * Gets the items of combo box of dimensions.
+	 *
+	 * @param isNone add empty item
+	 * @return the items
+	 */
+	private static String[] getItems(boolean isNone) {
+		String[] all = AshDimensionIndex.ALL_DIMENSIONS;
+		if (!isNone) {
+			return all;
+		}
+		String[] out = new String[all.length + 1];
+		out[0] = NONE;
+		System.arraycopy(all, 0, out, 1, all.length);
+		return out;
+	}
+
+	/**
+	 * Creates the progress bar.
+	 *
+	 * @param msg the msg
+	 *
+	 * @return the j panel
+	 */
+	private JPanel createProgressBar(String msg) {
+		JProgressBar progress = ProgressBarUtil.createJProgressBar(msg);
+		progress.setPreferredSize(new Dimension(250, 30));
+		JPanel panel = new JPanel();
+		panel.add(progress);
+		return panel;
+	}
+}
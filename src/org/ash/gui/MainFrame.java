@@ -349,7 +349,11 @@ public class MainFrame extends JFrame implements ActionListener{
 			}
 			
 			if (versionOracleDB.equalsIgnoreCase("11g")) {
-				this.database = new Database11g1(this.model);
+				if (Options.getInstance().isAggregateOnServer()) {
+					this.database = new Database11g2(this.model);
+				} else {
+					this.database = new Database11g1(this.model);
+				}
 				this.collectorUI = new Collector10g11gUI(this.database, this.latency);
 				this.database.loadToLocalBDB();
 				this.database.loadToLocalBDBCollector();
@@ -468,11 +472,7 @@ public class MainFrame extends JFrame implements ActionListener{
 				+ dbConnUtil.getDbConnection().getPort() + "/"
 				+ dbConnUtil.getDbConnection().getSID();*/
 
-		String connParam = "jdbc:oracle:thin:"
-				+ "@(description=(address=(host=" + dbConnUtil.getDbConnection().getHost()
-				+ ")(protocol=tcp)(port=" + dbConnUtil.getDbConnection().getPort()
-				+ "))(connect_data=(service_name=" + dbConnUtil.getDbConnection().getSID()
-				+ ")(server=DEDICATED)))";
+		String connParam = dbConnUtil.getDbConnection().getUrlDescription();
 				/*+ dbConnUtil.getDbConnection().getHost() + ":"
 				+ dbConnUtil.getDbConnection().getPort() + "/"
 				+ dbConnUtil.getDbConnection().getSID();*/
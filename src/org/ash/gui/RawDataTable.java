@@ -0,0 +1,76 @@
+/*
+ *-------------------
+ * The RawDataTable.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.gui;
+
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+
+import org.ash.database.AshRawDataTableModel;
+import org.jdesktop.swingx.JXTable;
+import org.jdesktop.swingx.table.ColumnFactory;
+
+/**
+ * The Class RawDataTable.
+ *
+ * Table of lazy raw data model. Sorting of table would read all rows,
+ * so it is off, click on header of SampleID or SampleTime changes order
+ * of rows in model. Columns are packed by rows of the first page.
+ */
+public class RawDataTable extends JXTable {
+
+	private static final long serialVersionUID = 1L;
+
+	/** The model. */
+	private AshRawDataTableModel rawDataModel;
+
+	/**
+	 * Instantiates a new raw data table.
+	 *
+	 * @param model the model
+	 */
+	public RawDataTable(AshRawDataTableModel model) {
+		super(model);
+		this.rawDataModel = model;
+
+		setSortable(false);
+		setColumnFactory(new ColumnFactory() {
+			protected int getRowCount(JXTable table) {
+				return Math.min(table.getRowCount(),
+						AshRawDataTableModel.PAGE_SIZE);
+			}
+		});
+
+		getTableHeader().addMouseListener(new MouseAdapter() {
+			public void mouseClicked(MouseEvent e) {
+				int column = getTableHeader().columnAtPoint(e.getPoint());
+				if (column < 0) {
+					return;
+				}
+				column = convertColumnIndexToModel(column);
+				if (column == AshRawDataTableModel.SAMPLE_ID_COLUMN
+						|| column == AshRawDataTableModel.SAMPLE_TIME_COLUMN) {
+					rawDataModel.setDescending(!rawDataModel.isDescending());
+				}
+			}
+		});
+	}
+}
@@ -37,6 +37,7 @@ import javax.swing.ButtonGroup;
 import javax.swing.JButton;
 import javax.swing.JCheckBox;
 import javax.swing.JDialog;
+import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JRadioButton;
 import javax.swing.JSpinner;
@@ -57,6 +58,7 @@ public class Settings extends JDialog {
 
 	private JPanel mainPanelCommon = new JPanel();
 	private JPanel sqlTextToClipboardPanelCommon = new JPanel();
+	private JPanel retentionPanelCommon = new JPanel();
     private JPanel setMinimalistic = new JPanel();
 	private JPanel mainPanelTopA = new JPanel();
 	private JPanel mainPanelDetail = new JPanel();
@@ -87,6 +89,13 @@ public class Settings extends JDialog {
 	private JCheckBox sqlTextToClipboardCheckbox = new JCheckBox();
 
     private JCheckBox sqlMinimalistcCheckbox = new JCheckBox();
+
+    private JCheckBox compactStorageCheckbox = new JCheckBox();
+    private JCheckBox aggregateOnServerCheckbox = new JCheckBox();
+    private JCheckBox dimensionIndexCheckbox = new JCheckBox();
+
+    /** The label of retention */
+    private JLabel retentionLabel = new JLabel();
 	
 	/** The radio button auto */
 	private JRadioButton autoRadioButton = new JRadioButton();
@@ -148,6 +157,11 @@ public class Settings extends JDialog {
 	/** The spiner range window. */
 	private JSpinner spinerRangeWindow;
 	
+	/** The retention list (days to keep ASH data). */
+	private String retentionList[] = {"All","1","3","7","14","30","90"};
+	/** The spinner of retention. */
+	private JSpinner spinerRetention;
+	
 	/**
 	 * Constructor
 	 *  
@@ -234,6 +248,26 @@ public class Settings extends JDialog {
         this.sqlMinimalistcCheckbox.setMnemonic(Options.getInstance().getResource("texttoclip.mnemonic").charAt(0));
         this.sqlMinimalistcCheckbox.setText(Options.getInstance().getResource("minimalistic.text"));
         this.sqlMinimalistcCheckbox.addItemListener(new SelectItemListenerMinimalistic());
+
+        this.compactStorageCheckbox.setText(Options.getInstance().getResource("compactstorage.text"));
+        this.compactStorageCheckbox.setSelected(Options.getInstance().isCompactStorage());
+        this.compactStorageCheckbox.addItemListener(new SelectItemListenerCompactStorage());
+
+        this.aggregateOnServerCheckbox.setText(Options.getInstance().getResource("aggregateonserver.text"));
+        this.aggregateOnServerCheckbox.setSelected(Options.getInstance().isAggregateOnServer());
+        this.aggregateOnServerCheckbox.addItemListener(new SelectItemListenerAggregateOnServer());
+
+        this.dimensionIndexCheckbox.setText(Options.getInstance().getResource("dimensionindex.text"));
+        this.dimensionIndexCheckbox.setSelected(Options.getInstance().isDimensionIndex());
+        this.dimensionIndexCheckbox.addItemListener(new SelectItemListenerDimensionIndex());
+
+        this.retentionLabel.setText(Options.getInstance().getResource("retention.text"));
+        this.spinerRetention = new JSpinner(new SpinnerListModel(retentionList));
+        this.spinerRetention.setPreferredSize(new Dimension(50,27));
+        int retentionDays = Options.getInstance().getRetentionDays();
+        this.spinerRetention.getModel().setValue(
+                retentionDays > 0 ? String.valueOf(retentionDays) : "All");
+        this.spinerRetention.addChangeListener(new changeListenerRetentionSpinner());
 		
 		this.autoRadioButton.setMnemonic(Options.getInstance().getResource("autoRadio.mnemonic").charAt(0));
 		this.autoRadioButton.setText(Options.getInstance().getResource("autoRadio.text"));
@@ -352,6 +386,13 @@ public class Settings extends JDialog {
                                TitledBorder.DEFAULT_POSITION,
                                sqlTextToClipboardPanelCommon);
 	    
+	    retentionPanelCommon.setLayout(new GridBagLayout());
+	    titledSelectionModeTopA = BorderFactory.createTitledBorder(loweredetched, "Retention");
+        addCompForTitledBorder(titledSelectionModeTopA,
+                               TitledBorder.LEFT,
+                               TitledBorder.DEFAULT_POSITION,
+                               retentionPanelCommon);
+	    
 	    autoManualPanelTopA.setLayout(gridBagLayoutTopA2);
 	    titledSelectionModeTopA = BorderFactory.createTitledBorder(loweredetched, "Selection mode");
         addCompForTitledBorder(titledSelectionModeTopA,
@@ -408,13 +449,29 @@ public class Settings extends JDialog {
 	    getContentPane().add(tabsSettings);
 	    
 	    mainPanelCommon.add(sqlTextToClipboardPanelCommon,  new GridBagConstraints(0, 0, 1, 1, 1.0, 1.0
-	            ,GridBagConstraints.CENTER, GridBagConstraints.BOTH, new Insets(5, 5, 260, 5), 0, 0));
+	            ,GridBagConstraints.CENTER, GridBagConstraints.BOTH, new Insets(5, 5, 5, 5), 0, 0));
+	    mainPanelCommon.add(retentionPanelCommon,  new GridBagConstraints(0, 1, 1, 1, 1.0, 0.0
+	            ,GridBagConstraints.CENTER, GridBagConstraints.BOTH, new Insets(5, 5, 200, 5), 0, 0));
 	    sqlTextToClipboardPanelCommon.add(sqlTextToClipboardCheckbox,  new GridBagConstraints(0, 0, 1, 1, 0.0, 0.0
 	            ,GridBagConstraints.CENTER, GridBagConstraints.BOTH, new Insets(5, 5, 5, 5), 0, 0));
 
         sqlTextToClipboardPanelCommon.add(sqlMinimalistcCheckbox,  new GridBagConstraints(0, 1, 1, 1, 1.0, 1.0
                 ,GridBagConstraints.CENTER, GridBagConstraints.BOTH, new Insets(5, 5, 5, 5), 0, 0));
 
+        sqlTextToClipboardPanelCommon.add(compactStorageCheckbox,  new GridBagConstraints(0, 2, 1, 1, 1.0, 1.0
+                ,GridBagConstraints.CENTER, GridBagConstraints.BOTH, new Insets(5, 5, 5, 5), 0, 0));
+
+        sqlTextToClipboardPanelCommon.add(aggregateOnServerCheckbox,  new GridBagConstraints(0, 3, 1, 1, 1.0, 1.0
+                ,GridBagConstraints.CENTER, GridBagConstraints.BOTH, new Insets(5, 5, 5, 5), 0, 0));
+
+        sqlTextToClipboardPanelCommon.add(dimensionIndexCheckbox,  new GridBagConstraints(0, 4, 1, 1, 1.0, 1.0
+                ,GridBagConstraints.CENTER, GridBagConstraints.BOTH, new Insets(5, 5, 5, 5), 0, 0));
+
+        retentionPanelCommon.add(retentionLabel,  new GridBagConstraints(0, 0, 1, 1, 0.0, 0.0
+                ,GridBagConstraints.WEST, GridBagConstraints.NONE, new Insets(5, 5, 5, 5), 0, 0));
+        retentionPanelCommon.add(spinerRetention,  new GridBagConstraints(1, 0, 1, 1, 1.0, 0.0
+                ,GridBagConstraints.WEST, GridBagConstraints.NONE, new Insets(5, 5, 5, 5), 0, 0));
+
 	    sqlTextToClipboardPanelCommon.add(new JPanel(),  new GridBagConstraints(1, 0, 1, 1, 0.0, 0.0
 	            ,GridBagConstraints.CENTER, GridBagConstraints.BOTH, new Insets(5, 5, 5, 5), 0, 0));
 	    
@@ -555,6 +612,42 @@ public class Settings extends JDialog {
             mainFrame.setMinimalistic();
         }
     }
+
+    class SelectItemListenerAggregateOnServer  implements ItemListener{
+        public void itemStateChanged(ItemEvent e){
+            //checkbox select or not
+            int state = e.getStateChange();
+            if (state == ItemEvent.SELECTED) {
+                Options.getInstance().setAggregateOnServer(true);
+            } else {
+                Options.getInstance().setAggregateOnServer(false);
+            }
+        }
+    }
+
+    class SelectItemListenerDimensionIndex  implements ItemListener{
+        public void itemStateChanged(ItemEvent e){
+            //checkbox select or not
+            int state = e.getStateChange();
+            if (state == ItemEvent.SELECTED) {
+                Options.getInstance().setDimensionIndex(true);
+            } else {
+                Options.getInstance().setDimensionIndex(false);
+            }
+        }
+    }
+
+    class SelectItemListenerCompactStorage  implements ItemListener{
+        public void itemStateChanged(ItemEvent e){
+            //checkbox select or not
+            int state = e.getStateChange();
+            if (state == ItemEvent.SELECTED) {
+                Options.getInstance().setCompactStorage(true);
+            } else {
+                Options.getInstance().setCompactStorage(false);
+            }
+        }
+    }
 	
 	/**
 	 * Item listener for sql plan (TA)
@@ -722,6 +815,25 @@ public class Settings extends JDialog {
 		}
 	}
 	
+    /**
+     * The Class changeListenerRetentionSpinner.
+     *
+     */
+    class changeListenerRetentionSpinner implements ChangeListener{
+
+        /* (non-Javadoc)
+         * @see javax.swing.event.ChangeListener#stateChanged(javax.swing.event.ChangeEvent)
+         */
+        public void stateChanged(ChangeEvent e) {
+            String changedValue = (String) spinerRetention.getValue();
+            if (changedValue.equals("All")){
+                Options.getInstance().setRetentionDays(0);
+            } else {
+                Options.getInstance().setRetentionDays(Integer.parseInt(changedValue));
+            }
+        }
+    }
+	
    /**
  	 * The Class changeListenerRangwWindowSpinner.
  	 * 
@@ -358,7 +358,7 @@ public class SqlPlan extends JPanel {
 				Double planHashValue = listIter.next();
 				String phvTabTitle = "PHV: " + planHashValue.longValue();
 				ExplainPlanModel10g2 sqlPlanModel = (ExplainPlanModel10g2) database
-						.getSqlPlanModelByPlanHashValue(planHashValue, sqlId);
+						.getSqlPlanModel(planHashValue, sqlId);
 				if (sqlPlanModel != null) {
 					JScrollPane scrollPane = new JScrollPane(
 							createTreeTable(sqlPlanModel));
@@ -401,7 +401,7 @@ public class SqlPlan extends JPanel {
 				Double planHashValue = listIter.next();
 				String phvTabTitle = "PHV: " + planHashValue.longValue();
 				ExplainPlanModel10g2 sqlPlanModel = (ExplainPlanModel10g2) database
-						.getSqlPlanModelByPlanHashValue(planHashValue, sqlId);
+						.getSqlPlanModel(planHashValue, sqlId);
 				if (sqlPlanModel != null) {
 					JScrollPane scrollPane = new JScrollPane(
 							createTreeTable(sqlPlanModel));
@@ -441,7 +441,7 @@ public class SqlPlan extends JPanel {
 				Double planHashValue = listIter.next();
 				String phvTabTitle = "PHV: " + planHashValue.longValue();
 				ExplainPlanModel9i sqlPlanModel = (ExplainPlanModel9i) database
-						.getSqlPlanModelByPlanHashValue(planHashValue, sqlId);
+						.getSqlPlanModel(planHashValue, sqlId);
 				if (sqlPlanModel != null) {
 					JScrollPane scrollPane = new JScrollPane(
 							createTreeTable(sqlPlanModel));
@@ -621,7 +621,7 @@ public class SqlPlan extends JPanel {
 			String phvTabTitle = "PHV: " + planHashValue.longValue();
 
 			ExplainPlanModel10g2 sqlPlanModel = (ExplainPlanModel10g2) database
-					.getSqlPlanModelByPlanHashValue(planHashValue, sqlId);
+					.getSqlPlanModel(planHashValue, sqlId);
 			if (sqlPlanModel != null) {
 				JScrollPane scrollPane = new JScrollPane(
 						createTreeTable(sqlPlanModel));
@@ -663,7 +663,7 @@ public class SqlPlan extends JPanel {
 			String phvTabTitle = "PHV: " + planHashValue.longValue();
 
 			ExplainPlanModel10g2 sqlPlanModel = (ExplainPlanModel10g2) database
-					.getSqlPlanModelByPlanHashValue(planHashValue, sqlId);
+					.getSqlPlanModel(planHashValue, sqlId);
 			if (sqlPlanModel != null) {
 				JScrollPane scrollPane = new JScrollPane(
 						createTreeTable(sqlPlanModel));
@@ -705,7 +705,7 @@ public class SqlPlan extends JPanel {
 			String phvTabTitle = "PHV: " + planHashValue.longValue();
 
 			ExplainPlanModel9i sqlPlanModel = (ExplainPlanModel9i) database
-					.getSqlPlanModelByPlanHashValue(planHashValue, sqlId);
+					.getSqlPlanModel(planHashValue, sqlId);
 			if (sqlPlanModel != null) {
 				JScrollPane scrollPane = new JScrollPane(
 						createTreeTable(sqlPlanModel));
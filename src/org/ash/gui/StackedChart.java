@@ -25,6 +25,7 @@ package org.ash.gui;
 import com.sleepycat.je.DatabaseException;
 import org.ash.database.ASHDatabase;
 import org.ash.util.Options;
+import org.ash.util.RingTableXYDataset;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
@@ -39,7 +40,6 @@ import org.jfree.chart.plot.ValueMarker;
 import org.jfree.chart.plot.XYPlot;
 import org.jfree.chart.renderer.xy.StackedXYAreaRenderer3;
 import org.jfree.chart.title.LegendTitle;
-import org.jfree.data.xy.CategoryTableXYDataset;
 import org.jfree.ui.*;
 
 import java.awt.*;
@@ -57,8 +57,11 @@ public class StackedChart {
 	/** The database. */
 	private ASHDatabase database;
 	
-	/** The dataset. */
-	private CategoryTableXYDataset dataset;
+	/** The dataset (updated by collector). */
+	private RingTableXYDataset dataset;
+	
+	/** The dataset of chart (snapshot of dataset, EDT). */
+	private RingTableXYDataset chartDataset;
 	
 	/** The chart. */
 	private JFreeChart chart;
@@ -109,10 +112,17 @@ public class StackedChart {
      * @throws DatabaseException the database exception
      */
     public ChartPanel createChartPanel() throws DatabaseException {
-    	createDataset();
+    	// Chart panel is created again, the old one is not updated
+    	if (dataset != null) {
+    		this.database.getChartRepaintScheduler().unregister(dataset);
+    	}
+    	dataset = new RingTableXYDataset();
+    	chartDataset = new RingTableXYDataset();
         JFreeChart chart = createChart();
         chartPanel = new ChartPanel(chart);
         chartPanel.setRangeZoomable(false);
+        this.database.getChartRepaintScheduler().register(dataset, chartDataset, chartPanel);
+        createDataset();
         return chartPanel;
     }
     
@@ -266,7 +276,7 @@ public class StackedChart {
             "Top activity",  				 // chart title
             "X Value",                       // domain axis label
             "Active Sessions",               // range axis label
-            dataset,                         // data
+            chartDataset,                    // data
             PlotOrientation.VERTICAL,        // the plot orientation
             xAxis,
             false,                           // legend
@@ -354,7 +364,6 @@ public class StackedChart {
      * @throws DatabaseException the database exception
      */
     private void createDataset() throws DatabaseException {
-    	dataset = new CategoryTableXYDataset();
         this.database.loadDataToChartPanelDataSet(dataset);
     }
     
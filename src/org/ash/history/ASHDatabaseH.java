@@ -28,24 +28,25 @@ import com.sleepycat.je.EnvironmentConfig;
 import com.sleepycat.persist.EntityCursor;
 import com.sleepycat.persist.EntityStore;
 import com.sleepycat.persist.StoreConfig;
+import org.ash.database.ASHDatabase;
 import org.ash.database.AshDataAccessor;
+import org.ash.database.AshPyramid;
+import org.ash.database.AshRawDataTableModel;
+import org.ash.database.AshRollup;
+import org.ash.database.SqlPlanCapture;
+import org.ash.database.SqlPlanTreeBuilder;
 import org.ash.datamodel.*;
 import org.ash.datatemp.SessionsTemp;
 import org.ash.datatemp.SqlsTemp;
-import org.ash.explainplanmodel.ExplainPlanModel10g2;
-import org.ash.explainplanmodel.ExplainPlanModel9i;
 import org.ash.history.detail.StackedChartDetail;
+import org.ash.util.LruCache;
 import org.ash.util.Options;
-import org.ash.util.Utils;
 import org.jdesktop.swingx.treetable.TreeTableModel;
 import org.jfree.data.xy.CategoryTableXYDataset;
 
-import javax.swing.table.DefaultTableModel;
 import java.io.File;
 import java.io.IOException;
 import java.sql.SQLException;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
 import java.util.*;
 
 /**
@@ -62,6 +63,13 @@ public class ASHDatabaseH {
 	/** The dao. */
 	private  AshDataAccessor dao = null;
 
+	/** The count of sql plans in cache */
+	private static final int SQL_PLAN_CACHE_SIZE = 50;
+
+	/** The cache of lines of sql plans by planHashValue:sqlId (history is not changed) */
+	private Map<String, List<AshSqlPlanDetail>> sqlPlanLines =
+		new LruCache<String, List<AshSqlPlanDetail>>(SQL_PLAN_CACHE_SIZE);
+
 	/** The BDB env config. */
 	private EnvironmentConfig envConfig;
 
@@ -95,6 +103,9 @@ public class ASHDatabaseH {
 	/** The store of event Class and corresponding StackedXYAreaChartDetail object*/
 	private	HashMap<String, StackedChartDetail> storeStackedXYAreaChartDetail;
 
+	/** The drilldown of last range (detail charts). */
+	private DetailDrilldown detailDrilldown;
+
 	/**
 	 * Instantiates a new BDB database.
 	 */
@@ -176,6 +187,10 @@ public class ASHDatabaseH {
 	 */
 	public void close() {
 
+		if (dao != null) {
+			dao.close();
+		}
+
 		if (store != null) {
 			try {
 				store.close();
@@ -204,7 +219,6 @@ public class ASHDatabaseH {
 		try {
 			int k = 0;
 			this.dataset = _dataset;
-			EntityCursor<ActiveSessionHistory15> items;
 
 			Double firstKey = 0.0;
 			Double lastKey = 0.0;
@@ -243,82 +257,21 @@ public class ASHDatabaseH {
 				k = (int) (Math.ceil(deltaKey/currentWindow));
 			}
 
-			for (double ii=firstKey;ii<lastKey;ii+=rangeHalf*k*2){
-
-		/* Init temporary variables */
-				double other0 = 0;
-				double application1 = 0;
-				double configuration2 = 0;
-				double administrative3 = 0;
-				double concurrency4 = 0;
-				double commit5 = 0;
-				double network7 = 0;
-				double userIO8 = 0;
-				double systemIO9 = 0;
-				double scheduler10 = 0;
-				double cluster11 = 0;
-				double queueing12 = 0;
-				double cpu = 0;
-				int kk = 1;
-
-				items = dao.doRangeQuery(
-						dao.getAshCalcSumByEventById115Sec(),
-						ii, true,
-						ii+rangeHalf*k*2, false);
-
-			/* Do a filter on Ash by SampleTime. */
-				Iterator<ActiveSessionHistory15> deptIter = items.iterator();
-
-				while (deptIter.hasNext()) {
-
-					ActiveSessionHistory15 ashSumMain = deptIter.next();
-
-					other0 = other0+ashSumMain.getOther0();
-					application1 = application1+ashSumMain.getApplication1();
-					configuration2 = configuration2+ashSumMain.getConfiguration2();
-					administrative3 = administrative3+ashSumMain.getAdministrative3();
-					concurrency4 = concurrency4+ashSumMain.getConcurrency4();
-					commit5 = commit5+ashSumMain.getCommit5();
-					network7 = network7+ashSumMain.getNetwork7();
-					userIO8 = userIO8+ashSumMain.getUserIO8();
-					systemIO9 = systemIO9+ashSumMain.getSystemIO9();
-					scheduler10 = scheduler10+ashSumMain.getScheduler10();
-					cluster11 = cluster11+ashSumMain.getCluster11();
-					queueing12 = queueing12+ashSumMain.getQueueing12();
-					cpu = cpu+ashSumMain.getCpu();
-					kk++;
-				}
-				items.close();
-
-				double tempSampleTime = ii+rangeHalf*k;
-
-				dataset.add(tempSampleTime, cpu/kk,
-						Options.getInstance().getResource("cpuLabel.text"));
-				dataset.add(tempSampleTime, scheduler10/kk,
-						Options.getInstance().getResource("schedulerLabel.text"));
-				dataset.add(tempSampleTime, userIO8/kk,
-						Options.getInstance().getResource("userIOLabel.text"));
-				dataset.add(tempSampleTime, systemIO9/kk,
-						Options.getInstance().getResource("systemIOLabel.text"));
-				dataset.add(tempSampleTime, concurrency4/kk,
-						Options.getInstance().getResource("concurrencyLabel.text"));
-				dataset.add(tempSampleTime, application1/kk,
-						Options.getInstance().getResource("applicationsLabel.text"));
-				dataset.add(tempSampleTime, commit5/kk,
-						Options.getInstance().getResource("commitLabel.text"));
-				dataset.add(tempSampleTime, configuration2/kk,
-						Options.getInstance().getResource("configurationLabel.text"));
-				dataset.add(tempSampleTime, administrative3/kk,
-						Options.getInstance().getResource("administrativeLabel.text"));
-				dataset.add(tempSampleTime, network7/kk,
-						Options.getInstance().getResource("networkLabel.text"));
-				dataset.add(tempSampleTime, queueing12/kk,
-						Options.getInstance().getResource("queueningLabel.text"));//que
-				dataset.add(tempSampleTime, cluster11/kk,
-						Options.getInstance().getResource("clusterLabel.text"));//cluster
-				dataset.add(tempSampleTime, other0/kk,
-						Options.getInstance().getResource("otherLabel.text"));
+			// Sums are loaded from the coarsest level enough for step
+			AshPyramid ashPyramid = dao.getAshPyramid();
+			ashPyramid.buildIfNeeded();
 
+			double step = rangeHalf*k*2;
+			int level = AshPyramid.getLevel(step);
+			if (level > 0){
+				double length = AshPyramid.LEVELS[level];
+				step = Math.round(step/length)*length;
+				firstKey = Math.floor(firstKey/length)*length;
+			}
+
+			for (double ii=firstKey;ii<lastKey;ii+=step){
+				double[] sum = ashPyramid.getSum(level, ii, ii+step);
+				addToDataset(ii+step/2, sum, sum[AshPyramid.COUNT]+1);
 			}
 
 		} catch (DatabaseException e) {
@@ -338,7 +291,6 @@ public class ASHDatabaseH {
 		try {
 			int k = 0;
 			this.dataset = _dataset;
-			EntityCursor<ActiveSessionHistory15> items;
 
 			// Get max and min value of AshCalcSumByEventById115Sec
 			Double firstKey = begin-rangeHalf;
@@ -352,81 +304,21 @@ public class ASHDatabaseH {
 				k = (int) (Math.ceil(deltaKey/currentWindow));
 			}
 
-			for (double ii=firstKey;ii<lastKey;ii+=rangeHalf*k*2){
-
-		/* Init temporary variables */
-				double other0 = 0;
-				double application1 = 0;
-				double configuration2 = 0;
-				double administrative3 = 0;
-				double concurrency4 = 0;
-				double commit5 = 0;
-				double network7 = 0;
-				double userIO8 = 0;
-				double systemIO9 = 0;
-				double scheduler10 = 0;
-				double cluster11 = 0;
-				double queueing12 = 0;
-				double cpu = 0;
-
-				items = dao.doRangeQuery(
-						dao.getAshCalcSumByEventById115Sec(),
-						ii, true,
-						ii+rangeHalf*k*2, false);
-
-			/* Do a filter on Ash by SampleTime. */
-				Iterator<ActiveSessionHistory15> deptIter = items.iterator();
-
-				while (deptIter.hasNext()) {
-
-					ActiveSessionHistory15 ashSumMain = deptIter.next();
-
-					other0 = other0+ashSumMain.getOther0();
-					application1 = application1+ashSumMain.getApplication1();
-					configuration2 = configuration2+ashSumMain.getConfiguration2();
-					administrative3 = administrative3+ashSumMain.getAdministrative3();
-					concurrency4 = concurrency4+ashSumMain.getConcurrency4();
-					commit5 = commit5+ashSumMain.getCommit5();
-					network7 = network7+ashSumMain.getNetwork7();
-					userIO8 = userIO8+ashSumMain.getUserIO8();
-					systemIO9 = systemIO9+ashSumMain.getSystemIO9();
-					scheduler10 = scheduler10+ashSumMain.getScheduler10();
-					cluster11 = cluster11+ashSumMain.getCluster11();
-					queueing12 = queueing12+ashSumMain.getQueueing12();
-					cpu = cpu+ashSumMain.getCpu();
+			// Sums are loaded from the coarsest level enough for step
+			AshPyramid ashPyramid = dao.getAshPyramid();
+			ashPyramid.buildIfNeeded();
 
-				}
-				items.close();
-
-				double tempSampleTime = ii+rangeHalf*2*k;
-
-				dataset.add(tempSampleTime, cpu/k,
-						Options.getInstance().getResource("cpuLabel.text"));
-				dataset.add(tempSampleTime, scheduler10/k,
-						Options.getInstance().getResource("schedulerLabel.text"));
-				dataset.add(tempSampleTime, userIO8/k,
-						Options.getInstance().getResource("userIOLabel.text"));
-				dataset.add(tempSampleTime, systemIO9/k,
-						Options.getInstance().getResource("systemIOLabel.text"));
-				dataset.add(tempSampleTime, concurrency4/k,
-						Options.getInstance().getResource("concurrencyLabel.text"));
-				dataset.add(tempSampleTime, application1/k,
-						Options.getInstance().getResource("applicationsLabel.text"));
-				dataset.add(tempSampleTime, commit5/k,
-						Options.getInstance().getResource("commitLabel.text"));
-				dataset.add(tempSampleTime, configuration2/k,
-						Options.getInstance().getResource("configurationLabel.text"));
-				dataset.add(tempSampleTime, administrative3/k,
-						Options.getInstance().getResource("administrativeLabel.text"));
-				dataset.add(tempSampleTime, network7/k,
-						Options.getInstance().getResource("networkLabel.text"));
-				dataset.add(tempSampleTime, queueing12/k,
-						Options.getInstance().getResource("queueningLabel.text"));//que
-				dataset.add(tempSampleTime, cluster11/k,
-						Options.getInstance().getResource("clusterLabel.text"));//cluster
-				dataset.add(tempSampleTime, other0/k,
-						Options.getInstance().getResource("otherLabel.text"));
+			double step = rangeHalf*k*2;
+			int level = AshPyramid.getLevel(step);
+			if (level > 0){
+				double length = AshPyramid.LEVELS[level];
+				step = Math.round(step/length)*length;
+				firstKey = Math.floor(firstKey/length)*length;
+			}
 
+			for (double ii=firstKey;ii<lastKey;ii+=step){
+				double[] sum = ashPyramid.getSum(level, ii, ii+step);
+				addToDataset(ii+step, sum, step/(rangeHalf*2));
 			}
 
 		} catch (DatabaseException e) {
@@ -437,149 +329,67 @@ public class ASHDatabaseH {
 
 
 
-	public DefaultTableModel getASHRawData(double begin, double end) throws DatabaseException {
-
-		DefaultTableModel model = new DefaultTableModel(new String[] {
-				"SampleID",
-				"SampleTime",
-				"SessionID",
-				"SessionSerial",
-				"Username",
-				"Program",
-				"Module",
-				"ClientID",
-				"Action",
-				"Sql type",
-				"SQL ID",
-				"Plan hash value",
-				"Event",
-				"P1",
-				"P1Text",
-				"P2",
-				"P2Text",
-				"P3",
-				"P3Text",
-				"Wait Class",
-				"Wait Class id",
-				"Wait time",
-				"Session state",
-				"Time waited",
-				"Blocking session (BS)",
-				"BS status",
-				"BS serial#",
-				"Current obj#",
-				"Current file",
-				"Current block",
-				"Current row",
-				"Consumer group id",
-				"Xid",
-				"Remote instance",
-				"In connection mgmt",
-				"In parse",
-				"In hard parse",
-				"In sql execution",
-				"In pl/sql execution",
-				"In pl/sql rpc",
-				"In pl/sql compilation",
-				"In java execution",
-				"In bind",
-				"In cursor close",
-				"Service hash",
-				"Client id",
-				"UserID"
-		}, 0);
-
-		try {
-
-			/* Do a filter on AshIdTime by SampleTime. (detail) */
-			EntityCursor<AshIdTime> ashIdTimeCursor =
-					dao.doRangeQuery(dao.getAshBySampleTime(),
-							begin, true, end, false);
-
-			Iterator<AshIdTime> ashIdTimeIter = ashIdTimeCursor.iterator();
-
-			// Iterate over AshIdTime (detail)
-			while (ashIdTimeIter.hasNext()) {
-				AshIdTime ashIdTimeMain = ashIdTimeIter.next();
-
-				Long sampleTimeLong = (long) ashIdTimeMain.getsampleTime();
-				Date td = new Date(sampleTimeLong.longValue());
-				DateFormat df = new SimpleDateFormat("dd.MM.yyyy HH.mm.ss");
-				String reportDateStr = df.format(td);
-
-            	/* Do a filter on ActiveSessionHistory by SampleID (detail). */
-				EntityCursor<ActiveSessionHistory> ActiveSessionHistoryCursor =
-						dao.getActiveSessionHistoryByAshId().subIndex(ashIdTimeMain.getsampleId()).entities();
-				Iterator<ActiveSessionHistory> ActiveSessionHistoryIter =
-						ActiveSessionHistoryCursor.iterator();
-
-				// Iterate over ActiveSessionHistory (detail)
-				while (ActiveSessionHistoryIter.hasNext()) {
-					ActiveSessionHistory ASH = ActiveSessionHistoryIter.next();
-
-                    /* Get username */
-					String username = this.getUsername(ASH.getUserId());
-
-					model.addRow(new Object[] {
-							ASH.getSampleId(),
-							reportDateStr,
-							ASH.getSessionId(),
-							(long)ASH.getSessionSerial(),
-							username,
-							ASH.getProgram(),
-							ASH.getModule(),
-							ASH.getClientId(),
-							ASH.getAction(),
-							Options.getInstance().getResource(String.valueOf((int) ASH.getSqlOPCode())),
-							ASH.getSqlId(),
-							(long)ASH.getSqlPlanHashValue(),
-							ASH.getEvent(),
-							(long)ASH.getP1(),
-							ASH.getP1Text(),
-							(long)ASH.getP2(),
-							ASH.getP2Text(),
-							(long)ASH.getP3(),
-							ASH.getP3Text(),
-							ASH.getWaitClass(),
-							(long)ASH.getWaitClassId(),
-							(long)ASH.getWaitTime(),
-							ASH.getSessionState(),
-							(long)ASH.getTimeWaited(),
-							(long)ASH.getBlockingSession(),
-							ASH.getBlockingSessionStatus(),
-							(long)ASH.getBlockingSessionSerialHash(),
-							(long)ASH.getCurrentObjHash(),
-							(long)ASH.getCurrentFileHash(),
-							(long)ASH.getCurrentBlockHash(),
-							(long)ASH.getCurrentRowHash(),
-							(long)ASH.getConsumerGroupId(),
-							ASH.getXid(),
-							(long)ASH.getRemoteInstance(),
-							ASH.getInConnectionMgmt(),
-							ASH.getInParse(),
-							ASH.getInHardParse(),
-							ASH.getInSqlExecution(),
-							ASH.getInPlSqlExecution(),
-							ASH.getInPlSqlRpc(),
-							ASH.getInPlSqlCompilation(),
-							ASH.getInJavaExecution(),
-							ASH.getInBind(),
-							ASH.getInCursorClose(),
-							(long)ASH.getServiceHash(),
-							ASH.getClientId(),
-							ASH.getUserId()
-
-					});
-				}
-				ActiveSessionHistoryCursor.close();
-			}
-			ashIdTimeCursor.close();
-
-		} catch (Exception e){
-			e.printStackTrace();
-		}
+	/**
+	 * Add sums of wait classes and CPU to dataset.
+	 *
+	 * @param sampleTime the sample time
+	 * @param sum the sums by wait class index (see AshPyramid)
+	 * @param k the divisor (count of 15 sec buckets)
+	 */
+	private void addToDataset(double sampleTime, double[] sum, double k){
+		dataset.add(sampleTime, sum[AshRollup.CPU]/k,
+				Options.getInstance().getResource("cpuLabel.text"));
+		dataset.add(sampleTime, sum[10]/k,
+				Options.getInstance().getResource("schedulerLabel.text"));
+		dataset.add(sampleTime, sum[8]/k,
+				Options.getInstance().getResource("userIOLabel.text"));
+		dataset.add(sampleTime, sum[9]/k,
+				Options.getInstance().getResource("systemIOLabel.text"));
+		dataset.add(sampleTime, sum[4]/k,
+				Options.getInstance().getResource("concurrencyLabel.text"));
+		dataset.add(sampleTime, sum[1]/k,
+				Options.getInstance().getResource("applicationsLabel.text"));
+		dataset.add(sampleTime, sum[5]/k,
+				Options.getInstance().getResource("commitLabel.text"));
+		dataset.add(sampleTime, sum[2]/k,
+				Options.getInstance().getResource("configurationLabel.text"));
+		dataset.add(sampleTime, sum[3]/k,
+				Options.getInstance().getResource("administrativeLabel.text"));
+		dataset.add(sampleTime, sum[7]/k,
+				Options.getInstance().getResource("networkLabel.text"));
+		dataset.add(sampleTime, sum[12]/k,
+				Options.getInstance().getResource("queueningLabel.text"));//que
+		dataset.add(sampleTime, sum[11]/k,
+				Options.getInstance().getResource("clusterLabel.text"));//cluster
+		dataset.add(sampleTime, sum[0]/k,
+				Options.getInstance().getResource("otherLabel.text"));
+	}
+	/**
+	 * Gets the raw ASH rows of range as lazy table model.
+	 *
+	 * @param begin the begin (inclusive)
+	 * @param end the end (exclusive)
+	 * @return the model
+	 * @throws DatabaseException the database exception
+	 */
+	public AshRawDataTableModel getASHRawData(double begin, double end) throws DatabaseException {
+		return new AshRawDataTableModel(dao, begin, end, "");
+	}
 
-		return  model;
+	/**
+	 * Gets the raw ASH rows of range with value of dimension as lazy table
+	 * model (samples are read by index of dimensions).
+	 *
+	 * @param begin the begin (inclusive)
+	 * @param end the end (exclusive)
+	 * @param dimension the dimension (see AshDimensionIndex)
+	 * @param value the value of dimension
+	 * @return the model
+	 * @throws DatabaseException the database exception
+	 */
+	public AshRawDataTableModel getASHRawData(double begin, double end,
+			String dimension, String value) throws DatabaseException {
+		return new AshRawDataTableModel(dao, begin, end, "", dimension, value);
 	}
 
 
@@ -607,6 +417,16 @@ public class ASHDatabaseH {
 		return value;
 	}
 
+	/**
+	 * Checks if ASH data is aggregated on server: rows of samples are
+	 * not saved, Top SQL, Top sessions and raw data are not available.
+	 *
+	 * @return true, if aggregated on server
+	 */
+	public boolean isAggregatedOnServer(){
+		return "1".equals(getParameter(ASHDatabase.PARAM_AGGREGATE_ON_SERVER));
+	}
+
 	/**
 	 * @param tempFirstKey the tempFirstKey to set
 	 */
@@ -650,13 +470,8 @@ public class ASHDatabaseH {
 				AshIdTime ashSumMain = ashIter.next();
 
 				// get rows from ActiveSessionHistory for samplId
-				EntityCursor<ActiveSessionHistory> 	ActiveSessionHistoryCursor;
-				ActiveSessionHistoryCursor =
-						dao.doRangeQuery(dao.getActiveSessionHistoryByAshId(),
-								ashSumMain.getsampleId(), true,
-								ashSumMain.getsampleId(), true);
-				Iterator<ActiveSessionHistory> ActiveSessionHistoryIter  =
-						ActiveSessionHistoryCursor.iterator();
+				Iterator<ActiveSessionHistory> ActiveSessionHistoryIter =
+						dao.getActiveSessionHistoryBySampleId(ashSumMain.getsampleId()).iterator();
 
 				while (ActiveSessionHistoryIter.hasNext()) {
 					ActiveSessionHistory ASH =
@@ -707,8 +522,6 @@ public class ASHDatabaseH {
 
 					}
 				}
-				// Close cursor!!
-				ActiveSessionHistoryCursor.close();
 			}
 			tmpSqlsTemp.set_sum();
 			tmpSessionsTemp.set_sum();
@@ -882,7 +695,8 @@ public class ASHDatabaseH {
 
 
 	/**
-	 * Load data to chart panel dataset (detail charts).
+	 * Load data to chart panel dataset (detail charts). All charts in
+	 * storeStackedXYAreaChartDetail are loaded from drilldown of range.
 	 *
 	 */
 	private void loadDataToChartPanelDataSetDetail(String waitClass,
@@ -892,8 +706,6 @@ public class ASHDatabaseH {
 
 			String cpuUsed = Options.getInstance().getResource("cpuLabel.text");
 			int k = 0;
-			boolean isWaitClassCpu = waitClass.equalsIgnoreCase(cpuUsed);
-			boolean isAddPointsToLeftSide = false;
 
 			this.initSeriesPaint();
 
@@ -909,100 +721,56 @@ public class ASHDatabaseH {
 				k = (int) (Math.ceil(deltaKey / currentWindow));
 			}
 
-			for (double dd = firstKey; dd < lastKey; dd += rangeHalf * k * 2) {
-
-				/* Do a filter on AshIdTime by SampleTime. (detail) */
-				EntityCursor<AshIdTime> ashIdTimeCursor = dao.doRangeQuery(dao
-								.getAshBySampleTime(), dd, true, dd + rangeHalf * k * 2,
-						false);
-
-				Iterator<AshIdTime> ashIdTimeIter = ashIdTimeCursor.iterator();
-
-				// Iterate over AshIdTime (detail)
-				while (ashIdTimeIter.hasNext()) {
-					AshIdTime ashIdTimeMain = ashIdTimeIter.next();
-
-					/* Do a filter on ActiveSessionHistory by SampleID (detail). */
-					EntityCursor<ActiveSessionHistory> ActiveSessionHistoryCursor = dao
-							.getActiveSessionHistoryByAshId().subIndex(
-									ashIdTimeMain.getsampleId()).entities();
-					Iterator<ActiveSessionHistory> ActiveSessionHistoryIter = ActiveSessionHistoryCursor
-							.iterator();
-
-					// Iterate over ActiveSessionHistory (detail)
-					while (ActiveSessionHistoryIter.hasNext()) {
-						ActiveSessionHistory ASH = ActiveSessionHistoryIter
-								.next();
-						double count = 1.0;
-
-						if (isWaitClassCpu) {
-							if (ASH.getWaitTime() != 0) { // Session State = ON_CPU
-								double tmp = this.storeStackedXYAreaChartDetail
-										.get(cpuUsed).getSeriesNameSum(cpuUsed);
-								this.storeStackedXYAreaChartDetail.get(cpuUsed)
-										.setSeriesNameSum(cpuUsed, tmp + count);
-							}
-						} else {
+			DetailDrilldown drilldown = getDetailDrilldown(begin, end,
+					firstKey, lastKey, rangeHalf * k * 2);
 
-							// If waitclass is empty - go to next row
-							if (ASH.getWaitClass() == null
-									|| ASH.getWaitClass().equals("")) {
-								continue;
-							}
+			Iterator<Map.Entry<String, StackedChartDetail>> iterChart =
+				this.storeStackedXYAreaChartDetail.entrySet().iterator();
+			while (iterChart.hasNext()) {
+				Map.Entry<String, StackedChartDetail> entry = iterChart.next();
+				String keyClass = entry.getKey();
+				StackedChartDetail valueChart = entry.getValue();
+				boolean isWaitClassCpu = keyClass.equalsIgnoreCase(cpuUsed);
+				List<String> eventNames = drilldown.getEvents(keyClass);
 
-							String eventName = ASH.getEvent();
-							String waitClassEvent = ASH.getWaitClass();
-							StackedChartDetail tmpStackedObj =
-									this.storeStackedXYAreaChartDetail.get(waitClassEvent);
+				for (int bucket = 0; bucket < drilldown.getSize(); bucket++) {
+					double dd = drilldown.getBucketTime(bucket);
+					boolean isAddPointsToLeftSide = false;
 
-							// Exit
-							if (tmpStackedObj == null)
+					if (isWaitClassCpu) {
+						valueChart.setSeriesNameSum(cpuUsed, drilldown.getCpu(bucket));
+					} else {
+						for (int i = 0; i < eventNames.size(); i++) {
+							String eventName = eventNames.get(i);
+							double count = drilldown.getCount(keyClass, eventName, bucket);
+							if (count == 0.0) {
 								continue;
+							}
 
 							// Checking and loading data
-							if (tmpStackedObj.isSeriesContainName(eventName)) {
-								double tmp = tmpStackedObj
-										.getSeriesNameSum(eventName);
-								tmpStackedObj.setSeriesNameSum(eventName, tmp
-										+ count);
+							if (valueChart.isSeriesContainName(eventName)) {
+								valueChart.setSeriesNameSum(eventName, count);
+							} else if (!valueChart.isSeriesIdNameEmpty()) {
+								int nextNumber = valueChart.getSizeSeriesIdName();
+								valueChart.setSeriesIdName(nextNumber, eventName);
+								valueChart.setSeriesNameSum(eventName, count);
+								valueChart.setSeriesPaint(nextNumber, eventName, "loadDataToChartPanelDataSetDetail");
 							} else {
-								int nextNumber = 0;
-								if (!tmpStackedObj.isSeriesIdNameEmpty()) {
-									nextNumber = tmpStackedObj
-											.getSizeSeriesIdName();
-									tmpStackedObj.setSeriesIdName(nextNumber,eventName);
-									tmpStackedObj.setSeriesNameSum(eventName,1.0);
-									tmpStackedObj.setSeriesPaint(nextNumber,eventName,"loadDataToChartPanelDataSetDetail");
-
-								} else {
-									tmpStackedObj.setSeriesIdName(0,eventName);
-									tmpStackedObj.setSeriesNameSum(eventName, 1.0);
-									tmpStackedObj.setSeriesPaint(0,eventName,"initSeriesPaint");
-									isAddPointsToLeftSide = true;
-								}
+								valueChart.setSeriesIdName(0, eventName);
+								valueChart.setSeriesNameSum(eventName, count);
+								valueChart.setSeriesPaint(0, eventName, "initSeriesPaint");
+								isAddPointsToLeftSide = true;
 							}
 						}
 					}
-					ActiveSessionHistoryCursor.close();
-				}
-				ashIdTimeCursor.close();
-
-				// Calculate, save and clear
-				Set entriesSum = this.storeStackedXYAreaChartDetail.entrySet();
-				Iterator iterSum = entriesSum.iterator();
-				while (iterSum.hasNext()) {
-					Map.Entry entry = (Map.Entry) iterSum.next();
-					String keyClass = (String) entry.getKey();
-					StackedChartDetail valueChart = (StackedChartDetail) entry
-							.getValue();
+
+					// Calculate, save and clear
 					valueChart.calcSaveAndClear(rangeHalf*k, dd);
 
 					// Add points to left side
 					if (isAddPointsToLeftSide){
 						valueChart.addPointsToLeft(begin, dd, rangeHalf*k);
-						isAddPointsToLeftSide = false;
 					}
-
 				}
 			}
 
@@ -1012,6 +780,28 @@ public class ASHDatabaseH {
 		}
 	}
 
+	/**
+	 * Gets the drilldown of range (detail charts), ASH rows of range are
+	 * read once for all wait classes.
+	 *
+	 * @param begin the begin
+	 * @param end the end
+	 * @param firstKey the begin of first bucket
+	 * @param lastKey the end of range of buckets
+	 * @param step the length of bucket
+	 * @return the drilldown
+	 * @throws DatabaseException the database exception
+	 */
+	private synchronized DetailDrilldown getDetailDrilldown(double begin,
+			double end, double firstKey, double lastKey, double step)
+			throws DatabaseException {
+		if (this.detailDrilldown == null || !this.detailDrilldown.isRange(begin, end)) {
+			this.detailDrilldown = new DetailDrilldown(dao, begin, end,
+					firstKey, lastKey, step);
+		}
+		return this.detailDrilldown;
+	}
+
 	/**
 	 * Initialize series paint, renderer, dataset for stacked charts.
 	 *
@@ -1087,6 +877,14 @@ public class ASHDatabaseH {
 	 */
 	public void deleteData(long start, long end) {
 		dao.deleteData(start, end);
+		clearDetailDrilldown();
+	}
+
+	/**
+	 * Clear drilldown of detail charts (data is deleted).
+	 */
+	private synchronized void clearDetailDrilldown() {
+		this.detailDrilldown = null;
 	}
 
 	/**
@@ -1094,6 +892,7 @@ public class ASHDatabaseH {
 	 *
 	 */
 	public void deleteAllData() {
+		clearDetailDrilldown();
 		//env.removeDatabase(txn, databaseName)
 		try {
 			store.truncateClass(ActiveSessionHistory.class);
@@ -1166,377 +965,40 @@ public class ASHDatabaseH {
 	}
 
 	/**
-	 * Get sql plan from BDB for Oracle 9i
+	 * Get lines of sql plan from cache, lines are read from local BDB
+	 * once while the plan is in cache. Models are built for each view.
 	 * @param sqlPlanHashValue
 	 * @param sqlId
 	 * @return
 	 */
-	public TreeTableModel getSqlPlanModelByPlanHashValue9i(
-			Double sqlPlanHashValue, String sqlId) {
-
-		ExplainPlanModel9i model = null;
-		ExplainPlanModel9i.ExplainRow lastRow = null;
-		EntityCursor<AshSqlPlanDetail> ashSqlPlan = null;
-		long previousLevel = 1;
-		boolean isRecalculateDepth = false;
-		boolean exitFromCycle = false;
-		boolean isChildNumberSaved = false;
-		long childNumberBySql = 0;
-		long ii = 0;
-
-		while (!exitFromCycle) {
-			exitFromCycle = true;
-
-			try {
-				ashSqlPlan = dao.doRangeQuery(dao
-								.getAshSqlPlanHashValueDetail(), sqlPlanHashValue,
-						true, sqlPlanHashValue, true);
-				Iterator<AshSqlPlanDetail> ashSqlPlanIter = ashSqlPlan
-						.iterator();
-
-				// Iterate
-				while (ashSqlPlanIter.hasNext()) {
-					AshSqlPlanDetail ashSqlPlanMain = ashSqlPlanIter.next();
-					String sqlIdTmp = ashSqlPlanMain.getSqlId();
-					long childNumberTmp = ashSqlPlanMain.getChildNumber();
-
-					if (!isChildNumberSaved && sqlId.equalsIgnoreCase(sqlIdTmp)){
-						childNumberBySql = childNumberTmp;
-						isChildNumberSaved = true;
-					} else {
-						if (!sqlId.equalsIgnoreCase(sqlIdTmp))
-							continue;
-					}
-
-					Long id = ashSqlPlanMain.getId();
-
-					if (id == ii && childNumberBySql == childNumberTmp) {
-						exitFromCycle = false;
-
-						String address = ashSqlPlanMain.getAddress();
-						Double hashValue = ashSqlPlanMain.getHashValue();
-						//String sqlId = ashSqlPlanMain.getSqlId();
-						//Double planHashValue = sqlPlanHashValue;
-						String childAddress = ashSqlPlanMain.getChildAddress();
-						Long childNumber = ashSqlPlanMain.getChildNumber();
-						String operation  = ashSqlPlanMain.getOperation();
-						String options  = ashSqlPlanMain.getOptions();
-						String objectNode = ashSqlPlanMain.getObjectNode();
-						Double object = ashSqlPlanMain.getObject();
-						String objectOwner = ashSqlPlanMain.getObjectOwner();
-						String objectName = ashSqlPlanMain.getObjectName();
-						//String objectAlias = ashSqlPlanMain.getObjectAlias();
-						//String objectType = ashSqlPlanMain.getObjectType();
-						String optimizer = ashSqlPlanMain.getOptimizer();
-						Long Id = ashSqlPlanMain.getId();
-						Long parentId = ashSqlPlanMain.getParentId();
-			   /*Depth*/Long level = ashSqlPlanMain.getDepth() + 1;
-						Long position  = ashSqlPlanMain.getPosition();
-						Long searchColumns = ashSqlPlanMain.getSearchColumns();
-						Double cost = ashSqlPlanMain.getCost();
-						Double cardinality  = ashSqlPlanMain.getCardinality();
-						Double bytes  = ashSqlPlanMain.getBytes();
-						String otherTag  = ashSqlPlanMain.getOtherTag();
-						String partitionStart  = ashSqlPlanMain.getPartitionStart();
-						String partitionStop  = ashSqlPlanMain.getPartitionStop();
-						Double partitionId  = ashSqlPlanMain.getPartitionId();
-						String other  = ashSqlPlanMain.getOther();
-						String distribution  = ashSqlPlanMain.getDistribution();
-						Double cpuCost  = ashSqlPlanMain.getCpuCost();
-						Double ioCost  = ashSqlPlanMain.getIoCost();
-						Double tempSpace  = ashSqlPlanMain.getTempSpace();
-						String accessPredicates  = ashSqlPlanMain.getAccessPredicates();
-						String filterPredicates  = ashSqlPlanMain.getFilterPredicates();
-						//String projection  = ashSqlPlanMain.getProjection();
-						//Double time  = ashSqlPlanMain.getTime();
-						//String qblockName  = ashSqlPlanMain.getQblockName();
-						//String remarks  = ashSqlPlanMain.getRemarks();
-
-						ExplainPlanModel9i.ExplainRow parent = null;
-
-						if (level == 1) {
-							long tmp = 0;
-							ExplainPlanModel9i.ExplainRow rowRoot = new ExplainPlanModel9i.ExplainRow(
-									parent, null, null, null, null, null, null,
-									null, null, null, null, null, null, null,
-									null, null, tmp, null, null, null,
-									null, null, null, null, null, null, null,
-									null, null, null, null, null, null);
-							model = new ExplainPlanModel9i(rowRoot);
-
-							ExplainPlanModel9i.ExplainRow row = new ExplainPlanModel9i.ExplainRow(
-									rowRoot,  address,  hashValue,  sqlIdTmp, sqlPlanHashValue,
-									childAddress,  childNumber, operation, options,
-									objectNode, object, objectOwner, objectName,
-									optimizer, Id, parentId, /*Depth*/level, position,
-									searchColumns, cost, cardinality, bytes, otherTag,
-									partitionStart, partitionStop, partitionId, other, distribution,
-									cpuCost, ioCost, tempSpace, accessPredicates, filterPredicates
-							);
-
-							rowRoot.addChild(row);
-							lastRow = row;
-							previousLevel = level;
-							continue;
-						} else if (previousLevel == level) {
-							parent = ((ExplainPlanModel9i.ExplainRow) lastRow
-									.getParent().getParent())
-									.findChild(parentId.intValue());
-						} else if (level > previousLevel) {
-							parent = ((ExplainPlanModel9i.ExplainRow) lastRow
-									.getParent()).findChild(parentId
-									.intValue());
-						} else if (level < previousLevel) {
-							parent = (ExplainPlanModel9i.ExplainRow) lastRow
-									.getParent();
-							for (long i = previousLevel - level; i >= 0; i--) {
-								parent = (ExplainPlanModel9i.ExplainRow) parent
-										.getParent();
-							}
-							parent = parent.findChild(parentId.intValue());
-						}
-						if (parent == null) {
-							isRecalculateDepth = true;
-							break;
-						}
-
-						ExplainPlanModel9i.ExplainRow row = new ExplainPlanModel9i.ExplainRow(
-								parent, address,  hashValue,  sqlIdTmp, sqlPlanHashValue,
-								childAddress,  childNumber, operation, options,
-								objectNode, object, objectOwner, objectName,
-								optimizer, Id, parentId, /*Depth*/level, position,
-								searchColumns, cost, cardinality, bytes, otherTag,
-								partitionStart, partitionStop, partitionId, other, distribution,
-								cpuCost, ioCost, tempSpace, accessPredicates, filterPredicates
-						);
-						parent.addChild(row);
-						lastRow = row;
-						previousLevel = level;
-
-						break;
-					}
-				}
-			} catch (DatabaseException e) {
-				e.printStackTrace();
-			} finally {
-				try {
-					ashSqlPlan.close();
-				} catch (DatabaseException e) {
-					e.printStackTrace();
-				}
-				ii++;
-			}
-
+	private List<AshSqlPlanDetail> getSqlPlanLines(Double sqlPlanHashValue, String sqlId) {
+		String key = SqlPlanCapture.getKey(sqlPlanHashValue, sqlId);
+		List<AshSqlPlanDetail> lines;
+		synchronized (sqlPlanLines) {
+			lines = sqlPlanLines.get(key);
 		}
-
-		// Recalculate wrong node levels
-		if (isRecalculateDepth) {
-			HashMap<Long, Long> idParentId = new HashMap<Long, Long>();
-			HashMap<Long, Long> idLevel = new HashMap<Long, Long>();
-
-			EntityCursor<AshSqlPlanDetail> ashSqlPlanP = null;
-
-			try {
-				ashSqlPlanP = dao.doRangeQuery(dao.getAshSqlPlanHashValueDetail(),
-						sqlPlanHashValue, true, sqlPlanHashValue, true);
-				Iterator<AshSqlPlanDetail> ashSqlPlanIterP = ashSqlPlanP
-						.iterator();
-
-				// Iterate
-				while (ashSqlPlanIterP.hasNext()) {
-					AshSqlPlanDetail ashSqlPlanMainP = ashSqlPlanIterP.next();
-
-					Long idP = ashSqlPlanMainP.getId();
-					Long parent_idP = ashSqlPlanMainP.getParentId();
-					long tmp = -1;
-					if (idP == 0) {
-						idParentId.put(idP, tmp);
-					} else {
-						idParentId.put(idP, parent_idP);
-					}
-				}
-
-			} catch (DatabaseException e) {
-				e.printStackTrace();
-			} finally {
-				try {
-					ashSqlPlanP.close();
-				} catch (DatabaseException e) {
-					e.printStackTrace();
-				}
+		if (lines == null) {
+			lines = Collections.unmodifiableList(
+					SqlPlanTreeBuilder.loadLines(dao, sqlPlanHashValue, sqlId));
+			synchronized (sqlPlanLines) {
+				sqlPlanLines.put(key, lines);
 			}
-
-			idLevel = Utils.getLevels(idParentId);
-			model = (ExplainPlanModel9i) getSqlPlanModelByPlanHashValueP9i(idLevel, sqlPlanHashValue, sqlId);
 		}
-
-		return model;
+		return lines;
 	}
 
-
 	/**
-	 * Get sql plan from BDB for Oracle 9i (recalculate depth)
+	 * Get sql plan from BDB for Oracle 9i
 	 * @param sqlPlanHashValue
 	 * @param sqlId
 	 * @return
 	 */
-	public TreeTableModel getSqlPlanModelByPlanHashValueP9i(
-			HashMap<Long, Long> idLevel, Double sqlPlanHashValue, String sqlId) {
-
-		ExplainPlanModel9i model = null;
-		ExplainPlanModel9i.ExplainRow lastRow = null;
-		EntityCursor<AshSqlPlanDetail> ashSqlPlan = null;
-		long previousLevel = 1;
-		boolean exitFromCycle = false;
-		boolean isChildNumberSaved = false;
-		long childNumberBySql = 0;
-		long ii = 0;
-
-		while (!exitFromCycle) {
-			exitFromCycle = true;
-
-			try {
-				ashSqlPlan = dao.doRangeQuery(dao
-								.getAshSqlPlanHashValueDetail(), sqlPlanHashValue,
-						true, sqlPlanHashValue, true);
-				Iterator<AshSqlPlanDetail> ashSqlPlanIter = ashSqlPlan
-						.iterator();
-
-				// Iterate
-				while (ashSqlPlanIter.hasNext()) {
-					AshSqlPlanDetail ashSqlPlanMain = ashSqlPlanIter.next();
-					String sqlIdTmp = ashSqlPlanMain.getSqlId();
-					long childNumberTmp = ashSqlPlanMain.getChildNumber();
-
-					if (!isChildNumberSaved && sqlId.equalsIgnoreCase(sqlIdTmp)){
-						childNumberBySql = childNumberTmp;
-						isChildNumberSaved = true;
-					} else {
-						if (!sqlId.equalsIgnoreCase(sqlIdTmp))
-							continue;
-					}
-
-					Long id = ashSqlPlanMain.getId();
-
-					if (id == ii && childNumberBySql == childNumberTmp) {
-						exitFromCycle = false;
-
-						String address = ashSqlPlanMain.getAddress();
-						Double hashValue = ashSqlPlanMain.getHashValue();
-						//String sqlId = ashSqlPlanMain.getSqlId();
-						//Double planHashValue = sqlPlanHashValue;
-						String childAddress = ashSqlPlanMain.getChildAddress();
-						Long childNumber = ashSqlPlanMain.getChildNumber();
-						String operation  = ashSqlPlanMain.getOperation();
-						String options  = ashSqlPlanMain.getOptions();
-						String objectNode = ashSqlPlanMain.getObjectNode();
-						Double object = ashSqlPlanMain.getObject();
-						String objectOwner = ashSqlPlanMain.getObjectOwner();
-						String objectName = ashSqlPlanMain.getObjectName();
-						//String objectAlias = ashSqlPlanMain.getObjectAlias();
-						//String objectType = ashSqlPlanMain.getObjectType();
-						String optimizer = ashSqlPlanMain.getOptimizer();
-						Long Id = ashSqlPlanMain.getId();
-						Long parentId = ashSqlPlanMain.getParentId();
-			   /*Depth*/Long level = idLevel.get(id);// ashSqlPlanMain.getDepth()+1;
-						Long position  = ashSqlPlanMain.getPosition();
-						Long searchColumns = ashSqlPlanMain.getSearchColumns();
-						Double cost = ashSqlPlanMain.getCost();
-						Double cardinality  = ashSqlPlanMain.getCardinality();
-						Double bytes  = ashSqlPlanMain.getBytes();
-						String otherTag  = ashSqlPlanMain.getOtherTag();
-						String partitionStart  = ashSqlPlanMain.getPartitionStart();
-						String partitionStop  = ashSqlPlanMain.getPartitionStop();
-						Double partitionId  = ashSqlPlanMain.getPartitionId();
-						String other  = ashSqlPlanMain.getOther();
-						String distribution  = ashSqlPlanMain.getDistribution();
-						Double cpuCost  = ashSqlPlanMain.getCpuCost();
-						Double ioCost  = ashSqlPlanMain.getIoCost();
-						Double tempSpace  = ashSqlPlanMain.getTempSpace();
-						String accessPredicates  = ashSqlPlanMain.getAccessPredicates();
-						String filterPredicates  = ashSqlPlanMain.getFilterPredicates();
-						//String projection  = ashSqlPlanMain.getProjection();
-						//Double time  = ashSqlPlanMain.getTime();
-						//String qblockName  = ashSqlPlanMain.getQblockName();
-						//String remarks  = ashSqlPlanMain.getRemarks();	
-
-						ExplainPlanModel9i.ExplainRow parent = null;
-
-						if (level == 1) {
-							long tmp = 0;
-							ExplainPlanModel9i.ExplainRow rowRoot = new ExplainPlanModel9i.ExplainRow(
-									parent , null, null, null, null, null, null,
-									null, null, null, null, null, null, null,
-									null, null, tmp, null, null, null,
-									null, null, null, null, null, null, null,
-									null, null, null, null, null, null);
-							model = new ExplainPlanModel9i(rowRoot);
-
-							ExplainPlanModel9i.ExplainRow row = new ExplainPlanModel9i.ExplainRow(
-									rowRoot, address,  hashValue,  sqlIdTmp, sqlPlanHashValue,
-									childAddress,  childNumber, operation, options,
-									objectNode, object, objectOwner, objectName,
-									optimizer, Id, parentId, /*Depth*/level, position,
-									searchColumns, cost, cardinality, bytes, otherTag,
-									partitionStart, partitionStop, partitionId, other, distribution,
-									cpuCost, ioCost, tempSpace, accessPredicates, filterPredicates
-							);
-
-							rowRoot.addChild(row);
-							lastRow = row;
-							previousLevel = level;
-							continue;
-						} else if (previousLevel == level) {
-							parent = ((ExplainPlanModel9i.ExplainRow) lastRow
-									.getParent().getParent()).findChild(parentId
-									.intValue());
-						} else if (level > previousLevel) {
-							parent = ((ExplainPlanModel9i.ExplainRow) lastRow
-									.getParent()).findChild(parentId.intValue());
-						} else if (level < previousLevel) {
-							parent = (ExplainPlanModel9i.ExplainRow) lastRow
-									.getParent();
-							for (long i = previousLevel - level; i >= 0; i--) {
-								parent = (ExplainPlanModel9i.ExplainRow) parent
-										.getParent();
-							}
-							parent = parent.findChild(parentId.intValue());
-						}
-						if (parent == null)
-							break;
-
-						ExplainPlanModel9i.ExplainRow row = new ExplainPlanModel9i.ExplainRow(
-								parent, address,  hashValue,  sqlIdTmp, sqlPlanHashValue,
-								childAddress,  childNumber, operation, options,
-								objectNode, object, objectOwner, objectName,
-								optimizer, Id, parentId, /*Depth*/level, position,
-								searchColumns, cost, cardinality, bytes, otherTag,
-								partitionStart, partitionStop, partitionId, other, distribution,
-								cpuCost, ioCost, tempSpace, accessPredicates, filterPredicates
-						);
-						parent.addChild(row);
-						lastRow = row;
-						previousLevel = level;
-
-						break;
-					}
-				}
-			} catch (DatabaseException e) {
-				e.printStackTrace();
-			} finally {
-				try {
-					ashSqlPlan.close();
-				} catch (DatabaseException e) {
-					e.printStackTrace();
-				}
-				ii++;
-			}
-		}
-
-		return model;
+	public TreeTableModel getSqlPlanModelByPlanHashValue9i(
+			Double sqlPlanHashValue, String sqlId) {
+		List<AshSqlPlanDetail> lines = getSqlPlanLines(sqlPlanHashValue, sqlId);
+		return SqlPlanTreeBuilder.buildModel9i(lines, sqlPlanHashValue);
 	}
 
-
 	/**
 	 * Get sql plan from BDB for Oracle 10g>
 	 * @param sqlPlanHashValue
@@ -1545,369 +1007,8 @@ public class ASHDatabaseH {
 	 */
 	public TreeTableModel getSqlPlanModelByPlanHashValue10g(
 			Double sqlPlanHashValue, String sqlId) {
-
-		ExplainPlanModel10g2 model = null;
-		ExplainPlanModel10g2.ExplainRow lastRow = null;
-		EntityCursor<AshSqlPlanDetail> ashSqlPlan = null;
-		long previousLevel = 1;
-		boolean isRecalculateDepth = false;
-		boolean exitFromCycle = false;
-		boolean isChildNumberSaved = false;
-		long childNumberBySql = 0;
-		long ii = 0;
-
-		while (!exitFromCycle) {
-			exitFromCycle = true;
-
-			try {
-				ashSqlPlan = dao.doRangeQuery(dao
-								.getAshSqlPlanHashValueDetail(), sqlPlanHashValue,
-						true, sqlPlanHashValue, true);
-				Iterator<AshSqlPlanDetail> ashSqlPlanIter = ashSqlPlan
-						.iterator();
-
-				// Iterate
-				while (ashSqlPlanIter.hasNext()) {
-					AshSqlPlanDetail ashSqlPlanMain = ashSqlPlanIter.next();
-					String sqlIdTmp = ashSqlPlanMain.getSqlId();
-					long childNumberTmp = ashSqlPlanMain.getChildNumber();
-
-					if (!isChildNumberSaved && sqlId.equalsIgnoreCase(sqlIdTmp)){
-						childNumberBySql = childNumberTmp;
-						isChildNumberSaved = true;
-					} else {
-						if (!sqlId.equalsIgnoreCase(sqlIdTmp))
-							continue;
-					}
-
-					Long id = ashSqlPlanMain.getId();
-
-					if (id == ii && childNumberBySql == childNumberTmp) {
-						exitFromCycle = false;
-
-						String address = ashSqlPlanMain.getAddress();
-						Double hashValue = ashSqlPlanMain.getHashValue();
-						//String sqlId = ashSqlPlanMain.getSqlId();
-						//Double planHashValue = sqlPlanHashValue;
-						String childAddress = ashSqlPlanMain.getChildAddress();
-						Long childNumber = ashSqlPlanMain.getChildNumber();
-						String operation  = ashSqlPlanMain.getOperation();
-						String options  = ashSqlPlanMain.getOptions();
-						String objectNode = ashSqlPlanMain.getObjectNode();
-						Double object = ashSqlPlanMain.getObject();
-						String objectOwner = ashSqlPlanMain.getObjectOwner();
-						String objectName = ashSqlPlanMain.getObjectName();
-						String objectAlias = ashSqlPlanMain.getObjectAlias();
-						String objectType = ashSqlPlanMain.getObjectType();
-						String optimizer = ashSqlPlanMain.getOptimizer();
-						Long Id = ashSqlPlanMain.getId();
-						Long parentId = ashSqlPlanMain.getParentId();
-			   /*Depth*/Long level = ashSqlPlanMain.getDepth() + 1;
-						Long position  = ashSqlPlanMain.getPosition();
-						Long searchColumns = ashSqlPlanMain.getSearchColumns();
-						Double cost = ashSqlPlanMain.getCost();
-						Double cardinality  = ashSqlPlanMain.getCardinality();
-						Double bytes  = ashSqlPlanMain.getBytes();
-						String otherTag  = ashSqlPlanMain.getOtherTag();
-						String partitionStart  = ashSqlPlanMain.getPartitionStart();
-						String partitionStop  = ashSqlPlanMain.getPartitionStop();
-						Double partitionId  = ashSqlPlanMain.getPartitionId();
-						String other  = ashSqlPlanMain.getOther();
-						String distribution  = ashSqlPlanMain.getDistribution();
-						Double cpuCost  = ashSqlPlanMain.getCpuCost();
-						Double ioCost  = ashSqlPlanMain.getIoCost();
-						Double tempSpace  = ashSqlPlanMain.getTempSpace();
-						String accessPredicates  = ashSqlPlanMain.getAccessPredicates();
-						String filterPredicates  = ashSqlPlanMain.getFilterPredicates();
-						String projection  = ashSqlPlanMain.getProjection();
-						Double time  = ashSqlPlanMain.getTime();
-						String qblockName  = ashSqlPlanMain.getQblockName();
-						String remarks  = ashSqlPlanMain.getRemarks();
-
-						ExplainPlanModel10g2.ExplainRow parent = null;
-
-						if (level == 1) {
-							long tmp = 0;
-							ExplainPlanModel10g2.ExplainRow rowRoot = new ExplainPlanModel10g2.ExplainRow(
-									parent, null, null, null, null, null, null,
-									null, null, null, null, null, null, null,
-									null, null, tmp, null, null, null,
-									null, null, null, null, null, null, null,
-									null, null, null, null, null, null, null,
-									null, null, null, null, null);
-							model = new ExplainPlanModel10g2(rowRoot);
-
-							ExplainPlanModel10g2.ExplainRow row = new ExplainPlanModel10g2.ExplainRow(
-									rowRoot,  address,  hashValue,  sqlIdTmp, sqlPlanHashValue,
-									childAddress,  childNumber, operation, options,
-									objectNode, object, objectOwner, objectName, objectAlias,
-									objectType, optimizer, Id, parentId, /*Depth*/level, position,
-									searchColumns, cost, cardinality, bytes, otherTag,
-									partitionStart, partitionStop, partitionId, other, distribution,
-									cpuCost, ioCost, tempSpace, accessPredicates, filterPredicates,
-									projection, time, qblockName, remarks);
-
-							rowRoot.addChild(row);
-							lastRow = row;
-							previousLevel = level;
-							continue;
-						} else if (previousLevel == level) {
-							parent = ((ExplainPlanModel10g2.ExplainRow) lastRow
-									.getParent().getParent())
-									.findChild(parentId.intValue());
-						} else if (level > previousLevel) {
-							parent = ((ExplainPlanModel10g2.ExplainRow) lastRow
-									.getParent()).findChild(parentId
-									.intValue());
-						} else if (level < previousLevel) {
-							parent = (ExplainPlanModel10g2.ExplainRow) lastRow
-									.getParent();
-							for (long i = previousLevel - level; i >= 0; i--) {
-								parent = (ExplainPlanModel10g2.ExplainRow) parent
-										.getParent();
-							}
-							parent = parent.findChild(parentId.intValue());
-						}
-						if (parent == null) {
-							isRecalculateDepth = true;
-							break;
-						}
-
-						ExplainPlanModel10g2.ExplainRow row = new ExplainPlanModel10g2.ExplainRow(
-								parent, address,  hashValue,  sqlIdTmp, sqlPlanHashValue,
-								childAddress,  childNumber, operation, options,
-								objectNode, object, objectOwner, objectName, objectAlias,
-								objectType, optimizer, Id, parentId, /*Depth*/level, position,
-								searchColumns, cost, cardinality, bytes, otherTag,
-								partitionStart, partitionStop, partitionId, other, distribution,
-								cpuCost, ioCost, tempSpace, accessPredicates, filterPredicates,
-								projection, time, qblockName, remarks);
-						parent.addChild(row);
-						lastRow = row;
-						previousLevel = level;
-
-						break;
-					}
-				}
-			} catch (DatabaseException e) {
-				e.printStackTrace();
-			} finally {
-				try {
-					ashSqlPlan.close();
-				} catch (DatabaseException e) {
-					e.printStackTrace();
-				}
-				ii++;
-			}
-
-		}
-
-		// Recalculate wrong node levels
-		if (isRecalculateDepth) {
-			HashMap<Long, Long> idParentId = new HashMap<Long, Long>();
-			HashMap<Long, Long> idLevel = new HashMap<Long, Long>();
-
-			EntityCursor<AshSqlPlanDetail> ashSqlPlanP = null;
-
-			try {
-				ashSqlPlanP = dao.doRangeQuery(dao.getAshSqlPlanHashValueDetail(),
-						sqlPlanHashValue, true, sqlPlanHashValue, true);
-				Iterator<AshSqlPlanDetail> ashSqlPlanIterP = ashSqlPlanP
-						.iterator();
-
-				// Iterate
-				while (ashSqlPlanIterP.hasNext()) {
-					AshSqlPlanDetail ashSqlPlanMainP = ashSqlPlanIterP.next();
-
-					Long idP = ashSqlPlanMainP.getId();
-					Long parent_idP = ashSqlPlanMainP.getParentId();
-					long tmp = -1;
-					if (idP == 0) {
-						idParentId.put(idP, tmp);
-					} else {
-						idParentId.put(idP, parent_idP);
-					}
-				}
-
-			} catch (DatabaseException e) {
-				e.printStackTrace();
-			} finally {
-				try {
-					ashSqlPlanP.close();
-				} catch (DatabaseException e) {
-					e.printStackTrace();
-				}
-			}
-
-			idLevel = Utils.getLevels(idParentId);
-			model = (ExplainPlanModel10g2) getSqlPlanModelByPlanHashValueP10g(idLevel, sqlPlanHashValue, sqlId);
-		}
-
-		return model;
-	}
-
-
-	/**
-	 * Get sql plan from BDB for Oracle 10g> and wrong depth value
-	 * @param sqlPlanHashValue
-	 * @param sqlId
-	 * @return
-	 */
-	public TreeTableModel getSqlPlanModelByPlanHashValueP10g(
-			HashMap<Long, Long> idLevel, Double sqlPlanHashValue, String sqlId) {
-
-		ExplainPlanModel10g2 model = null;
-		ExplainPlanModel10g2.ExplainRow lastRow = null;
-		EntityCursor<AshSqlPlanDetail> ashSqlPlan = null;
-		long previousLevel = 1;
-		boolean exitFromCycle = false;
-		boolean isChildNumberSaved = false;
-		long childNumberBySql = 0;
-		long ii = 0;
-
-		while (!exitFromCycle) {
-			exitFromCycle = true;
-
-			try {
-				ashSqlPlan = dao.doRangeQuery(dao
-								.getAshSqlPlanHashValueDetail(), sqlPlanHashValue,
-						true, sqlPlanHashValue, true);
-				Iterator<AshSqlPlanDetail> ashSqlPlanIter = ashSqlPlan
-						.iterator();
-
-				// Iterate
-				while (ashSqlPlanIter.hasNext()) {
-					AshSqlPlanDetail ashSqlPlanMain = ashSqlPlanIter.next();
-					String sqlIdTmp = ashSqlPlanMain.getSqlId();
-					long childNumberTmp = ashSqlPlanMain.getChildNumber();
-
-					if (!isChildNumberSaved && sqlId.equalsIgnoreCase(sqlIdTmp)){
-						childNumberBySql = childNumberTmp;
-						isChildNumberSaved = true;
-					} else {
-						if (!sqlId.equalsIgnoreCase(sqlIdTmp))
-							continue;
-					}
-
-					Long id = ashSqlPlanMain.getId();
-
-					if (id == ii && childNumberBySql == childNumberTmp) {
-						exitFromCycle = false;
-
-						String address = ashSqlPlanMain.getAddress();
-						Double hashValue = ashSqlPlanMain.getHashValue();
-						//String sqlId = ashSqlPlanMain.getSqlId();
-						//Double planHashValue = sqlPlanHashValue;
-						String childAddress = ashSqlPlanMain.getChildAddress();
-						Long childNumber = ashSqlPlanMain.getChildNumber();
-						String operation  = ashSqlPlanMain.getOperation();
-						String options  = ashSqlPlanMain.getOptions();
-						String objectNode = ashSqlPlanMain.getObjectNode();
-						Double object = ashSqlPlanMain.getObject();
-						String objectOwner = ashSqlPlanMain.getObjectOwner();
-						String objectName = ashSqlPlanMain.getObjectName();
-						String objectAlias = ashSqlPlanMain.getObjectAlias();
-						String objectType = ashSqlPlanMain.getObjectType();
-						String optimizer = ashSqlPlanMain.getOptimizer();
-						Long Id = ashSqlPlanMain.getId();
-						Long parentId = ashSqlPlanMain.getParentId();
-			   /*Depth*/Long level = idLevel.get(id);// ashSqlPlanMain.getDepth()+1;
-						Long position  = ashSqlPlanMain.getPosition();
-						Long searchColumns = ashSqlPlanMain.getSearchColumns();
-						Double cost = ashSqlPlanMain.getCost();
-						Double cardinality  = ashSqlPlanMain.getCardinality();
-						Double bytes  = ashSqlPlanMain.getBytes();
-						String otherTag  = ashSqlPlanMain.getOtherTag();
-						String partitionStart  = ashSqlPlanMain.getPartitionStart();
-						String partitionStop  = ashSqlPlanMain.getPartitionStop();
-						Double partitionId  = ashSqlPlanMain.getPartitionId();
-						String other  = ashSqlPlanMain.getOther();
-						String distribution  = ashSqlPlanMain.getDistribution();
-						Double cpuCost  = ashSqlPlanMain.getCpuCost();
-						Double ioCost  = ashSqlPlanMain.getIoCost();
-						Double tempSpace  = ashSqlPlanMain.getTempSpace();
-						String accessPredicates  = ashSqlPlanMain.getAccessPredicates();
-						String filterPredicates  = ashSqlPlanMain.getFilterPredicates();
-						String projection  = ashSqlPlanMain.getProjection();
-						Double time  = ashSqlPlanMain.getTime();
-						String qblockName  = ashSqlPlanMain.getQblockName();
-						String remarks  = ashSqlPlanMain.getRemarks();
-
-						ExplainPlanModel10g2.ExplainRow parent = null;
-
-						if (level == 1) {
-							long tmp = 0;
-							ExplainPlanModel10g2.ExplainRow rowRoot = new ExplainPlanModel10g2.ExplainRow(
-									parent , null, null, null, null, null, null,
-									null, null, null, null, null, null, null,
-									null, null, tmp, null, null, null,
-									null, null, null, null, null, null, null,
-									null, null, null, null, null, null, null,
-									null, null, null, null, null);
-							model = new ExplainPlanModel10g2(rowRoot);
-
-							ExplainPlanModel10g2.ExplainRow row = new ExplainPlanModel10g2.ExplainRow(
-									rowRoot, address,  hashValue,  sqlIdTmp, sqlPlanHashValue,
-									childAddress,  childNumber, operation, options,
-									objectNode, object, objectOwner, objectName, objectAlias,
-									objectType, optimizer, Id, parentId, /*Depth*/level, position,
-									searchColumns, cost, cardinality, bytes, otherTag,
-									partitionStart, partitionStop, partitionId, other, distribution,
-									cpuCost, ioCost, tempSpace, accessPredicates, filterPredicates,
-									projection, time, qblockName, remarks);
-
-							rowRoot.addChild(row);
-							lastRow = row;
-							previousLevel = level;
-							continue;
-						} else if (previousLevel == level) {
-							parent = ((ExplainPlanModel10g2.ExplainRow) lastRow
-									.getParent().getParent()).findChild(parentId
-									.intValue());
-						} else if (level > previousLevel) {
-							parent = ((ExplainPlanModel10g2.ExplainRow) lastRow
-									.getParent()).findChild(parentId.intValue());
-						} else if (level < previousLevel) {
-							parent = (ExplainPlanModel10g2.ExplainRow) lastRow
-									.getParent();
-							for (long i = previousLevel - level; i >= 0; i--) {
-								parent = (ExplainPlanModel10g2.ExplainRow) parent
-										.getParent();
-							}
-							parent = parent.findChild(parentId.intValue());
-						}
-						if (parent == null)
-							break;
-
-						ExplainPlanModel10g2.ExplainRow row = new ExplainPlanModel10g2.ExplainRow(
-								parent, address,  hashValue,  sqlIdTmp, sqlPlanHashValue,
-								childAddress,  childNumber, operation, options,
-								objectNode, object, objectOwner, objectName, objectAlias,
-								objectType, optimizer, Id, parentId, /*Depth*/level, position,
-								searchColumns, cost, cardinality, bytes, otherTag,
-								partitionStart, partitionStop, partitionId, other, distribution,
-								cpuCost, ioCost, tempSpace, accessPredicates, filterPredicates,
-								projection, time, qblockName, remarks);
-						parent.addChild(row);
-						lastRow = row;
-						previousLevel = level;
-
-						break;
-					}
-				}
-			} catch (DatabaseException e) {
-				e.printStackTrace();
-			} finally {
-				try {
-					ashSqlPlan.close();
-				} catch (DatabaseException e) {
-					e.printStackTrace();
-				}
-				ii++;
-			}
-		}
-
-		return model;
+		List<AshSqlPlanDetail> lines = getSqlPlanLines(sqlPlanHashValue, sqlId);
+		return SqlPlanTreeBuilder.buildModel10g2(lines, sqlPlanHashValue);
 	}
 
 
@@ -0,0 +1,211 @@
+/*
+ *-------------------
+ * The DetailDrilldown.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.history;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.ash.database.AshDataAccessor;
+import org.ash.datamodel.ActiveSessionHistory;
+import org.ash.datamodel.AshIdTime;
+
+import com.sleepycat.je.DatabaseException;
+import com.sleepycat.persist.EntityCursor;
+
+/**
+ * The Class DetailDrilldown.
+ *
+ * Counts of active sessions of detail charts for range of history:
+ * by wait class and event, and CPU, for each bucket of range. ASH rows of
+ * range are read once for all wait classes, so charts of other wait classes
+ * of the same range are loaded without reading ASH rows again.
+ */
+public class DetailDrilldown {
+
+	/** The begin of range. */
+	private double begin;
+
+	/** The end of range. */
+	private double end;
+
+	/** The begin of first bucket. */
+	private double firstKey;
+
+	/** The length of bucket (millisec). */
+	private double step;
+
+	/** The count of buckets. */
+	private int size;
+
+	/** The counts of CPU by bucket. */
+	private double[] cpu;
+
+	/** The counts by wait class, event (in order of first row) and bucket. */
+	private Map<String, LinkedHashMap<String, double[]>> events =
+		new HashMap<String, LinkedHashMap<String, double[]>>();
+
+	/**
+	 * Instantiates a new detail drilldown, rows are read from local BDB.
+	 *
+	 * @param dao the dao
+	 * @param begin the begin of range
+	 * @param end the end of range
+	 * @param firstKey the begin of first bucket
+	 * @param lastKey the end of range of buckets
+	 * @param step the length of bucket
+	 * @throws DatabaseException the database exception
+	 */
+	public DetailDrilldown(AshDataAccessor dao, double begin, double end,
+			double firstKey, double lastKey, double step) throws DatabaseException {
+		this.begin = begin;
+		this.end = end;
+		this.firstKey = firstKey;
+		this.step = step;
+		this.size = (int) Math.ceil((lastKey - firstKey) / step);
+		this.cpu = new double[size];
+
+		EntityCursor<AshIdTime> ashIdTimeCursor = dao.doRangeQuery(dao
+				.getAshBySampleTime(), firstKey, true, firstKey + size * step, false);
+		try {
+			Iterator<AshIdTime> ashIdTimeIter = ashIdTimeCursor.iterator();
+			while (ashIdTimeIter.hasNext()) {
+				AshIdTime ashIdTimeMain = ashIdTimeIter.next();
+				int bucket = (int) ((ashIdTimeMain.getsampleTime() - firstKey) / step);
+				if (bucket < 0 || bucket >= size) {
+					continue;
+				}
+
+				Iterator<ActiveSessionHistory> ActiveSessionHistoryIter =
+					dao.getActiveSessionHistoryBySampleId(ashIdTimeMain.getsampleId()).iterator();
+				while (ActiveSessionHistoryIter.hasNext()) {
+					add(ActiveSessionHistoryIter.next(), bucket);
+				}
+			}
+		} finally {
+			ashIdTimeCursor.close();
+		}
+	}
+
+	/**
+	 * Is drilldown of range.
+	 *
+	 * @param begin0 the begin
+	 * @param end0 the end
+	 * @return true, if range is the same
+	 */
+	public boolean isRange(double begin0, double end0) {
+		return begin == begin0 && end == end0;
+	}
+
+	/**
+	 * Gets the count of buckets.
+	 *
+	 * @return the size
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Gets the begin of bucket.
+	 *
+	 * @param bucket the bucket
+	 * @return the begin
+	 */
+	public double getBucketTime(int bucket) {
+		return firstKey + bucket * step;
+	}
+
+	/**
+	 * Gets the count of CPU of bucket.
+	 *
+	 * @param bucket the bucket
+	 * @return the count
+	 */
+	public double getCpu(int bucket) {
+		return cpu[bucket];
+	}
+
+	/**
+	 * Gets the events of wait class in order of first row.
+	 *
+	 * @param waitClass the wait class
+	 * @return the event names
+	 */
+	public List<String> getEvents(String waitClass) {
+		LinkedHashMap<String, double[]> eventCount = events.get(waitClass);
+		if (eventCount == null) {
+			return new ArrayList<String>();
+		}
+		return new ArrayList<String>(eventCount.keySet());
+	}
+
+	/**
+	 * Gets the count of event of bucket.
+	 *
+	 * @param waitClass the wait class
+	 * @param eventName the event name
+	 * @param bucket the bucket
+	 * @return the count
+	 */
+	public double getCount(String waitClass, String eventName, int bucket) {
+		LinkedHashMap<String, double[]> eventCount = events.get(waitClass);
+		if (eventCount == null || !eventCount.containsKey(eventName)) {
+			return 0.0;
+		}
+		return eventCount.get(eventName)[bucket];
+	}
+
+	/**
+	 * Add row to counts.
+	 *
+	 * @param ASH the row
+	 * @param bucket the bucket
+	 */
+	private void add(ActiveSessionHistory ASH, int bucket) {
+		if (ASH.getWaitTime() != 0) { // Session State = ON_CPU
+			cpu[bucket]++;
+		}
+
+		// If waitclass is empty - go to next row
+		String waitClassEvent = ASH.getWaitClass();
+		if (waitClassEvent == null || waitClassEvent.equals("")) {
+			return;
+		}
+
+		LinkedHashMap<String, double[]> eventCount = events.get(waitClassEvent);
+		if (eventCount == null) {
+			eventCount = new LinkedHashMap<String, double[]>();
+			events.put(waitClassEvent, eventCount);
+		}
+		double[] counts = eventCount.get(ASH.getEvent());
+		if (counts == null) {
+			counts = new double[size];
+			eventCount.put(ASH.getEvent(), counts);
+		}
+		counts[bucket]++;
+	}
+}
@@ -37,11 +37,14 @@ import ext.egantt.swing.GanttDrawingPartHelper;
 import ext.egantt.swing.GanttTable;
 import org.ash.conn.model.Model;
 import org.ash.database.ASHDatabase;
+import org.ash.database.AshDimensionIndex;
 import org.ash.gui.ASHReport;
 import org.ash.gui.ASHrawdata;
 import org.ash.gui.GanttSplitPane;
+import org.ash.gui.GroupByPanel;
 import org.ash.util.Options;
 import org.ash.util.ProgressBarUtil;
+import org.ash.util.TopK;
 import org.ash.util.Utils;
 import org.syntax.jedit.JEditTextArea;
 
@@ -234,11 +237,14 @@ public class GanttH extends JPanel{
 			/** Array SqlIdText for SQL Text tab*/
 			Map<Integer,String> arraySqlIdText50SQLTextTab = new HashMap<Integer, String>();
 			
+			/** Array session id_serial for ASH raw data tab*/
+			Map<Integer,String> arraySessionKeys = new HashMap<Integer, String>();
+			
 			/** Create gantt table */
 			final GanttTable tableGanttSql = new GanttTable(
 					loadDataToSqlsGantt(arraySqlIdText50SQLTextTab), columnNamesSqls, getBasicJTableList());
 			final GanttTable tableGanttSessions = new GanttTable(
-					loadDataToSessionsGantt(), columnNamesSessions, getBasicJTableList());   
+					loadDataToSessionsGantt(arraySessionKeys), columnNamesSessions, getBasicJTableList());   
 			
 			/** Set tooltip and percent*/
 			setTooltipAndPercent(tableGanttSql);
@@ -257,6 +263,9 @@ public class GanttH extends JPanel{
 			
 			SqlPlanH sqlPlan = new SqlPlanH(database);
 			
+			/** ASH raw data of range, filtered by selected sql or session*/
+			ASHrawdata rawData = new ASHrawdata(mainFrame, this.database, beginTime, endTime);
+			
 			/** Top sessions pane*/
 			JScrollPane rightPane = new JScrollPane(ScrollPaneConstants.VERTICAL_SCROLLBAR_AS_NEEDED,
 					ScrollPaneConstants.HORIZONTAL_SCROLLBAR_AS_NEEDED);
@@ -278,8 +287,11 @@ public class GanttH extends JPanel{
 			SelectionListener listener = 
 				new SelectionListener(
 						tableGanttSql.getJTable(), tabsTopSQLText,
-						jtextAreaSqlText,arraySqlIdText50SQLTextTab, database, sqlPlan);
+						jtextAreaSqlText,arraySqlIdText50SQLTextTab, database, sqlPlan, rawData);
 			tableGanttSql.getJTable().getSelectionModel().addListSelectionListener(listener);
+			tableGanttSessions.getJTable().getSelectionModel().addListSelectionListener(
+					new SessionSelectionListener(tableGanttSessions.getJTable(),
+							arraySessionKeys, rawData));
 			
 			/** Layout components*/
 			splitPane.setLeftComponent(tabsTopSQLText);
@@ -300,7 +312,8 @@ public class GanttH extends JPanel{
 				JTabbedPane tabPane = new JTabbedPane();
 				tabPane.add("Top sql & sessions",splitPane);
 				tabPane.add("ASH Report",new ASHReport(mainFrame, databaseCurrent, beginTime, endTime));
-                tabPane.add("ASH raw data",new ASHrawdata(mainFrame, this.database, beginTime, endTime));
+                tabPane.add("ASH raw data",rawData);
+                tabPane.add("Top by dimension",new GroupByPanel(mainFrame, this.database.getDao(), beginTime, endTime));
 
 				this.main.add(tabPane);
 				this.validate();
@@ -311,7 +324,8 @@ public class GanttH extends JPanel{
                 JTabbedPane tabPane = new JTabbedPane();
                 tabPane.add("Top sql & sessions",splitPane);
                 //tabPane.add("ASH Report",new ASHReport(mainFrame, databaseCurrent, beginTime, endTime));
-                tabPane.add("ASH raw data",new ASHrawdata(mainFrame, this.database, beginTime, endTime));
+                tabPane.add("ASH raw data",rawData);
+                tabPane.add("Top by dimension",new GroupByPanel(mainFrame, this.database.getDao(), beginTime, endTime));
 
                 this.main.add(tabPane);
 				this.validate();
@@ -333,16 +347,18 @@ public class GanttH extends JPanel{
 	        Map<Integer,String> arraySqlIdText50SQLTextTab;
 	        ASHDatabaseH database;
 	        SqlPlanH sqlPlan;
+	        ASHrawdata rawData;
 	    
 	        SelectionListener(JTable table,JTabbedPane tabbedpane, 
 	        		JEditTextArea sqlTextArea,Map<Integer,String> arraySqlIdText50SQLTextTab,
-	        		ASHDatabaseH database, SqlPlanH sqlPlan) {
+	        		ASHDatabaseH database, SqlPlanH sqlPlan, ASHrawdata rawData) {
 	            this.table = table;
 	            this.tabbedpane = tabbedpane;
 	            this.sqlTextArea = sqlTextArea;
 	            this.arraySqlIdText50SQLTextTab = arraySqlIdText50SQLTextTab;
 	            this.database = database;
 	            this.sqlPlan = sqlPlan;
+	            this.rawData = rawData;
 	        }
 
 			/* (non-Javadoc)
@@ -351,6 +367,11 @@ public class GanttH extends JPanel{
 			public void valueChanged(ListSelectionEvent e) {
 				if (e.getValueIsAdjusting()) {
 
+					String sqlId = arraySqlIdText50SQLTextTab.get(table.getSelectedRow());
+					if (sqlId != null) {
+						rawData.setDimension(AshDimensionIndex.SQL_ID, sqlId);
+					}
+
 					JPanel panelSqlText = createProgressBar("Loading, please wait...");
 					JPanel panelSqlPlan = createProgressBar("Loading, please wait...");
 					tabbedpane.setComponentAt(1, panelSqlText);
@@ -427,6 +448,43 @@ public class GanttH extends JPanel{
 	  }
 	
 	
+	/**
+	 *  Selection listener for Top sessions JTable (filter of ASH raw data)
+	 */
+	private class SessionSelectionListener implements ListSelectionListener {
+	        JTable table;
+	        Map<Integer,String> arraySessionKeys;
+	        ASHrawdata rawData;
+
+	        SessionSelectionListener(JTable table, Map<Integer,String> arraySessionKeys,
+	        		ASHrawdata rawData) {
+	            this.table = table;
+	            this.arraySessionKeys = arraySessionKeys;
+	            this.rawData = rawData;
+	        }
+
+			/* (non-Javadoc)
+			 * @see javax.swing.event.ListSelectionListener#valueChanged(javax.swing.event.ListSelectionEvent)
+			 */
+			public void valueChanged(ListSelectionEvent e) {
+				if (e.getValueIsAdjusting()) {
+					// Key is sessionId_sessionSerial
+					String key = arraySessionKeys.get(table.getSelectedRow());
+					if (key == null || key.indexOf('_') < 0) {
+						return;
+					}
+					try {
+						long sessionId = Long.parseLong(key.substring(0, key.indexOf('_')));
+						double sessionSerial = Double.parseDouble(key.substring(key.indexOf('_') + 1));
+						rawData.setDimension(AshDimensionIndex.SESSION,
+								AshDimensionIndex.getSessionValue(sessionId, sessionSerial));
+					} catch (NumberFormatException e1) {
+						e1.printStackTrace();
+					}
+				}
+			}
+	}
+
 	/**
 	 * Get BasicJTableList
 	 * 
@@ -489,7 +547,7 @@ public class GanttH extends JPanel{
 		int i = 0;		
 		int ii = 0;
 		int sizeGanttTable = 100;
-		int sizeMainSqls = database.getSqlsTemp().getMainSqls().size();
+		int sizeMainSqls = database.getSqlsTemp().getSizeMainSqls();
 		StringBuilder clipBoardContent = new StringBuilder();
 		Object[][] data = new Object[Math.min(sizeGanttTable, sizeMainSqls)][3];
 		
@@ -500,7 +558,7 @@ public class GanttH extends JPanel{
 		
 		// Desc sorting
 		HashMap<String, HashMap<String, Object>> sortedSessionMap =
-			sortHashMapByValuesCOUNT(database.getSqlsTemp().getMainSqls());
+			database.getSqlsTemp().getTopSqls(sizeGanttTable);
 		
 		Map<String,String> arraySqlIdType50 = new HashMap<String, String>();
 		Map<String,String> arraySqlIdText50 = new HashMap<String, String>();
@@ -568,16 +626,17 @@ public class GanttH extends JPanel{
 	/**
 	 * Load data to sessions gantt.
 	 * 
+	 * @param arraySessionKeys the session keys (id_serial) by row
 	 * @return the object[][]
 	 */
-	private Object[][] loadDataToSessionsGantt(){
+	private Object[][] loadDataToSessionsGantt(Map<Integer,String> arraySessionKeys){
 		String USERNAME = "USERNAME";
 		String PROGRAM = "PROGRAM";
 		String SESSIONID  = "SESSIONID";
 		
 		int i = 0;
 		int sizeGanttTable = 100;
-		int sizeMainSqls = database.getSessionsTemp().getMainSessions().size();
+		int sizeMainSqls = database.getSessionsTemp().getSizeMainSessions();
 		Object[][] data = new Object[Math.min(sizeGanttTable, sizeMainSqls)][4];
 		
 		final GanttDrawingPartHelper partHelper = new GanttDrawingPartHelper();
@@ -587,7 +646,7 @@ public class GanttH extends JPanel{
 		
 		// Desc sorting
 		HashMap<String, HashMap<String, Object>> sortedSessionMap =
-			sortHashMapByValuesCOUNT(database.getSessionsTemp().getMainSessions());
+			database.getSessionsTemp().getTopSessions(sizeGanttTable);
 		
 		for (Entry<String, HashMap<String, Object>> me : sortedSessionMap.entrySet()) {
 			
@@ -596,6 +655,7 @@ public class GanttH extends JPanel{
 			data[i][1] = me.getValue().get(SESSIONID);
 			data[i][2] = me.getValue().get(USERNAME);
 			data[i][3] = me.getValue().get(PROGRAM);
+			arraySessionKeys.put(i, me.getKey());
 			
 			/** Exit when rows > 500 */
 			if (i+1==Math.min(sizeGanttTable, sizeMainSqls)){
@@ -814,37 +874,8 @@ public class GanttH extends JPanel{
    	 * @return the linked hash map
    	 */
 	   public LinkedHashMap sortHashMapByValuesD(HashMap<String, Double> passedMap) {
-		    List mapKeys = new ArrayList(passedMap.keySet());
-		    List mapValues = new ArrayList(passedMap.values());
-		    Collections.sort(mapValues);
-		    Collections.sort(mapKeys);
-		    Collections.reverse(mapValues);
-		        
-		    LinkedHashMap sortedMap = 
-		        new LinkedHashMap();
-		    
-		    Iterator valueIt = mapValues.iterator();
-		    while (valueIt.hasNext()) {
-		        Object val = valueIt.next();
-		        Iterator keyIt = mapKeys.iterator();
-		        
-		        while (keyIt.hasNext()) {
-		            Object key = keyIt.next();
-		            String comp1 = passedMap.get(key).toString();
-		            String comp2 = val.toString();
-		            
-		            if (comp1.equals(comp2)){
-		                passedMap.remove(key);
-		                mapKeys.remove(key);
-		                sortedMap.put(key, val);
-		                break;
-		            }
-
-		        }
-
-		    }
-		    return sortedMap;
-		}
+		return TopK.top(passedMap, passedMap.size());
+	}
 	   
 	   
 	/**
@@ -856,47 +887,8 @@ public class GanttH extends JPanel{
    	 */
 	   public LinkedHashMap<String, HashMap<String, Object>> sortHashMapByValuesSUMD
 	   			(HashMap<String, HashMap<String, Object>> passedMap) {
-		    
-		   //bdb.getSqlsTemp().getMainSqls()
-		   
-		   List mapKeys = new ArrayList();
-		   List mapValues = new ArrayList();
-		   
-		   	for (Entry<String, HashMap<String, Object>> 
-		   				me : passedMap.entrySet()) {
-		   		mapKeys.add(me.getKey());
-		   		mapValues.add(me.getValue().get(SUM));
-		   	}
-		   
-		    Collections.sort(mapValues);
-		    Collections.sort(mapKeys);
-		    Collections.reverse(mapValues);
-		        
-		    LinkedHashMap<String, HashMap<String, Object>>  sortedMap = 
-		        new LinkedHashMap<String, HashMap<String, Object>>();
-		    
-		    Iterator valueIt = mapValues.iterator();
-		    while (valueIt.hasNext()) {
-		        Object val = valueIt.next();
-		        Iterator keyIt = mapKeys.iterator();
-		        
-		        while (keyIt.hasNext()) {
-		            Object key = keyIt.next();
-		            String comp1 = passedMap.get(key).get(SUM).toString();
-		            String comp2 = val.toString();
-		            
-		            if (comp1.equals(comp2)){
-		            	sortedMap.put((String)key, passedMap.get(key));
-		                passedMap.remove(key);
-		                mapKeys.remove(key);
-		                break;
-		            }
-
-		        }
-
-		    }
-		    return sortedMap;
-		}
+		return TopK.top(passedMap, SUM, passedMap.size());
+	   }
 	   
 		/**
 	   	 * Sort hash map by values sumd.
@@ -907,47 +899,8 @@ public class GanttH extends JPanel{
 	   	 */
 		   public LinkedHashMap<String, HashMap<String, Object>> sortHashMapByValuesCOUNT
 		   			(HashMap<String, HashMap<String, Object>> passedMap) {
-			    
-			   //bdb.getSqlsTemp().getMainSqls()
-			   
-			   List mapKeys = new ArrayList();
-			   List mapValues = new ArrayList();
-			   
-			   	for (Entry<String, HashMap<String, Object>> 
-			   				me : passedMap.entrySet()) {
-			   		mapKeys.add(me.getKey());
-			   		mapValues.add(me.getValue().get(COUNT));
-			   	}
-			   
-			    Collections.sort(mapValues);
-			    Collections.sort(mapKeys);
-			    Collections.reverse(mapValues);
-			        
-			    LinkedHashMap<String, HashMap<String, Object>>  sortedMap = 
-			        new LinkedHashMap<String, HashMap<String, Object>>();
-			    
-			    Iterator valueIt = mapValues.iterator();
-			    while (valueIt.hasNext()) {
-			        Object val = valueIt.next();
-			        Iterator keyIt = mapKeys.iterator();
-			        
-			        while (keyIt.hasNext()) {
-			            Object key = keyIt.next();
-			            String comp1 = passedMap.get(key).get(COUNT).toString();
-			            String comp2 = val.toString();
-			            
-			            if (comp1.equals(comp2)){
-			            	sortedMap.put((String)key, passedMap.get(key));
-			                passedMap.remove(key);
-			                mapKeys.remove(key);
-			                break;
-			            }
-
-			        }
-
-			    }
-			    return sortedMap;
-			}
+		return TopK.top(passedMap, COUNT, passedMap.size());
+		   }
 		
 		/**
 		 * Round.
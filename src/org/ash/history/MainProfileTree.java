@@ -161,6 +161,11 @@ public class MainProfileTree extends JPanel {
 					// 2. Get profile name
 					String name = "";
 					name = dateFormatFull.format(tempDataDt).toString();
+					
+					// Instance of RAC (directory ddMMyyyyHHmms_instN)
+					if (directory.indexOf("_inst") != -1) {
+						name = name + " " + directory.substring(directory.indexOf("_inst") + 1);
+					}
 
 					// 3. Get BDB size (Mb)
 					long lsize = Utils.getFolderSize(
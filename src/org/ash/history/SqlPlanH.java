@@ -381,7 +381,7 @@ public class SqlPlanH extends JPanel {
 			String phvTabTitle = "PHV: " + planHashValue.longValue();
 
 			ExplainPlanModel10g2 sqlPlanModel = (ExplainPlanModel10g2) databaseCurrent
-					.getSqlPlanModelByPlanHashValue(planHashValue, sqlId);
+					.getSqlPlanModel(planHashValue, sqlId);
 			if (sqlPlanModel != null) {
 				JScrollPane scrollPane = new JScrollPane(
 						createTreeTable(sqlPlanModel));
@@ -423,7 +423,7 @@ public class SqlPlanH extends JPanel {
 			String phvTabTitle = "PHV: " + planHashValue.longValue();
 
 			ExplainPlanModel10g2 sqlPlanModel = (ExplainPlanModel10g2) databaseCurrent
-					.getSqlPlanModelByPlanHashValue(planHashValue, sqlId);
+					.getSqlPlanModel(planHashValue, sqlId);
 			if (sqlPlanModel != null) {
 				JScrollPane scrollPane = new JScrollPane(
 						createTreeTable(sqlPlanModel));
@@ -464,7 +464,7 @@ public class SqlPlanH extends JPanel {
 			String phvTabTitle = "PHV: " + planHashValue.longValue();
 
 			ExplainPlanModel9i sqlPlanModel = (ExplainPlanModel9i) databaseCurrent
-					.getSqlPlanModelByPlanHashValue(planHashValue, sqlId);
+					.getSqlPlanModel(planHashValue, sqlId);
 			if (sqlPlanModel != null) {
 				JScrollPane scrollPane = new JScrollPane(
 						createTreeTable(sqlPlanModel));
@@ -28,6 +28,7 @@ import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 
 import javax.swing.JFrame;
+import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JProgressBar;
 import javax.swing.JSplitPane;
@@ -154,12 +155,18 @@ public class TopActivityDetail extends JPanel{
 		// Set format for x axis
 		stackedChart.setFormat("HH:mm");
 				
-		/** Initialize Sqls & Sessions JPanel*/
-		this.sqlsAndSessions = new GanttH(this.mainFrame, this.databaseHistory);
-		
 		this.splitPaneMain.setOrientation(JSplitPane.VERTICAL_SPLIT);
 		this.splitPaneMain.add(this.chartChartPanel, "top");
-		this.splitPaneMain.add(this.sqlsAndSessions, "bottom");
+		
+		/** Initialize Sqls & Sessions JPanel (rows are not saved when aggregated on server)*/
+		if (this.databaseHistory.isAggregatedOnServer()) {
+			this.splitPaneMain.add(createAggregatedOnServerLabel(), "bottom");
+		} else {
+			this.sqlsAndSessions = new GanttH(this.mainFrame, this.databaseHistory);
+			this.splitPaneMain.add(this.sqlsAndSessions, "bottom");
+			this.chartChartPanel.addListenerReleaseMouse(this.sqlsAndSessions);
+			this.sqlsAndSessions.repaint();
+		}
 		this.splitPaneMain.setDividerLocation(240);
 		this.splitPaneMain.setOneTouchExpandable(true);
 		
@@ -167,9 +174,6 @@ public class TopActivityDetail extends JPanel{
 		this.mainPanelHistory.setLayout(new GridLayout(1, 1, 1, 1));
 		this.mainPanelHistory.add(splitPaneMain);
 		
-		this.chartChartPanel.addListenerReleaseMouse(this.sqlsAndSessions);
-		this.sqlsAndSessions.repaint();
-		
 		this.tabsMain = new JTabbedPane();
 		
 		DetailsPanelH detailJPanelH = 
@@ -221,6 +225,17 @@ public class TopActivityDetail extends JPanel{
 		return tmpValue;
 	}
 	
+	/**
+	 * Creates the label for Top SQL, Top sessions of ASH data aggregated on server.
+	 * 
+	 * @return the j panel
+	 */
+	public static JPanel createAggregatedOnServerLabel() {
+		JPanel panel = new JPanel();
+		panel.add(new JLabel(Options.getInstance().getResource("aggregatedonserver.text")));
+		return panel;
+	}
+	
 	/**
 	 * Creates the progress bar.
 	 * 
@@ -41,6 +41,7 @@ import javax.swing.border.EtchedBorder;
 import org.ash.history.detail.GanttDetailsH;
 import org.ash.history.detail.StackedChartDetail;
 import org.ash.history.ASHDatabaseH;
+import org.ash.history.TopActivityDetail;
 import org.ash.util.Options;
 import org.ash.util.ProgressBarUtil;
 import org.jfree.chart.ChartPanel;
@@ -339,8 +340,15 @@ public class DetailsPanelH extends JPanel implements ActionListener{
 		ChartPanel chartDetailPanel = stackedChartMainObjectDetail.createChartPanel();
 		stackedChartMainObjectDetail.setThresholdMaxCpu(this.maxCpu);
 		
-		GanttDetailsH sqlsAndSessions = new GanttDetailsH(database, waitClass);
-		chartDetailPanel.addListenerReleaseMouse(sqlsAndSessions);
+		// Top SQL, Top sessions are not available when aggregated on server
+		JPanel sqlsAndSessions;
+		if (database.isAggregatedOnServer()) {
+			sqlsAndSessions = TopActivityDetail.createAggregatedOnServerLabel();
+		} else {
+			GanttDetailsH ganttDetails = new GanttDetailsH(database, waitClass);
+			chartDetailPanel.addListenerReleaseMouse(ganttDetails);
+			sqlsAndSessions = ganttDetails;
+		}
 					
 		
 		database.clearStackedXYAreaChartDetail();
@@ -97,7 +97,7 @@ public class GanttSqls {
 		int i = 0;		
 		int ii = 0;
 		int sizeGanttTable = 100;
-		int sizeMainSqls = database.getSqlsTempDetail().getMainSqls().size();
+		int sizeMainSqls = database.getSqlsTempDetail().getSizeMainSqls();
 		StringBuilder clipBoardContent = new StringBuilder();
 		Object[][] data = new Object[Math.min(sizeGanttTable, sizeMainSqls)][3];
 		
@@ -108,7 +108,7 @@ public class GanttSqls {
 		
 		// Desc sorting
 		HashMap<String, HashMap<String, Object>> sortedSessionMap =
-			Utils.sortHashMapByValues(database.getSqlsTempDetail().getMainSqls(),COUNT);
+			database.getSqlsTempDetail().getTopSqls(sizeGanttTable);
 		
 		Map<String,String> arraySqlIdType50 = new HashMap<String, String>();
 		Map<String,String> arraySqlIdText50 = new HashMap<String, String>();
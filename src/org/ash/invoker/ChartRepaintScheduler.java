@@ -0,0 +1,269 @@
+/*
+ *-------------------
+ * The ChartRepaintScheduler.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.invoker;
+
+import java.awt.event.HierarchyEvent;
+import java.awt.event.HierarchyListener;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+
+import org.ash.util.RingTableXYDataset;
+
+/**
+ * The Class ChartRepaintScheduler.
+ *
+ * Datasets of charts are updated by collector thread, charts show their own
+ * datasets and are drawn on EDT. After update (one tick) publish takes
+ * snapshots of datasets changed since the last snapshot and posts one frame
+ * to EDT; when EDT is busy, the next ticks replace snapshots of the posted
+ * frame. The frame shows snapshots in visible charts only, hidden charts
+ * (other tab of detail panels) show the last snapshot when they become
+ * visible. Datasets without chart panel (collector daemon) take snapshots
+ * on thread of update, nothing is posted to EDT for them.
+ */
+public class ChartRepaintScheduler {
+
+	/** The charts. */
+	private List<ChartEntry> charts = new ArrayList<ChartEntry>();
+
+	/** Is frame posted to EDT and not started. */
+	private boolean isFramePosted = false;
+
+	/** The time of first publish of posted frame (nanosec). */
+	private long publishTime = 0;
+
+	/** The count of frames with changes. */
+	private volatile long tick = 0;
+
+	/** The metrics of frames (wait is the time between publish and frame). */
+	private StageMetrics frameMetrics = new StageMetrics("Frame");
+
+	/** The frame (runs on EDT). */
+	private Runnable frame = new Runnable() {
+		public void run() {
+			runFrame();
+		}
+	};
+
+	/**
+	 * Register chart.
+	 *
+	 * @param dataset the dataset updated by collector
+	 * @param chartDataset the dataset of chart
+	 * @param component the chart panel, null if there is no chart panel
+	 */
+	public synchronized void register(RingTableXYDataset dataset,
+			RingTableXYDataset chartDataset, JComponent component) {
+		final ChartEntry entry = new ChartEntry(dataset, chartDataset, component);
+		charts.add(entry);
+		if (component != null) {
+			entry.listener = new HierarchyListener() {
+				public void hierarchyChanged(HierarchyEvent e) {
+					if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0
+							&& entry.component.isShowing()) {
+						entry.showHidden();
+					}
+				}
+			};
+			component.addHierarchyListener(entry.listener);
+		}
+	}
+
+	/**
+	 * Unregister chart (chart panel or collect task is removed).
+	 *
+	 * @param dataset the dataset updated by collector
+	 */
+	public synchronized void unregister(RingTableXYDataset dataset) {
+		Iterator<ChartEntry> iter = charts.iterator();
+		while (iter.hasNext()) {
+			ChartEntry entry = iter.next();
+			if (entry.dataset == dataset) {
+				iter.remove();
+				if (entry.listener != null) {
+					entry.component.removeHierarchyListener(entry.listener);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Publish updated datasets (once per tick, on thread of update).
+	 */
+	public synchronized void publish() {
+		if (charts.isEmpty()) {
+			return;
+		}
+		boolean isFrameNeeded = false;
+		Iterator<ChartEntry> iter = charts.iterator();
+		while (iter.hasNext()) {
+			ChartEntry entry = iter.next();
+			long modCount = entry.dataset.getModCount();
+			if (modCount == entry.modCount) {
+				continue;
+			}
+			entry.modCount = modCount;
+			if (entry.component == null) {
+				long beginFrame = System.nanoTime();
+				entry.chartDataset.setData(entry.dataset.snapshot());
+				frameMetrics.add(0, System.nanoTime() - beginFrame);
+			} else {
+				entry.pending = entry.dataset.snapshot();
+				isFrameNeeded = true;
+			}
+		}
+		if (!isFrameNeeded) {
+			return;
+		}
+		if (isFramePosted) {
+			frameMetrics.addSkipped();
+		} else {
+			isFramePosted = true;
+			publishTime = System.nanoTime();
+			SwingUtilities.invokeLater(frame);
+		}
+	}
+
+	/**
+	 * Show snapshots of hidden charts (on EDT), e.g. before images of
+	 * charts are created.
+	 */
+	public void showHidden() {
+		List<ChartEntry> tmpCharts;
+		synchronized (this) {
+			tmpCharts = new ArrayList<ChartEntry>(charts);
+		}
+		Iterator<ChartEntry> iter = tmpCharts.iterator();
+		while (iter.hasNext()) {
+			iter.next().showHidden();
+		}
+	}
+
+	/**
+	 * Gets the count of frames with changes.
+	 *
+	 * @return the tick
+	 */
+	public long getTick() {
+		return tick;
+	}
+
+	/**
+	 * Gets the metrics of frames.
+	 *
+	 * @return the frame metrics
+	 */
+	public StageMetrics getFrameMetrics() {
+		return frameMetrics;
+	}
+
+	/**
+	 * Show snapshots of posted frame in visible charts (on EDT).
+	 */
+	private void runFrame() {
+		long beginFrame = System.nanoTime();
+		long waitNanos;
+		List<ChartEntry> tmpCharts = new ArrayList<ChartEntry>();
+		List<RingTableXYDataset> snapshots = new ArrayList<RingTableXYDataset>();
+		synchronized (this) {
+			isFramePosted = false;
+			waitNanos = beginFrame - publishTime;
+			Iterator<ChartEntry> iter = charts.iterator();
+			while (iter.hasNext()) {
+				ChartEntry entry = iter.next();
+				if (entry.pending != null) {
+					tmpCharts.add(entry);
+					snapshots.add(entry.pending);
+					entry.pending = null;
+				}
+			}
+		}
+		if (tmpCharts.isEmpty()) {
+			return;
+		}
+		tick++;
+		for (int i = 0; i < tmpCharts.size(); i++) {
+			ChartEntry entry = tmpCharts.get(i);
+			entry.hidden = snapshots.get(i);
+			if (entry.component.isShowing()) {
+				entry.showHidden();
+			}
+		}
+		frameMetrics.add(waitNanos, System.nanoTime() - beginFrame);
+	}
+
+	/**
+	 * The Class ChartEntry (datasets of one chart).
+	 */
+	private static class ChartEntry {
+
+		/** The dataset updated by collector. */
+		private RingTableXYDataset dataset;
+
+		/** The dataset of chart. */
+		private RingTableXYDataset chartDataset;
+
+		/** The chart panel, null if there is no chart panel. */
+		private JComponent component;
+
+		/** The listener of showing of chart panel. */
+		private HierarchyListener listener;
+
+		/** The count of changes of dataset at last snapshot (guarded by scheduler). */
+		private long modCount = -1;
+
+		/** The snapshot of posted frame (guarded by scheduler). */
+		private RingTableXYDataset pending;
+
+		/** The snapshot not shown yet, chart is hidden (EDT only). */
+		private RingTableXYDataset hidden;
+
+		/**
+		 * Instantiates a new chart entry.
+		 *
+		 * @param dataset the dataset
+		 * @param chartDataset the chart dataset
+		 * @param component the component
+		 */
+		ChartEntry(RingTableXYDataset dataset,
+				RingTableXYDataset chartDataset, JComponent component) {
+			this.dataset = dataset;
+			this.chartDataset = chartDataset;
+			this.component = component;
+		}
+
+		/**
+		 * Show the last snapshot in chart, if it is not shown yet (on EDT).
+		 */
+		void showHidden() {
+			if (hidden != null) {
+				chartDataset.setData(hidden);
+				hidden = null;
+				chartDataset.fireDatasetChange();
+			}
+		}
+	}
+}
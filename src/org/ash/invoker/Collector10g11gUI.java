@@ -26,6 +26,9 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import org.ash.database.ASHDatabase;
 import org.ash.detail.DetailPanels;
@@ -35,6 +38,13 @@ import org.ash.gui.StatusBar;
 
 /**
  * The Class CollectorAsh10gHigher.
+ * 
+ * Stages of collector work in own threads and are connected by bounded queues:
+ * collect (load from Oracle to local BDB) -> aggregate (update chart dataset)
+ * -> publish (update listeners: Gantt, detail panels, status bar).
+ * When the next stage is busy, the queue keeps only the latest input,
+ * the loaded data is already saved to local BDB. Charts are drawn on EDT
+ * from snapshots of datasets (see ChartRepaintScheduler).
  */
 public class Collector10g11gUI implements Runnable, Collector {
 
@@ -42,13 +52,13 @@ public class Collector10g11gUI implements Runnable, Collector {
   private boolean m_isRunning = false;
 
   /** The m_latency. */
-  private long m_latency = 31000;
+  private volatile long m_latency = 31000;
   
   /** The m_latency chart. */
   private long m_latencyChart = 200;
 
   /** The m_stop. */
-  private boolean m_stop = true;
+  private volatile boolean m_stop = true;
 
   /** The database. */
   private ASHDatabase database;
@@ -74,6 +84,33 @@ public class Collector10g11gUI implements Runnable, Collector {
   /** The k. 1 minute */
   private int k = 60000;
   
+  /** The aggregate stage thread. */
+  private Thread m_threadAggregate;
+  
+  /** The publish stage thread. */
+  private Thread m_threadPublish;
+  
+  /** The lock for sleep of collect stage, notified on stop. */
+  private final Object m_sleepLock = new Object();
+  
+  /** The max time of wait for end of stage thread on stop, ms. */
+  private static final long STOP_TIMEOUT = 10000;
+  
+  /** The queue of loads for aggregate stage (time of load, nanosec). */
+  private BlockingQueue<Long> aggregateQueue = new ArrayBlockingQueue<Long>(1);
+  
+  /** The queue of chart updates for publish stage (time of update, nanosec). */
+  private BlockingQueue<Long> publishQueue = new ArrayBlockingQueue<Long>(1);
+  
+  /** The metrics of collect stage. */
+  private StageMetrics collectMetrics = new StageMetrics("Collect");
+  
+  /** The metrics of aggregate stage. */
+  private StageMetrics aggregateMetrics = new StageMetrics("Aggregate");
+  
+  /** The metrics of publish stage. */
+  private StageMetrics publishMetrics = new StageMetrics("Publish");
+  
   /**
    * Instantiates a new Collector10gHigherUI.
    * 
@@ -119,29 +156,24 @@ public void finalize() throws Throwable {
     }
     
     long lasttime;
-    this.m_stop = false;
     
     while (!this.m_stop) {
       lasttime = System.currentTimeMillis();
       
+      long beginCollect = System.nanoTime();
 	  database.loadToLocalBDBCollector();
-      
-      // Wait while user mouse dragged
-      while (isSelectionStackedChart()){
-    	  try {
-    	        Thread.sleep(m_latencyChart);
-    	      } catch (InterruptedException e) {
-    	    	 System.out.println("Error when wait for user dragged!!!");
-    	    	 e.printStackTrace();
-    	        this.stop();
-    	      }
-      }
+	  long endCollect = System.nanoTime();
+	  collectMetrics.add(0, endCollect - beginCollect);
 	  
-      database.updateDataToChartPanelDataSet();
-      fireRunAction();
+	  offerLatest(aggregateQueue, endCollect, aggregateMetrics);
       
       try {
-        Thread.sleep(Math.max(this.m_latency - System.currentTimeMillis() + lasttime, 0));
+    	synchronized (m_sleepLock) {
+    	  long sleep = this.m_latency - System.currentTimeMillis() + lasttime;
+    	  if (!this.m_stop && sleep > 0) {
+    		m_sleepLock.wait(sleep);
+    	  }
+    	}
       } catch (InterruptedException e) {
     	 System.out.println("Draw print stack of threads!!!");
     	 e.printStackTrace();
@@ -167,7 +199,10 @@ public void finalize() throws Throwable {
   public void start() {	  
 	  
     if (this.m_thread == null) {
+      this.m_stop = false;
       this.m_thread = new Thread(this);
+      this.m_threadAggregate = new Thread(new AggregateStage());
+      this.m_threadPublish = new Thread(new PublishStage());
       
       // Wait this.m_latency for start first update.
       try {
@@ -178,6 +213,8 @@ public void finalize() throws Throwable {
           this.stop();
         }
       
+      this.m_threadPublish.start();
+      this.m_threadAggregate.start();
       this.m_thread.start();
       
     } 
@@ -189,6 +226,40 @@ public void finalize() throws Throwable {
  */
   public void stop() {
     this.m_stop = true;
+    
+    // Wake up collect stage, it ends after current load (not interrupted
+    // to keep local BDB and JDBC connection consistent)
+    synchronized (m_sleepLock) {
+    	m_sleepLock.notifyAll();
+    }
+    
+    // Interrupt waits of aggregate and publish stages
+    if (m_threadAggregate != null) {
+    	m_threadAggregate.interrupt();
+    }
+    if (m_threadPublish != null) {
+    	m_threadPublish.interrupt();
+    }
+    
+    joinStage(m_threadPublish);
+    joinStage(m_threadAggregate);
+    joinStage(m_thread);
+  }
+  
+  /**
+   * Wait for end of stage thread, unless stop is called from this thread.
+   * 
+   * @param stage the thread of stage
+   */
+  private void joinStage(Thread stage) {
+	  if (stage == null || stage == Thread.currentThread()) {
+		  return;
+	  }
+	  try {
+		  stage.join(STOP_TIMEOUT);
+	  } catch (InterruptedException e) {
+		  Thread.currentThread().interrupt();
+	  }
   }
   
   /* (non-Javadoc)
@@ -242,6 +313,127 @@ public void finalize() throws Throwable {
 	  listenersStop.add(l);
   }
   
+  /**
+   * Put input to queue of next stage. If next stage is busy (queue is full),
+   * the previous input is replaced by the latest one.
+   * 
+   * @param queue the queue of next stage
+   * @param value the time of input (nanosec)
+   * @param metrics the metrics of next stage
+   */
+  private void offerLatest(BlockingQueue<Long> queue, long value, StageMetrics metrics) {
+	  while (!queue.offer(value)) {
+		  if (queue.poll() != null) {
+			  metrics.addSkipped();
+		  }
+	  }
+  }
+  
+  /**
+   * Aggregate stage: update dataset of chart after load. When there is no
+   * new load within the latency (slow Oracle), the chart is not updated.
+   */
+  private class AggregateStage implements Runnable {
+	  public void run() {
+		  while (!m_stop) {
+			  Long input = null;
+			  try {
+				  input = aggregateQueue.poll(m_latency, TimeUnit.MILLISECONDS);
+			  } catch (InterruptedException e) {
+				  // Interrupted by stop
+				  if (!m_stop) {
+					  e.printStackTrace();
+					  Collector10g11gUI.this.stop();
+				  }
+				  break;
+			  }
+			  if (input == null) {
+				  continue;
+			  }
+			  
+			  // Wait while user mouse dragged
+			  while (isSelectionStackedChart() && !m_stop){
+				  try {
+					  Thread.sleep(m_latencyChart);
+				  } catch (InterruptedException e) {
+					  if (!m_stop) {
+						  System.out.println("Error when wait for user dragged!!!");
+						  e.printStackTrace();
+						  Collector10g11gUI.this.stop();
+					  }
+					  break;
+				  }
+			  }
+			  if (m_stop) {
+				  break;
+			  }
+			  
+			  long beginAggregate = System.nanoTime();
+			  database.updateDataToChartPanelDataSet();
+			  long endAggregate = System.nanoTime();
+			  aggregateMetrics.add(beginAggregate - input,
+					  endAggregate - beginAggregate);
+			  
+			  offerLatest(publishQueue, endAggregate, publishMetrics);
+		  }
+	  }
+  }
+  
+  /**
+   * Publish stage: update listeners (Gantt, detail panels, status bar).
+   */
+  private class PublishStage implements Runnable {
+	  public void run() {
+		  while (!m_stop) {
+			  Long input = null;
+			  try {
+				  input = publishQueue.poll(m_latency, TimeUnit.MILLISECONDS);
+			  } catch (InterruptedException e) {
+				  // Interrupted by stop
+				  if (!m_stop) {
+					  e.printStackTrace();
+					  Collector10g11gUI.this.stop();
+				  }
+				  break;
+			  }
+			  if (input == null || m_stop) {
+				  continue;
+			  }
+			  
+			  long beginPublish = System.nanoTime();
+			  fireRunAction();
+			  publishMetrics.add(beginPublish - input, System.nanoTime() - beginPublish);
+		  }
+	  }
+  }
+  
+  /**
+   * Gets the metrics of collect stage.
+   * 
+   * @return the collect metrics
+   */
+  public StageMetrics getCollectMetrics() {
+	  return collectMetrics;
+  }
+  
+  /**
+   * Gets the metrics of aggregate stage.
+   * 
+   * @return the aggregate metrics
+   */
+  public StageMetrics getAggregateMetrics() {
+	  return aggregateMetrics;
+  }
+  
+  /**
+   * Gets the metrics of publish stage.
+   * 
+   * @return the publish metrics
+   */
+  public StageMetrics getPublishMetrics() {
+	  return publishMetrics;
+  }
+  
   /**
    * Fire run action.
    */
@@ -275,7 +467,7 @@ public void finalize() throws Throwable {
     	  if (currListeners instanceof Gantt){
     		  Gantt 
   		  		tempObj = (Gantt) currListeners;
-    		  	tempObj.loadDataToJPanels(beginTime, endTime);
+    		  	tempObj.loadDataToJPanels(beginTime, endTime, true);
     	  }
     	  if (currListeners instanceof StatusBar){
         		StatusBar 
@@ -281,7 +281,7 @@ public void finalize() throws Throwable {
     	  if (currListeners instanceof Gantt){
     		  Gantt 
   		  		tempObj = (Gantt) currListeners;
-    		  	tempObj.loadDataToJPanels(beginTime, endTime);
+    		  	tempObj.loadDataToJPanels(beginTime, endTime, true);
     	  }
     	  if (currListeners instanceof StatusBar){
         		StatusBar 
@@ -0,0 +1,366 @@
+/*
+ *-------------------
+ * The CollectorDaemon.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.invoker;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.ash.database.ASHDatabase;
+import org.ash.util.RingTableXYDataset;
+
+/**
+ * The Class CollectorDaemon.
+ *
+ * Headless collector: load ASH data to local BDB without charts and listeners.
+ * Many targets (databases, instances of RAC) are collected by shared pool
+ * of threads, each target is loaded by one thread at a time.
+ * For 10g/11g EE data is loaded from v$active_session_history each latency,
+ * for 9i/8i and SE active sessions are sampled each second and 15 sec
+ * buckets are calculated each latency. Targets with chart (load tests
+ * without Oracle, see DatabaseSynthetic) update dataset of chart after
+ * each load, as the main window does.
+ */
+public class CollectorDaemon {
+
+	/** The latency of sampling active sessions (9i/8i, SE). */
+	private static final long LATENCY_SAMPLE = 1000;
+
+	/** The count of top sql for load sql text to local BDB. */
+	private static final int TOP_SQLS_SQL_TEXT = 10;
+
+	/** The count of threads. */
+	private int threads;
+
+	/** The m_stop. */
+	private volatile boolean m_stop = true;
+
+	/** The scheduler of collect tasks. */
+	private ScheduledExecutorService executor;
+
+	/** The collect tasks. */
+	private List<CollectTask> tasks = new ArrayList<CollectTask>();
+
+	/**
+	 * Instantiates a new collector daemon.
+	 *
+	 * @param threads the count of threads for all targets
+	 */
+	public CollectorDaemon(int threads) {
+		this.threads = threads;
+	}
+
+	/**
+	 * Add target.
+	 *
+	 * @param name the name of target (for log)
+	 * @param database the database
+	 * @param latency the latency
+	 * @param isSampled true for 9i/8i and SE databases
+	 */
+	public void addTarget(String name, ASHDatabase database,
+			long latency, boolean isSampled) {
+		addTarget(name, database, latency, isSampled, false);
+	}
+
+	/**
+	 * Add target.
+	 *
+	 * @param name the name of target (for log)
+	 * @param database the database
+	 * @param latency the latency
+	 * @param isSampled true for 9i/8i and SE databases
+	 * @param isChart true, if dataset of chart is updated after each load
+	 */
+	public synchronized void addTarget(String name, ASHDatabase database,
+			long latency, boolean isSampled, boolean isChart) {
+		CollectTask task = new CollectTask(name, database, latency, isSampled,
+				isChart);
+		tasks.add(task);
+		if (!this.m_stop) {
+			task.registerChart();
+			schedule(task);
+		}
+	}
+
+	/**
+	 * Start.
+	 */
+	public synchronized void start() {
+		if (this.executor == null) {
+			this.m_stop = false;
+			this.executor = new ScheduledThreadPoolExecutor(threads);
+			Iterator<CollectTask> iter = tasks.iterator();
+			while (iter.hasNext()) {
+				CollectTask task = iter.next();
+				task.registerChart();
+				schedule(task);
+			}
+		}
+	}
+
+	/**
+	 * Stop and wait for the end of current loads.
+	 * Threads are not interrupted, BDB JE must not be interrupted.
+	 */
+	public void stop() {
+		ScheduledExecutorService tmpExecutor;
+		synchronized (this) {
+			this.m_stop = true;
+			tmpExecutor = this.executor;
+			this.executor = null;
+		}
+		if (tmpExecutor != null) {
+			tmpExecutor.shutdown();
+			try {
+				tmpExecutor.awaitTermination(10, TimeUnit.MINUTES);
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+			synchronized (this) {
+				Iterator<CollectTask> iter = tasks.iterator();
+				while (iter.hasNext()) {
+					iter.next().unregisterChart();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Schedule task with fixed rate, runs of one task do not overlap.
+	 *
+	 * @param task the task
+	 */
+	private void schedule(CollectTask task) {
+		executor.scheduleAtFixedRate(task, 0, task.getPeriod(),
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Checks if is running.
+	 *
+	 * @return true, if is running
+	 */
+	public boolean isRunning() {
+		return !this.m_stop;
+	}
+
+	/**
+	 * Gets the databases of targets.
+	 *
+	 * @return the databases
+	 */
+	public synchronized List<ASHDatabase> getDatabases() {
+		List<ASHDatabase> out = new ArrayList<ASHDatabase>();
+		Iterator<CollectTask> iter = tasks.iterator();
+		while (iter.hasNext()) {
+			out.add(iter.next().database);
+		}
+		return out;
+	}
+
+	/**
+	 * The Class CollectTask (one load of one target).
+	 */
+	private class CollectTask implements Runnable {
+
+		/** The name of target. */
+		private String name;
+
+		/** The database. */
+		private ASHDatabase database;
+
+		/** The latency. */
+		private long latency;
+
+		/** Is ASH emulated by sampling of active sessions (9i/8i, SE). */
+		private boolean isSampled;
+
+		/** The dataset of chart, null if chart is not updated. */
+		private RingTableXYDataset dataset;
+
+		/** The snapshot of dataset of chart (there is no chart panel). */
+		private RingTableXYDataset chartDataset;
+
+		/** Is first load done (loadToLocalBDB). */
+		private boolean isLoaded = false;
+
+		/** The time of last calculation of 15 sec buckets and top sql. */
+		private long lastAggregate = 0;
+
+		/** The latency of collect stage. */
+		private StageMetrics collectMetrics;
+
+		/** The latency of chart stage (wait is the time of load before it). */
+		private StageMetrics chartMetrics;
+
+		/**
+		 * Instantiates a new collect task.
+		 *
+		 * @param name the name
+		 * @param database the database
+		 * @param latency the latency
+		 * @param isSampled true for 9i/8i and SE databases
+		 * @param isChart true, if dataset of chart is updated after each load
+		 */
+		CollectTask(String name, ASHDatabase database, long latency,
+				boolean isSampled, boolean isChart) {
+			this.name = name;
+			this.database = database;
+			this.latency = latency;
+			this.isSampled = isSampled;
+			this.collectMetrics = new StageMetrics(name);
+			if (isChart) {
+				this.dataset = new RingTableXYDataset();
+				this.chartDataset = new RingTableXYDataset();
+				this.chartMetrics = new StageMetrics(name + " chart");
+			}
+		}
+
+		/**
+		 * Register dataset of chart while task is scheduled. Chart is
+		 * not shown, snapshots are measured anyway (not posted to EDT).
+		 */
+		void registerChart() {
+			if (dataset != null) {
+				database.getChartRepaintScheduler().register(dataset,
+						chartDataset, null);
+			}
+		}
+
+		/**
+		 * Unregister dataset of chart, task is stopped.
+		 */
+		void unregisterChart() {
+			if (dataset != null) {
+				database.getChartRepaintScheduler().unregister(dataset);
+			}
+		}
+
+		/**
+		 * Gets the period of runs.
+		 *
+		 * @return the period
+		 */
+		long getPeriod() {
+			return isSampled ? LATENCY_SAMPLE : latency;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Runnable#run()
+		 */
+		public void run() {
+			if (m_stop) {
+				return;
+			}
+
+			long startCollect = System.nanoTime();
+
+			try {
+				if (!isLoaded) {
+					database.loadToLocalBDB();
+					isLoaded = true;
+					lastAggregate = System.currentTimeMillis();
+				} else {
+					database.loadToLocalBDBCollector();
+				}
+
+				if (dataset != null) {
+					updateChart(startCollect);
+				}
+
+				if (System.currentTimeMillis() - lastAggregate >= latency
+						|| !isSampled) {
+					if (isSampled) {
+						database.loadToSubByEventAnd10Sec();
+					}
+					loadTopSqlText();
+					lastAggregate = System.currentTimeMillis();
+
+					System.out.println(new Date() + " " + collectMetrics
+							+ (chartMetrics != null ? "; " + chartMetrics + "; "
+									+ database.getChartRepaintScheduler().getFrameMetrics() : "")
+							+ "; " + database.getIngestThroughput()
+							+ (database.getConnectionPool() != null
+									? "; " + database.getConnectionPool() : "")
+							+ "; heap " + getUsedHeapMb() + " Mb");
+				}
+			} catch (Exception e) {
+				// Do not rethrow, next runs of task would be cancelled
+				e.printStackTrace();
+			}
+
+			collectMetrics.add(0, System.nanoTime() - startCollect);
+		}
+
+		/**
+		 * Load data to dataset of chart on first run, update it on next runs.
+		 *
+		 * @param startCollect the start of load (System.nanoTime)
+		 */
+		private void updateChart(long startCollect) {
+			long startChart = System.nanoTime();
+			if (chartMetrics.getCount() == 0) {
+				database.loadDataToChartPanelDataSet(dataset);
+			} else {
+				database.updateDataToChartPanelDataSet();
+			}
+			chartMetrics.add(startChart - startCollect,
+					System.nanoTime() - startChart);
+		}
+
+		/**
+		 * Load sql text of top sql for last latency to local BDB,
+		 * so they are available in history.
+		 */
+		private void loadTopSqlText() {
+			double endTime = database.getSysdate();
+			double beginTime = endTime - latency;
+
+			database.getSqlsTemp().clear();
+			database.getSessionsTemp().clear();
+			database.calculateSqlsSessionsData(beginTime, endTime, "All");
+
+			// Top sqls by count
+			List<String> arraySqlId = new ArrayList<String>(
+					database.getSqlsTemp().getTopSqls(TOP_SQLS_SQL_TEXT).keySet());
+
+			if (!arraySqlId.isEmpty()) {
+				database.loadSqlTextCommandTypeFromDB(arraySqlId);
+			}
+		}
+	}
+
+	/**
+	 * Gets the used heap.
+	 *
+	 * @return the used heap (Mb)
+	 */
+	private static long getUsedHeapMb() {
+		Runtime runtime = Runtime.getRuntime();
+		return (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024);
+	}
+}
@@ -0,0 +1,134 @@
+/*
+ *-------------------
+ * The StageMetrics.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.invoker;
+
+import org.ash.util.Utils;
+
+/**
+ * The Class StageMetrics (latency of one stage of collector).
+ */
+public class StageMetrics {
+
+	/** The name of stage. */
+	private String name;
+
+	/** The count of runs. */
+	private long count = 0;
+
+	/** The count of skipped (coalesced) inputs. */
+	private long skipped = 0;
+
+	/** The time of last run (millisec). */
+	private double lastMillis = 0.0;
+
+	/** The max time of run (millisec). */
+	private double maxMillis = 0.0;
+
+	/** The total time of runs (millisec). */
+	private double totalMillis = 0.0;
+
+	/** The time between input and start of last run (millisec). */
+	private double lastWaitMillis = 0.0;
+
+	/**
+	 * Instantiates a new stage metrics.
+	 *
+	 * @param name the name
+	 */
+	public StageMetrics(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Add one run of stage.
+	 *
+	 * @param waitNanos the time between input and start of run
+	 * @param runNanos the time of run
+	 */
+	public synchronized void add(long waitNanos, long runNanos) {
+		this.lastWaitMillis = waitNanos / 1000000.0;
+		this.lastMillis = runNanos / 1000000.0;
+		this.totalMillis += this.lastMillis;
+		this.maxMillis = Math.max(this.maxMillis, this.lastMillis);
+		this.count++;
+	}
+
+	/**
+	 * Add skipped input (next stage was busy, input is replaced by the latest).
+	 */
+	public synchronized void addSkipped() {
+		this.skipped++;
+	}
+
+	/**
+	 * @return the count of runs
+	 */
+	public synchronized long getCount() {
+		return count;
+	}
+
+	/**
+	 * @return the count of skipped inputs
+	 */
+	public synchronized long getSkipped() {
+		return skipped;
+	}
+
+	/**
+	 * @return the time of last run (millisec)
+	 */
+	public synchronized double getLastMillis() {
+		return lastMillis;
+	}
+
+	/**
+	 * @return the max time of run (millisec)
+	 */
+	public synchronized double getMaxMillis() {
+		return maxMillis;
+	}
+
+	/**
+	 * @return the average time of run (millisec)
+	 */
+	public synchronized double getAvgMillis() {
+		return count == 0 ? 0.0 : totalMillis / count;
+	}
+
+	/**
+	 * @return the time between input and start of last run (millisec)
+	 */
+	public synchronized double getLastWaitMillis() {
+		return lastWaitMillis;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	public synchronized String toString() {
+		return name + ": runs " + count + ", skipped " + skipped
+			+ ", last " + Utils.round(lastMillis, 1) + " ms"
+			+ ", avg " + Utils.round(getAvgMillis(), 1) + " ms"
+			+ ", max " + Utils.round(maxMillis, 1) + " ms"
+			+ ", wait " + Utils.round(lastWaitMillis, 1) + " ms";
+	}
+}
@@ -48,6 +48,9 @@ public class BinaryDisplayConverter {
 	 	}
 	 }
 	 
+	 //Hex digits for toHexString.
+	 private static final char[] hexDigits = "0123456789abcdef".toCharArray();
+	 
 	 //List of characters considered "printable".
 	 private static String printable = "0123456789abcdefghijklmnopqrstuvwxyz" +
 	 	"ABCDEFGHIJKLMNOPQRSTUVWXYZ`~!@#$%^&*()-_=+[{]}\\|;:'\",<.>/?";
@@ -114,6 +117,24 @@ public class BinaryDisplayConverter {
 		return buf.toString();
 	}
 	
+	/**
+	 * Convert from an array of bytes into a string of lower case hex,
+	 * two chars per byte (as convertToString(data, HEX, false)).
+	 */
+	public static String toHexString(byte[] data) {
+		
+		// handle null
+		if (data == null)
+			return null;
+		
+		char[] buf = new char[data.length * 2];
+		for (int i=0; i < data.length; i++) {
+			buf[2*i] = hexDigits[(data[i] >> 4) & 0x0f];
+			buf[2*i+1] = hexDigits[data[i] & 0x0f];
+		}
+		return new String(buf);
+	}
+	
 	/**
 	 * Convert a string into Bytes.  The string is assumed to be in
 	 * the form generated by the convertToString function, with each
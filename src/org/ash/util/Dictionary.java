@@ -293,6 +293,11 @@ public class Dictionary extends ListResourceBundle {
     
     {"texttoclip.text","Copy to clipboard SQL"},
     {"minimalistic.text","Minimalistic design of TA"},
+    {"compactstorage.text","Compact storage of ASH data"},
+    {"aggregateonserver.text","Aggregate ASH data on server, 11g (rows of selected interval are loaded on select)"},
+    {"dimensionindex.text","Index ASH data by sql id, session, event, wait class, module and program (for drilldown in history)"},
+    {"aggregatedonserver.text","ASH data is aggregated on server: Top SQL, Top sessions and raw data are not kept in history"},
+    {"retention.text","Keep ASH data, days  "},
     
     {"autoRadio.text","Auto"},
     {"manualRadio.text","Manual"},
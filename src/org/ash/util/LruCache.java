@@ -0,0 +1,55 @@
+/*
+ *-------------------
+ * The LruCache.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The Class LruCache.
+ * 
+ * Bounded map, the least recently used entry is removed.
+ */
+public class LruCache<K, V> extends LinkedHashMap<K, V> {
+
+	private static final long serialVersionUID = 1L;
+
+	/** The max size. */
+	private int maxSize;
+
+	/**
+	 * Instantiates a new lru cache.
+	 *
+	 * @param maxSize the max size
+	 */
+	public LruCache(int maxSize) {
+		super(16, 0.75f, true);
+		this.maxSize = maxSize;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.LinkedHashMap#removeEldestEntry(java.util.Map.Entry)
+	 */
+	protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+		return size() > maxSize;
+	}
+}
@@ -108,6 +108,24 @@ public class Options {
 
   private boolean minimalistic = false;
   
+  /** Store ASH rows of one sample as columnar block */
+  private boolean compactStorage = false;
+  
+  /** Load ASH counts aggregated on server, rows are loaded for selected interval only */
+  private boolean aggregateOnServer = false;
+  
+  /** Index samples of sql id, session, event, wait class, module and program of ASH rows */
+  private boolean dimensionIndex = false;
+  
+  /** The BDB cache size, percent of heap */
+  private int cachePercent = 20;
+  
+  /** One BDB cache for all environments of process (many targets) */
+  private boolean sharedCache = false;
+  
+  /** Days to keep ASH data in local BDB, older days are dropped (0 - keep all) */
+  private int retentionDays = 0;
+  
   /** Store colors for events */
   private static EventColors eventColors;
   
@@ -574,6 +592,99 @@ public void setMinimalistic(boolean minimalistic) {
         this.minimalistic = minimalistic;
     }
 
+/**
+ * @return the compactStorage
+ */
+public boolean isCompactStorage() {
+	return compactStorage;
+}
+
+/**
+ * Store ASH rows of one sample as columnar block (ActiveSessionHistoryBlock)
+ * @param compactStorage the compactStorage to set
+ */
+public void setCompactStorage(boolean compactStorage) {
+	this.compactStorage = compactStorage;
+}
+
+/**
+ * @return true, if ASH counts are aggregated on server
+ */
+public boolean isAggregateOnServer() {
+	return aggregateOnServer;
+}
+
+/**
+ * Load ASH counts by sample and wait class/event aggregated on server
+ * (GROUP BY in query) instead of all rows; rows are loaded when
+ * interval is selected on chart (Top SQL, Top sessions)
+ * @param aggregateOnServer the aggregateOnServer to set
+ */
+public void setAggregateOnServer(boolean aggregateOnServer) {
+	this.aggregateOnServer = aggregateOnServer;
+}
+
+/**
+ * @return true, if samples of dimensions of ASH rows are indexed
+ */
+public boolean isDimensionIndex() {
+	return dimensionIndex;
+}
+
+/**
+ * Index samples of sql id, session, event, wait class, module and program
+ * of ASH rows (new day partitions), for drilldown in history
+ * @param dimensionIndex the dimensionIndex to set
+ */
+public void setDimensionIndex(boolean dimensionIndex) {
+	this.dimensionIndex = dimensionIndex;
+}
+
+/**
+ * @return the BDB cache size, percent of heap
+ */
+public int getCachePercent() {
+	return cachePercent;
+}
+
+/**
+ * Sets the BDB cache size of main (online) database
+ * @param cachePercent percent of heap
+ */
+public void setCachePercent(int cachePercent) {
+	this.cachePercent = cachePercent;
+}
+
+/**
+ * @return true, if one BDB cache is used for all environments
+ */
+public boolean isSharedCache() {
+	return sharedCache;
+}
+
+/**
+ * Use one BDB cache (cachePercent of heap) for all environments of process
+ * @param sharedCache the sharedCache to set
+ */
+public void setSharedCache(boolean sharedCache) {
+	this.sharedCache = sharedCache;
+}
+
+/**
+ * @return the days to keep ASH data in local BDB (0 - keep all)
+ */
+public int getRetentionDays() {
+	return retentionDays;
+}
+
+/**
+ * Sets the days to keep ASH data, older days are dropped on collect
+ * @param retentionDays the days (0 - keep all)
+ */
+public void setRetentionDays(int retentionDays) {
+	this.retentionDays = retentionDays;
+}
+
 
 /**
  * @return the jtextAreaSqlTextGanttH
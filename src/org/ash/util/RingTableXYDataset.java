@@ -0,0 +1,437 @@
+/*
+ *-------------------
+ * The RingTableXYDataset.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jfree.data.DomainInfo;
+import org.jfree.data.DomainOrder;
+import org.jfree.data.Range;
+import org.jfree.data.xy.AbstractIntervalXYDataset;
+import org.jfree.data.xy.IntervalXYDataset;
+import org.jfree.data.xy.TableXYDataset;
+
+/**
+ * The Class RingTableXYDataset.
+ *
+ * Dataset of stacked charts: x values and values of each series are kept
+ * in ring buffers of fixed capacity, items are sorted by x. Add of new x
+ * and expire of old x are O(1), x before the last one is found by binary
+ * search. Missing values are NaN (null). Listeners are not notified on
+ * add and expire, call fireDatasetChange once after update.
+ * Dataset of chart can be kept apart from the updated one: snapshot copies
+ * items in order, setData shows the snapshot (see ChartRepaintScheduler).
+ */
+public class RingTableXYDataset extends AbstractIntervalXYDataset
+		implements TableXYDataset, IntervalXYDataset, DomainInfo {
+
+	/** The default capacity (more than 4 hours of 15 sec values). */
+	public static final int DEFAULT_CAPACITY = 1024;
+
+	/** The capacity. */
+	private int capacity;
+
+	/** The x values. */
+	private double[] xValues;
+
+	/** The values of series. */
+	private List<double[]> yValues = new ArrayList<double[]>();
+
+	/** The keys of series. */
+	private List<Comparable> seriesKeys = new ArrayList<Comparable>();
+
+	/** The index of series by key. */
+	private Map<Comparable, Integer> seriesIndex = new HashMap<Comparable, Integer>();
+
+	/** The position of first item in ring. */
+	private int head = 0;
+
+	/** The count of items. */
+	private int count = 0;
+
+	/** The count of changes (add, expire, clear, setData). */
+	private long modCount = 0;
+
+	/**
+	 * Instantiates a new dataset of DEFAULT_CAPACITY.
+	 */
+	public RingTableXYDataset() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Instantiates a new dataset, the first item is dropped when
+	 * dataset is full.
+	 *
+	 * @param capacity the max count of x values
+	 */
+	public RingTableXYDataset(int capacity) {
+		this.capacity = capacity;
+		this.xValues = new double[capacity];
+	}
+
+	/**
+	 * Add value (or replace value of x) of series, listeners are not notified.
+	 *
+	 * @param x the x value
+	 * @param y the y value
+	 * @param seriesName the name of series
+	 */
+	public void add(double x, double y, String seriesName) {
+		int series = getSeriesIndex(seriesName);
+		int item;
+		if (count == 0 || x > xValues[position(count - 1)]) {
+			item = append(x);
+		} else {
+			item = find(x);
+			if (item < 0) {
+				item = insert(-item - 1, x);
+				if (item < 0) {
+					return;
+				}
+			}
+		}
+		yValues.get(series)[position(item)] = y;
+		modCount++;
+	}
+
+	/**
+	 * Remove items with x not after x value, listeners are not notified.
+	 *
+	 * @param x the x value
+	 * @return the count of removed items
+	 */
+	public int expire(double x) {
+		int removed = 0;
+		while (count > 0 && xValues[head] <= x) {
+			head = (head + 1) % capacity;
+			count--;
+			removed++;
+		}
+		if (count == 0) {
+			head = 0;
+		}
+		if (removed > 0) {
+			modCount++;
+		}
+		return removed;
+	}
+
+	/**
+	 * Remove all items and series, listeners are not notified.
+	 */
+	public void clear() {
+		yValues.clear();
+		seriesKeys.clear();
+		seriesIndex.clear();
+		head = 0;
+		count = 0;
+		modCount++;
+	}
+
+	/**
+	 * Copy of items and series, the copy must not be changed by add
+	 * or expire (its arrays are shared by setData).
+	 *
+	 * @return the snapshot
+	 */
+	public RingTableXYDataset snapshot() {
+		RingTableXYDataset copy = new RingTableXYDataset(Math.max(count, 1));
+		for (int i = 0; i < count; i++) {
+			copy.xValues[i] = xValues[position(i)];
+		}
+		for (int j = 0; j < yValues.size(); j++) {
+			double[] values = yValues.get(j);
+			double[] copyValues = new double[copy.capacity];
+			for (int i = 0; i < count; i++) {
+				copyValues[i] = values[position(i)];
+			}
+			copy.yValues.add(copyValues);
+		}
+		copy.seriesKeys.addAll(seriesKeys);
+		copy.seriesIndex.putAll(seriesIndex);
+		copy.count = count;
+		return copy;
+	}
+
+	/**
+	 * Replace items and series by snapshot (arrays are shared, not copied),
+	 * listeners are not notified.
+	 *
+	 * @param snapshot the snapshot
+	 */
+	public void setData(RingTableXYDataset snapshot) {
+		this.capacity = snapshot.capacity;
+		this.xValues = snapshot.xValues;
+		this.yValues = snapshot.yValues;
+		this.seriesKeys = snapshot.seriesKeys;
+		this.seriesIndex = snapshot.seriesIndex;
+		this.head = snapshot.head;
+		this.count = snapshot.count;
+		this.modCount++;
+	}
+
+	/**
+	 * Gets the count of changes, it is changed by add, expire, clear
+	 * and setData.
+	 *
+	 * @return the count of changes
+	 */
+	public long getModCount() {
+		return modCount;
+	}
+
+	/**
+	 * Notify listeners (once after add and expire).
+	 */
+	public void fireDatasetChange() {
+		fireDatasetChanged();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.jfree.data.general.AbstractSeriesDataset#getSeriesCount()
+	 */
+	public int getSeriesCount() {
+		return seriesKeys.size();
+	}
+
+	/* (non-Javadoc)
+	 * @see org.jfree.data.general.AbstractSeriesDataset#getSeriesKey(int)
+	 */
+	public Comparable getSeriesKey(int series) {
+		return seriesKeys.get(series);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.jfree.data.xy.TableXYDataset#getItemCount()
+	 */
+	public int getItemCount() {
+		return count;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.jfree.data.xy.XYDataset#getItemCount(int)
+	 */
+	public int getItemCount(int series) {
+		return count;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.jfree.data.xy.AbstractXYDataset#getDomainOrder()
+	 */
+	public DomainOrder getDomainOrder() {
+		return DomainOrder.ASCENDING;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.jfree.data.xy.AbstractXYDataset#getXValue(int, int)
+	 */
+	public double getXValue(int series, int item) {
+		return xValues[position(item)];
+	}
+
+	/* (non-Javadoc)
+	 * @see org.jfree.data.xy.AbstractXYDataset#getYValue(int, int)
+	 */
+	public double getYValue(int series, int item) {
+		return yValues.get(series)[position(item)];
+	}
+
+	/* (non-Javadoc)
+	 * @see org.jfree.data.xy.XYDataset#getX(int, int)
+	 */
+	public Number getX(int series, int item) {
+		return new Double(getXValue(series, item));
+	}
+
+	/* (non-Javadoc)
+	 * @see org.jfree.data.xy.XYDataset#getY(int, int)
+	 */
+	public Number getY(int series, int item) {
+		double y = getYValue(series, item);
+		return Double.isNaN(y) ? null : new Double(y);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.jfree.data.xy.IntervalXYDataset#getStartX(int, int)
+	 */
+	public Number getStartX(int series, int item) {
+		return getX(series, item);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.jfree.data.xy.IntervalXYDataset#getEndX(int, int)
+	 */
+	public Number getEndX(int series, int item) {
+		return getX(series, item);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.jfree.data.xy.IntervalXYDataset#getStartY(int, int)
+	 */
+	public Number getStartY(int series, int item) {
+		return getY(series, item);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.jfree.data.xy.IntervalXYDataset#getEndY(int, int)
+	 */
+	public Number getEndY(int series, int item) {
+		return getY(series, item);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.jfree.data.DomainInfo#getDomainLowerBound(boolean)
+	 */
+	public double getDomainLowerBound(boolean includeInterval) {
+		return count == 0 ? Double.NaN : xValues[head];
+	}
+
+	/* (non-Javadoc)
+	 * @see org.jfree.data.DomainInfo#getDomainUpperBound(boolean)
+	 */
+	public double getDomainUpperBound(boolean includeInterval) {
+		return count == 0 ? Double.NaN : xValues[position(count - 1)];
+	}
+
+	/* (non-Javadoc)
+	 * @see org.jfree.data.DomainInfo#getDomainBounds(boolean)
+	 */
+	public Range getDomainBounds(boolean includeInterval) {
+		if (count == 0) {
+			return null;
+		}
+		return new Range(getDomainLowerBound(includeInterval),
+				getDomainUpperBound(includeInterval));
+	}
+
+	/**
+	 * Gets the position in ring of item.
+	 *
+	 * @param item the index of item
+	 * @return the position
+	 */
+	private int position(int item) {
+		return (head + item) % capacity;
+	}
+
+	/**
+	 * Gets the index of series, new series is added with NaN values.
+	 *
+	 * @param seriesName the name of series
+	 * @return the index
+	 */
+	private int getSeriesIndex(String seriesName) {
+		Integer series = seriesIndex.get(seriesName);
+		if (series == null) {
+			double[] values = new double[capacity];
+			Arrays.fill(values, Double.NaN);
+			yValues.add(values);
+			seriesKeys.add(seriesName);
+			series = seriesKeys.size() - 1;
+			seriesIndex.put(seriesName, series);
+		}
+		return series;
+	}
+
+	/**
+	 * Append item after the last one, the first item is dropped when
+	 * dataset is full.
+	 *
+	 * @param x the x value
+	 * @return the index of item
+	 */
+	private int append(double x) {
+		if (count == capacity) {
+			head = (head + 1) % capacity;
+			count--;
+		}
+		int pos = position(count);
+		xValues[pos] = x;
+		for (int i = 0; i < yValues.size(); i++) {
+			yValues.get(i)[pos] = Double.NaN;
+		}
+		return count++;
+	}
+
+	/**
+	 * Insert item before item of index (items after it are moved).
+	 *
+	 * @param item the index of item
+	 * @param x the x value
+	 * @return the index of inserted item, -1 if dataset is full and
+	 *         x is before the first item
+	 */
+	private int insert(int item, double x) {
+		if (count == capacity) {
+			if (item == 0) {
+				return -1;
+			}
+			head = (head + 1) % capacity;
+			count--;
+			item--;
+		}
+		for (int i = count; i > item; i--) {
+			int to = position(i);
+			int from = position(i - 1);
+			xValues[to] = xValues[from];
+			for (int j = 0; j < yValues.size(); j++) {
+				double[] values = yValues.get(j);
+				values[to] = values[from];
+			}
+		}
+		int pos = position(item);
+		xValues[pos] = x;
+		for (int j = 0; j < yValues.size(); j++) {
+			yValues.get(j)[pos] = Double.NaN;
+		}
+		count++;
+		return item;
+	}
+
+	/**
+	 * Find item by x value (binary search).
+	 *
+	 * @param x the x value
+	 * @return the index of item, or (-(insertion point) - 1)
+	 */
+	private int find(double x) {
+		int low = 0;
+		int high = count - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			double midX = xValues[position(mid)];
+			if (midX < x) {
+				low = mid + 1;
+			} else if (midX > x) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -(low + 1);
+	}
+}
@@ -0,0 +1,138 @@
+/*
+ *-------------------
+ * The ThroughputCounter.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.util;
+
+/**
+ * The Class ThroughputCounter (rows per second of load).
+ */
+public class ThroughputCounter {
+
+	/** The name of counter. */
+	private String name;
+
+	/** The count of rows, total. */
+	private long totalRows = 0;
+
+	/** The time of load, total (nanosec). */
+	private long totalNanos = 0;
+
+	/** The count of rows, last load. */
+	private long lastRows = 0;
+
+	/** The time of last load (nanosec). */
+	private long lastNanos = 0;
+
+	/** The count of loads. */
+	private long count = 0;
+
+	/**
+	 * Instantiates a new throughput counter.
+	 *
+	 * @param name the name
+	 */
+	public ThroughputCounter(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Add result of one load.
+	 *
+	 * @param rows the count of rows
+	 * @param nanos the time of load (nanosec)
+	 */
+	public synchronized void add(long rows, long nanos) {
+		this.lastRows = rows;
+		this.lastNanos = nanos;
+		this.totalRows += rows;
+		this.totalNanos += nanos;
+		this.count++;
+	}
+
+	/**
+	 * Gets the rows per second of last load.
+	 *
+	 * @return the rows per second
+	 */
+	public synchronized double getLastRowsPerSec() {
+		return getRowsPerSec(lastRows, lastNanos);
+	}
+
+	/**
+	 * Gets the rows per second of all loads.
+	 *
+	 * @return the rows per second
+	 */
+	public synchronized double getRowsPerSec() {
+		return getRowsPerSec(totalRows, totalNanos);
+	}
+
+	/**
+	 * Gets the time of last load (millisec).
+	 *
+	 * @return the time
+	 */
+	public synchronized double getLastMillis() {
+		return lastNanos / 1000000.0;
+	}
+
+	/**
+	 * Gets the count of rows, total.
+	 *
+	 * @return the count of rows
+	 */
+	public synchronized long getTotalRows() {
+		return totalRows;
+	}
+
+	/**
+	 * Gets the count of loads.
+	 *
+	 * @return the count of loads
+	 */
+	public synchronized long getCount() {
+		return count;
+	}
+
+	/**
+	 * Rows per second.
+	 *
+	 * @param rows the rows
+	 * @param nanos the nanos
+	 * @return the rows per second
+	 */
+	private double getRowsPerSec(long rows, long nanos) {
+		if (nanos == 0){
+			return 0.0;
+		}
+		return rows * 1000000000.0 / nanos;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	public synchronized String toString() {
+		return name + ": last " + lastRows + " rows, "
+			+ Utils.round(getLastMillis(), 1) + " ms, "
+			+ Utils.round(getLastRowsPerSec(), 0) + " rows/sec; total "
+			+ totalRows + " rows, " + Utils.round(getRowsPerSec(), 0) + " rows/sec";
+	}
+}
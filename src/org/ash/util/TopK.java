@@ -0,0 +1,207 @@
+/*
+ *-------------------
+ * The TopK.java is part of ASH Viewer
+ *-------------------
+ *
+ * ASH Viewer is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ASH Viewer is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with ASH Viewer.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (c) 2009, Alex Kardapolov, All rights reserved.
+ *
+ */
+package org.ash.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * The Class TopK.
+ *
+ * Selection of k largest values by bounded min heap, O(n log k).
+ * Order is deterministic: values in desc order, equal values in asc
+ * order of names (as in Utils.sortHashMapByValues before).
+ */
+public class TopK {
+
+	/**
+	 * Select indexes of k largest values.
+	 * Value of item i is values[offset + i * stride].
+	 *
+	 * @param values the values
+	 * @param offset the offset of first value
+	 * @param stride the distance between values of items
+	 * @param names the names of items (for equal values)
+	 * @param k the max count of items
+	 * @return the indexes of items in desc order of values
+	 */
+	public static int[] select(double[] values, int offset, int stride,
+			List<String> names, int k) {
+		int n = names.size();
+		k = Math.min(k, n);
+		if (k <= 0) {
+			return new int[0];
+		}
+
+		int[] heap = new int[k];
+		int size = 0;
+		for (int i = 0; i < n; i++) {
+			if (size < k) {
+				heap[size] = i;
+				siftUp(heap, size, values, offset, stride, names);
+				size++;
+			} else if (isLess(heap[0], i, values, offset, stride, names)) {
+				heap[0] = i;
+				siftDown(heap, size, values, offset, stride, names);
+			}
+		}
+
+		// Heap sort: the least item goes to the end
+		int[] out = new int[size];
+		for (int j = size - 1; j >= 0; j--) {
+			out[j] = heap[0];
+			heap[0] = heap[j];
+			siftDown(heap, j, values, offset, stride, names);
+		}
+		return out;
+	}
+
+	/**
+	 * Top k of map by value of key0 (COUNT or SUM) in inner map.
+	 * Passed map is not changed.
+	 *
+	 * @param passedMap the passed map
+	 * @param key0 the key of value
+	 * @param k the max count of entries
+	 * @return the LinkedHashMap in desc order
+	 */
+	public static LinkedHashMap<String, HashMap<String, Object>> top(
+			Map<String, HashMap<String, Object>> passedMap, String key0, int k) {
+		List<String> names = new ArrayList<String>(passedMap.size());
+		double[] values = new double[passedMap.size()];
+		int i = 0;
+		for (Entry<String, HashMap<String, Object>> me : passedMap.entrySet()) {
+			names.add(me.getKey());
+			values[i++] = toDouble(me.getValue().get(key0));
+		}
+
+		int[] top = select(values, 0, 1, names, k);
+
+		LinkedHashMap<String, HashMap<String, Object>> sortedMap =
+			new LinkedHashMap<String, HashMap<String, Object>>();
+		for (int j = 0; j < top.length; j++) {
+			String key = names.get(top[j]);
+			sortedMap.put(key, passedMap.get(key));
+		}
+		return sortedMap;
+	}
+
+	/**
+	 * Top k of map by values. Passed map is not changed.
+	 *
+	 * @param passedMap the passed map
+	 * @param k the max count of entries
+	 * @return the LinkedHashMap in desc order
+	 */
+	public static LinkedHashMap<String, Double> top(
+			Map<String, Double> passedMap, int k) {
+		List<String> names = new ArrayList<String>(passedMap.size());
+		double[] values = new double[passedMap.size()];
+		int i = 0;
+		for (Entry<String, Double> me : passedMap.entrySet()) {
+			names.add(me.getKey());
+			values[i++] = toDouble(me.getValue());
+		}
+
+		int[] top = select(values, 0, 1, names, k);
+
+		LinkedHashMap<String, Double> sortedMap = new LinkedHashMap<String, Double>();
+		for (int j = 0; j < top.length; j++) {
+			String key = names.get(top[j]);
+			sortedMap.put(key, passedMap.get(key));
+		}
+		return sortedMap;
+	}
+
+	/**
+	 * Checks if item a is ranked below item b.
+	 *
+	 * @return true, if value of a is less or values are equal and name of a is greater
+	 */
+	private static boolean isLess(int a, int b, double[] values, int offset,
+			int stride, List<String> names) {
+		double va = values[offset + a * stride];
+		double vb = values[offset + b * stride];
+		if (va != vb) {
+			return va < vb;
+		}
+		return names.get(a).compareTo(names.get(b)) > 0;
+	}
+
+	/**
+	 * Sift up last item of min heap.
+	 */
+	private static void siftUp(int[] heap, int pos, double[] values,
+			int offset, int stride, List<String> names) {
+		int item = heap[pos];
+		while (pos > 0) {
+			int parent = (pos - 1) >>> 1;
+			if (!isLess(item, heap[parent], values, offset, stride, names)) {
+				break;
+			}
+			heap[pos] = heap[parent];
+			pos = parent;
+		}
+		heap[pos] = item;
+	}
+
+	/**
+	 * Sift down first item of min heap.
+	 */
+	private static void siftDown(int[] heap, int size, double[] values,
+			int offset, int stride, List<String> names) {
+		if (size == 0) {
+			return;
+		}
+		int item = heap[0];
+		int pos = 0;
+		int half = size >>> 1;
+		while (pos < half) {
+			int child = 2 * pos + 1;
+			int right = child + 1;
+			if (right < size
+					&& isLess(heap[right], heap[child], values, offset, stride, names)) {
+				child = right;
+			}
+			if (!isLess(heap[child], item, values, offset, stride, names)) {
+				break;
+			}
+			heap[pos] = heap[child];
+			pos = child;
+		}
+		heap[pos] = item;
+	}
+
+	/**
+	 * Value as double, null is the least.
+	 *
+	 * @param value the value
+	 * @return the double
+	 */
+	private static double toDouble(Object value) {
+		return value == null ? Double.NEGATIVE_INFINITY : ((Number) value).doubleValue();
+	}
+}
@@ -26,13 +26,12 @@ import java.awt.datatransfer.StringSelection;
 import java.io.File;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.Map.Entry;
 
 import org.joda.time.DateTime;
@@ -76,40 +75,7 @@ public class Utils {
 	 */
 	static public LinkedHashMap<String, HashMap<String, Object>> sortHashMapByValues(
 			HashMap<String, HashMap<String, Object>> passedMap, String key0) {
-
-		List mapKeys = new ArrayList();
-		List mapValues = new ArrayList();
-
-		for (Entry<String, HashMap<String, Object>> me : passedMap.entrySet()) {
-			mapKeys.add(me.getKey());
-			mapValues.add(me.getValue().get(key0));
-		}
-
-		Collections.sort(mapValues);
-		Collections.sort(mapKeys);
-		Collections.reverse(mapValues);
-
-		LinkedHashMap<String, HashMap<String, Object>> sortedMap = new LinkedHashMap<String, HashMap<String, Object>>();
-
-		Iterator valueIt = mapValues.iterator();
-		while (valueIt.hasNext()) {
-			Object val = valueIt.next();
-			Iterator keyIt = mapKeys.iterator();
-
-			while (keyIt.hasNext()) {
-				Object key = keyIt.next();
-				String comp1 = passedMap.get(key).get(key0).toString();
-				String comp2 = val.toString();
-
-				if (comp1.equals(comp2)) {
-					sortedMap.put((String) key, passedMap.get(key));
-					passedMap.remove(key);
-					mapKeys.remove(key);
-					break;
-				}
-			}
-		}
-		return sortedMap;
+		return TopK.top(passedMap, key0, passedMap.size());
 	}
 		
 	/**
@@ -120,33 +86,7 @@ public class Utils {
 	 */
 	static public LinkedHashMap sortHashMapByValuesDesc(
 			HashMap<String, Double> passedMap) {
-		List mapKeys = new ArrayList(passedMap.keySet());
-		List mapValues = new ArrayList(passedMap.values());
-		Collections.sort(mapValues);
-		Collections.sort(mapKeys);
-		Collections.reverse(mapValues);
-
-		LinkedHashMap sortedMap = new LinkedHashMap();
-
-		Iterator valueIt = mapValues.iterator();
-		while (valueIt.hasNext()) {
-			Object val = valueIt.next();
-			Iterator keyIt = mapKeys.iterator();
-
-			while (keyIt.hasNext()) {
-				Object key = keyIt.next();
-				String comp1 = passedMap.get(key).toString();
-				String comp2 = val.toString();
-
-				if (comp1.equals(comp2)) {
-					passedMap.remove(key);
-					mapKeys.remove(key);
-					sortedMap.put(key, val);
-					break;
-				}
-			}
-		}
-		return sortedMap;
+		return TopK.top(passedMap, passedMap.size());
 	}
 	   
 	/**
@@ -272,27 +212,34 @@ public class Utils {
 	}
 
 	/**
-	 * Set current clipboard content.
+	 * Set current clipboard content, if copy of sql to clipboard is on.
 	 * 
 	 * @param content
-	 * @param owner
-	 * @return 
 	 */
 	static public void setClipBoardContent(String content) {
 		if (Options.getInstance().isCopySqlToClibpoard()) {
-			StringSelection ssContent = new StringSelection(content.toString());
-			StringSelection ssOwner = new StringSelection("ASH Viewer");
-			// Clear clipboard
+			copyToClipboard(content);
+		}
+	}
+	
+	/**
+	 * Copy content to clipboard (explicit action of user).
+	 * 
+	 * @param content
+	 */
+	static public void copyToClipboard(String content) {
+		StringSelection ssContent = new StringSelection(content.toString());
+		StringSelection ssOwner = new StringSelection("ASH Viewer");
+		// Clear clipboard
+		Toolkit.getDefaultToolkit().getSystemClipboard().setContents(
+				new StringSelection(" "), ssOwner);
+		// Load data to clipboard
+		try {
 			Toolkit.getDefaultToolkit().getSystemClipboard().setContents(
-					new StringSelection(" "), ssOwner);
-			// Load data to clipboard
-			try {
-				Toolkit.getDefaultToolkit().getSystemClipboard().setContents(
-						ssContent, ssOwner);
-			} catch (Exception e) {
-				// TODO Auto-generated catch block
-				System.out.println("System clipboard is busy.");
-			}
+					ssContent, ssOwner);
+		} catch (Exception e) {
+			// TODO Auto-generated catch block
+			System.out.println("System clipboard is busy.");
 		}
 	}
 	
@@ -331,58 +278,6 @@ public class Utils {
 		    return(dir.delete());
 	}
 		
-	/**
-	 * Get levels of all nodes of sql plan tree.
-	 * @param idParentId
-	 * @return
-	 */
-	static public HashMap<Long,Long> getLevels(HashMap<Long,Long> idParentId){
-		long rootLevel = 1;
-		HashMap<Long, Long> idLevel = new HashMap<Long, Long>();
-		Set entries = idParentId.entrySet();
-		Iterator it = entries.iterator();
-		while (it.hasNext()) {
-			Map.Entry entry = (Map.Entry) it.next();
-			Long key = (Long) entry.getKey();
-			Long value = (Long) entry.getValue();
-			if (key==0){
-				idLevel.put(key, rootLevel);
-			} else {
-				idLevel.put(key, getLevel(idParentId,key));
-			}
-		}
-		
-		return idLevel;
-	}
-	
-	/**
-	 * Get node level.
-	 * @param idParentId
-	 * @param id
-	 * @return
-	 */
-	static private Long getLevel (HashMap<Long,Long> idParentId, Long id){
-		long level = 0;
-		Set entries = idParentId.entrySet();
-		Iterator it = entries.iterator();
-		while (it.hasNext()) {
-			Map.Entry entry = (Map.Entry) it.next();
-			Long key = (Long) entry.getKey();
-			Long value = (Long) entry.getValue();
-			if (key == id){
-				if (value != -1){
-				   if (value ==0){
-					   level = 2 + getLevel(idParentId, value);
-				   } else {
-					   level = 1 + getLevel(idParentId, value);
-				   }
-				}
-			} 
-		}
-		
-		return level;
-	}
-	
 	/**
 	 * Returns a string with HTML special characters replaced by their entity
 	 * equivalents.
@@ -447,4 +342,34 @@ public class Utils {
 		return out;
 	}
 	
+	/** The wait class ids, sorted (for binary search). */
+	private static final double[] WAIT_CLASS_IDS = {
+		644977587.0,  //Queueing 12
+		1740759767.0, //User IO 8
+		1893977003.0, //Other 0
+		2000153315.0, //Network 7
+		2396326234.0, //Scheduler 10
+		3290255840.0, //Configuration 2
+		3386400367.0, //Commit 5
+		3871361733.0, //Cluster 11
+		3875070507.0, //Concurrency 4
+		4108307767.0, //System IO 9
+		4166625743.0, //Administrative 3
+		4217450380.0  //Application 1
+	};
+	
+	/** The index of wait class by position in WAIT_CLASS_IDS. */
+	private static final int[] WAIT_CLASS_INDEXES = {12, 8, 0, 7, 10, 2, 5, 11, 4, 9, 3, 1};
+	
+	/**
+	 * Get index of wait class (0..12, as in ActiveSessionHistory15) by wait class id.
+	 * 
+	 * @param waitClassId the wait class id
+	 * @return index of wait class or -1 (unknown or idle)
+	 */
+	public static int getWaitClassIndex(double waitClassId){
+		int i = Arrays.binarySearch(WAIT_CLASS_IDS, waitClassId);
+		return i < 0 ? -1 : WAIT_CLASS_INDEXES[i];
+	}
+	
 }